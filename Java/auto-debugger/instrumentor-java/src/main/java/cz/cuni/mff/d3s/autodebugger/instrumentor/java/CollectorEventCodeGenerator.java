@@ -0,0 +1,357 @@
+package cz.cuni.mff.d3s.autodebugger.instrumentor.java;
+
+import cz.cuni.mff.d3s.autodebugger.instrumentor.common.modelling.InstrumentationModel;
+import cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling.DiSLClass;
+import cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling.ShadowDiSLInstrumentationLogic;
+import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.JavaValueIdentifier;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the batched event methods of CollectorRE and the matching Collector handlers.
+ * Every instrumentation hook sends all values of a probe hit in one analysis call of a method
+ * specialized to the types of its values, e.g. {@code collectEvent_IJLString}. Hooks with the
+ * same value types share a method; the hook ID sent first tells the Collector the event kind
+ * and the slot IDs of the values. Handlers write the values of an event and complete its row
+ * under the trace lock of the Collector, so its periodic flush never sees a partly written row.
+ *
+ * <p>Dispatch methods also feed the distinct-value filter of CollectorRE: {@code HOOK_FILTERS}
+ * maps every value of a hook to the filter of its slot, so a slot exported by both hooks shares
+ * one filter. Every event carries skip masks after the hook ID, one bit per value, that mark the
+ * values of slots saturated by the distinct-value cap; such values are neither encoded nor
+ * recorded, while the other values of the event still are.
+ *
+ * <p>In flight recorder mode dispatch methods only store their values in the ring buffer of the
+ * thread, with objects encoded right away; {@code replayEvent} sends a stored event later through
+ * the same sender as a live one.
+ */
+public class CollectorEventCodeGenerator {
+  private final List<ShadowDiSLInstrumentationLogic> hooks;
+
+  public CollectorEventCodeGenerator(List<ShadowDiSLInstrumentationLogic> hooks) {
+    this.hooks = hooks;
+  }
+
+  /**
+   * Collects the hooks of a DiSL model. Other models have no hooks.
+   */
+  public static CollectorEventCodeGenerator forModel(InstrumentationModel model) {
+    if (!(model.getRootClass() instanceof DiSLClass dislClass)) {
+      return new CollectorEventCodeGenerator(List.of());
+    }
+    return new CollectorEventCodeGenerator(dislClass.getInstrumentationMethods().stream()
+        .filter(ShadowDiSLInstrumentationLogic.class::isInstance)
+        .map(ShadowDiSLInstrumentationLogic.class::cast)
+        .filter(hook -> !hook.getExports().isEmpty())
+        .toList());
+  }
+
+  /**
+   * Emits the registration and the dispatch method of every distinct hook signature for CollectorRE.
+   */
+  public String emitDispatchMethods() {
+    StringBuilder code = new StringBuilder();
+    emitFilterTables(code);
+    emitRecorderLayout(code);
+    for (var entry : signatures().entrySet()) {
+      String method = entry.getKey();
+      List<String> codes = entry.getValue();
+      code.append("  private static short ").append(method).append("Id = registerMethodWithDebug(\"Collector.")
+          .append(method).append("\");\n\n");
+      code.append("  public static void ").append(method).append("(final int hookId");
+      appendParameters(code, codes);
+      code.append(") {\n");
+      // A flight recorder keeps the event in the thread's ring buffer until it is flushed
+      code.append("    if (FLIGHT_RECORDER) {\n");
+      code.append("      final FlightRecorder recorder = RECORDER.get();\n");
+      code.append("      final int at = recorder.claim(hookId);\n");
+      for (int i = 0; i < codes.size(); i++) {
+        code.append("      ").append(recordCall(codes.get(i), i)).append(";\n");
+      }
+      code.append("      return;\n");
+      code.append("    }\n");
+      // Events whose values were all seen before carry nothing new for a distinct-value trace
+      // Values of saturated slots are skipped, the others are recorded as long as one of them is new
+      int maskCount = maskCount(codes.size());
+      for (int word = 0; word < maskCount; word++) {
+        code.append("    long skip").append(word).append(" = 0L;\n");
+      }
+      code.append("    if (DISTINCT_FILTER) {\n");
+      code.append("      if (isHookSaturated(hookId)) {\n        return;\n      }\n");
+      code.append("      final int[] filters = HOOK_FILTERS[hookId];\n");
+      code.append("      boolean fresh = false;\n");
+      for (int i = 0; i < codes.size(); i++) {
+        code.append("      if (isSaturated(filters[").append(i).append("])) {\n");
+        code.append("        skip").append(i / 64).append(" |= ").append(maskBit(i)).append(";\n");
+        code.append("      } else if (markSeen(filters[").append(i).append("], ").append(hashCall(codes.get(i), i)).append(")) {\n");
+        code.append("        fresh = true;\n");
+        code.append("      }\n");
+      }
+      code.append("      if (!fresh) {\n        return;\n      }\n");
+      code.append("    }\n");
+      // Objects are encoded before the analysis call is opened
+      for (int i = 0; i < codes.size(); i++) {
+        if (codes.get(i).equals("LObject")) {
+          code.append("    final String data").append(i).append(" = ").append(skipBit(i))
+              .append(" != 0 ? null : encodeForCollector(v").append(i).append(");\n");
+        }
+      }
+      code.append("    ").append(senderName(method)).append("(hookId");
+      for (int word = 0; word < maskCount; word++) {
+        code.append(", skip").append(word);
+      }
+      for (int i = 0; i < codes.size(); i++) {
+        code.append(codes.get(i).equals("LObject") ? ", data" : ", v").append(i);
+      }
+      code.append(");\n");
+      code.append("  }\n\n");
+
+      // Senders take objects already encoded, so recorded events are sent the same way
+      code.append("  private static void ").append(senderName(method)).append("(final int hookId");
+      appendMaskParameters(code, maskCount);
+      appendSenderParameters(code, codes);
+      code.append(") {\n");
+      code.append("    REDispatch.analysisStart(").append(method).append("Id);\n");
+      code.append("    REDispatch.sendInt(hookId);\n");
+      for (int word = 0; word < maskCount; word++) {
+        code.append("    REDispatch.sendLong(skip").append(word).append(");\n");
+      }
+      for (int i = 0; i < codes.size(); i++) {
+        code.append("    REDispatch.").append(sendCall(codes.get(i), i)).append(";\n");
+      }
+      code.append("    REDispatch.analysisEnd();\n");
+      code.append("  }\n\n");
+    }
+    emitReplayMethod(code);
+    return code.toString();
+  }
+
+  /**
+   * Emits the hook tables and the handler of every distinct hook signature for the Collector.
+   */
+  public String emitHandlers() {
+    int tableSize = hooks.stream().mapToInt(ShadowDiSLInstrumentationLogic::getHookId).max().orElse(-1) + 1;
+    String[] kinds = new String[tableSize];
+    String[] slots = new String[tableSize];
+    Arrays.fill(kinds, "EventFrame.KIND_BEFORE");
+    Arrays.fill(slots, "{ }");
+    for (ShadowDiSLInstrumentationLogic hook : hooks) {
+      kinds[hook.getHookId()] = hook.isBeforeEvent() ? "EventFrame.KIND_BEFORE" : "EventFrame.KIND_AFTER";
+      slots[hook.getHookId()] = hook.getExportedValueIdentifiers().stream()
+          .map(value -> String.valueOf(value.getInternalId()))
+          .reduce((a, b) -> a + ", " + b)
+          .map(ids -> "{ " + ids + " }")
+          .orElse("{ }");
+    }
+
+    StringBuilder code = new StringBuilder();
+    code.append("  private static final byte[] HOOK_KINDS = { ").append(String.join(", ", kinds)).append(" };\n");
+    code.append("  private static final int[][] HOOK_SLOTS = { ").append(String.join(", ", slots)).append(" };\n\n");
+    for (var entry : signatures().entrySet()) {
+      String method = entry.getKey();
+      List<String> codes = entry.getValue();
+      code.append("  public void ").append(method).append("(final int hookId");
+      appendMaskParameters(code, maskCount(codes.size()));
+      for (int i = 0; i < codes.size(); i++) {
+        code.append(", final ").append(handlerParameterType(codes.get(i))).append(" v").append(i);
+      }
+      code.append(") {\n");
+      code.append("    final int[] slots = HOOK_SLOTS[hookId];\n");
+      // The flush timer must not write the buffer between the values of an event
+      code.append("    synchronized (traceLock) {\n");
+      for (int i = 0; i < codes.size(); i++) {
+        // Values of slots saturated by the distinct-value cap are not recorded
+        code.append("      if (").append(skipBit(i)).append(" == 0) {\n");
+        code.append(putCall(codes.get(i), i).indent(4));
+        code.append("      }\n");
+      }
+      code.append("      completeEvent(HOOK_KINDS[hookId]);\n");
+      code.append("    }\n");
+      code.append("  }\n\n");
+    }
+    return code.toString();
+  }
+
+  private void emitFilterTables(StringBuilder code) {
+    int tableSize = hooks.stream().mapToInt(ShadowDiSLInstrumentationLogic::getHookId).max().orElse(-1) + 1;
+    String[] filters = new String[tableSize];
+    Arrays.fill(filters, "{ }");
+    Map<Integer, Integer> filterOfSlot = new LinkedHashMap<>();
+    for (ShadowDiSLInstrumentationLogic hook : hooks) {
+      filters[hook.getHookId()] = hook.getExportedValueIdentifiers().stream()
+          .map(value -> String.valueOf(filterOfSlot.computeIfAbsent(value.getInternalId(), slot -> filterOfSlot.size())))
+          .reduce((a, b) -> a + ", " + b)
+          .map(ids -> "{ " + ids + " }")
+          .orElse("{ }");
+    }
+    code.append("  private static final int FILTER_COUNT = ").append(filterOfSlot.size()).append(";\n");
+    code.append("  private static final int[][] HOOK_FILTERS = { ").append(String.join(", ", filters)).append(" };\n\n");
+  }
+
+  private void emitRecorderLayout(StringBuilder code) {
+    int stride = Math.max(1, hooks.stream().mapToInt(hook -> hook.getExports().size()).max().orElse(0));
+    boolean references = hooks.stream()
+        .flatMap(hook -> hook.getExportedValueIdentifiers().stream())
+        .anyMatch(value -> CollectorMethodRegistry.getSignatureCode(value).startsWith("L"));
+    code.append("  private static final int EVENT_STRIDE = ").append(stride).append(";\n");
+    code.append("  private static final boolean EVENT_REFERENCES = ").append(references).append(";\n\n");
+  }
+
+  private void emitReplayMethod(StringBuilder code) {
+    code.append("  private static void replayEvent(final int hookId, final long[] values, final String[] refs, final int at) {\n");
+    code.append("    switch (hookId) {\n");
+    for (ShadowDiSLInstrumentationLogic hook : hooks) {
+      List<JavaValueIdentifier> values = hook.getExportedValueIdentifiers();
+      code.append("      case ").append(hook.getHookId()).append(" -> ")
+          .append(senderName(CollectorMethodRegistry.getEventMethodName(values))).append("(hookId");
+      for (int word = 0; word < maskCount(values.size()); word++) {
+        code.append(", 0L");
+      }
+      for (int i = 0; i < values.size(); i++) {
+        code.append(", ").append(replayArgument(CollectorMethodRegistry.getSignatureCode(values.get(i)), i));
+      }
+      code.append(");\n");
+    }
+    code.append("      default -> { }\n");
+    code.append("    }\n");
+    code.append("  }\n\n");
+  }
+
+  private static void appendParameters(StringBuilder code, List<String> codes) {
+    for (int i = 0; i < codes.size(); i++) {
+      code.append(", final ").append(dispatchParameterType(codes.get(i))).append(" v").append(i);
+    }
+  }
+
+  /**
+   * Appends the parameters of a sender, which takes objects as their encoded snapshots.
+   */
+  private static void appendSenderParameters(StringBuilder code, List<String> codes) {
+    for (int i = 0; i < codes.size(); i++) {
+      if (codes.get(i).equals("LObject")) {
+        code.append(", final String data").append(i);
+      } else {
+        code.append(", final ").append(dispatchParameterType(codes.get(i))).append(" v").append(i);
+      }
+    }
+  }
+
+  private static void appendMaskParameters(StringBuilder code, int maskCount) {
+    for (int word = 0; word < maskCount; word++) {
+      code.append(", final long skip").append(word);
+    }
+  }
+
+  /**
+   * Returns the number of skip masks of an event with the given number of values, one bit per value.
+   */
+  private static int maskCount(int valueCount) {
+    return (valueCount + 63) / 64;
+  }
+
+  private static String maskBit(int index) {
+    return index % 64 == 0 ? "1L" : "(1L << " + index % 64 + ")";
+  }
+
+  /**
+   * Returns the skip mask bit of the value with the given index, zero unless the value is skipped.
+   */
+  private static String skipBit(int index) {
+    return "(skip" + index / 64 + " & " + maskBit(index) + ")";
+  }
+
+  private static String senderName(String method) {
+    return "send" + capitalize(method);
+  }
+
+  private Map<String, List<String>> signatures() {
+    Map<String, List<String>> signatures = new LinkedHashMap<>();
+    for (ShadowDiSLInstrumentationLogic hook : hooks) {
+      List<JavaValueIdentifier> values = hook.getExportedValueIdentifiers();
+      signatures.putIfAbsent(CollectorMethodRegistry.getEventMethodName(values),
+          values.stream().map(CollectorMethodRegistry::getSignatureCode).toList());
+    }
+    return signatures;
+  }
+
+  private static String dispatchParameterType(String code) {
+    return switch (code) {
+      case "LString" -> "String";
+      case "LObject" -> "Object";
+      default -> primitiveType(code);
+    };
+  }
+
+  private static String handlerParameterType(String code) {
+    return code.startsWith("L") ? "ShadowObject" : primitiveType(code);
+  }
+
+  private static String sendCall(String code, int index) {
+    return switch (code) {
+      case "LString" -> "sendObjectPlusData(" + skipBit(index) + " != 0 ? null : v" + index + ")";
+      case "LObject" -> "sendObjectPlusData(data" + index + ")";
+      default -> "send" + capitalize(primitiveType(code)) + "(v" + index + ")";
+    };
+  }
+
+  private static String recordCall(String code, int index) {
+    String element = "[at" + (index == 0 ? "" : " + " + index) + "] = ";
+    String value = "v" + index;
+    return switch (code) {
+      case "LString" -> "recorder.refs" + element + value;
+      case "LObject" -> "recorder.refs" + element + "recorder.encode(" + value + ")";
+      case "F" -> "recorder.values" + element + "Float.floatToRawIntBits(" + value + ")";
+      case "D" -> "recorder.values" + element + "Double.doubleToRawLongBits(" + value + ")";
+      case "Z" -> "recorder.values" + element + value + " ? 1L : 0L";
+      default -> "recorder.values" + element + value;
+    };
+  }
+
+  private static String replayArgument(String code, int index) {
+    String element = "[at" + (index == 0 ? "" : " + " + index) + "]";
+    return switch (code) {
+      case "LString", "LObject" -> "refs" + element;
+      case "J" -> "values" + element;
+      case "F" -> "Float.intBitsToFloat((int) values" + element + ")";
+      case "D" -> "Double.longBitsToDouble(values" + element + ")";
+      case "Z" -> "values" + element + " != 0";
+      default -> "(" + primitiveType(code) + ") values" + element;
+    };
+  }
+
+  private static String hashCall(String code, int index) {
+    return code.equals("LObject") ? "hashObject(v" + index + ")" : "hashValue(v" + index + ")";
+  }
+
+  private static String putCall(String code, int index) {
+    return switch (code) {
+      case "LString" -> "    columns.putString(slots[" + index + "], toJavaString(v" + index + "));\n";
+      case "LObject" -> "    final ObjectSnapshot snapshot" + index + " = toSnapshot(v" + index + ");\n"
+          + "    if (snapshot" + index + " != null) {\n"
+          + "      columns.putObject(slots[" + index + "], snapshot" + index + ");\n"
+          + "    }\n";
+      default -> "    columns.put" + capitalize(primitiveType(code)) + "(slots[" + index + "], v" + index + ");\n";
+    };
+  }
+
+  private static String primitiveType(String code) {
+    return switch (code) {
+      case "B" -> "byte";
+      case "C" -> "char";
+      case "S" -> "short";
+      case "I" -> "int";
+      case "J" -> "long";
+      case "F" -> "float";
+      case "D" -> "double";
+      case "Z" -> "boolean";
+      default -> throw new IllegalArgumentException("Unknown signature code: " + code);
+    };
+  }
+
+  private static String capitalize(String type) {
+    return Character.toUpperCase(type.charAt(0)) + type.substring(1);
+  }
+}
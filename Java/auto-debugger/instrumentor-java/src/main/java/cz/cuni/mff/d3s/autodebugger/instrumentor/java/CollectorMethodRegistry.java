@@ -2,7 +2,9 @@ package cz.cuni.mff.d3s.autodebugger.instrumentor.java;
 
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.JavaValueIdentifier;
 
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class CollectorMethodRegistry {
     private static final Map<String, String> collectorMethods = Map.of(
@@ -17,7 +19,37 @@ public class CollectorMethodRegistry {
             "java.lang.String", "collectString"
     );
 
+    private static final Map<String, String> signatureCodes = Map.of(
+            "byte", "B",
+            "char", "C",
+            "short", "S",
+            "int", "I",
+            "long", "J",
+            "float", "F",
+            "double", "D",
+            "boolean", "Z",
+            "java.lang.String", "LString"
+    );
+
     public static String getCollectorMethodName(JavaValueIdentifier value) {
         return collectorMethods.getOrDefault(value.getType(), "collectObject");
     }
+
+    /**
+     * Returns the code of the value in batched event method names: the JVM descriptor letter
+     * for primitives, {@code LString} for strings and {@code LObject} for everything else.
+     */
+    public static String getSignatureCode(JavaValueIdentifier value) {
+        return signatureCodes.getOrDefault(value.getType(), "LObject");
+    }
+
+    /**
+     * Returns the name of the batched event method collecting the given values in one call,
+     * e.g. {@code collectEvent_IJLString} for an int, a long and a String.
+     */
+    public static String getEventMethodName(List<? extends JavaValueIdentifier> values) {
+        return values.stream()
+                .map(CollectorMethodRegistry::getSignatureCode)
+                .collect(Collectors.joining("", "collectEvent_", ""));
+    }
 }
@@ -215,9 +215,32 @@ public class DiSLCompiler {
         // Classes to embed with their full package paths
         String[] classEntries = {
             "cz/cuni/mff/d3s/autodebugger/model/common/trace/Trace.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/TraceStore.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/PrimitiveTraceStore.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/PrimitiveTraceStore$SlotValues.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/PrimitiveTraceStore$IntView.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/PrimitiveTraceStore$IntView$1.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/PrimitiveTraceStore$LongView.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/PrimitiveTraceStore$LongView$1.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/IntHashSet.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/IntHashSet$1.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/LongHashSet.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/LongHashSet$1.class",
             "cz/cuni/mff/d3s/autodebugger/model/common/trace/IndexedTrace.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/SlotHistory.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/StringDictionary.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/SlotHistoryView.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/SlotHistoryView$1.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/SlotHistoryView$1$1.class",
             "cz/cuni/mff/d3s/autodebugger/model/common/trace/ObjectSnapshot.class",
-            "cz/cuni/mff/d3s/autodebugger/model/common/trace/JsonObjectParser.class"
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/JsonObjectParser.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/TraceFileWriter.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/TraceFileWriter$ByteSink.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/InvocationColumns.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/InvocationColumns$Column.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/EventFrame.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/BinarySnapshotDecoder.class",
+            "cz/cuni/mff/d3s/autodebugger/model/common/trace/BinarySnapshotDecoder$ThreadState.class"
         };
 
         // Find model-common JAR from the classpath we already resolve
@@ -2,8 +2,11 @@ package cz.cuni.mff.d3s.autodebugger.instrumentor.java;
 
 import cz.cuni.mff.d3s.autodebugger.instrumentor.common.Instrumentor;
 import cz.cuni.mff.d3s.autodebugger.instrumentor.common.modelling.InstrumentationModel;
+import cz.cuni.mff.d3s.autodebugger.model.common.CapturePolicy;
 import cz.cuni.mff.d3s.autodebugger.model.common.TempPathResolver;
+import cz.cuni.mff.d3s.autodebugger.model.common.TraceMode;
 import cz.cuni.mff.d3s.autodebugger.model.common.artifacts.InstrumentationResult;
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.TraceFileWriter;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -70,10 +73,13 @@ public class DiSLInstrumentor implements Instrumentor {
         var identifierMapping = serializeIdentifiers(identifiersBaseDir);
         var templateHandler = new JavaTemplateHandler(new JavaTemplateTransformer("${%s}"));
 
-        // Ensure the Collector.jt template and CollectorRE.java are available in the output directory
+        // Ensure the Collector.jt and CollectorRE.jt templates are available in the output directory
         Path collectorTemplate = effectiveGeneratedCodeDir.resolve("Collector.jt");
         copyResourceTo(collectorTemplate, "/templates/java/disl-analysis/Collector.jt");
-        copyResourceTo(effectiveGeneratedCodeDir.resolve("CollectorRE.java"), "/templates/java/disl-analysis/CollectorRE.java");
+        Path collectorRETemplate = effectiveGeneratedCodeDir.resolve("CollectorRE.jt");
+        copyResourceTo(collectorRETemplate, "/templates/java/disl-analysis/CollectorRE.jt");
+        var eventCodeGenerator = CollectorEventCodeGenerator.forModel(model);
+        var capturePolicy = Optional.ofNullable(runConfiguration.getCapturePolicy()).orElse(CapturePolicy.ALL);
 
         Path tracesBaseDir = Optional.ofNullable(System.getenv("AUTODEBUGGER_TRACES_DIR"))
                 .map(Path::of)
@@ -91,7 +97,22 @@ public class DiSLInstrumentor implements Instrumentor {
                 Pair.with("PATH", identifierMapping.toAbsolutePath().toString()),
                 Pair.with("TRACE_PATH", traceFilePath.toAbsolutePath().toString()),
                 Pair.with("TRACE_MODE", runConfiguration.getTraceMode().name().toLowerCase()),
-                Pair.with("PARAM_COUNT", String.valueOf(runConfiguration.getExportableValues().size())));
+                Pair.with("TRACE_CHUNK_SIZE", String.valueOf(runConfiguration.getTraceChunkSize())),
+                Pair.with("TRACE_FLUSH_INTERVAL_MS", runConfiguration.getTraceFlushIntervalMillis() + "L"),
+                Pair.with("EVENT_HANDLERS", eventCodeGenerator.emitHandlers()));
+        templateHandler.transformFile(
+                collectorRETemplate,
+                effectiveGeneratedCodeDir.resolve("CollectorRE.java"),
+                Pair.with("EVENT_METHODS", eventCodeGenerator.emitDispatchMethods()),
+                Pair.with("CAPTURE_POLICY", "CAPTURE_" + capturePolicy.getKind().name()),
+                Pair.with("CAPTURE_COUNT", capturePolicy.getCount() + "L"),
+                Pair.with("CAPTURE_PROBABILITY", String.valueOf(capturePolicy.getProbability())),
+                Pair.with("CAPTURE_SEED", capturePolicy.getSeed() + "L"),
+                // Only NAIVE traces reduce every slot to its distinct values
+                Pair.with("DISTINCT_FILTER", String.valueOf(runConfiguration.getTraceMode() == TraceMode.NAIVE)),
+                Pair.with("DISTINCT_VALUE_CAP", String.valueOf(runConfiguration.getMaxDistinctValuesPerSlot())),
+                Pair.with("FLIGHT_RECORDER", String.valueOf(runConfiguration.getTraceMode() == TraceMode.FLIGHT_RECORDER)),
+                Pair.with("FLIGHT_RECORDER_INVOCATIONS", String.valueOf(runConfiguration.getFlightRecorderInvocations())));
         var instrumentationJarPath = generateDiSLClass(effectiveGeneratedCodeDir, model)
                 .flatMap(p -> compileDiSLClass(p, effectiveJarPath))
                 .orElseThrow();
@@ -165,7 +186,7 @@ public class DiSLInstrumentor implements Instrumentor {
             }
             String runId = java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")
                     .format(java.time.LocalDateTime.now()) + "-" + java.util.UUID.randomUUID();
-            String fileName = String.format("trace-%s.ser", runId);
+            String fileName = "trace-" + runId + TraceFileWriter.FILE_EXTENSION;
             return outputDirectory.resolve(fileName);
         } catch (IOException e) {
             log.error("Failed to create trace file path", e);
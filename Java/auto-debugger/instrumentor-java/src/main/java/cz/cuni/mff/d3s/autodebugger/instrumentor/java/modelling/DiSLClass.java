@@ -16,6 +16,8 @@ public class DiSLClass extends Metaclass {
   private final String CLASS_NAME = "DiSLClass";
   protected List<DiSLInstrumentationLogic> instrumentationMethods;
   private List<JavaPackageImport> imports;
+  @Builder.Default
+  private List<DiSLSyntheticLocal> syntheticLocals = List.of();
 
   @Override
   public String emitCode() {
@@ -24,6 +26,9 @@ public class DiSLClass extends Metaclass {
       append("\n");
     }
     append("\npublic class " + CLASS_NAME + " {\n");
+    for (DiSLSyntheticLocal local : syntheticLocals) {
+      append(local.emitCode());
+    }
     for (DiSLInstrumentationLogic method : instrumentationMethods) {
       append(method.emitCode());
     }
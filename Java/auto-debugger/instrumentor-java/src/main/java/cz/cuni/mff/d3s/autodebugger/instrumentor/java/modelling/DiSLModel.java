@@ -1,11 +1,14 @@
 package cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling;
 
 import cz.cuni.mff.d3s.autodebugger.instrumentor.common.modelling.InstrumentationModel;
+import cz.cuni.mff.d3s.autodebugger.model.common.CapturePolicy;
+import cz.cuni.mff.d3s.autodebugger.model.common.TraceMode;
 import cz.cuni.mff.d3s.autodebugger.model.java.factories.IdentifierFactory;
 import cz.cuni.mff.d3s.autodebugger.model.java.factories.MethodIdentifierFactory;
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.*;
 import cz.cuni.mff.d3s.autodebugger.instrumentor.java.factories.ExportableValueFactory;
 import cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling.enums.ActivationTime;
+import cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling.enums.CaptureGuard;
 import cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling.enums.MarkerType;
 import java.util.ArrayList;
 import java.util.List;
@@ -42,6 +45,10 @@ public class DiSLModel extends InstrumentationModel {
 
   private static final String AFTER_RETURNING_IMPORT = "ch.usi.dag.disl.annotation.AfterReturning";
 
+  private static final String AFTER_THROWING_IMPORT = "ch.usi.dag.disl.annotation.AfterThrowing";
+
+  private static final String SYNTHETIC_LOCAL_IMPORT = "ch.usi.dag.disl.annotation.SyntheticLocal";
+
   private static final List<String> JAVA_IMPORTS =
       List.of(
           "java.io.FileNotFoundException",
@@ -50,6 +57,27 @@ public class DiSLModel extends InstrumentationModel {
           "java.io.ObjectOutputStream");
 
   public DiSLModel(JavaMethodIdentifier targetMethod, List<JavaValueIdentifier> exportedValues) {
+    this(targetMethod, exportedValues, CapturePolicy.ALL);
+  }
+
+  /**
+   * @param capturePolicy Which invocations are captured. With a sampling policy the first hook of
+   *                      an invocation asks CollectorRE whether to capture it, and the exit hook
+   *                      follows that decision through a synthetic local, so entry and exit events
+   *                      are always captured together.
+   */
+  public DiSLModel(JavaMethodIdentifier targetMethod, List<JavaValueIdentifier> exportedValues,
+      CapturePolicy capturePolicy) {
+    this(targetMethod, exportedValues, capturePolicy, TraceMode.NAIVE);
+  }
+
+  /**
+   * @param traceMode In FLIGHT_RECORDER mode an additional {@code @AfterThrowing} hook flushes the
+   *                  flight recorder of the thread, so the buffered invocations are only sent when
+   *                  the target method fails.
+   */
+  public DiSLModel(JavaMethodIdentifier targetMethod, List<JavaValueIdentifier> exportedValues,
+      CapturePolicy capturePolicy, TraceMode traceMode) {
     this.targetMethod = targetMethod;
     var classBuilder = DiSLClass.builder();
 
@@ -97,6 +125,19 @@ public class DiSLModel extends InstrumentationModel {
     if (hasReturnValues) {
       dislImports.add(AFTER_RETURNING_IMPORT);
     }
+    boolean flightRecorder = traceMode == TraceMode.FLIGHT_RECORDER;
+    if (flightRecorder) {
+      dislImports.add(AFTER_THROWING_IMPORT);
+    }
+
+    // The entry hook records its capture decision for the exit hook when both exist
+    boolean sampling = capturePolicy.isSampling();
+    boolean recordDecision = sampling && !beforeExports.isEmpty() && !afterExports.isEmpty();
+    if (recordDecision) {
+      dislImports.add(SYNTHETIC_LOCAL_IMPORT);
+      classBuilder.syntheticLocals(List.of(
+          new DiSLSyntheticLocal("boolean", ShadowDiSLInstrumentationLogic.CAPTURE_DECISION_LOCAL)));
+    }
 
     // Build imports list
     List<JavaPackageImport> imports =
@@ -140,7 +181,9 @@ public class DiSLModel extends InstrumentationModel {
       instrumentationMethods.add(new ShadowDiSLInstrumentationLogic(
           MethodIdentifierFactory.getInstance().generateIdentifier(parameters),
           beforeAnnotation,
-          beforeExports));
+          beforeExports,
+          instrumentationMethods.size(),
+          recordDecision ? CaptureGuard.DECIDE_AND_RECORD : sampling ? CaptureGuard.DECIDE : CaptureGuard.NONE));
     }
 
     // Create @After or @AfterReturning method if there are values to capture at method exit
@@ -157,7 +200,19 @@ public class DiSLModel extends InstrumentationModel {
       instrumentationMethods.add(new ShadowDiSLInstrumentationLogic(
           MethodIdentifierFactory.getInstance().generateIdentifier(parameters),
           afterAnnotation,
-          afterExports));
+          afterExports,
+          instrumentationMethods.size(),
+          recordDecision ? CaptureGuard.FOLLOW : sampling ? CaptureGuard.DECIDE : CaptureGuard.NONE));
+    }
+
+    // Flush the buffered invocations when the target method exits with an exception
+    if (flightRecorder) {
+      var afterThrowingAnnotation =
+          new DiSLAnnotation(
+              ActivationTime.AFTER_THROWING, new DiSLMarker(MarkerType.BODY), new DiSLScope(targetMethod));
+      instrumentationMethods.add(new FlightRecorderDiSLInstrumentationLogic(
+          MethodIdentifierFactory.getInstance().generateIdentifier(parameters),
+          afterThrowingAnnotation));
     }
 
     classBuilder.instrumentationMethods(instrumentationMethods);
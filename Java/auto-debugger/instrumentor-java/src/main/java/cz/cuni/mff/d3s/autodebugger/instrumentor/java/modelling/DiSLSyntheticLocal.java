@@ -0,0 +1,26 @@
+package cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling;
+
+import cz.cuni.mff.d3s.autodebugger.instrumentor.common.modelling.Metaclass;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A DiSL synthetic local variable: a static field of the DiSL class that DiSL turns into a
+ * local variable of every instrumented method, shared by all snippets of one invocation.
+ */
+@Getter
+@AllArgsConstructor
+public class DiSLSyntheticLocal extends Metaclass {
+    private final String type;
+    private final String name;
+
+    @Override
+    public String emitCode() {
+        append("@SyntheticLocal\nstatic ");
+        append(type);
+        append(" ");
+        append(name);
+        append(";\n");
+        return getCode();
+    }
+}
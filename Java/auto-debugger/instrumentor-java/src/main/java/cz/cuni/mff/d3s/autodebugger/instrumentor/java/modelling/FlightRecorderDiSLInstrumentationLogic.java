@@ -0,0 +1,26 @@
+package cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling;
+
+import cz.cuni.mff.d3s.autodebugger.model.common.identifiers.MethodIdentifier;
+import java.util.List;
+
+/**
+ * Hook that sends the flight recorder of the current thread to the collector.
+ * In FLIGHT_RECORDER mode it runs when the target method exits with an exception.
+ */
+public class FlightRecorderDiSLInstrumentationLogic extends DiSLInstrumentationLogic {
+
+  public FlightRecorderDiSLInstrumentationLogic(MethodIdentifier identifier, DiSLAnnotation annotation) {
+    super(identifier, annotation, List.of());
+  }
+
+  @Override
+  public String emitCode() {
+    append(annotation.emitCode());
+    append("\npublic static void ");
+    append(identifier.getName());
+    append("(DynamicContext di) {\n");
+    append("CollectorRE.flushFlightRecorder();\n");
+    append("}\n");
+    return getCode();
+  }
+}
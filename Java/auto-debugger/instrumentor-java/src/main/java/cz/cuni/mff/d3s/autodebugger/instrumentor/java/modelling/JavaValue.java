@@ -26,6 +26,15 @@ public abstract class JavaValue extends Metaclass {
         return exportedValueIdentifier;
     }
 
+    /**
+     * Returns the name of the local variable the value is loaded into by the instrumentation code.
+     *
+     * @return the instrumentation variable name
+     */
+    public String getInstrumentationVariableName() {
+        return instrumentationVariableIdentifier.getName();
+    }
+
     public JavaValue(JavaValueIdentifier exportableValue) {
         this.exportedValueIdentifier = exportableValue;
         var parameters = VariableIdentifierParameters.builder()
@@ -1,16 +1,59 @@
 package cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling;
 
 import cz.cuni.mff.d3s.autodebugger.instrumentor.common.modelling.Metaclass;
+import cz.cuni.mff.d3s.autodebugger.instrumentor.java.CollectorMethodRegistry;
+import cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling.enums.ActivationTime;
+import cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling.enums.CaptureGuard;
 import cz.cuni.mff.d3s.autodebugger.model.common.identifiers.MethodIdentifier;
+import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.JavaValueIdentifier;
 import java.util.List;
 import lombok.Getter;
 
 @Getter
 public class ShadowDiSLInstrumentationLogic extends DiSLInstrumentationLogic {
 
+  /**
+   * Index of this hook in the generated collector tables; sent with every event of the hook.
+   */
+  private final int hookId;
+
+  /**
+   * How the hook applies the capture policy before it reads any value.
+   */
+  private final CaptureGuard captureGuard;
+
+  /**
+   * Name of the synthetic local that carries the capture decision from the entry to the exit hook.
+   */
+  public static final String CAPTURE_DECISION_LOCAL = "captureInvocation";
+
   public ShadowDiSLInstrumentationLogic(
           MethodIdentifier identifier, DiSLAnnotation annotation, List<JavaValue> exports) {
+    this(identifier, annotation, exports, 0);
+  }
+
+  public ShadowDiSLInstrumentationLogic(
+          MethodIdentifier identifier, DiSLAnnotation annotation, List<JavaValue> exports, int hookId) {
+    this(identifier, annotation, exports, hookId, CaptureGuard.NONE);
+  }
+
+  public ShadowDiSLInstrumentationLogic(
+          MethodIdentifier identifier, DiSLAnnotation annotation, List<JavaValue> exports, int hookId,
+          CaptureGuard captureGuard) {
     super(identifier, annotation, exports);
+    this.hookId = hookId;
+    this.captureGuard = captureGuard;
+  }
+
+  /**
+   * @return true if the hook runs at method entry, false if it runs at method exit.
+   */
+  public boolean isBeforeEvent() {
+    return annotation.getActivationTime() == ActivationTime.BEFORE;
+  }
+
+  public List<JavaValueIdentifier> getExportedValueIdentifiers() {
+    return exports.stream().map(JavaValue::getExportedValueIdentifier).toList();
   }
 
   @Override
@@ -19,17 +62,29 @@ public class ShadowDiSLInstrumentationLogic extends DiSLInstrumentationLogic {
     append("\npublic static void ");
     append(identifier.getName());
     append("(DynamicContext di) {\n");
+    // Rejected invocations return before any value is read
+    switch (captureGuard) {
+      case DECIDE -> append("if (!CollectorRE.shouldCapture()) {\nreturn;\n}\n");
+      case DECIDE_AND_RECORD -> append(CAPTURE_DECISION_LOCAL + " = CollectorRE.shouldCapture();\nif (!"
+          + CAPTURE_DECISION_LOCAL + ") {\nreturn;\n}\n");
+      case FOLLOW -> append("if (!" + CAPTURE_DECISION_LOCAL + ") {\nreturn;\n}\n");
+      case NONE -> { }
+    }
     for (Metaclass variable : exports) {
       append(variable.emitCode());
       append("\n");
     }
-    append(
-        "System.out.println(\"[Instrumentation process] PID: \" + ProcessHandle.current().pid());\n");
-    // Start a new event for temporal tracing (no-op in naive mode)
-    append("CollectorRE.startEvent();\n");
-    for (JavaValue variable : exports) {
-      append(variable.emitCollectorCode());
-      append("\n");
+    // All values of the probe hit go to the collector in a single batched call
+    if (!exports.isEmpty()) {
+      append("CollectorRE.");
+      append(CollectorMethodRegistry.getEventMethodName(getExportedValueIdentifiers()));
+      append("(");
+      append(String.valueOf(hookId));
+      for (JavaValue variable : exports) {
+        append(", ");
+        append(variable.getInstrumentationVariableName());
+      }
+      append(");\n");
     }
     append("}\n");
     return getCode();
@@ -0,0 +1,15 @@
+package cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling.enums;
+
+/**
+ * How an instrumentation hook applies the capture policy before reading any value.
+ */
+public enum CaptureGuard {
+    /** Every invocation is captured; no check is emitted. */
+    NONE,
+    /** The hook asks the capture policy and returns if the invocation is rejected. */
+    DECIDE,
+    /** Like DECIDE, and records the decision in a synthetic local for the exit hook. */
+    DECIDE_AND_RECORD,
+    /** The hook follows the decision recorded at method entry. */
+    FOLLOW
+}
@@ -0,0 +1,178 @@
+package cz.cuni.mff.d3s.autodebugger.instrumentor.java;
+
+import cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling.DiSLModel;
+import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollectorEventCodeGeneratorTest {
+
+  private static final JavaClassIdentifier ownerClass = new JavaClassIdentifier(
+      ClassIdentifierParameters.builder()
+          .className("Processor")
+          .packageIdentifier(new JavaPackageIdentifier("com.example"))
+          .build());
+
+  private static JavaMethodIdentifier targetMethod(String returnType) {
+    return new JavaMethodIdentifier(
+        MethodIdentifierParameters.builder()
+            .ownerClassIdentifier(ownerClass)
+            .methodName("process")
+            .returnType(returnType)
+            .parameterTypes(List.of("int", "long"))
+            .build());
+  }
+
+  private static JavaArgumentIdentifier argument(int slot, String type) {
+    return new JavaArgumentIdentifier(
+        ArgumentIdentifierParameters.builder().argumentSlot(slot).variableType(type).build());
+  }
+
+  @Test
+  void givenHooksWithSameValueTypes_whenEmittingDispatchMethods_thenOneBatchedMethodIsShared() {
+    // given
+    var model = new DiSLModel(targetMethod("void"), List.of(argument(0, "int"), argument(1, "long")));
+    var generator = CollectorEventCodeGenerator.forModel(model);
+
+    // when
+    String code = generator.emitDispatchMethods();
+
+    // then
+    assertEquals(1, code.split("public static void collectEvent_IJ\\(", -1).length - 1);
+    assertTrue(code.contains("registerMethodWithDebug(\"Collector.collectEvent_IJ\")"));
+    assertTrue(code.contains("public static void collectEvent_IJ(final int hookId, final int v0, final long v1) {"));
+    assertEquals(1, code.split("REDispatch.analysisStart", -1).length - 1);
+    assertTrue(code.contains("REDispatch.sendLong(v1);"));
+  }
+
+  @Test
+  void givenBeforeAndAfterHooks_whenEmittingHandlers_thenHookTablesMapKindsAndSlots() {
+    // given
+    var intArg = argument(0, "int");
+    var returnValue = new JavaReturnValueIdentifier(new ReturnValueIdentifierParameters(targetMethod("java.lang.String")));
+    var model = new DiSLModel(targetMethod("java.lang.String"), List.of(intArg, returnValue));
+    var generator = CollectorEventCodeGenerator.forModel(model);
+
+    // when
+    String code = generator.emitHandlers();
+
+    // then
+    assertTrue(code.contains("HOOK_KINDS = { EventFrame.KIND_BEFORE, EventFrame.KIND_AFTER };"));
+    assertTrue(code.contains("HOOK_SLOTS = { { " + intArg.getInternalId() + " }, { "
+        + intArg.getInternalId() + ", " + returnValue.getInternalId() + " } };"));
+    assertTrue(code.contains("public void collectEvent_I(final int hookId, final long skip0, final int v0) {"));
+    assertTrue(code.contains("public void collectEvent_ILString(final int hookId, final long skip0, final int v0, final ShadowObject v1) {"));
+    assertTrue(code.contains("columns.putString(slots[1], toJavaString(v1));"));
+  }
+
+  @Test
+  void givenHook_whenEmittingHandlers_thenValuesAndRowCompletionHoldTheTraceLock() {
+    // given
+    var model = new DiSLModel(targetMethod("void"), List.of(argument(0, "int"), argument(1, "long")));
+    var generator = CollectorEventCodeGenerator.forModel(model);
+
+    // when
+    String code = generator.emitHandlers();
+
+    // then
+    int lock = code.indexOf("    synchronized (traceLock) {\n");
+    assertTrue(lock >= 0);
+    assertTrue(lock < code.indexOf("columns.putInt(slots[0], v0);"));
+    assertTrue(code.indexOf("columns.putLong(slots[1], v1);") < code.indexOf("completeEvent(HOOK_KINDS[hookId]);"));
+    assertTrue(code.contains("      completeEvent(HOOK_KINDS[hookId]);\n    }\n  }\n"));
+  }
+
+  @Test
+  void givenObjectValue_whenEmittingDispatchMethod_thenObjectIsEncodedBeforeAnalysisStarts() {
+    // given
+    var model = new DiSLModel(targetMethod("void"), List.of(argument(0, "java.util.List")));
+    var generator = CollectorEventCodeGenerator.forModel(model);
+
+    // when
+    String code = generator.emitDispatchMethods();
+
+    // then
+    int encoding = code.indexOf("final String data0 = (skip0 & 1L) != 0 ? null : encodeForCollector(v0);");
+    assertTrue(encoding >= 0);
+    assertTrue(encoding < code.indexOf("REDispatch.analysisStart"));
+    assertTrue(code.contains("REDispatch.sendObjectPlusData(data0);"));
+  }
+
+  @Test
+  void givenSlotSharedByHooks_whenEmittingDispatchMethods_thenHooksShareItsDistinctFilter() {
+    // given
+    var returnValue = new JavaReturnValueIdentifier(new ReturnValueIdentifierParameters(targetMethod("java.lang.String")));
+    var model = new DiSLModel(targetMethod("java.lang.String"), List.of(argument(0, "int"), returnValue));
+    var generator = CollectorEventCodeGenerator.forModel(model);
+
+    // when
+    String code = generator.emitDispatchMethods();
+
+    // then
+    assertTrue(code.contains("FILTER_COUNT = 2;"));
+    assertTrue(code.contains("HOOK_FILTERS = { { 0 }, { 0, 1 } };"));
+    int filter = code.indexOf("} else if (markSeen(filters[0], hashValue(v0))) {");
+    assertTrue(filter >= 0);
+    assertTrue(filter < code.indexOf("REDispatch.analysisStart"));
+    assertTrue(code.contains("} else if (markSeen(filters[1], hashValue(v1))) {"));
+  }
+
+  @Test
+  void givenHookWithTwoSlots_whenEmittingEventCode_thenOnlyTheSaturatedSlotIsSkipped() {
+    // given
+    var model = new DiSLModel(targetMethod("void"), List.of(argument(0, "int"), argument(1, "java.lang.String")));
+    var generator = CollectorEventCodeGenerator.forModel(model);
+
+    // when
+    String dispatch = generator.emitDispatchMethods();
+    String handlers = generator.emitHandlers();
+
+    // then
+    assertTrue(dispatch.contains("      if (isSaturated(filters[0])) {\n        skip0 |= 1L;\n"
+        + "      } else if (markSeen(filters[0], hashValue(v0))) {\n        fresh = true;\n      }\n"));
+    assertTrue(dispatch.contains("      if (isSaturated(filters[1])) {\n        skip0 |= (1L << 1);\n"));
+    assertTrue(dispatch.contains("sendCollectEvent_ILString(hookId, skip0, v0, v1);"));
+    assertTrue(dispatch.contains("REDispatch.sendInt(hookId);\n    REDispatch.sendLong(skip0);\n"));
+    assertTrue(dispatch.contains("REDispatch.sendObjectPlusData((skip0 & (1L << 1)) != 0 ? null : v1);"));
+    assertTrue(handlers.contains("      if ((skip0 & 1L) == 0) {\n        columns.putInt(slots[0], v0);\n      }\n"));
+    assertTrue(handlers.contains("      if ((skip0 & (1L << 1)) == 0) {\n        columns.putString(slots[1], toJavaString(v1));\n      }\n"));
+  }
+
+  @Test
+  void givenHooksWithObjectValues_whenEmittingDispatchMethods_thenFlightRecorderStoresAndReplaysEvents() {
+    // given
+    var returnValue = new JavaReturnValueIdentifier(new ReturnValueIdentifierParameters(targetMethod("java.lang.String")));
+    var model = new DiSLModel(targetMethod("java.lang.String"), List.of(argument(0, "double"), returnValue));
+    var generator = CollectorEventCodeGenerator.forModel(model);
+
+    // when
+    String code = generator.emitDispatchMethods();
+
+    // then
+    assertTrue(code.contains("EVENT_STRIDE = 2;"));
+    assertTrue(code.contains("EVENT_REFERENCES = true;"));
+    int record = code.indexOf("recorder.values[at] = Double.doubleToRawLongBits(v0);");
+    assertTrue(record >= 0);
+    assertTrue(record < code.indexOf("REDispatch.analysisStart"));
+    assertTrue(code.contains("recorder.refs[at + 1] = v1;"));
+    assertTrue(code.contains("case 1 -> sendCollectEvent_DLString(hookId, 0L, Double.longBitsToDouble(values[at]), refs[at + 1]);"));
+  }
+
+  @Test
+  void givenObjectValue_whenEmittingDispatchMethod_thenFlightRecorderStoresItEncoded() {
+    // given
+    var model = new DiSLModel(targetMethod("void"), List.of(argument(0, "java.util.List")));
+    var generator = CollectorEventCodeGenerator.forModel(model);
+
+    // when
+    String code = generator.emitDispatchMethods();
+
+    // then
+    assertTrue(code.contains("recorder.refs[at] = recorder.encode(v0);"));
+    assertTrue(code.contains("private static void sendCollectEvent_LObject(final int hookId, final long skip0, final String data0) {"));
+    assertTrue(code.contains("case 0 -> sendCollectEvent_LObject(hookId, 0L, refs[at]);"));
+  }
+}
@@ -25,9 +25,10 @@ class CollectorTemplateCompletenessTest {
 
     @Test
     void collectorRE_contains_all_registers_and_methods() throws Exception {
-        String re = readResource("/templates/java/disl-analysis/CollectorRE.java");
+        String re = readResource("/templates/java/disl-analysis/CollectorRE.jt");
         // registerMethod ids - uses registerMethodWithDebug wrapper which calls registerMethod
-        assertTrue(re.contains("registerMethodWithDebug(\"Collector.startEvent\")"));
+        assertTrue(re.contains("registerMethodWithDebug(\"Collector.beginEvent\")"));
+        assertTrue(re.contains("registerMethodWithDebug(\"Collector.endEvent\")"));
         assertTrue(re.contains("registerMethodWithDebug(\"Collector.collectByte\")"));
         assertTrue(re.contains("registerMethodWithDebug(\"Collector.collectChar\")"));
         assertTrue(re.contains("registerMethodWithDebug(\"Collector.collectShort\")"));
@@ -38,7 +39,7 @@ class CollectorTemplateCompletenessTest {
         assertTrue(re.contains("registerMethodWithDebug(\"Collector.collectBoolean\")"));
         assertTrue(re.contains("registerMethodWithDebug(\"Collector.collectString\")"));
         assertTrue(re.contains("registerMethodWithDebug(\"Collector.collectObject\")"));
-        assertTrue(re.contains("registerMethodWithDebug(\"Collector.collectObjectJson\")"));
+        assertTrue(re.contains("registerMethodWithDebug(\"Collector.collectObjectSnapshot\")"));
         // method bodies include appropriate send* calls
         assertTrue(re.contains("sendByte("));
         assertTrue(re.contains("sendChar("));
@@ -49,11 +50,14 @@ class CollectorTemplateCompletenessTest {
         assertTrue(re.contains("sendDouble("));
         assertTrue(re.contains("sendBoolean("));
         assertTrue(re.contains("sendObjectPlusData("));
+        assertTrue(re.contains("${EVENT_METHODS}"));
     }
 
     @Test
     void collector_contains_all_corresponding_methods() throws Exception {
         String c = readResource("/templates/java/disl-analysis/Collector.jt");
+        assertTrue(c.contains("public void beginEvent("));
+        assertTrue(c.contains("public void endEvent("));
         assertTrue(c.contains("public void collectByte("));
         assertTrue(c.contains("public void collectChar("));
         assertTrue(c.contains("public void collectShort("));
@@ -64,6 +68,7 @@ class CollectorTemplateCompletenessTest {
         assertTrue(c.contains("public void collectBoolean("));
         assertTrue(c.contains("public void collectString("));
         assertTrue(c.contains("public void collectObject("));
+        assertTrue(c.contains("${EVENT_HANDLERS}"));
     }
 }
 
@@ -352,13 +352,9 @@ class DiSLInstrumentorTest {
         Constants.testClassIdentifier.getName() + ".class, \"counter\", int.class)"),
         "Should contain int field retrieval logic");
 
-    // Verify collector calls
-    assertTrue(dislClassContent.contains("CollectorRE.collectString("),
-        "Should contain CollectorRE.collectString call");
-    assertTrue(dislClassContent.contains("CollectorRE.collectInt("),
-        "Should contain CollectorRE.collectInt call");
-    assertTrue(dislClassContent.contains("CollectorRE.startEvent();"),
-        "Should start a new event before collector calls");
+    // Verify all values of a probe hit are collected in one batched call
+    assertTrue(dislClassContent.contains("CollectorRE.collectEvent_LStringI(0, "),
+        "Should contain the batched CollectorRE call of the @Before hook");
   }
 
   /**
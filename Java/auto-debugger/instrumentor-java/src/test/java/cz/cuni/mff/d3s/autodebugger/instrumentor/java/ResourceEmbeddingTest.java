@@ -12,9 +12,9 @@ class ResourceEmbeddingTest {
   @Test
   void resources_are_packaged_and_accessible() throws IOException {
     try (InputStream jt = getClass().getResourceAsStream("/templates/java/disl-analysis/Collector.jt");
-         InputStream re = getClass().getResourceAsStream("/templates/java/disl-analysis/CollectorRE.java")) {
+         InputStream re = getClass().getResourceAsStream("/templates/java/disl-analysis/CollectorRE.jt")) {
       assertNotNull(jt, "Collector.jt should be on classpath under /templates/java/disl-analysis/");
-      assertNotNull(re, "CollectorRE.java should be on classpath under /templates/java/disl-analysis/");
+      assertNotNull(re, "CollectorRE.jt should be on classpath under /templates/java/disl-analysis/");
     }
   }
 }
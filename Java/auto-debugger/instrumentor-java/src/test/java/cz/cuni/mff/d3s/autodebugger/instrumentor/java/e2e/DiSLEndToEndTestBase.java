@@ -7,6 +7,7 @@ import cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling.DiSLModel;
 import cz.cuni.mff.d3s.autodebugger.model.common.artifacts.InstrumentationResult;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.IndexedTrace;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.Trace;
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.TraceFileReader;
 import cz.cuni.mff.d3s.autodebugger.model.java.JavaRunConfiguration;
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.*;
 import cz.cuni.mff.d3s.autodebugger.testutils.DiSLPathResolver;
@@ -315,6 +316,9 @@ public abstract class DiSLEndToEndTestBase {
      * Deserializes a Trace from a file.
      */
     protected Trace deserializeTrace(Path traceFile) throws Exception {
+        if (TraceFileReader.isTraceFile(traceFile)) {
+            return TraceFileReader.readTrace(traceFile);
+        }
         try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(traceFile))) {
             return (Trace) ois.readObject();
         }
@@ -324,6 +328,9 @@ public abstract class DiSLEndToEndTestBase {
      * Deserializes an IndexedTrace from a file.
      */
     protected IndexedTrace deserializeIndexedTrace(Path traceFile) throws Exception {
+        if (TraceFileReader.isTraceFile(traceFile)) {
+            return TraceFileReader.readIndexedTrace(traceFile);
+        }
         try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(traceFile))) {
             return (IndexedTrace) ois.readObject();
         }
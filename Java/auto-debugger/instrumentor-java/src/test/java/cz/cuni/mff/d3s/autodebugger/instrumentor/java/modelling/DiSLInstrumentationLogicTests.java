@@ -53,8 +53,6 @@ class DiSLInstrumentationLogicTests {
     String expectedCode = """
       @Before(marker = BodyMarker.class, scope = "targets.extraction.Test.test")
       public static void generatedMethod1(DynamicContext di) {
-      System.out.println("[Instrumentation process] PID: " + ProcessHandle.current().pid());
-      CollectorRE.startEvent();
       }
       """;
     assertEquals(normalizeVariableNames(expectedCode), normalizeVariableNames(code));
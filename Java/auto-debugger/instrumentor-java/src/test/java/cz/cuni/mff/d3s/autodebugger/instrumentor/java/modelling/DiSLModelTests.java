@@ -1,5 +1,6 @@
 package cz.cuni.mff.d3s.autodebugger.instrumentor.java.modelling;
 
+import cz.cuni.mff.d3s.autodebugger.model.common.CapturePolicy;
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.*;
 import org.junit.jupiter.api.Test;
 
@@ -64,8 +65,9 @@ class DiSLModelTests {
         String normalizedCode = normalizeVariableNames(generatedCode);
         assertTrue(normalizedCode.contains("int generatedVariableX = di.getMethodArgumentValue(0, int.class);"), "Should contain argument retrieval");
 
-        // Verify collector call
-        assertTrue(normalizedCode.contains("CollectorRE.collectInt(" + intArgument.getInternalId() + ", generatedVariableX);"), "Should contain collector call");
+        // Verify batched collector calls of the @Before (hook 0) and @After (hook 1) methods
+        assertTrue(normalizedCode.contains("CollectorRE.collectEvent_I(0, generatedVariableX);"), "Should contain collector call");
+        assertTrue(normalizedCode.contains("CollectorRE.collectEvent_I(1, generatedVariableX);"), "Should contain collector call");
     }
 
     /**
@@ -139,11 +141,8 @@ class DiSLModelTests {
         assertTrue(normalizedCode.contains("int generatedVariableX = di.getInstanceFieldValue(di.getThis(), TaskRunner.class, \"taskCounter\", int.class);"));
         assertTrue(normalizedCode.contains("java.lang.String generatedVariableX = di.getInstanceFieldValue(di.getThis(), TaskRunner.class, \"currentStatus\", java.lang.String.class);"));
 
-        // Verify collector calls
-        assertTrue(normalizedCode.contains("CollectorRE.collectString(" + taskNameArg.getInternalId() + ", generatedVariableX);"));
-        assertTrue(normalizedCode.contains("CollectorRE.collectInt(" + priorityArg.getInternalId() + ", generatedVariableX);"));
-        assertTrue(normalizedCode.contains("CollectorRE.collectInt(" + taskCounterField.getInternalId() + ", generatedVariableX);"));
-        assertTrue(normalizedCode.contains("CollectorRE.collectString(" + currentStatusField.getInternalId() + ", generatedVariableX);"));
+        // Verify all values are collected in one batched call
+        assertTrue(normalizedCode.contains("CollectorRE.collectEvent_LStringIILString(0, generatedVariableX, generatedVariableX, generatedVariableX, generatedVariableX);"));
     }
 
     /**
@@ -194,7 +193,7 @@ class DiSLModelTests {
         assertTrue(normalizedCode.contains("java.util.List generatedVariableX = di.getInstanceFieldValue(di.getThis(), Repository.class, \"userCache\", java.util.List.class);"));
 
         // Verify collector call for an object type
-        assertTrue(normalizedCode.contains("CollectorRE.collectObject(" + userCacheField.getInternalId() + ", generatedVariableX);"));
+        assertTrue(normalizedCode.contains("CollectorRE.collectEvent_LObject(0, generatedVariableX);"));
     }
 
     /**
@@ -360,7 +359,7 @@ class DiSLModelTests {
 
         // Verify both methods contain collector calls
         long collectorCallCount = normalizedCode.lines()
-                .filter(line -> line.contains("CollectorRE.collectInt(" + stateValueField.getInternalId() + ", generatedVariableX)"))
+                .filter(line -> line.contains("CollectorRE.collectEvent_I("))
                 .count();
         assertEquals(2, collectorCallCount, "Both methods should contain collector calls");
     }
@@ -670,4 +669,87 @@ class DiSLModelTests {
         }
         return count;
     }
+
+    /**
+     * With a sampling policy the entry hook decides, records the decision in a synthetic local,
+     * and both hooks return before reading any value of a rejected invocation.
+     */
+    @Test
+    void givenSamplingPolicy_whenConstructingModel_thenHooksReturnBeforeReadingValues() {
+        // given
+        JavaClassIdentifier testClass = new JavaClassIdentifier(
+                ClassIdentifierParameters.builder()
+                        .className("Calculator")
+                        .packageIdentifier(new JavaPackageIdentifier("com.example"))
+                        .build());
+
+        JavaMethodIdentifier targetMethod = new JavaMethodIdentifier(
+                MethodIdentifierParameters.builder()
+                        .ownerClassIdentifier(testClass)
+                        .methodName("add")
+                        .returnType("int")
+                        .parameterTypes(List.of("int", "int"))
+                        .build());
+
+        JavaArgumentIdentifier arg1 = new JavaArgumentIdentifier(
+                ArgumentIdentifierParameters.builder()
+                        .argumentSlot(0)
+                        .variableType("int")
+                        .build());
+
+        JavaReturnValueIdentifier returnValue = new JavaReturnValueIdentifier(
+                new ReturnValueIdentifierParameters(targetMethod));
+
+        // when
+        DiSLModel model = new DiSLModel(targetMethod, List.of(arg1, returnValue), CapturePolicy.everyNth(100));
+        String generatedCode = model.transform();
+
+        // then
+        assertTrue(generatedCode.contains("import ch.usi.dag.disl.annotation.SyntheticLocal;"));
+        assertTrue(generatedCode.contains("@SyntheticLocal"));
+        assertTrue(generatedCode.contains("static boolean captureInvocation;"));
+
+        int decision = generatedCode.indexOf("captureInvocation = CollectorRE.shouldCapture();");
+        int firstRead = generatedCode.indexOf("di.getMethodArgumentValue");
+        assertTrue(decision >= 0 && decision < firstRead, "Entry hook should decide before reading arguments");
+
+        String afterHook = generatedCode.substring(generatedCode.indexOf("@AfterReturning("));
+        assertTrue(afterHook.indexOf("if (!captureInvocation) {") < afterHook.indexOf("di.getStackValue"),
+                "Exit hook should follow the entry decision before reading the return value");
+        assertFalse(afterHook.contains("shouldCapture"), "Exit hook should not decide again");
+    }
+
+    /**
+     * Capturing every invocation emits no capture check at all.
+     */
+    @Test
+    void givenDefaultPolicy_whenConstructingModel_thenNoCaptureCheckIsEmitted() {
+        // given
+        JavaClassIdentifier testClass = new JavaClassIdentifier(
+                ClassIdentifierParameters.builder()
+                        .className("Processor")
+                        .packageIdentifier(new JavaPackageIdentifier("com.example"))
+                        .build());
+
+        JavaMethodIdentifier targetMethod = new JavaMethodIdentifier(
+                MethodIdentifierParameters.builder()
+                        .ownerClassIdentifier(testClass)
+                        .methodName("process")
+                        .returnType("void")
+                        .parameterTypes(List.of("int"))
+                        .build());
+
+        JavaArgumentIdentifier intArgument = new JavaArgumentIdentifier(
+                ArgumentIdentifierParameters.builder()
+                        .argumentSlot(0)
+                        .variableType("int")
+                        .build());
+
+        // when
+        String generatedCode = new DiSLModel(targetMethod, List.of(intArgument), CapturePolicy.ALL).transform();
+
+        // then
+        assertFalse(generatedCode.contains("shouldCapture"));
+        assertFalse(generatedCode.contains("SyntheticLocal"));
+    }
 }
@@ -0,0 +1,158 @@
+package cz.cuni.mff.d3s.autodebugger.model.common;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Decides which invocations of the target method are captured. The decision is made at the
+ * probe site before any value is read, so rejected invocations cost one check and no collector call.
+ *
+ * <p>Policies are written as {@code kind[:parameter[:seed]]} on the command line:
+ * <ul>
+ *   <li>{@code all} - capture every invocation (default)</li>
+ *   <li>{@code every-nth:N} - capture invocations 1, N+1, 2N+1, ...</li>
+ *   <li>{@code probabilistic:P[:SEED]} - capture each invocation with probability P using a
+ *       per-thread random generator seeded from SEED and the thread ID</li>
+ *   <li>{@code token-bucket:K} - capture at most K invocations per second, with bursts of up to K</li>
+ *   <li>{@code first-n:N} - capture the first N invocations, then stop</li>
+ * </ul>
+ */
+@Getter
+@EqualsAndHashCode
+public final class CapturePolicy {
+
+    public enum Kind {
+        ALL("all"),
+        EVERY_NTH("every-nth"),
+        PROBABILISTIC("probabilistic"),
+        TOKEN_BUCKET("token-bucket"),
+        FIRST_N("first-n");
+
+        private final String identifier;
+
+        Kind(String identifier) {
+            this.identifier = identifier;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+    }
+
+    public static final CapturePolicy ALL = new CapturePolicy(Kind.ALL, 0, 1.0, 0);
+
+    private final Kind kind;
+
+    /**
+     * N of every-nth and first-n, K of token-bucket; unused otherwise.
+     */
+    private final long count;
+
+    /**
+     * Capture probability of probabilistic; 1.0 otherwise.
+     */
+    private final double probability;
+
+    /**
+     * Seed of the per-thread random generators of probabilistic.
+     */
+    private final long seed;
+
+    private CapturePolicy(Kind kind, long count, double probability, long seed) {
+        this.kind = kind;
+        this.count = count;
+        this.probability = probability;
+        this.seed = seed;
+    }
+
+    public static CapturePolicy everyNth(long n) {
+        requirePositive(n, "every-nth interval");
+        return new CapturePolicy(Kind.EVERY_NTH, n, 1.0, 0);
+    }
+
+    public static CapturePolicy probabilistic(double probability, long seed) {
+        if (!(probability > 0.0 && probability <= 1.0)) {
+            throw new IllegalArgumentException("Capture probability must be in (0, 1], got " + probability);
+        }
+        return new CapturePolicy(Kind.PROBABILISTIC, 0, probability, seed);
+    }
+
+    public static CapturePolicy tokenBucket(long eventsPerSecond) {
+        requirePositive(eventsPerSecond, "token-bucket rate");
+        return new CapturePolicy(Kind.TOKEN_BUCKET, eventsPerSecond, 1.0, 0);
+    }
+
+    public static CapturePolicy firstN(long n) {
+        requirePositive(n, "first-n count");
+        return new CapturePolicy(Kind.FIRST_N, n, 1.0, 0);
+    }
+
+    /**
+     * Parses a policy in the {@code kind[:parameter[:seed]]} form; the kind is case-insensitive.
+     *
+     * @throws IllegalArgumentException if the kind is unknown or a parameter is missing or invalid.
+     */
+    public static CapturePolicy parse(String specification) {
+        if (specification == null || specification.isBlank()) {
+            throw new IllegalArgumentException("Capture policy cannot be null or empty");
+        }
+        String[] parts = specification.trim().split(":");
+        String kind = parts[0].toLowerCase();
+        try {
+            return switch (kind) {
+                case "all" -> {
+                    requireParts(parts, 1, 1, specification);
+                    yield ALL;
+                }
+                case "every-nth" -> {
+                    requireParts(parts, 2, 2, specification);
+                    yield everyNth(Long.parseLong(parts[1]));
+                }
+                case "probabilistic" -> {
+                    requireParts(parts, 2, 3, specification);
+                    yield probabilistic(Double.parseDouble(parts[1]), parts.length == 3 ? Long.parseLong(parts[2]) : 0);
+                }
+                case "token-bucket" -> {
+                    requireParts(parts, 2, 2, specification);
+                    yield tokenBucket(Long.parseLong(parts[1]));
+                }
+                case "first-n" -> {
+                    requireParts(parts, 2, 2, specification);
+                    yield firstN(Long.parseLong(parts[1]));
+                }
+                default -> throw new IllegalArgumentException("Unknown capture policy: '" + specification
+                        + "'. Supported policies: all, every-nth:N, probabilistic:P[:SEED], token-bucket:K, first-n:N");
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in capture policy '" + specification + "'", e);
+        }
+    }
+
+    /**
+     * @return true unless every invocation is captured.
+     */
+    public boolean isSampling() {
+        return kind != Kind.ALL;
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case ALL -> kind.identifier;
+            case PROBABILISTIC -> kind.identifier + ":" + probability + ":" + seed;
+            default -> kind.identifier + ":" + count;
+        };
+    }
+
+    private static void requireParts(String[] parts, int min, int max, String specification) {
+        if (parts.length < min || parts.length > max) {
+            throw new IllegalArgumentException("Invalid capture policy: '" + specification + "'");
+        }
+    }
+
+    private static void requirePositive(long value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("The " + name + " must be positive, got " + value);
+        }
+    }
+}
@@ -64,7 +64,7 @@ public interface RunConfiguration {
     List<String> getRuntimeArguments();
 
     /**
-     * Selects the trace collection mode used by the analyzer (naive vs temporal).
+     * Selects the trace collection mode used by the analyzer (naive, temporal or flight recorder).
      * Default should be NAIVE if not specified by concrete implementations.
      */
     default TraceMode getTraceMode() { return TraceMode.NAIVE; }
@@ -1,10 +1,24 @@
 package cz.cuni.mff.d3s.autodebugger.model.common;
 
 /**
- * Trace collection mode selection between legacy slot-based (NAIVE)
- * and event-indexed temporal tracing (TEMPORAL).
+ * Trace collection mode selection between legacy slot-based (NAIVE),
+ * event-indexed temporal tracing (TEMPORAL) and failure-triggered
+ * flight recording (FLIGHT_RECORDER).
  */
 public enum TraceMode {
     NAIVE,
-    TEMPORAL
+    TEMPORAL,
+    /**
+     * The instrumentation keeps the last invocations of every thread in a ring buffer in the
+     * target VM and sends them only when the target method exits with an exception or the
+     * recorder is flushed explicitly. The events are traced like in TEMPORAL mode.
+     */
+    FLIGHT_RECORDER;
+
+    /**
+     * @return true if the trace keeps every event in order, false if it keeps distinct values only.
+     */
+    public boolean isTemporal() {
+        return this != NAIVE;
+    }
 }
@@ -0,0 +1,292 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes the binary object-graph encoding written by CollectorRE directly into
+ * {@link ObjectSnapshot}s, replacing the JSON round trip.
+ *
+ * <p>Payload layout:
+ * <pre>
+ *   payload := FORMAT_VERSION, varlong threadId, root
+ *   root    := value
+ *            | TAG_SNAPSHOT_STORE varint cacheSlot value   (decode and remember the snapshot)
+ *            | TAG_SNAPSHOT_REF varint cacheSlot           (the unchanged snapshot remembered earlier)
+ *            | TAG_DETACHED value                          (names defined by this payload only)
+ *   value   := TAG_NULL | TAG_FALSE | TAG_TRUE
+ *            | TAG_BYTE byte | TAG_SHORT zigzag | TAG_CHAR varint | TAG_INT zigzag | TAG_LONG zigzag
+ *            | TAG_FLOAT int32 bits | TAG_DOUBLE int64 bits
+ *            | TAG_STRING string | TAG_ENUM string
+ *            | TAG_OBJECT name varint fieldCount (name value)*
+ *            | TAG_TO_STRING name string
+ *            | TAG_DEPTH_REF name | TAG_CYCLE | TAG_BACKREF varint objectIndex
+ *   name    := varint 0, string   (defines the next dictionary entry)
+ *            | varint id + 1      (refers to an earlier entry)
+ *   string  := varint byteLength, UTF-8 bytes
+ * </pre>
+ * Class and field names are interned in a dictionary that lives as long as the decoder.
+ * The instrumented process keeps one dictionary per thread, because messages of different
+ * threads may arrive interleaved, so dictionaries are kept per thread ID here as well.
+ * Every OBJECT and TO_STRING value gets the next object index of its payload; a BACKREF
+ * resolves to the same {@link ObjectSnapshot} instance, so shared objects are decoded once.
+ *
+ * <p>The instrumented process also remembers the last objects each thread captured, together
+ * with a fingerprint of their content. An object captured again unchanged is sent as a
+ * SNAPSHOT_REF to its cache slot, which resolves to the snapshot stored in that slot; the
+ * returned instance is shared by all captures of the unchanged object.
+ *
+ * <p>A DETACHED payload was encoded before it was known whether it would be sent, e.g. by the
+ * flight recorder, so it neither uses nor extends the dictionary and cache of its thread.
+ *
+ * <p>Decoded values keep their Java type (Byte, Short, Character, Float, ...). Depth-limited
+ * references, cycles, enum constants and JDK objects decode to the same values the JSON
+ * format produced ("$ref:" strings, "$cycle", constant names and "$value" snapshots).
+ *
+ * <p>This class is embedded in the ShadowVM instrumentation JAR, so it only depends on
+ * plain Java types. It is not thread-safe.
+ */
+public class BinarySnapshotDecoder {
+    public static final byte FORMAT_VERSION = 1;
+
+    public static final byte TAG_NULL = 0;
+    public static final byte TAG_FALSE = 1;
+    public static final byte TAG_TRUE = 2;
+    public static final byte TAG_BYTE = 3;
+    public static final byte TAG_SHORT = 4;
+    public static final byte TAG_CHAR = 5;
+    public static final byte TAG_INT = 6;
+    public static final byte TAG_LONG = 7;
+    public static final byte TAG_FLOAT = 8;
+    public static final byte TAG_DOUBLE = 9;
+    public static final byte TAG_STRING = 10;
+    public static final byte TAG_ENUM = 11;
+    public static final byte TAG_OBJECT = 12;
+    public static final byte TAG_TO_STRING = 13;
+    public static final byte TAG_DEPTH_REF = 14;
+    public static final byte TAG_CYCLE = 15;
+    public static final byte TAG_BACKREF = 16;
+    public static final byte TAG_SNAPSHOT_STORE = 17;
+    public static final byte TAG_SNAPSHOT_REF = 18;
+    public static final byte TAG_DETACHED = 19;
+
+    // Upper bound on cache slot numbers, guards against malformed payloads
+    private static final int MAX_CACHE_SLOTS = 1 << 16;
+
+    private final Map<Long, ThreadState> threads = new HashMap<>();
+    private long resolvedReferenceCount;
+
+    // State of the payload being decoded
+    private byte[] data;
+    private int pos;
+    private List<String> dictionary;
+    private final List<ObjectSnapshot> objects = new ArrayList<>();
+
+    /**
+     * Name dictionary and snapshot cache of one thread of the instrumented process.
+     */
+    private static class ThreadState {
+        final List<String> names = new ArrayList<>();
+        ObjectSnapshot[] cache = new ObjectSnapshot[0];
+
+        ObjectSnapshot cached(int slot) {
+            return slot < cache.length ? cache[slot] : null;
+        }
+
+        void store(int slot, ObjectSnapshot snapshot) {
+            if (slot >= cache.length) {
+                cache = Arrays.copyOf(cache, Math.max(slot + 1, cache.length * 2));
+            }
+            cache[slot] = snapshot;
+        }
+    }
+
+    /**
+     * Decodes a payload that was shipped as a string holding one byte per char (ISO-8859-1).
+     */
+    public ObjectSnapshot decodeLatin1(String payload) {
+        return decode(payload.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Decodes a payload into the snapshot of its root object.
+     *
+     * @throws IllegalArgumentException if the payload is malformed or its root is not an object.
+     */
+    public ObjectSnapshot decode(byte[] payload) {
+        this.data = payload;
+        this.pos = 0;
+        try {
+            int version = readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot format version " + version);
+            }
+            ThreadState thread = threads.computeIfAbsent(readVarLong(), threadId -> new ThreadState());
+            dictionary = thread.names;
+            return readRoot(thread);
+        } finally {
+            data = null;
+            dictionary = null;
+            objects.clear();
+        }
+    }
+
+    /**
+     * @return Number of class and field names known for the thread.
+     */
+    public int getDictionarySize(long threadId) {
+        ThreadState thread = threads.get(threadId);
+        return thread != null ? thread.names.size() : 0;
+    }
+
+    /**
+     * @return Number of payloads resolved to a previously decoded snapshot.
+     */
+    public long getResolvedReferenceCount() {
+        return resolvedReferenceCount;
+    }
+
+    private ObjectSnapshot readRoot(ThreadState thread) {
+        int tag = readByte();
+        if (tag == TAG_SNAPSHOT_REF) {
+            ObjectSnapshot snapshot = thread.cached(readCacheSlot());
+            if (snapshot == null) {
+                throw new IllegalArgumentException("Reference to unknown cached snapshot");
+            }
+            resolvedReferenceCount++;
+            return snapshot;
+        }
+        if (tag == TAG_SNAPSHOT_STORE) {
+            int slot = readCacheSlot();
+            // Forget the old snapshot first, so a payload that fails to decode leaves no stale entry
+            thread.store(slot, null);
+            ObjectSnapshot snapshot = readRootObject();
+            thread.store(slot, snapshot);
+            return snapshot;
+        }
+        if (tag == TAG_DETACHED) {
+            dictionary = new ArrayList<>();
+            return readRootObject();
+        }
+        pos--;
+        return readRootObject();
+    }
+
+    private ObjectSnapshot readRootObject() {
+        if (!(readValue() instanceof ObjectSnapshot snapshot)) {
+            throw new IllegalArgumentException("Snapshot payload must encode an object");
+        }
+        return snapshot;
+    }
+
+    private int readCacheSlot() {
+        long slot = readVarLong();
+        if (slot < 0 || slot >= MAX_CACHE_SLOTS) {
+            throw new IllegalArgumentException("Cache slot " + slot + " out of range");
+        }
+        return (int) slot;
+    }
+
+    private Object readValue() {
+        int tag = readByte();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_FALSE -> Boolean.FALSE;
+            case TAG_TRUE -> Boolean.TRUE;
+            case TAG_BYTE -> (byte) readByte();
+            case TAG_SHORT -> (short) zigzag(readVarLong());
+            case TAG_CHAR -> (char) readVarLong();
+            case TAG_INT -> (int) zigzag(readVarLong());
+            case TAG_LONG -> zigzag(readVarLong());
+            case TAG_FLOAT -> Float.intBitsToFloat(readInt32());
+            case TAG_DOUBLE -> Double.longBitsToDouble(((long) readInt32() << 32) | (readInt32() & 0xFFFFFFFFL));
+            case TAG_STRING, TAG_ENUM -> readString();
+            case TAG_OBJECT -> readObject();
+            case TAG_TO_STRING -> {
+                ObjectSnapshot snapshot = newSnapshot(readName());
+                snapshot.putField("$value", readString());
+                yield snapshot;
+            }
+            case TAG_DEPTH_REF -> "$ref:" + readName();
+            case TAG_CYCLE -> "$cycle";
+            case TAG_BACKREF -> {
+                int index = (int) readVarLong();
+                if (index >= objects.size()) {
+                    throw new IllegalArgumentException("Back-reference to unknown object " + index);
+                }
+                yield objects.get(index);
+            }
+            default -> throw new IllegalArgumentException("Unknown value tag " + tag + " at offset " + (pos - 1));
+        };
+    }
+
+    private ObjectSnapshot readObject() {
+        ObjectSnapshot snapshot = newSnapshot(readName());
+        int fieldCount = (int) readVarLong();
+        for (int i = 0; i < fieldCount; i++) {
+            String fieldName = readName();
+            snapshot.putField(fieldName, readValue());
+        }
+        return snapshot;
+    }
+
+    private ObjectSnapshot newSnapshot(String className) {
+        ObjectSnapshot snapshot = new ObjectSnapshot(className);
+        objects.add(snapshot);
+        return snapshot;
+    }
+
+    private String readName() {
+        int reference = (int) readVarLong();
+        if (reference == 0) {
+            String name = readString();
+            dictionary.add(name);
+            return name;
+        }
+        if (reference > dictionary.size()) {
+            throw new IllegalArgumentException("Unknown dictionary entry " + (reference - 1));
+        }
+        return dictionary.get(reference - 1);
+    }
+
+    private String readString() {
+        int length = (int) readVarLong();
+        if (length < 0 || pos + length > data.length) {
+            throw new IllegalArgumentException("Truncated string at offset " + pos);
+        }
+        String value = new String(data, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return value;
+    }
+
+    private int readByte() {
+        if (pos >= data.length) {
+            throw new IllegalArgumentException("Unexpected end of snapshot payload");
+        }
+        return data[pos++];
+    }
+
+    private int readInt32() {
+        return (readByte() & 0xFF) << 24 | (readByte() & 0xFF) << 16 | (readByte() & 0xFF) << 8 | (readByte() & 0xFF);
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at offset " + pos);
+    }
+
+    private static long zigzag(long encoded) {
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+}
@@ -0,0 +1,220 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import cz.cuni.mff.d3s.autodebugger.model.common.identifiers.ExportableValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Collects trace values from several threads and merges them into one trace at the end.
+ *
+ * <p>Every producer appends to its own {@link Segment}, a set of plain growable arrays, so
+ * appending takes no lock and shares no memory with other producers. Event indices either
+ * come from the caller or from one global {@link AtomicInteger} sequence. {@link #freeze()}
+ * sorts segments that received indices out of order, merges all segments by event index and
+ * adds the values to a new trace in that order. For an {@link IndexedTrace} every history is
+ * then a pure append. The result is frozen, so it rejects further values.
+ *
+ * <p>Segments are plain objects handed to their producers rather than kept per thread, so
+ * nothing outlives the build in pooled threads.
+ *
+ * <p>Producers must have finished, and their writes must be visible to the freezing thread
+ * (for example by joining the threads or awaiting their tasks), before {@link #freeze()} is
+ * called. Appends after that throw {@link IllegalStateException}. A key should receive at
+ * most one value per event index; otherwise one of them is kept.
+ *
+ * @param <K> Key of the traced values (slot ID or identifier).
+ * @param <T> Type of the trace produced by {@link #freeze()}.
+ */
+public final class ConcurrentTraceBuilder<K, T> {
+
+    /**
+     * Adds one value to the trace being built.
+     */
+    @FunctionalInterface
+    interface TraceSink<K, T> {
+        void add(T trace, K key, int eventIndex, Object value);
+    }
+
+    private final Supplier<T> traceFactory;
+    private final TraceSink<K, T> sink;
+    private final Consumer<T> finisher;
+    private final AtomicInteger eventSequence = new AtomicInteger();
+    private final Queue<Segment<K>> segments = new ConcurrentLinkedQueue<>();
+    private volatile boolean frozen;
+
+    private ConcurrentTraceBuilder(Supplier<T> traceFactory, TraceSink<K, T> sink, Consumer<T> finisher) {
+        this.traceFactory = traceFactory;
+        this.sink = sink;
+        this.finisher = finisher;
+    }
+
+    /**
+     * @return A builder producing a frozen {@link IndexedTrace} keyed by slot ID.
+     */
+    public static ConcurrentTraceBuilder<Integer, IndexedTrace> forIndexedTrace() {
+        return new ConcurrentTraceBuilder<>(IndexedTrace::new, IndexedTrace::addValue, IndexedTrace::freeze);
+    }
+
+    /**
+     * @return A builder producing a frozen {@link TemporalTrace} keyed by identifier.
+     */
+    public static ConcurrentTraceBuilder<ExportableValue, TemporalTrace> forTemporalTrace() {
+        return new ConcurrentTraceBuilder<>(TemporalTrace::new, TemporalTrace::addValue, TemporalTrace::freeze);
+    }
+
+    /**
+     * Creates a segment for one producer, such as a collector shard or a task of a parallel stream.
+     */
+    public Segment<K> newSegment() {
+        checkOpen();
+        Segment<K> segment = new Segment<>(this);
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Takes the next index of the global event sequence.
+     */
+    public int nextEventIndex() {
+        return eventSequence.getAndIncrement();
+    }
+
+    /**
+     * Merges all segments into a new trace. Can be called once.
+     */
+    public T freeze() {
+        if (frozen) {
+            throw new IllegalStateException("Trace builder has already been frozen");
+        }
+        frozen = true;
+
+        List<Segment<K>> sources = new ArrayList<>(segments);
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> Integer.compare(sources.get(a[0]).eventIndexAt(a[1]), sources.get(b[0]).eventIndexAt(b[1])));
+        for (int i = 0; i < sources.size(); i++) {
+            Segment<K> segment = sources.get(i);
+            segment.sortByEventIndex();
+            if (segment.size > 0) {
+                heads.add(new int[] { i, 0 });
+            }
+        }
+
+        T trace = traceFactory.get();
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            Segment<K> segment = sources.get(head[0]);
+            int position = head[1];
+            sink.add(trace, segment.keyAt(position), segment.eventIndexAt(position), segment.values[position]);
+            if (position + 1 < segment.size) {
+                head[1] = position + 1;
+                heads.add(head);
+            }
+        }
+        finisher.accept(trace);
+        return trace;
+    }
+
+    private void checkOpen() {
+        if (frozen) {
+            throw new IllegalStateException("Trace builder has already been frozen");
+        }
+    }
+
+    /**
+     * Append-only buffer of one producer. A segment must only be used by one thread at a time.
+     */
+    public static final class Segment<K> {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final ConcurrentTraceBuilder<K, ?> builder;
+        private Object[] keys = new Object[INITIAL_CAPACITY];
+        private int[] eventIndices = new int[INITIAL_CAPACITY];
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        private int size;
+        private boolean sorted = true;
+
+        private Segment(ConcurrentTraceBuilder<K, ?> builder) {
+            this.builder = builder;
+        }
+
+        /**
+         * Appends a value at the next index of the global event sequence.
+         *
+         * @return The assigned event index.
+         */
+        public int append(K key, Object value) {
+            int eventIndex = builder.nextEventIndex();
+            append(key, eventIndex, value);
+            return eventIndex;
+        }
+
+        /**
+         * Appends a value at an event index chosen by the caller.
+         */
+        public void append(K key, int eventIndex, Object value) {
+            builder.checkOpen();
+            if (size == eventIndices.length) {
+                int capacity = size * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                eventIndices = Arrays.copyOf(eventIndices, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            if (size > 0 && eventIndex < eventIndices[size - 1]) {
+                sorted = false;
+            }
+            keys[size] = key;
+            eventIndices[size] = eventIndex;
+            values[size] = value;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        private K keyAt(int position) {
+            return (K) keys[position];
+        }
+
+        private int eventIndexAt(int position) {
+            return eventIndices[position];
+        }
+
+        /**
+         * Stably sorts the appended values by event index.
+         */
+        private void sortByEventIndex() {
+            if (sorted) {
+                return;
+            }
+            // Event index in the high half, original position in the low half
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = ((long) eventIndices[i] << 32) | i;
+            }
+            Arrays.sort(order);
+            Object[] sortedKeys = new Object[size];
+            int[] sortedEventIndices = new int[size];
+            Object[] sortedValues = new Object[size];
+            for (int i = 0; i < size; i++) {
+                int position = (int) order[i];
+                sortedKeys[i] = keys[position];
+                sortedEventIndices[i] = eventIndices[position];
+                sortedValues[i] = values[position];
+            }
+            keys = sortedKeys;
+            eventIndices = sortedEventIndices;
+            values = sortedValues;
+            sorted = true;
+        }
+    }
+}
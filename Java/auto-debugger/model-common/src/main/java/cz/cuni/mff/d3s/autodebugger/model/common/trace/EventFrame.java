@@ -0,0 +1,180 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.util.Arrays;
+
+/**
+ * Values of one probe hit, assembled between the begin and end messages of an event frame.
+ *
+ * <p>The instrumented process announces every probe hit with a begin message carrying the
+ * event kind, the thread ID and the number of slots the probe exports, sends the values and
+ * closes the frame with an end message. Messages of different threads may interleave, so the
+ * collector keeps one frame per thread and appends it to the {@link InvocationColumns} as a
+ * single row once the end message arrives.
+ *
+ * <p>Primitive values are kept as raw {@code long} bits next to their kind, so a frame is
+ * reused for every event of its thread without boxing or allocation once it has grown to
+ * the probe's slot count.
+ *
+ * <p>This class is embedded in the ShadowVM instrumentation JAR, so it only depends on
+ * plain Java types. It is not thread-safe.
+ */
+public class EventFrame {
+    public static final byte KIND_BEFORE = 0;
+    public static final byte KIND_AFTER = 1;
+
+    private final long threadId;
+    private byte eventKind;
+    private int expectedSlotCount;
+    private boolean open;
+
+    private int size;
+    private int[] slotIds = new int[8];
+    private byte[] valueKinds = new byte[8];
+    private long[] bits = new long[8];
+    private Object[] references = new Object[8];
+
+    public EventFrame(long threadId) {
+        this.threadId = threadId;
+    }
+
+    /**
+     * Starts a new frame. Values of a previous frame that was never appended are dropped.
+     *
+     * @param eventKind {@link #KIND_BEFORE} or {@link #KIND_AFTER}.
+     * @param slotCount Number of slots the probe exports; used to presize the frame.
+     */
+    public void begin(byte eventKind, int slotCount) {
+        reset();
+        this.eventKind = eventKind;
+        this.expectedSlotCount = slotCount;
+        this.open = true;
+        ensureCapacity(slotCount);
+    }
+
+    public void putByte(int slotId, byte value) {
+        add(slotId, InvocationColumns.KIND_BYTE, value);
+    }
+
+    public void putChar(int slotId, char value) {
+        add(slotId, InvocationColumns.KIND_CHAR, value);
+    }
+
+    public void putShort(int slotId, short value) {
+        add(slotId, InvocationColumns.KIND_SHORT, value);
+    }
+
+    public void putInt(int slotId, int value) {
+        add(slotId, InvocationColumns.KIND_INT, value);
+    }
+
+    public void putBoolean(int slotId, boolean value) {
+        add(slotId, InvocationColumns.KIND_BOOLEAN, value ? 1 : 0);
+    }
+
+    public void putLong(int slotId, long value) {
+        add(slotId, InvocationColumns.KIND_LONG, value);
+    }
+
+    public void putFloat(int slotId, float value) {
+        add(slotId, InvocationColumns.KIND_FLOAT, Double.doubleToRawLongBits(value));
+    }
+
+    public void putDouble(int slotId, double value) {
+        add(slotId, InvocationColumns.KIND_DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    public void putString(int slotId, String value) {
+        int index = add(slotId, InvocationColumns.KIND_STRING, 0);
+        references[index] = value;
+    }
+
+    public void putObject(int slotId, ObjectSnapshot value) {
+        int index = add(slotId, InvocationColumns.KIND_OBJECT, 0);
+        references[index] = value;
+    }
+
+    /**
+     * Decodes the whole frame into the open row of the columns in one pass and resets the
+     * frame. The caller completes the row.
+     *
+     * @return Number of values appended.
+     */
+    public int appendTo(InvocationColumns columns) {
+        int appended = size;
+        for (int i = 0; i < size; i++) {
+            int slotId = slotIds[i];
+            long value = bits[i];
+            switch (valueKinds[i]) {
+                case InvocationColumns.KIND_BYTE -> columns.putByte(slotId, (byte) value);
+                case InvocationColumns.KIND_CHAR -> columns.putChar(slotId, (char) value);
+                case InvocationColumns.KIND_SHORT -> columns.putShort(slotId, (short) value);
+                case InvocationColumns.KIND_INT -> columns.putInt(slotId, (int) value);
+                case InvocationColumns.KIND_BOOLEAN -> columns.putBoolean(slotId, value != 0);
+                case InvocationColumns.KIND_LONG -> columns.putLong(slotId, value);
+                case InvocationColumns.KIND_FLOAT -> columns.putFloat(slotId, (float) Double.longBitsToDouble(value));
+                case InvocationColumns.KIND_DOUBLE -> columns.putDouble(slotId, Double.longBitsToDouble(value));
+                case InvocationColumns.KIND_STRING -> columns.putString(slotId, (String) references[i]);
+                default -> columns.putObject(slotId, (ObjectSnapshot) references[i]);
+            }
+        }
+        reset();
+        return appended;
+    }
+
+    /**
+     * Drops the values of the frame and marks it closed. Capacity is kept for reuse.
+     */
+    public void reset() {
+        Arrays.fill(references, 0, size, null);
+        size = 0;
+        open = false;
+    }
+
+    public long getThreadId() {
+        return threadId;
+    }
+
+    public byte getEventKind() {
+        return eventKind;
+    }
+
+    /**
+     * @return Number of slots announced by the begin message of the frame.
+     */
+    public int getExpectedSlotCount() {
+        return expectedSlotCount;
+    }
+
+    /**
+     * @return Number of values received since the frame began.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true between a begin message and the append or reset of the frame.
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    private int add(int slotId, byte valueKind, long value) {
+        ensureCapacity(size + 1);
+        slotIds[size] = slotId;
+        valueKinds[size] = valueKind;
+        bits[size] = value;
+        return size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= slotIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(slotIds.length * 2, capacity);
+        slotIds = Arrays.copyOf(slotIds, newCapacity);
+        valueKinds = Arrays.copyOf(valueKinds, newCapacity);
+        bits = Arrays.copyOf(bits, newCapacity);
+        references = Arrays.copyOf(references, newCapacity);
+    }
+}
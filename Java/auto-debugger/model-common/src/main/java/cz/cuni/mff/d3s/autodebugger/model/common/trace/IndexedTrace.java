@@ -12,30 +12,45 @@ import java.util.*;
  * simple integer slot IDs, making it compatible with ShadowVM's serialization constraints.
  * The event indices provide temporal ordering of collected values.
  * 
- * <p>Data structure: Map&lt;Integer, NavigableMap&lt;Integer, Object&gt;&gt; where:
+ * <p>Data structure: Map&lt;Integer, SlotHistory&gt; where:
  * <ul>
- *   <li>Outer key: slot ID (Integer) - identifies the variable/location being tracked</li>
- *   <li>Inner key: event index (Integer) - temporal position in execution</li>
- *   <li>Value: collected value (Object) - can be any primitive wrapper type</li>
+ *   <li>Key: slot ID (Integer) - identifies the variable/location being tracked</li>
+ *   <li>Value: the slot's history - a sorted int[] of event indices (temporal positions in
+ *       execution) next to a typed column of the collected values</li>
  * </ul>
+ * Histories are read through unmodifiable NavigableMap views backed by these arrays.
+ * String values are stored once in the trace's {@link StringDictionary} and the histories
+ * refer to them by ID, so a string repeated across many events costs an int per event.
+ * The dictionary is serialized with the trace, and views look strings up as they are read.
  * 
  * <p>This class is Serializable for ShadowVM compatibility and uses only simple Java types
  * (no ExportableValue or other complex identifiers).
  */
 public class IndexedTrace implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 3L;
     
     /**
      * Core data structure mapping slot IDs to their temporal value histories.
-     * TreeMap is used for the inner map to enable efficient range queries on event indices.
+     * Histories are sorted by event index, so range queries are binary searches.
      */
-    private final Map<Integer, NavigableMap<Integer, Object>> traceData;
+    private final Map<Integer, SlotHistory> traceData;
+
+    /**
+     * Distinct string values of all slots.
+     */
+    private final StringDictionary strings;
+
+    /**
+     * Set by {@link #freeze()}; a frozen trace rejects new values.
+     */
+    private boolean frozen;
     
     /**
      * Creates a new empty IndexedTrace.
      */
     public IndexedTrace() {
         this.traceData = new HashMap<>();
+        this.strings = new StringDictionary();
     }
     
     /**
@@ -46,31 +61,55 @@ public class IndexedTrace implements Serializable {
      * @param value The runtime value (should be a primitive wrapper type).
      */
     public void addValue(int slotId, int eventIndex, Object value) {
-        traceData.computeIfAbsent(slotId, k -> new TreeMap<>())
+        if (frozen) {
+            throw new IllegalStateException("Cannot add values to a frozen IndexedTrace");
+        }
+        traceData.computeIfAbsent(slotId, k -> new SlotHistory(strings))
                  .put(eventIndex, value);
     }
+
+    /**
+     * Makes the trace read-only and trims every history to its recorded values.
+     * Reads never modify a frozen trace, so it can be shared between threads once published.
+     */
+    public void freeze() {
+        traceData.values().forEach(SlotHistory::trimToSize);
+        frozen = true;
+    }
+
+    /**
+     * @return The dictionary holding the distinct string values of the trace.
+     */
+    public StringDictionary getStringDictionary() {
+        return strings;
+    }
+
+    /**
+     * @return true if {@link #freeze()} has been called.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
     
     /**
      * Retrieves the complete history of values for a specific slot.
      *
      * @param slotId The slot ID to query.
-     * @return A NavigableMap of event indices to values, or an empty map if the slot
-     *         was never tracked. The returned map is a copy and modifications won't
-     *         affect the trace.
+     * @return An unmodifiable NavigableMap of event indices to values, or an empty map if
+     *         the slot was never tracked. The map is a view of the trace, not a copy.
      */
     public NavigableMap<Integer, Object> getValues(int slotId) {
-        NavigableMap<Integer, Object> history = traceData.get(slotId);
-        return history != null ? new TreeMap<>(history) : new TreeMap<>();
+        SlotHistory history = traceData.get(slotId);
+        return history != null ? new SlotHistoryView(history) : Collections.emptyNavigableMap();
     }
     
     /**
      * Gets all slot IDs that have been tracked in this trace.
      *
-     * @return A set of all slot IDs. The returned set is a copy and modifications
-     *         won't affect the trace.
+     * @return An unmodifiable view of all slot IDs.
      */
     public Set<Integer> getAllSlotIDs() {
-        return new HashSet<>(traceData.keySet());
+        return Collections.unmodifiableSet(traceData.keySet());
     }
     
     /**
@@ -84,11 +123,11 @@ public class IndexedTrace implements Serializable {
         int max = Integer.MIN_VALUE;
         boolean hasData = false;
         
-        for (NavigableMap<Integer, Object> history : traceData.values()) {
-            if (!history.isEmpty()) {
+        for (SlotHistory history : traceData.values()) {
+            if (history.size() > 0) {
                 hasData = true;
-                min = Math.min(min, history.firstKey());
-                max = Math.max(max, history.lastKey());
+                min = Math.min(min, history.eventIndexAt(0));
+                max = Math.max(max, history.eventIndexAt(history.size() - 1));
             }
         }
         
@@ -102,7 +141,7 @@ public class IndexedTrace implements Serializable {
      */
     public int getTotalEventCount() {
         return traceData.values().stream()
-                       .mapToInt(Map::size)
+                       .mapToInt(SlotHistory::size)
                        .sum();
     }
     
@@ -113,7 +152,7 @@ public class IndexedTrace implements Serializable {
      */
     public boolean isEmpty() {
         return traceData.isEmpty() || 
-               traceData.values().stream().allMatch(Map::isEmpty);
+               traceData.values().stream().allMatch(history -> history.size() == 0);
     }
     
     /**
@@ -124,7 +163,7 @@ public class IndexedTrace implements Serializable {
     public String getSummary() {
         StringBuilder sb = new StringBuilder();
         sb.append("IndexedTrace Summary:\n");
-        sb.append("  - Tracked slots: ").append(traceData.size()).append("\n");
+        sb.append("  - Tracked slots: ").append(getAllSlotIDs().size()).append("\n");
         sb.append("  - Total events: ").append(getTotalEventCount()).append("\n");
         
         getEventIndexRange().ifPresentOrElse(
@@ -0,0 +1,390 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.util.Arrays;
+
+/**
+ * Columnar, primitive-specialized buffer of invocation values keyed by slot ID.
+ *
+ * <p>Every slot owns one typed, growable column: an {@code int[]} for byte, char, short,
+ * int and boolean values, a {@code long[]} for longs, a {@code double[]} for floats and
+ * doubles, and an {@code Object[]} for strings and object snapshots. Next to the values,
+ * each column records the row (invocation) every value belongs to, so a slot that is not
+ * captured in some invocation simply has no entry for that row.
+ *
+ * <p>Recording a value is an array write: no boxing and no per-invocation maps. Columns
+ * keep their capacity across {@link #clear()}, so a buffer that is reused for every
+ * chunk stops allocating once it has grown to the chunk size.
+ *
+ * <p>This class is embedded in the ShadowVM instrumentation JAR, so it only depends on
+ * plain Java types. It is not thread-safe.
+ */
+public class InvocationColumns {
+    public static final byte KIND_BYTE = 1;
+    public static final byte KIND_CHAR = 2;
+    public static final byte KIND_SHORT = 3;
+    public static final byte KIND_INT = 4;
+    public static final byte KIND_BOOLEAN = 5;
+    public static final byte KIND_LONG = 6;
+    public static final byte KIND_FLOAT = 7;
+    public static final byte KIND_DOUBLE = 8;
+    public static final byte KIND_STRING = 9;
+    public static final byte KIND_OBJECT = 10;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Values of one slot. Only the array matching the slot's kind is allocated.
+     */
+    static final class Column {
+        final byte kind;
+        int size;
+        int[] rows = new int[INITIAL_CAPACITY];
+        int[] ints;
+        long[] longs;
+        double[] doubles;
+        Object[] references;
+
+        Column(byte kind) {
+            this.kind = kind;
+            switch (storageOf(kind)) {
+                case KIND_INT -> ints = new int[INITIAL_CAPACITY];
+                case KIND_LONG -> longs = new long[INITIAL_CAPACITY];
+                case KIND_DOUBLE -> doubles = new double[INITIAL_CAPACITY];
+                default -> references = new Object[INITIAL_CAPACITY];
+            }
+        }
+
+        /**
+         * Returns the position to write the value of the given row to, growing the column if needed.
+         * Callers must read the value array only after this call, as growing replaces it.
+         * A second value for the same row replaces the first one.
+         */
+        int positionFor(int row) {
+            if (size > 0 && rows[size - 1] == row) {
+                return size - 1;
+            }
+            if (size == rows.length) {
+                int capacity = size * 2;
+                rows = Arrays.copyOf(rows, capacity);
+                if (ints != null) {
+                    ints = Arrays.copyOf(ints, capacity);
+                } else if (longs != null) {
+                    longs = Arrays.copyOf(longs, capacity);
+                } else if (doubles != null) {
+                    doubles = Arrays.copyOf(doubles, capacity);
+                } else {
+                    references = Arrays.copyOf(references, capacity);
+                }
+            }
+            rows[size] = row;
+            return size++;
+        }
+    }
+
+    private Column[] columns = new Column[8];
+    private int[] slotIds = new int[8];
+    private int slotCount;
+    private int rowCount;
+    private int currentRowSize;
+
+    public void putByte(int slotId, byte value) {
+        Column column = column(slotId, KIND_BYTE);
+        int position = column.positionFor(rowCount);
+        column.ints[position] = value;
+    }
+
+    public void putChar(int slotId, char value) {
+        Column column = column(slotId, KIND_CHAR);
+        int position = column.positionFor(rowCount);
+        column.ints[position] = value;
+    }
+
+    public void putShort(int slotId, short value) {
+        Column column = column(slotId, KIND_SHORT);
+        int position = column.positionFor(rowCount);
+        column.ints[position] = value;
+    }
+
+    public void putInt(int slotId, int value) {
+        Column column = column(slotId, KIND_INT);
+        int position = column.positionFor(rowCount);
+        column.ints[position] = value;
+    }
+
+    public void putBoolean(int slotId, boolean value) {
+        Column column = column(slotId, KIND_BOOLEAN);
+        int position = column.positionFor(rowCount);
+        column.ints[position] = value ? 1 : 0;
+    }
+
+    public void putLong(int slotId, long value) {
+        Column column = column(slotId, KIND_LONG);
+        int position = column.positionFor(rowCount);
+        column.longs[position] = value;
+    }
+
+    public void putFloat(int slotId, float value) {
+        Column column = column(slotId, KIND_FLOAT);
+        int position = column.positionFor(rowCount);
+        column.doubles[position] = value;
+    }
+
+    public void putDouble(int slotId, double value) {
+        Column column = column(slotId, KIND_DOUBLE);
+        int position = column.positionFor(rowCount);
+        column.doubles[position] = value;
+    }
+
+    public void putString(int slotId, String value) {
+        Column column = column(slotId, KIND_STRING);
+        int position = column.positionFor(rowCount);
+        column.references[position] = value;
+    }
+
+    public void putObject(int slotId, ObjectSnapshot value) {
+        Column column = column(slotId, KIND_OBJECT);
+        int position = column.positionFor(rowCount);
+        column.references[position] = value;
+    }
+
+    /**
+     * Records a value of any kind, or null, in the slot's object column, where it keeps its own
+     * type. A slot that holds another kind has its values boxed into an object column first, as
+     * {@link SlotHistory} does when a history stops being of one kind.
+     *
+     * @throws IllegalArgumentException if the value is not a boxed primitive, string or snapshot.
+     */
+    public void putTagged(int slotId, Object value) {
+        if (value != null) {
+            kindOf(value);  // rejects unsupported types
+        }
+        byte kind = getKind(slotId);
+        if (kind != 0 && kind != KIND_OBJECT) {
+            convertToObject(slotId);
+        }
+        Column column = column(slotId, KIND_OBJECT);
+        int position = column.positionFor(rowCount);
+        column.references[position] = value;
+    }
+
+    /**
+     * Closes the current row so that subsequent values belong to the next invocation.
+     *
+     * @return The index of the row that was closed.
+     */
+    public int completeRow() {
+        currentRowSize = 0;
+        return rowCount++;
+    }
+
+    /**
+     * @return Number of distinct slots recorded in the row that is still open.
+     */
+    public int getCurrentRowSize() {
+        return currentRowSize;
+    }
+
+    /**
+     * @return Number of completed rows.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Makes the given row the open row, so that all rows before it count as completed.
+     * Used to convert whole traces, where all values of one slot are recorded before those
+     * of the next slot; the rows recorded for a single slot must still increase.
+     */
+    void seekRow(int row) {
+        rowCount = row;
+        currentRowSize = 0;
+    }
+
+    public boolean isEmpty() {
+        return rowCount == 0;
+    }
+
+    /**
+     * Drops all completed rows but keeps the allocated columns for reuse.
+     * Values of the row that is still open are dropped as well.
+     */
+    public void clear() {
+        for (int i = 0; i < slotCount; i++) {
+            Column column = columns[slotIds[i]];
+            if (column.references != null) {
+                Arrays.fill(column.references, 0, column.size, null);
+            }
+            column.size = 0;
+        }
+        rowCount = 0;
+        currentRowSize = 0;
+    }
+
+    /**
+     * @return Slot IDs that have a column, in the order they were first recorded.
+     */
+    public int[] getSlotIds() {
+        return Arrays.copyOf(slotIds, slotCount);
+    }
+
+    /**
+     * @return The kind constant of the slot's column, or 0 if the slot was never recorded.
+     */
+    public byte getKind(int slotId) {
+        Column column = slotId >= 0 && slotId < columns.length ? columns[slotId] : null;
+        return column != null ? column.kind : 0;
+    }
+
+    /**
+     * @return Number of values recorded for the slot in completed and open rows.
+     */
+    public int getValueCount(int slotId) {
+        Column column = slotId >= 0 && slotId < columns.length ? columns[slotId] : null;
+        return column != null ? column.size : 0;
+    }
+
+    /**
+     * @return The row the value at the given position of the slot's column belongs to.
+     */
+    public int getRow(int slotId, int position) {
+        return existingColumn(slotId).rows[position];
+    }
+
+    /**
+     * Reads a value stored in an int column (byte, char, short, int and boolean slots).
+     */
+    public int getInt(int slotId, int position) {
+        return existingColumn(slotId).ints[position];
+    }
+
+    /**
+     * Reads a value stored in a long column.
+     */
+    public long getLong(int slotId, int position) {
+        return existingColumn(slotId).longs[position];
+    }
+
+    /**
+     * Reads a value stored in a double column (float and double slots).
+     */
+    public double getDouble(int slotId, int position) {
+        return existingColumn(slotId).doubles[position];
+    }
+
+    /**
+     * Reads a value stored in a reference column (string and object slots).
+     */
+    public Object getReference(int slotId, int position) {
+        return existingColumn(slotId).references[position];
+    }
+
+    /**
+     * Reads a value boxed to its original wrapper type. Intended for consumers at the
+     * API boundary; the hot path should use the typed getters.
+     */
+    public Object getValue(int slotId, int position) {
+        Column column = existingColumn(slotId);
+        return switch (column.kind) {
+            case KIND_BYTE -> (byte) column.ints[position];
+            case KIND_CHAR -> (char) column.ints[position];
+            case KIND_SHORT -> (short) column.ints[position];
+            case KIND_INT -> column.ints[position];
+            case KIND_BOOLEAN -> column.ints[position] != 0;
+            case KIND_LONG -> column.longs[position];
+            case KIND_FLOAT -> (float) column.doubles[position];
+            case KIND_DOUBLE -> column.doubles[position];
+            default -> column.references[position];
+        };
+    }
+
+    /**
+     * @return The kind constant of a boxed primitive, string or snapshot.
+     * @throws IllegalArgumentException if the value is null or of another type.
+     */
+    public static byte kindOf(Object value) {
+        if (value instanceof Integer) {
+            return KIND_INT;
+        } else if (value instanceof Long) {
+            return KIND_LONG;
+        } else if (value instanceof Boolean) {
+            return KIND_BOOLEAN;
+        } else if (value instanceof Double) {
+            return KIND_DOUBLE;
+        } else if (value instanceof Float) {
+            return KIND_FLOAT;
+        } else if (value instanceof Character) {
+            return KIND_CHAR;
+        } else if (value instanceof Byte) {
+            return KIND_BYTE;
+        } else if (value instanceof Short) {
+            return KIND_SHORT;
+        } else if (value instanceof String) {
+            return KIND_STRING;
+        } else if (value instanceof ObjectSnapshot) {
+            return KIND_OBJECT;
+        }
+        throw new IllegalArgumentException("Unsupported value type: "
+                + (value == null ? "null" : value.getClass().getName()));
+    }
+
+    /**
+     * Maps a value kind to the kind whose array stores it (KIND_INT, KIND_LONG, KIND_DOUBLE or KIND_OBJECT).
+     */
+    public static byte storageOf(byte kind) {
+        return switch (kind) {
+            case KIND_BYTE, KIND_CHAR, KIND_SHORT, KIND_INT, KIND_BOOLEAN -> KIND_INT;
+            case KIND_LONG -> KIND_LONG;
+            case KIND_FLOAT, KIND_DOUBLE -> KIND_DOUBLE;
+            case KIND_STRING, KIND_OBJECT -> KIND_OBJECT;
+            default -> throw new IllegalArgumentException("Unknown value kind: " + kind);
+        };
+    }
+
+    private Column column(int slotId, byte kind) {
+        if (slotId < 0) {
+            throw new IllegalArgumentException("Slot ID must not be negative: " + slotId);
+        }
+        if (slotId >= columns.length) {
+            columns = Arrays.copyOf(columns, Math.max(columns.length * 2, slotId + 1));
+        }
+        Column column = columns[slotId];
+        if (column == null) {
+            column = new Column(kind);
+            columns[slotId] = column;
+            if (slotCount == slotIds.length) {
+                slotIds = Arrays.copyOf(slotIds, slotCount * 2);
+            }
+            slotIds[slotCount++] = slotId;
+        } else if (column.kind != kind) {
+            throw new IllegalArgumentException("Slot " + slotId + " holds kind " + column.kind + ", not " + kind);
+        }
+        if (column.size == 0 || column.rows[column.size - 1] != rowCount) {
+            currentRowSize++;
+        }
+        return column;
+    }
+
+    /**
+     * Replaces the typed column of a slot by an object column holding the same values, boxed.
+     */
+    private void convertToObject(int slotId) {
+        Column typed = columns[slotId];
+        Column converted = new Column(KIND_OBJECT);
+        converted.rows = typed.rows;
+        converted.references = new Object[typed.rows.length];
+        for (int i = 0; i < typed.size; i++) {
+            converted.references[i] = getValue(slotId, i);
+        }
+        converted.size = typed.size;
+        columns[slotId] = converted;
+    }
+
+    private Column existingColumn(int slotId) {
+        Column column = slotId >= 0 && slotId < columns.length ? columns[slotId] : null;
+        if (column == null) {
+            throw new IllegalArgumentException("No values recorded for slot " + slotId);
+        }
+        return column;
+    }
+}
@@ -1,34 +1,111 @@
 package cz.cuni.mff.d3s.autodebugger.model.common.trace;
 
+import java.nio.CharBuffer;
+
 /**
  * Simple JSON parser for ObjectSnapshot serialization.
  * Handles the format: {"$class":"com.example.User","name":"John","age":30}
- * 
+ *
  * Special markers:
  * - $class: fully qualified class name
  * - $cycle: indicates a circular reference
  * - $ref: prefix for depth-limited references
+ *
+ * <p>The parser makes a single pass over a {@link CharSequence} or a {@code char[]} region
+ * without copying it. Field and class names are interned in a symbol table shared by all
+ * threads, so repeated names are neither copied nor duplicated. Numbers are parsed in place,
+ * and strings with escapes are unescaped into a per-thread scratch buffer.
+ *
+ * <p>The tolerant variants accept payloads that were cut off: the field being read when the
+ * input ends is dropped, and every object left open is closed and gets a {@code $truncated}
+ * field set to true.
  */
 public class JsonObjectParser {
-  
-  private final String json;
+
+  /** Field added to objects that were closed because the input ended. */
+  public static final String TRUNCATED_FIELD = "$truncated";
+
+  private static final String CLASS_FIELD = "$class";
+  // Stands for a value cut off by the end of the input in tolerant mode
+  private static final Object TRUNCATED = new Object();
+  private static final ThreadLocal<StringBuilder> SCRATCH = ThreadLocal.withInitial(StringBuilder::new);
+  // Upper bound on interned names, so malformed input cannot grow the table without limit
+  private static final int MAX_SYMBOLS = 1 << 14;
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  // Open-addressing table of interned names; readers do not lock, writers lock SYMBOL_LOCK
+  private static final Object SYMBOL_LOCK = new Object();
+  private static volatile String[] symbols = new String[256];
+  private static int symbolCount;
+
+  private final CharSequence json;
+  private final int end;
+  private final boolean tolerant;
   private int pos;
 
-  private JsonObjectParser(String json) {
+  private JsonObjectParser(CharSequence json, int start, int end, boolean tolerant) {
     this.json = json;
-    this.pos = 0;
+    this.pos = start;
+    this.end = end;
+    this.tolerant = tolerant;
   }
 
   /**
    * Parses a JSON string into an ObjectSnapshot.
-   * 
+   *
    * @param json the JSON string to parse
    * @return the parsed ObjectSnapshot
    * @throws IllegalArgumentException if the JSON is invalid
    */
   public static ObjectSnapshot parse(String json) {
-    JsonObjectParser parser = new JsonObjectParser(json);
-    Object result = parser.parseValue();
+    return parse(json, false);
+  }
+
+  /**
+   * Parses JSON held in a char sequence into an ObjectSnapshot.
+   *
+   * @param json the JSON text to parse
+   * @param tolerant whether to close objects cut off by the end of the input instead of failing
+   * @return the parsed ObjectSnapshot
+   * @throws IllegalArgumentException if the JSON is invalid
+   */
+  public static ObjectSnapshot parse(CharSequence json, boolean tolerant) {
+    return new JsonObjectParser(json, 0, json.length(), tolerant).parseRoot();
+  }
+
+  /**
+   * Parses JSON held in a region of a char array into an ObjectSnapshot. The array is not copied.
+   *
+   * @param json the array holding the JSON text
+   * @param offset index of the first char of the JSON text
+   * @param length number of chars of the JSON text
+   * @param tolerant whether to close objects cut off by the end of the input instead of failing
+   * @return the parsed ObjectSnapshot
+   * @throws IllegalArgumentException if the JSON is invalid
+   */
+  public static ObjectSnapshot parse(char[] json, int offset, int length, boolean tolerant) {
+    return parse(CharBuffer.wrap(json, offset, length), tolerant);
+  }
+
+  /**
+   * Parses a JSON payload that may have been cut off, see {@link #parse(CharSequence, boolean)}.
+   *
+   * @param json the JSON text to parse
+   * @return the parsed ObjectSnapshot
+   * @throws IllegalArgumentException if the JSON is invalid or ends before the root's $class
+   */
+  public static ObjectSnapshot parseTruncated(CharSequence json) {
+    return parse(json, true);
+  }
+
+  private ObjectSnapshot parseRoot() {
+    Object result = parseValue();
+    if (result == TRUNCATED) {
+      throw new IllegalArgumentException("Unexpected end of JSON");
+    }
     if (!(result instanceof ObjectSnapshot)) {
       throw new IllegalArgumentException("JSON must represent an object with $class field");
     }
@@ -36,91 +113,109 @@ public class JsonObjectParser {
   }
 
   private void skipWhitespace() {
-    while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+    while (pos < end && Character.isWhitespace(json.charAt(pos))) {
       pos++;
     }
   }
 
+  /**
+   * Handles the end of the input inside a value: fails, or returns the truncation marker in tolerant mode.
+   */
+  private Object endOfInput() {
+    if (!tolerant) {
+      throw new IllegalArgumentException("Unexpected end of JSON");
+    }
+    return TRUNCATED;
+  }
+
   private Object parseValue() {
     skipWhitespace();
-    if (pos >= json.length()) {
-      throw new IllegalArgumentException("Unexpected end of JSON");
+    if (pos >= end) {
+      return endOfInput();
     }
 
     char c = json.charAt(pos);
+    Object value;
     if (c == '{') {
       return parseObject();
     } else if (c == '"') {
-      return parseString();
+      value = parseString(false);
     } else if (c == 't' || c == 'f') {
-      return parseBoolean();
+      value = parseBoolean();
     } else if (c == 'n') {
-      return parseNull();
-    } else if (c == '-' || Character.isDigit(c)) {
-      return parseNumber();
+      value = parseNull();
+    } else if (c == '-' || isDigit(c)) {
+      value = parseNumber();
     } else {
       throw new IllegalArgumentException("Unexpected character: " + c);
     }
+    // A scalar running into the end of a truncated payload may itself be cut off
+    if (tolerant && pos >= end && c != '"') {
+      return TRUNCATED;
+    }
+    return value;
   }
 
-  private ObjectSnapshot parseObject() {
-    skipWhitespace();
-    if (json.charAt(pos) != '{') {
-      throw new IllegalArgumentException("Expected '{'");
-    }
+  private Object parseObject() {
     pos++; // skip '{'
 
     skipWhitespace();
-    
+
     // Empty object
-    if (pos < json.length() && json.charAt(pos) == '}') {
+    if (pos < end && json.charAt(pos) == '}') {
       pos++;
       throw new IllegalArgumentException("Object must have $class field");
     }
 
-    String className = null;
     ObjectSnapshot snapshot = null;
 
     while (true) {
       skipWhitespace();
-      
+      if (pos >= end) {
+        endOfInput();
+        return closeTruncated(snapshot);
+      }
+
       // Check for end of object
-      if (pos < json.length() && json.charAt(pos) == '}') {
+      if (json.charAt(pos) == '}') {
         pos++;
         break;
       }
 
       // Parse key
-      String key = parseString();
-      
+      Object key = parseString(true);
+      if (key == TRUNCATED) {
+        return closeTruncated(snapshot);
+      }
+
       skipWhitespace();
-      if (pos >= json.length() || json.charAt(pos) != ':') {
+      if (pos >= end) {
+        endOfInput();
+        return closeTruncated(snapshot);
+      }
+      if (json.charAt(pos) != ':') {
         throw new IllegalArgumentException("Expected ':'");
       }
       pos++; // skip ':'
 
       // Parse value
-      Object value = parseValue();
+      boolean classField = CLASS_FIELD.equals(key);
+      Object value = classField ? parseClassName() : parseValue();
+      if (value == TRUNCATED) {
+        return closeTruncated(snapshot);
+      }
 
       // Handle special $class field
-      if ("$class".equals(key)) {
-        if (!(value instanceof String)) {
-          throw new IllegalArgumentException("$class must be a string");
-        }
-        className = (String) value;
-        snapshot = new ObjectSnapshot(className);
+      if (classField) {
+        snapshot = new ObjectSnapshot((String) value);
       } else if (snapshot != null) {
-        snapshot.putField(key, value);
+        snapshot.putField((String) key, value);
       } else {
-        // We haven't seen $class yet, but we need to store this field
-        // This shouldn't happen with well-formed JSON, but handle it gracefully
-        if (className == null) {
-          throw new IllegalArgumentException("$class must be the first field");
-        }
+        throw new IllegalArgumentException("$class must be the first field");
       }
 
       skipWhitespace();
-      if (pos < json.length() && json.charAt(pos) == ',') {
+      if (pos < end && json.charAt(pos) == ',') {
         pos++; // skip ','
       }
     }
@@ -132,23 +227,71 @@ public class JsonObjectParser {
     return snapshot;
   }
 
-  private String parseString() {
+  /**
+   * Closes an object cut off by the end of the input. Without a $class it cannot be kept.
+   */
+  private Object closeTruncated(ObjectSnapshot snapshot) {
+    if (snapshot == null) {
+      return TRUNCATED;
+    }
+    snapshot.putField(TRUNCATED_FIELD, Boolean.TRUE);
+    return snapshot;
+  }
+
+  private Object parseClassName() {
     skipWhitespace();
+    if (pos >= end) {
+      return endOfInput();
+    }
+    if (json.charAt(pos) != '"') {
+      throw new IllegalArgumentException("$class must be a string");
+    }
+    return parseString(true);
+  }
+
+  /**
+   * Parses a string. Names are interned in the symbol table.
+   *
+   * @return the string, or the truncation marker if the input ends inside it in tolerant mode
+   */
+  private Object parseString(boolean name) {
+    skipWhitespace();
+    if (pos >= end) {
+      return endOfInput();
+    }
     if (json.charAt(pos) != '"') {
       throw new IllegalArgumentException("Expected '\"'");
     }
     pos++; // skip opening quote
 
-    StringBuilder sb = new StringBuilder();
-    while (pos < json.length()) {
+    // Most strings have no escapes and are taken from the input directly
+    int start = pos;
+    while (pos < end) {
       char c = json.charAt(pos);
       if (c == '"') {
         pos++; // skip closing quote
-        return sb.toString();
+        return name ? symbol(json, start, pos - 1) : substring(start, pos - 1);
+      } else if (c == '\\') {
+        break;
+      }
+      pos++;
+    }
+    if (pos >= end) {
+      return unterminatedString();
+    }
+
+    StringBuilder sb = SCRATCH.get();
+    sb.setLength(0);
+    sb.append(json, start, pos);
+    while (pos < end) {
+      char c = json.charAt(pos);
+      if (c == '"') {
+        pos++; // skip closing quote
+        return name ? symbol(sb, 0, sb.length()) : sb.toString();
       } else if (c == '\\') {
         pos++;
-        if (pos >= json.length()) {
-          throw new IllegalArgumentException("Unexpected end of string");
+        if (pos >= end) {
+          return unterminatedString();
         }
         char escaped = json.charAt(pos);
         switch (escaped) {
@@ -172,6 +315,14 @@ public class JsonObjectParser {
           case 't':
             sb.append('\t');
             break;
+          case 'u':
+            if (pos + 4 >= end) {
+              pos = end;
+              return unterminatedString();
+            }
+            sb.append((char) parseHex(pos + 1, pos + 5));
+            pos += 4;
+            break;
           default:
             throw new IllegalArgumentException("Invalid escape sequence: \\" + escaped);
         }
@@ -181,88 +332,267 @@ public class JsonObjectParser {
         pos++;
       }
     }
-    throw new IllegalArgumentException("Unterminated string");
+    return unterminatedString();
   }
 
-  private Boolean parseBoolean() {
-    skipWhitespace();
-    if (json.startsWith("true", pos)) {
+  private Object unterminatedString() {
+    if (!tolerant) {
+      throw new IllegalArgumentException("Unterminated string");
+    }
+    return TRUNCATED;
+  }
+
+  private String substring(int start, int stop) {
+    return json.subSequence(start, stop).toString();
+  }
+
+  private int parseHex(int start, int stop) {
+    int value = 0;
+    for (int i = start; i < stop; i++) {
+      int digit = Character.digit(json.charAt(i), 16);
+      if (digit < 0) {
+        throw new IllegalArgumentException("Invalid unicode escape");
+      }
+      value = value * 16 + digit;
+    }
+    return value;
+  }
+
+  private Object parseBoolean() {
+    if (matches("true")) {
       pos += 4;
       return Boolean.TRUE;
-    } else if (json.startsWith("false", pos)) {
+    } else if (matches("false")) {
       pos += 5;
       return Boolean.FALSE;
+    } else if (tolerant && (isCutOff("true") || isCutOff("false"))) {
+      pos = end;
+      return TRUNCATED;
     } else {
       throw new IllegalArgumentException("Invalid boolean value");
     }
   }
 
   private Object parseNull() {
-    skipWhitespace();
-    if (json.startsWith("null", pos)) {
+    if (matches("null")) {
       pos += 4;
       return null;
+    } else if (tolerant && isCutOff("null")) {
+      pos = end;
+      return TRUNCATED;
     } else {
       throw new IllegalArgumentException("Invalid null value");
     }
   }
 
+  private boolean matches(String literal) {
+    if (end - pos < literal.length()) {
+      return false;
+    }
+    for (int i = 0; i < literal.length(); i++) {
+      if (json.charAt(pos + i) != literal.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether the rest of the input is a proper prefix of the literal.
+   */
+  private boolean isCutOff(String literal) {
+    int remaining = end - pos;
+    if (remaining >= literal.length()) {
+      return false;
+    }
+    for (int i = 0; i < remaining; i++) {
+      if (json.charAt(pos + i) != literal.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses a number in place. Integers that fit an int are Integers, other integers Longs
+   * and numbers with a fraction or exponent Doubles.
+   */
   private Object parseNumber() {
-    skipWhitespace();
     int start = pos;
+    boolean negative = false;
 
     // Handle negative sign
-    if (pos < json.length() && json.charAt(pos) == '-') {
+    if (pos < end && json.charAt(pos) == '-') {
+      negative = true;
       pos++;
     }
 
-    // Parse digits
-    if (pos >= json.length() || !Character.isDigit(json.charAt(pos))) {
-      throw new IllegalArgumentException("Invalid number");
+    // Parse digits, accumulated negatively so Long.MIN_VALUE fits
+    if (pos >= end || !isDigit(json.charAt(pos))) {
+      return invalidNumber();
     }
-
-    while (pos < json.length() && Character.isDigit(json.charAt(pos))) {
+    long mantissa = 0;
+    int significantDigits = 0;
+    boolean overflow = false;
+    while (pos < end && isDigit(json.charAt(pos))) {
+      int digit = json.charAt(pos) - '0';
+      if (mantissa < (Long.MIN_VALUE + digit) / 10) {
+        overflow = true;
+      } else {
+        mantissa = mantissa * 10 - digit;
+      }
+      if (mantissa != 0) {
+        significantDigits++;
+      }
       pos++;
     }
 
     // Check for decimal point
     boolean isDouble = false;
-    if (pos < json.length() && json.charAt(pos) == '.') {
+    int fractionDigits = 0;
+    if (pos < end && json.charAt(pos) == '.') {
       isDouble = true;
       pos++;
-      if (pos >= json.length() || !Character.isDigit(json.charAt(pos))) {
-        throw new IllegalArgumentException("Invalid number");
+      if (pos >= end || !isDigit(json.charAt(pos))) {
+        return invalidNumber();
       }
-      while (pos < json.length() && Character.isDigit(json.charAt(pos))) {
+      while (pos < end && isDigit(json.charAt(pos))) {
+        int digit = json.charAt(pos) - '0';
+        if (significantDigits < 18) {
+          mantissa = mantissa * 10 - digit;
+          fractionDigits++;
+          if (mantissa != 0) {
+            significantDigits++;
+          }
+        } else if (digit != 0) {
+          overflow = true;
+        }
         pos++;
       }
     }
 
     // Check for exponent
-    if (pos < json.length() && (json.charAt(pos) == 'e' || json.charAt(pos) == 'E')) {
+    int exponent = 0;
+    if (pos < end && (json.charAt(pos) == 'e' || json.charAt(pos) == 'E')) {
       isDouble = true;
       pos++;
-      if (pos < json.length() && (json.charAt(pos) == '+' || json.charAt(pos) == '-')) {
+      boolean negativeExponent = false;
+      if (pos < end && (json.charAt(pos) == '+' || json.charAt(pos) == '-')) {
+        negativeExponent = json.charAt(pos) == '-';
         pos++;
       }
-      if (pos >= json.length() || !Character.isDigit(json.charAt(pos))) {
-        throw new IllegalArgumentException("Invalid number");
+      if (pos >= end || !isDigit(json.charAt(pos))) {
+        return invalidNumber();
       }
-      while (pos < json.length() && Character.isDigit(json.charAt(pos))) {
+      while (pos < end && isDigit(json.charAt(pos))) {
+        if (exponent < 10_000) {
+          exponent = exponent * 10 + (json.charAt(pos) - '0');
+        }
         pos++;
       }
+      if (negativeExponent) {
+        exponent = -exponent;
+      }
     }
 
-    String numberStr = json.substring(start, pos);
+    if (!isDouble) {
+      if (overflow || (!negative && mantissa == Long.MIN_VALUE)) {
+        throw new NumberFormatException("For input string: \"" + substring(start, pos) + "\"");
+      }
+      long value = negative ? mantissa : -mantissa;
+      if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+        return (int) value;
+      }
+      return value;
+    }
 
-    if (isDouble) {
-      return Double.parseDouble(numberStr);
-    } else {
-      try {
-        return Integer.parseInt(numberStr);
-      } catch (NumberFormatException e) {
-        return Long.parseLong(numberStr);
+    // Exact when the mantissa and the power of ten are both exactly representable as doubles
+    int scale = exponent - fractionDigits;
+    if (!overflow && significantDigits <= 15 && Math.abs(scale) < POWERS_OF_TEN.length) {
+      double value = -mantissa;
+      value = scale >= 0 ? value * POWERS_OF_TEN[scale] : value / POWERS_OF_TEN[-scale];
+      return negative ? -value : value;
+    }
+    return Double.parseDouble(substring(start, pos));
+  }
+
+  private Object invalidNumber() {
+    if (tolerant && pos >= end) {
+      return TRUNCATED;
+    }
+    throw new IllegalArgumentException("Invalid number");
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * Returns the interned name with the chars of the given region, adding it if needed.
+   */
+  private static String symbol(CharSequence chars, int start, int stop) {
+    int hash = 0;
+    for (int i = start; i < stop; i++) {
+      hash = 31 * hash + chars.charAt(i);
+    }
+    String[] table = symbols;
+    String found = lookupSymbol(table, chars, start, stop, hash);
+    if (found != null) {
+      return found;
+    }
+    synchronized (SYMBOL_LOCK) {
+      table = symbols;
+      found = lookupSymbol(table, chars, start, stop, hash);
+      if (found != null) {
+        return found;
+      }
+      String name = new StringBuilder(stop - start).append(chars, start, stop).toString();
+      if (symbolCount >= MAX_SYMBOLS) {
+        return name;
+      }
+      if ((symbolCount + 1) * 2 > table.length) {
+        String[] grown = new String[table.length * 2];
+        for (String symbol : table) {
+          if (symbol != null) {
+            int index = symbol.hashCode() & (grown.length - 1);
+            while (grown[index] != null) {
+              index = (index + 1) & (grown.length - 1);
+            }
+            grown[index] = symbol;
+          }
+        }
+        table = grown;
+      }
+      int index = hash & (table.length - 1);
+      while (table[index] != null) {
+        index = (index + 1) & (table.length - 1);
+      }
+      table[index] = name;
+      symbolCount++;
+      symbols = table;
+      return name;
+    }
+  }
+
+  private static String lookupSymbol(String[] table, CharSequence chars, int start, int stop, int hash) {
+    int mask = table.length - 1;
+    for (int index = hash & mask; ; index = (index + 1) & mask) {
+      String symbol = table[index];
+      if (symbol == null) {
+        return null;
+      }
+      if (symbol.hashCode() == hash && symbol.length() == stop - start && regionEquals(symbol, chars, start)) {
+        return symbol;
+      }
+    }
+  }
+
+  private static boolean regionEquals(String symbol, CharSequence chars, int start) {
+    for (int i = 0; i < symbol.length(); i++) {
+      if (symbol.charAt(i) != chars.charAt(start + i)) {
+        return false;
       }
     }
+    return true;
   }
 }
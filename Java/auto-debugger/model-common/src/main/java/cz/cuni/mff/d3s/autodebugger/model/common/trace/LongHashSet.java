@@ -0,0 +1,118 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.io.Serializable;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Open-addressing hash set of {@code long} values; doubles are stored as their bit patterns.
+ *
+ * <p>Values are stored unboxed in a single power-of-two array with linear probing, so a
+ * value costs its eight bytes plus the free slots kept by the load factor. Zero marks a
+ * free slot and is tracked by a separate flag. It is not thread-safe.
+ */
+final class LongHashSet implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] table = new long[INITIAL_CAPACITY];
+    private boolean containsZero;
+    private int size;
+
+    /**
+     * @return true if the value was not present yet.
+     */
+    boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (table[index] != 0) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        size++;
+        // Grow at 3/4 occupancy to keep probe sequences short
+        if (size * 4L > table.length * 3L) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+
+    boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (table[index] != 0) {
+            if (table[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int index = containsZero ? -1 : nextIndex(0);
+
+            @Override
+            public boolean hasNext() {
+                return index < table.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long value = index < 0 ? 0 : table[index];
+                index = nextIndex(index + 1);
+                return value;
+            }
+        };
+    }
+
+    private int nextIndex(int from) {
+        int index = from;
+        while (index < table.length && table[index] == 0) {
+            index++;
+        }
+        return index;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int index = mix(value) & mask;
+                while (table[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
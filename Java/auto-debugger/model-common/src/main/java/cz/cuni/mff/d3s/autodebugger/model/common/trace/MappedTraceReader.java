@@ -0,0 +1,675 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Read-only view of an {@code .adtrace} file that decodes slot columns on demand.
+ *
+ * <p>Opening the file maps it into memory and reads only the chunk headers, the slot directories
+ * of the chunks and the lengths of their dictionary strings. It neither decodes values nor
+ * materializes strings. A query for a slot decodes only the columns of that slot, and strings of a chunk's
+ * dictionary section are decoded when a value first refers to them. Memory use therefore
+ * depends on the slots that are queried, not on the size of the file. Every query decodes
+ * the slot again and returns a new collection that the caller owns, unlike
+ * {@link IndexedTrace#getValues(int)}, which returns a view of the trace. Decoded snapshots
+ * are interned by the reader, so equal snapshots from any query are the same frozen instance.
+ *
+ * <p>{@link #asTrace()} and {@link #asIndexedTrace()} expose the reader through the read side
+ * of {@link Trace} and {@link IndexedTrace}, so consumers of those classes can work on a
+ * mapped file unchanged.
+ *
+ * <p>The file is mapped in segments of at most 2 GiB that never split a chunk. The channel is
+ * closed once the file is mapped; the mapping is released when the reader is garbage collected.
+ * Like {@link TraceFileReader}, the reader falls back to a sequential scan of the chunk headers
+ * when the file has no footer. Instances are safe for concurrent queries.
+ */
+public final class MappedTraceReader {
+    private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    private final Path traceFile;
+    private final MappedByteBuffer[] segments;
+    private final Chunk[] chunks;
+    // Columns of every slot, in chunk order
+    private final Map<Integer, List<ColumnRef>> slotColumns = new HashMap<>();
+    private final Map<Integer, Byte> slotKinds = new HashMap<>();
+    private final Map<Integer, Long> slotValueCounts = new HashMap<>();
+    // First dictionary ID defined by every chunk, for locating the chunk that defines an ID
+    private final int[] chunkFirstStringIds;
+    private final int dictionarySize;
+    // Shares equal snapshots across queries
+    private final SnapshotInterner snapshots = new SnapshotInterner();
+
+    /**
+     * A chunk of the file and the position of its string definitions.
+     */
+    private static final class Chunk {
+        final int segment;
+        final int firstEventIndex;
+        final int stringsPosition;
+        final int stringCount;
+        volatile String[] strings;
+
+        Chunk(int segment, int firstEventIndex, int stringsPosition, int stringCount) {
+            this.segment = segment;
+            this.firstEventIndex = firstEventIndex;
+            this.stringsPosition = stringsPosition;
+            this.stringCount = stringCount;
+        }
+    }
+
+    /**
+     * The column of a slot in one chunk.
+     */
+    private record ColumnRef(int chunk, int position, int count, byte kind) {
+    }
+
+    private MappedTraceReader(Path traceFile, MappedByteBuffer[] segments, List<Chunk> chunks) {
+        this.traceFile = traceFile;
+        this.segments = segments;
+        this.chunks = chunks.toArray(new Chunk[0]);
+        this.chunkFirstStringIds = new int[this.chunks.length];
+        int stringId = 0;
+        for (int i = 0; i < this.chunks.length; i++) {
+            chunkFirstStringIds[i] = stringId;
+            stringId += this.chunks[i].stringCount;
+        }
+        this.dictionarySize = stringId;
+    }
+
+    /**
+     * Maps a trace file and indexes its columns.
+     *
+     * @throws IOException if the file is not a trace file or cannot be read.
+     */
+    public static MappedTraceReader open(Path traceFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(traceFile, StandardOpenOption.READ)) {
+            ByteBuffer header = TraceFileReader.readFully(channel, 0, 8);
+            if (header == null || header.getInt() != TraceFileWriter.MAGIC) {
+                throw new IOException("Not a trace file: " + traceFile);
+            }
+            int version = header.getInt();
+            if (version != TraceFileWriter.VERSION) {
+                throw new IOException("Unsupported trace file version " + version + " in " + traceFile);
+            }
+
+            List<long[]> chunkBounds = locateChunks(channel);
+            List<MappedByteBuffer> segments = new ArrayList<>();
+            List<Integer> chunkSegments = new ArrayList<>();
+            long segmentStart = -1;
+            long segmentEnd = -1;
+            List<long[]> segmentBounds = new ArrayList<>();
+            for (long[] bounds : chunkBounds) {
+                if (segmentStart < 0 || bounds[1] - segmentStart > MAX_SEGMENT_SIZE) {
+                    if (segmentStart >= 0) {
+                        segmentBounds.add(new long[] { segmentStart, segmentEnd });
+                    }
+                    segmentStart = bounds[0];
+                }
+                segmentEnd = bounds[1];
+                chunkSegments.add(segmentBounds.size());
+            }
+            if (segmentStart >= 0) {
+                segmentBounds.add(new long[] { segmentStart, segmentEnd });
+            }
+            for (long[] bounds : segmentBounds) {
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, bounds[0], bounds[1] - bounds[0]));
+            }
+
+            List<Chunk> chunks = new ArrayList<>(chunkBounds.size());
+            List<Map<Integer, ColumnRef>> chunkColumns = new ArrayList<>(chunkBounds.size());
+            for (int i = 0; i < chunkBounds.size(); i++) {
+                int segment = chunkSegments.get(i);
+                int start = (int) (chunkBounds.get(i)[0] - segmentBounds.get(segment)[0]);
+                ByteBuffer buffer = segments.get(segment).duplicate();
+                buffer.position(start);
+                try {
+                    chunks.add(indexChunk(buffer, segment, i, chunkColumns));
+                } catch (BufferUnderflowException | IllegalArgumentException e) {
+                    throw new IOException("Malformed chunk at offset " + chunkBounds.get(i)[0] + " in " + traceFile, e);
+                }
+            }
+
+            MappedTraceReader reader = new MappedTraceReader(traceFile, segments.toArray(new MappedByteBuffer[0]), chunks);
+            for (int i = 0; i < chunkColumns.size(); i++) {
+                for (Map.Entry<Integer, ColumnRef> entry : chunkColumns.get(i).entrySet()) {
+                    int slotId = entry.getKey();
+                    byte kind = entry.getValue().kind();
+                    Byte known = reader.slotKinds.putIfAbsent(slotId, kind);
+                    if (known != null && known != kind) {
+                        // The writer moved the slot to an object column, which holds values of every kind
+                        reader.slotKinds.put(slotId, InvocationColumns.KIND_OBJECT);
+                    }
+                    reader.slotColumns.computeIfAbsent(slotId, id -> new ArrayList<>()).add(entry.getValue());
+                    reader.slotValueCounts.merge(slotId, (long) entry.getValue().count(), Long::sum);
+                }
+            }
+            return reader;
+        }
+    }
+
+    /**
+     * Returns the [start, end) file offsets of every complete chunk, from the footer or by scanning.
+     */
+    private static List<long[]> locateChunks(FileChannel channel) throws IOException {
+        List<long[]> bounds = new ArrayList<>();
+        List<Long> offsets = TraceFileReader.readFooterIndex(channel);
+        if (offsets != null) {
+            for (long offset : offsets) {
+                long end = chunkEnd(channel, offset);
+                if (end < 0) {
+                    throw new IOException("Corrupt chunk at offset " + offset);
+                }
+                bounds.add(new long[] { offset, end });
+            }
+            return bounds;
+        }
+        long offset = 8;
+        long end;
+        while ((end = chunkEnd(channel, offset)) >= 0) {
+            bounds.add(new long[] { offset, end });
+            offset = end;
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns the end offset of the chunk at the given offset, or -1 if there is no complete chunk there.
+     */
+    private static long chunkEnd(FileChannel channel, long offset) throws IOException {
+        ByteBuffer chunkHeader = TraceFileReader.readFully(channel, offset, 16);
+        if (chunkHeader == null || chunkHeader.getInt() != TraceFileWriter.CHUNK_MAGIC) {
+            return -1;
+        }
+        chunkHeader.position(12);
+        int payloadLength = chunkHeader.getInt();
+        long end = offset + 16 + payloadLength;
+        return payloadLength >= 0 && end <= channel.size() ? end : -1;
+    }
+
+    /**
+     * Reads the header, string lengths and slot directory of the chunk at the buffer's position.
+     */
+    private static Chunk indexChunk(ByteBuffer buffer, int segment, int chunkIndex,
+                                    List<Map<Integer, ColumnRef>> chunkColumns) {
+        buffer.getInt();  // chunk magic
+        int firstEventIndex = buffer.getInt();
+        buffer.getInt();  // invocation count
+        buffer.getInt();  // payload length
+
+        int stringCount = TraceFileReader.readCount(buffer);
+        int stringsPosition = buffer.position();
+        for (int i = 0; i < stringCount; i++) {
+            int length = TraceFileReader.readCount(buffer);
+            buffer.position(buffer.position() + length);
+        }
+
+        int slotCount = TraceFileReader.readCount(buffer);
+        int[] slotIds = new int[slotCount];
+        byte[] kinds = new byte[slotCount];
+        int[] counts = new int[slotCount];
+        int[] lengths = new int[slotCount];
+        for (int s = 0; s < slotCount; s++) {
+            slotIds[s] = (int) TraceFileReader.readVarLong(buffer);
+            kinds[s] = buffer.get();
+            counts[s] = TraceFileReader.readCount(buffer);
+            lengths[s] = TraceFileReader.readCount(buffer);
+        }
+        Map<Integer, ColumnRef> columns = new HashMap<>(slotCount * 2);
+        int position = buffer.position();
+        for (int s = 0; s < slotCount; s++) {
+            columns.put(slotIds[s], new ColumnRef(chunkIndex, position, counts[s], kinds[s]));
+            position += lengths[s];
+        }
+        chunkColumns.add(columns);
+        return new Chunk(segment, firstEventIndex, stringsPosition, stringCount);
+    }
+
+    /**
+     * @return The mapped file.
+     */
+    public Path getTraceFile() {
+        return traceFile;
+    }
+
+    /**
+     * @return The kind constant of {@link InvocationColumns} the slot holds, or 0 if it holds no values.
+     */
+    public byte getKind(int slotId) {
+        return slotKinds.getOrDefault(slotId, (byte) 0);
+    }
+
+    /**
+     * @return Number of values recorded for the slot, known without decoding.
+     */
+    public long getValueCount(int slotId) {
+        return slotValueCounts.getOrDefault(slotId, 0L);
+    }
+
+    /**
+     * @return Number of chunks in the file.
+     */
+    public int getChunkCount() {
+        return chunks.length;
+    }
+
+    public Set<Integer> getAllSlotIDs() {
+        return new HashSet<>(slotColumns.keySet());
+    }
+
+    /**
+     * Decodes the history of a slot into a new map, holding what {@link IndexedTrace#getValues(int)} would.
+     */
+    public NavigableMap<Integer, Object> getValues(int slotId) {
+        NavigableMap<Integer, Object> values = new TreeMap<>();
+        forEachValue(slotId, (eventIndex, value) -> values.put(eventIndex, value));
+        return values;
+    }
+
+    /**
+     * Gets the range of event indices recorded in the file, like {@link IndexedTrace#getEventIndexRange()}.
+     * Only the rows of the first and last column of every slot are decoded.
+     */
+    public Optional<int[]> getEventIndexRange() {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (List<ColumnRef> columns : slotColumns.values()) {
+            ColumnRef first = columns.get(0);
+            int[] firstRows = TraceFileReader.readRows(columnBuffer(first), 1);
+            min = Math.min(min, chunks[first.chunk()].firstEventIndex + firstRows[0]);
+            ColumnRef last = columns.get(columns.size() - 1);
+            int[] lastRows = TraceFileReader.readRows(columnBuffer(last), last.count());
+            max = Math.max(max, chunks[last.chunk()].firstEventIndex + lastRows[last.count() - 1]);
+        }
+        return min <= max ? Optional.of(new int[] { min, max }) : Optional.empty();
+    }
+
+    /**
+     * @return Total number of recorded values across all slots, like {@link IndexedTrace#getTotalEventCount()}.
+     */
+    public long getTotalEventCount() {
+        return slotValueCounts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public boolean isEmpty() {
+        return slotColumns.isEmpty();
+    }
+
+    public Set<Byte> getByteValues(int slotId) {
+        return distinctValues(slotId, InvocationColumns.KIND_BYTE);
+    }
+
+    public Set<Character> getCharValues(int slotId) {
+        return distinctValues(slotId, InvocationColumns.KIND_CHAR);
+    }
+
+    public Set<Short> getShortValues(int slotId) {
+        return distinctValues(slotId, InvocationColumns.KIND_SHORT);
+    }
+
+    public Set<Integer> getIntValues(int slotId) {
+        return distinctValues(slotId, InvocationColumns.KIND_INT);
+    }
+
+    public Set<Long> getLongValues(int slotId) {
+        return distinctValues(slotId, InvocationColumns.KIND_LONG);
+    }
+
+    public Set<Float> getFloatValues(int slotId) {
+        return distinctValues(slotId, InvocationColumns.KIND_FLOAT);
+    }
+
+    public Set<Double> getDoubleValues(int slotId) {
+        return distinctValues(slotId, InvocationColumns.KIND_DOUBLE);
+    }
+
+    public Set<Boolean> getBooleanValues(int slotId) {
+        return distinctValues(slotId, InvocationColumns.KIND_BOOLEAN);
+    }
+
+    public Set<String> getStringValues(int slotId) {
+        return distinctValues(slotId, InvocationColumns.KIND_STRING);
+    }
+
+    public Set<ObjectSnapshot> getObjectValues(int slotId) {
+        return distinctValues(slotId, InvocationColumns.KIND_OBJECT);
+    }
+
+    /**
+     * @return A set-based trace whose getters decode from this reader; it cannot be modified.
+     */
+    public Trace asTrace() {
+        return new MappedTrace(this);
+    }
+
+    /**
+     * @return An indexed trace whose getters decode from this reader; it cannot be modified.
+     */
+    public IndexedTrace asIndexedTrace() {
+        return new MappedIndexedTrace(this);
+    }
+
+    @FunctionalInterface
+    private interface SlotValueConsumer {
+        void accept(int eventIndex, Object value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Set<T> distinctValues(int slotId, byte kind) {
+        byte slotKind = getKind(slotId);
+        if (slotKind != kind && slotKind != InvocationColumns.KIND_OBJECT) {
+            return Collections.emptySet();
+        }
+        Set<T> values = new HashSet<>();
+        forEachValue(slotId, (eventIndex, value) -> {
+            // Like Trace, which never records null strings or snapshots; an object slot may hold every kind
+            if (value != null && InvocationColumns.kindOf(value) == kind) {
+                values.add((T) value);
+            }
+        });
+        return values;
+    }
+
+    private void forEachValue(int slotId, SlotValueConsumer consumer) {
+        List<ColumnRef> columns = slotColumns.get(slotId);
+        if (columns == null) {
+            return;
+        }
+        for (ColumnRef column : columns) {
+            ByteBuffer buffer = columnBuffer(column);
+            int[] rows = TraceFileReader.readRows(buffer, column.count());
+            int firstEventIndex = chunks[column.chunk()].firstEventIndex;
+            TraceFileReader.ColumnDecoder decoder = new TraceFileReader.ColumnDecoder(buffer, this::dictionaryEntry, snapshots);
+            for (int i = 0; i < column.count(); i++) {
+                consumer.accept(firstEventIndex + rows[i], decoder.readValue(column.kind()));
+            }
+        }
+    }
+
+    private ByteBuffer columnBuffer(ColumnRef column) {
+        ByteBuffer buffer = segments[chunks[column.chunk()].segment].duplicate();
+        buffer.position(column.position());
+        return buffer;
+    }
+
+    private String dictionaryEntry(int id) {
+        if (id < 0 || id >= dictionarySize) {
+            throw new IllegalArgumentException("Unknown dictionary entry " + id);
+        }
+        int index = Arrays.binarySearch(chunkFirstStringIds, id);
+        if (index < 0) {
+            index = -index - 2;
+        } else {
+            // Chunks without strings share the first ID of the next chunk that has some
+            while (chunks[index].stringCount == 0) {
+                index++;
+            }
+        }
+        return chunkStrings(chunks[index])[id - chunkFirstStringIds[index]];
+    }
+
+    private static String[] chunkStrings(Chunk chunk, MappedByteBuffer segment) {
+        ByteBuffer buffer = segment.duplicate();
+        buffer.position(chunk.stringsPosition);
+        String[] strings = new String[chunk.stringCount];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = TraceFileReader.readString(buffer);
+        }
+        return strings;
+    }
+
+    private String[] chunkStrings(Chunk chunk) {
+        String[] strings = chunk.strings;
+        if (strings == null) {
+            // Concurrent queries may decode the same strings twice; both results are equal
+            strings = chunkStrings(chunk, segments[chunk.segment]);
+            chunk.strings = strings;
+        }
+        return strings;
+    }
+
+    /**
+     * Set-based trace backed by a mapped file.
+     */
+    private static final class MappedTrace extends Trace {
+        private static final long serialVersionUID = 1L;
+        private final transient MappedTraceReader reader;
+
+        MappedTrace(MappedTraceReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Set<Byte> getByteValues(int slotId) {
+            return reader.getByteValues(slotId);
+        }
+
+        @Override
+        public Set<Character> getCharValues(int slotId) {
+            return reader.getCharValues(slotId);
+        }
+
+        @Override
+        public Set<Short> getShortValues(int slotId) {
+            return reader.getShortValues(slotId);
+        }
+
+        @Override
+        public Set<Integer> getIntValues(int slotId) {
+            return reader.getIntValues(slotId);
+        }
+
+        @Override
+        public Set<Long> getLongValues(int slotId) {
+            return reader.getLongValues(slotId);
+        }
+
+        @Override
+        public Set<Float> getFloatValues(int slotId) {
+            return reader.getFloatValues(slotId);
+        }
+
+        @Override
+        public Set<Double> getDoubleValues(int slotId) {
+            return reader.getDoubleValues(slotId);
+        }
+
+        @Override
+        public Set<Boolean> getBooleanValues(int slotId) {
+            return reader.getBooleanValues(slotId);
+        }
+
+        @Override
+        public Set<String> getStringValues(int slotId) {
+            return reader.getStringValues(slotId);
+        }
+
+        @Override
+        public Set<ObjectSnapshot> getObjectValues(int slotId) {
+            return reader.getObjectValues(slotId);
+        }
+
+        @Override
+        public Set<Integer> getAllSlotIDs() {
+            return reader.getAllSlotIDs();
+        }
+
+        @Override
+        public void printSlotValues() {
+            for (int slotId : reader.getAllSlotIDs()) {
+                System.out.println("Slot ID: " + slotId + " values: " + reader.getValues(slotId).values());
+            }
+        }
+
+        // Serializes the decoded values instead of the mapping
+        private Object writeReplace() {
+            Trace copy = new Trace();
+            for (int slotId : reader.getAllSlotIDs()) {
+                for (Object value : reader.getValues(slotId).values()) {
+                    TraceFileReader.addToTrace(copy, slotId, value);
+                }
+            }
+            return copy;
+        }
+
+        @Override
+        public void addByteValue(int slotId, byte value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void addCharValue(int slotId, char value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void addShortValue(int slotId, short value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void addIntValue(int slotId, int value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void addLongValue(int slotId, long value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void addFloatValue(int slotId, float value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void addDoubleValue(int slotId, double value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void addBooleanValue(int slotId, boolean value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void addStringValue(int slotId, String value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void addObjectValue(int slotId, ObjectSnapshot value) {
+            throw readOnly();
+        }
+    }
+
+    /**
+     * Indexed trace backed by a mapped file.
+     */
+    private static final class MappedIndexedTrace extends IndexedTrace {
+        private static final long serialVersionUID = 1L;
+        private final transient MappedTraceReader reader;
+        // Distinct string values, collected on first request
+        private transient volatile StringDictionary strings;
+
+        MappedIndexedTrace(MappedTraceReader reader) {
+            this.reader = reader;
+        }
+
+        // Serializes the decoded values instead of the mapping
+        private Object writeReplace() {
+            IndexedTrace copy = new IndexedTrace();
+            for (int slotId : reader.getAllSlotIDs()) {
+                reader.getValues(slotId).forEach((eventIndex, value) -> copy.addValue(slotId, eventIndex, value));
+            }
+            return copy;
+        }
+
+        @Override
+        public void addValue(int slotId, int eventIndex, Object value) {
+            throw readOnly();
+        }
+
+        /**
+         * Does nothing: the trace is read-only from the start and has no buffers to trim.
+         */
+        @Override
+        public void freeze() {
+        }
+
+        @Override
+        public boolean isFrozen() {
+            return true;
+        }
+
+        /**
+         * Returns the distinct string values of all slots, decoded on the first call. The
+         * dictionary of the file is not used, as it also holds class and field names.
+         */
+        @Override
+        public StringDictionary getStringDictionary() {
+            StringDictionary dictionary = strings;
+            if (dictionary == null) {
+                dictionary = new StringDictionary();
+                for (int slotId : reader.getAllSlotIDs()) {
+                    if (reader.getKind(slotId) == InvocationColumns.KIND_STRING
+                            || reader.getKind(slotId) == InvocationColumns.KIND_OBJECT) {
+                        for (Object value : reader.getValues(slotId).values()) {
+                            if (value instanceof String string) {
+                                dictionary.intern(string);
+                            }
+                        }
+                    }
+                }
+                // Concurrent first calls may collect the strings twice; both dictionaries are equal
+                strings = dictionary;
+            }
+            return dictionary;
+        }
+
+        @Override
+        public NavigableMap<Integer, Object> getValues(int slotId) {
+            return reader.getValues(slotId);
+        }
+
+        @Override
+        public Set<Integer> getAllSlotIDs() {
+            return reader.getAllSlotIDs();
+        }
+
+        @Override
+        public Optional<int[]> getEventIndexRange() {
+            return reader.getEventIndexRange();
+        }
+
+        @Override
+        public int getTotalEventCount() {
+            return (int) Math.min(Integer.MAX_VALUE, reader.getTotalEventCount());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return reader.isEmpty();
+        }
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Mapped traces are read-only");
+    }
+}
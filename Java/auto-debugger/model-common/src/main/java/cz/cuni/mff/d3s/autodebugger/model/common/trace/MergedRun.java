@@ -0,0 +1,33 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Range of event indices that one input run occupies in a trace produced by
+ * {@link TraceMerger#mergeTemporal(java.util.List, Path)}.
+ */
+@Getter
+@AllArgsConstructor
+public class MergedRun {
+    /** Position of the run in the merged inputs. */
+    private final int runId;
+
+    /** The trace file the run was read from. */
+    private final Path source;
+
+    /** Event index of the run's event 0 in the merged trace. */
+    private final int firstEventIndex;
+
+    /** Number of event indices reserved for the run: its highest event index + 1, or 0 if it is empty. */
+    private final int eventCount;
+
+    /**
+     * @return true if the event index of the merged trace belongs to this run.
+     */
+    public boolean contains(int eventIndex) {
+        return eventIndex >= firstEventIndex && eventIndex - firstEventIndex < eventCount;
+    }
+}
@@ -0,0 +1,137 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import cz.cuni.mff.d3s.autodebugger.model.common.identifiers.ExportableValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+
+/**
+ * All value recordings of a {@link TemporalTrace}, merged into one sequence ordered by event index.
+ *
+ * <p>The per-variable histories are merged once with a k-way merge. Replaying a prefix of the
+ * sequence reconstructs the state at any event index, which lets {@link StateSnapshotCursor}
+ * move through the trace incrementally. With a positive checkpoint interval, a copy of the
+ * state is kept every {@code checkpointInterval} recordings, so a cursor can jump to any
+ * event index by replaying at most that many recordings.
+ */
+final class MergedTimeline {
+    private final int[] eventIndices;
+    private final ExportableValue[] identifiers;
+    private final Object[] values;
+    private final int checkpointInterval;
+    // checkpoints.get(k) holds the state after replaying the first k * checkpointInterval recordings
+    private final List<Map<ExportableValue, Object>> checkpoints = new ArrayList<>();
+
+    /**
+     * Position in one variable's history during the merge.
+     */
+    private static final class HistoryCursor {
+        final ExportableValue identifier;
+        final Iterator<Map.Entry<Integer, Object>> entries;
+        Map.Entry<Integer, Object> current;
+
+        HistoryCursor(ExportableValue identifier, Iterator<Map.Entry<Integer, Object>> entries) {
+            this.identifier = identifier;
+            this.entries = entries;
+            this.current = entries.next();
+        }
+    }
+
+    MergedTimeline(Map<ExportableValue, NavigableMap<Integer, Object>> traceData, int checkpointInterval) {
+        int size = 0;
+        PriorityQueue<HistoryCursor> queue = new PriorityQueue<>(
+                Math.max(1, traceData.size()), (a, b) -> Integer.compare(a.current.getKey(), b.current.getKey()));
+        for (Map.Entry<ExportableValue, NavigableMap<Integer, Object>> entry : traceData.entrySet()) {
+            NavigableMap<Integer, Object> history = entry.getValue();
+            if (!history.isEmpty()) {
+                size += history.size();
+                queue.add(new HistoryCursor(entry.getKey(), history.entrySet().iterator()));
+            }
+        }
+
+        this.eventIndices = new int[size];
+        this.identifiers = new ExportableValue[size];
+        this.values = new Object[size];
+        this.checkpointInterval = checkpointInterval;
+
+        Map<ExportableValue, Object> state = checkpointInterval > 0 ? new HashMap<>() : null;
+        int position = 0;
+        while (!queue.isEmpty()) {
+            HistoryCursor cursor = queue.poll();
+            if (state != null && position % checkpointInterval == 0) {
+                checkpoints.add(new HashMap<>(state));
+            }
+            eventIndices[position] = cursor.current.getKey();
+            identifiers[position] = cursor.identifier;
+            values[position] = cursor.current.getValue();
+            if (state != null) {
+                state.put(cursor.identifier, values[position]);
+            }
+            position++;
+            if (cursor.entries.hasNext()) {
+                cursor.current = cursor.entries.next();
+                queue.add(cursor);
+            }
+        }
+    }
+
+    int size() {
+        return eventIndices.length;
+    }
+
+    int eventIndexAt(int position) {
+        return eventIndices[position];
+    }
+
+    /**
+     * Applies the recordings in [fromPosition, toPosition) to the state.
+     */
+    void replay(Map<ExportableValue, Object> state, int fromPosition, int toPosition) {
+        for (int i = fromPosition; i < toPosition; i++) {
+            state.put(identifiers[i], values[i]);
+        }
+    }
+
+    /**
+     * @return Position of the first recording with an event index not smaller than the given one.
+     */
+    int ceilingPosition(int eventIndex) {
+        int low = 0;
+        int high = eventIndices.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (eventIndices[middle] < eventIndex) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return Position of the first recording with an event index greater than the given one.
+     */
+    int higherPosition(int eventIndex) {
+        return eventIndex == Integer.MAX_VALUE ? eventIndices.length : ceilingPosition(eventIndex + 1);
+    }
+
+    /**
+     * @return Position of the latest checkpoint at or before the given position, or -1 without checkpoints.
+     */
+    int checkpointBefore(int position) {
+        if (checkpoints.isEmpty()) {
+            return -1;
+        }
+        return Math.min(position / checkpointInterval, checkpoints.size() - 1) * checkpointInterval;
+    }
+
+    Map<ExportableValue, Object> checkpointAt(int position) {
+        return checkpoints.get(position / checkpointInterval);
+    }
+}
@@ -1,22 +1,40 @@
 package cz.cuni.mff.d3s.autodebugger.model.common.trace;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
 
 /**
  * Represents a snapshot of an object's state at a particular point in execution.
  * Captures the class name and field values (primitives, Strings, or nested ObjectSnapshots).
+ *
+ * <p>A snapshot is mutable while it is being built. {@link #freeze()} turns it into an
+ * immutable copy that keeps its fields in parallel name and value arrays and computes its
+ * hash code once, so using it as a set element or map key does not walk the nested
+ * snapshots again. Frozen and mutable snapshots with the same class and fields are equal
+ * and have the same hash code. A frozen snapshot that can reach itself through its fields
+ * is only equal to itself, because its structure has no finite hash.
  */
 public class ObjectSnapshot implements Serializable {
-  private static final long serialVersionUID = 1L;
-  
+  private static final long serialVersionUID = 2L;
+
   private final String className;
+  // Fields of a mutable snapshot, null once frozen
   private final LinkedHashMap<String, Object> fields;
+  // Fields of a frozen snapshot
+  private String[] fieldNames;
+  private Object[] fieldValues;
+  private int hash;
+  private boolean cyclic;
 
   /**
    * Creates a new ObjectSnapshot with the given class name.
-   * 
+   *
    * @param className the fully qualified class name
    */
   public ObjectSnapshot(String className) {
@@ -24,9 +42,19 @@ public class ObjectSnapshot implements Serializable {
     this.fields = new LinkedHashMap<>();
   }
 
+  /**
+   * Creates a frozen snapshot whose field arrays are filled in by {@link #freeze(ObjectSnapshot, UnaryOperator)}.
+   */
+  private ObjectSnapshot(String className, int fieldCount) {
+    this.className = className;
+    this.fields = null;
+    this.fieldNames = new String[fieldCount];
+    this.fieldValues = new Object[fieldCount];
+  }
+
   /**
    * Gets the fully qualified class name.
-   * 
+   *
    * @return the class name
    */
   public String getClassName() {
@@ -34,37 +62,155 @@ public class ObjectSnapshot implements Serializable {
   }
 
   /**
-   * Gets the map of field names to values.
-   * 
+   * Gets the map of field names to values. The map of a frozen snapshot is an unmodifiable copy.
+   *
    * @return the fields map
    */
-  public LinkedHashMap<String, Object> getFields() {
-    return fields;
+  public Map<String, Object> getFields() {
+    if (fields != null) {
+      return fields;
+    }
+    Map<String, Object> copy = new LinkedHashMap<>();
+    for (int i = 0; i < fieldNames.length; i++) {
+      copy.put(fieldNames[i], fieldValues[i]);
+    }
+    return Collections.unmodifiableMap(copy);
+  }
+
+  /**
+   * Passes every field to the action in capture order, without copying the fields of a frozen snapshot.
+   *
+   * @param action the action receiving the field name and value
+   */
+  public void forEachField(BiConsumer<String, Object> action) {
+    if (fields != null) {
+      fields.forEach(action);
+      return;
+    }
+    for (int i = 0; i < fieldNames.length; i++) {
+      action.accept(fieldNames[i], fieldValues[i]);
+    }
+  }
+
+  /**
+   * Gets the number of fields.
+   *
+   * @return the field count
+   */
+  public int getFieldCount() {
+    return fields != null ? fields.size() : fieldNames.length;
   }
 
   /**
    * Adds or updates a field value.
-   * 
+   *
    * @param name the field name
    * @param value the field value (primitive, String, or ObjectSnapshot)
+   * @throws UnsupportedOperationException if the snapshot is frozen
    */
   public void putField(String name, Object value) {
+    if (fields == null) {
+      throw new UnsupportedOperationException("Snapshot of " + className + " is frozen");
+    }
     fields.put(name, value);
   }
 
   /**
    * Gets the value of a field.
-   * 
+   *
    * @param name the field name
    * @return the field value, or null if not present
    */
   public Object getField(String name) {
-    return fields.get(name);
+    if (fields != null) {
+      return fields.get(name);
+    }
+    int index = indexOf(name);
+    return index >= 0 ? fieldValues[index] : null;
+  }
+
+  /**
+   * Checks whether the snapshot is immutable.
+   *
+   * @return true if the snapshot was created by {@link #freeze()} or {@link SnapshotInterner}
+   */
+  public boolean isFrozen() {
+    return fields == null;
+  }
+
+  /**
+   * Creates an immutable copy of this snapshot and of the snapshots reachable from it.
+   * Snapshots shared within the graph stay shared in the copy.
+   *
+   * @return the frozen copy, or this snapshot if it is already frozen
+   */
+  public ObjectSnapshot freeze() {
+    return freeze(this, UnaryOperator.identity());
+  }
+
+  /**
+   * Freezes a snapshot graph bottom-up. Every acyclic frozen snapshot is passed to the
+   * canonicalizer once its fields are final, which may replace it by an equal instance.
+   */
+  static ObjectSnapshot freeze(ObjectSnapshot snapshot, UnaryOperator<ObjectSnapshot> canonicalizer) {
+    if (snapshot.isFrozen()) {
+      return snapshot.cyclic ? snapshot : canonicalizer.apply(snapshot);
+    }
+    return freeze(snapshot, canonicalizer, new IdentityHashMap<>(), new IdentityHashMap<>());
+  }
+
+  private static ObjectSnapshot freeze(ObjectSnapshot snapshot, UnaryOperator<ObjectSnapshot> canonicalizer,
+                                       Map<ObjectSnapshot, ObjectSnapshot> copies,
+                                       Map<ObjectSnapshot, Boolean> inProgress) {
+    ObjectSnapshot copy = copies.get(snapshot);
+    if (copy != null) {
+      if (inProgress.containsKey(snapshot)) {
+        // Reached an enclosing snapshot that is still being frozen
+        copy.cyclic = true;
+      }
+      return copy;
+    }
+
+    copy = new ObjectSnapshot(snapshot.className, snapshot.fields.size());
+    copies.put(snapshot, copy);
+    inProgress.put(snapshot, Boolean.TRUE);
+    int i = 0;
+    int fieldsHash = 0;
+    boolean cyclic = false;
+    for (Map.Entry<String, Object> field : snapshot.fields.entrySet()) {
+      Object value = field.getValue();
+      if (value instanceof ObjectSnapshot nested) {
+        if (nested.isFrozen()) {
+          value = nested.cyclic ? nested : canonicalizer.apply(nested);
+        } else {
+          value = freeze(nested, canonicalizer, copies, inProgress);
+        }
+        ObjectSnapshot frozenValue = (ObjectSnapshot) value;
+        cyclic |= frozenValue.cyclic || inProgress.containsKey(nested);
+      }
+      copy.fieldNames[i] = field.getKey();
+      copy.fieldValues[i] = value;
+      if (!cyclic) {
+        fieldsHash += Objects.hashCode(field.getKey()) ^ Objects.hashCode(value);
+      }
+      i++;
+    }
+    inProgress.remove(snapshot);
+
+    copy.cyclic |= cyclic;
+    if (copy.cyclic) {
+      return copy;
+    }
+    // Same value as Objects.hash(className, fields) of the mutable snapshot
+    copy.hash = 31 * (31 + Objects.hashCode(snapshot.className)) + fieldsHash;
+    ObjectSnapshot canonical = canonicalizer.apply(copy);
+    copies.put(snapshot, canonical);
+    return canonical;
   }
 
   /**
    * Gets the simple class name (without package).
-   * 
+   *
    * @return the simple class name
    */
   public String getSimpleClassName() {
@@ -77,7 +223,7 @@ public class ObjectSnapshot implements Serializable {
 
   /**
    * Parses a JSON string into an ObjectSnapshot.
-   * 
+   *
    * @param json the JSON string to parse
    * @return the parsed ObjectSnapshot
    * @throws IllegalArgumentException if the JSON is invalid
@@ -86,12 +232,25 @@ public class ObjectSnapshot implements Serializable {
     return JsonObjectParser.parse(json);
   }
 
+  private int indexOf(String name) {
+    for (int i = 0; i < fieldNames.length; i++) {
+      if (Objects.equals(fieldNames[i], name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private boolean hasField(String name) {
+    return fields != null ? fields.containsKey(name) : indexOf(name) >= 0;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
     sb.append(getSimpleClassName()).append("{");
     boolean first = true;
-    for (var entry : fields.entrySet()) {
+    for (var entry : getFields().entrySet()) {
       if (!first) {
         sb.append(", ");
       }
@@ -107,12 +266,49 @@ public class ObjectSnapshot implements Serializable {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     ObjectSnapshot that = (ObjectSnapshot) o;
-    return Objects.equals(className, that.className) && Objects.equals(fields, that.fields);
+    if (fields != null && that.fields != null) {
+      return Objects.equals(className, that.className) && fields.equals(that.fields);
+    }
+    if (cyclic || that.cyclic) {
+      return false;
+    }
+    if ((fields == null && that.fields == null && hash != that.hash)
+        || !Objects.equals(className, that.className) || getFieldCount() != that.getFieldCount()) {
+      return false;
+    }
+    if (fields == null && that.fields == null) {
+      for (int i = 0; i < fieldNames.length; i++) {
+        // Fields are usually captured in the same order
+        if (!Objects.equals(fieldNames[i], that.fieldNames[i])) {
+          return sameFieldsAs(that);
+        }
+        if (!Objects.equals(fieldValues[i], that.fieldValues[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return fields == null ? sameFieldsAs(that) : that.sameFieldsAs(this);
+  }
+
+  /**
+   * Compares the fields of this frozen snapshot with the fields of a snapshot of the same size.
+   */
+  private boolean sameFieldsAs(ObjectSnapshot that) {
+    for (int i = 0; i < fieldNames.length; i++) {
+      if (!that.hasField(fieldNames[i]) || !Objects.equals(fieldValues[i], that.getField(fieldNames[i]))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(className, fields);
+    if (fields != null) {
+      return Objects.hash(className, fields);
+    }
+    return cyclic ? System.identityHashCode(this) : hash;
   }
 }
 
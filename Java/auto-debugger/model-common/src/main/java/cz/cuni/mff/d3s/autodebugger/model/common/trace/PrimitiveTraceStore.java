@@ -0,0 +1,211 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link TraceStore} that keeps primitive values unboxed in open-addressing hash sets.
+ *
+ * <p>Every slot owns one set per kind it has values of: an {@link IntHashSet} for byte,
+ * char, short, int, boolean and float values, a {@link LongHashSet} for long and double
+ * values, and a {@link HashSet} for strings and object snapshots. Slots and their kinds
+ * are registered when their first value is added, so listing them does not scan the
+ * values. The getters return boxed views over the primitive sets that reflect later
+ * additions. It is not thread-safe.
+ */
+public class PrimitiveTraceStore implements TraceStore {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<Integer, SlotValues> slots = new HashMap<>();
+
+    /**
+     * Value sets of one slot, indexed by kind. Only the sets of kinds with values are allocated.
+     */
+    private static final class SlotValues implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final Object[] byKind = new Object[InvocationColumns.KIND_OBJECT + 1];
+    }
+
+    @Override
+    public void addInt(int slotId, byte kind, int value) {
+        Object[] byKind = slot(slotId).byKind;
+        IntHashSet set = (IntHashSet) byKind[kind];
+        if (set == null) {
+            set = new IntHashSet();
+            byKind[kind] = set;
+        }
+        set.add(value);
+    }
+
+    @Override
+    public void addLong(int slotId, byte kind, long value) {
+        Object[] byKind = slot(slotId).byKind;
+        LongHashSet set = (LongHashSet) byKind[kind];
+        if (set == null) {
+            set = new LongHashSet();
+            byKind[kind] = set;
+        }
+        set.add(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addObject(int slotId, byte kind, Object value) {
+        Object[] byKind = slot(slotId).byKind;
+        Set<Object> set = (Set<Object>) byKind[kind];
+        if (set == null) {
+            set = new HashSet<>();
+            byKind[kind] = set;
+        }
+        set.add(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Set<T> getValues(int slotId, byte kind) {
+        SlotValues slot = slots.get(slotId);
+        Object set = slot == null ? null : slot.byKind[kind];
+        if (set == null) {
+            return Collections.emptySet();
+        }
+        return (Set<T>) switch (kind) {
+            case InvocationColumns.KIND_BYTE -> new IntView<>((IntHashSet) set, Byte.class, value -> (byte) value, Byte::intValue);
+            case InvocationColumns.KIND_CHAR -> new IntView<>((IntHashSet) set, Character.class, value -> (char) value, value -> value);
+            case InvocationColumns.KIND_SHORT -> new IntView<>((IntHashSet) set, Short.class, value -> (short) value, Short::intValue);
+            case InvocationColumns.KIND_INT -> new IntView<>((IntHashSet) set, Integer.class, value -> value, Integer::intValue);
+            case InvocationColumns.KIND_BOOLEAN -> new IntView<>((IntHashSet) set, Boolean.class, value -> value != 0, value -> value ? 1 : 0);
+            case InvocationColumns.KIND_FLOAT -> new IntView<>((IntHashSet) set, Float.class, Float::intBitsToFloat, Float::floatToIntBits);
+            case InvocationColumns.KIND_LONG -> new LongView<>((LongHashSet) set, Long.class, value -> value, Long::longValue);
+            case InvocationColumns.KIND_DOUBLE -> new LongView<>((LongHashSet) set, Double.class, Double::longBitsToDouble, Double::doubleToLongBits);
+            default -> Collections.unmodifiableSet((Set<T>) set);
+        };
+    }
+
+    @Override
+    public Set<Integer> getSlotIds() {
+        return Collections.unmodifiableSet(slots.keySet());
+    }
+
+    @Override
+    public byte[] getKinds(int slotId) {
+        SlotValues slot = slots.get(slotId);
+        if (slot == null) {
+            return new byte[0];
+        }
+        int count = 0;
+        for (Object set : slot.byKind) {
+            if (set != null) {
+                count++;
+            }
+        }
+        byte[] kinds = new byte[count];
+        int next = 0;
+        for (byte kind = 0; kind < slot.byKind.length; kind++) {
+            if (slot.byKind[kind] != null) {
+                kinds[next++] = kind;
+            }
+        }
+        return kinds;
+    }
+
+    private SlotValues slot(int slotId) {
+        return slots.computeIfAbsent(slotId, id -> new SlotValues());
+    }
+
+    /**
+     * Boxed, read-only view of an {@link IntHashSet}.
+     */
+    private static final class IntView<T> extends AbstractSet<T> {
+        private final IntHashSet set;
+        private final Class<T> type;
+        private final IntFunction<T> boxer;
+        private final ToIntFunction<T> unboxer;
+
+        IntView(IntHashSet set, Class<T> type, IntFunction<T> boxer, ToIntFunction<T> unboxer) {
+            this.set = set;
+            this.type = type;
+            this.boxer = boxer;
+            this.unboxer = unboxer;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return type.isInstance(o) && set.contains(unboxer.applyAsInt(type.cast(o)));
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            PrimitiveIterator.OfInt values = set.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return values.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    return boxer.apply(values.nextInt());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+    }
+
+    /**
+     * Boxed, read-only view of a {@link LongHashSet}.
+     */
+    private static final class LongView<T> extends AbstractSet<T> {
+        private final LongHashSet set;
+        private final Class<T> type;
+        private final LongFunction<T> boxer;
+        private final ToLongFunction<T> unboxer;
+
+        LongView(LongHashSet set, Class<T> type, LongFunction<T> boxer, ToLongFunction<T> unboxer) {
+            this.set = set;
+            this.type = type;
+            this.boxer = boxer;
+            this.unboxer = unboxer;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return type.isInstance(o) && set.contains(unboxer.applyAsLong(type.cast(o)));
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            PrimitiveIterator.OfLong values = set.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return values.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    return boxer.apply(values.nextLong());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+    }
+}
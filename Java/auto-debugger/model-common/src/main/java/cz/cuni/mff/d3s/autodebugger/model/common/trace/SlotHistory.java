@@ -0,0 +1,229 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import static cz.cuni.mff.d3s.autodebugger.model.common.trace.InvocationColumns.*;
+
+/**
+ * Value history of one slot: a sorted {@code int[]} of event indices next to a typed value column.
+ *
+ * <p>The value column follows the layout of {@link InvocationColumns}: an {@code int[]} for
+ * byte, char, short, int and boolean values, a {@code long[]} for longs, a {@code double[]}
+ * for floats and doubles, and an {@code Object[]} for everything else. Strings are kept in
+ * the {@code int[]} column as IDs of the trace's {@link StringDictionary} and are looked up
+ * when read. The kind is taken from the first value; a value of another kind, or a null,
+ * moves the history to the {@code Object[]} column.
+ *
+ * <p>Values recorded in event order are appended. An earlier event index is inserted at its
+ * sorted position, and an index that is already present has its value replaced, as a
+ * {@code TreeMap} would. Lookups by event index are binary searches. It is not thread-safe.
+ */
+final class SlotHistory implements Serializable {
+    private static final long serialVersionUID = 2L;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final StringDictionary strings;
+    private int[] eventIndices = new int[INITIAL_CAPACITY];
+    private byte kind;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private Object[] references;
+    private int size;
+
+    SlotHistory(StringDictionary strings) {
+        this.strings = strings;
+    }
+
+    void put(int eventIndex, Object value) {
+        int position;
+        if (size == 0 || eventIndex > eventIndices[size - 1]) {
+            position = size;
+            insertAt(position);
+            eventIndices[position] = eventIndex;
+        } else {
+            position = Arrays.binarySearch(eventIndices, 0, size, eventIndex);
+            if (position < 0) {
+                position = -position - 1;
+                insertAt(position);
+                eventIndices[position] = eventIndex;
+            }
+        }
+        store(position, value);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Shrinks the arrays to the recorded values.
+     */
+    void trimToSize() {
+        int capacity = Math.max(1, size);
+        if (capacity == eventIndices.length) {
+            return;
+        }
+        eventIndices = Arrays.copyOf(eventIndices, capacity);
+        if (ints != null) {
+            ints = Arrays.copyOf(ints, capacity);
+        } else if (longs != null) {
+            longs = Arrays.copyOf(longs, capacity);
+        } else if (doubles != null) {
+            doubles = Arrays.copyOf(doubles, capacity);
+        } else if (references != null) {
+            references = Arrays.copyOf(references, capacity);
+        }
+    }
+
+    int eventIndexAt(int position) {
+        return eventIndices[position];
+    }
+
+    /**
+     * Reads a value boxed to its original wrapper type.
+     */
+    Object valueAt(int position) {
+        return switch (kind) {
+            case KIND_BYTE -> (byte) ints[position];
+            case KIND_CHAR -> (char) ints[position];
+            case KIND_SHORT -> (short) ints[position];
+            case KIND_INT -> ints[position];
+            case KIND_BOOLEAN -> ints[position] != 0;
+            case KIND_LONG -> longs[position];
+            case KIND_FLOAT -> (float) doubles[position];
+            case KIND_DOUBLE -> doubles[position];
+            case KIND_STRING -> strings.get(ints[position]);
+            default -> references[position];
+        };
+    }
+
+    /**
+     * @return Position of the event index, or -1 if it was not recorded.
+     */
+    int positionOf(int eventIndex) {
+        int position = Arrays.binarySearch(eventIndices, 0, size, eventIndex);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * @return Position of the first event index that is not smaller than the given one, or size if there is none.
+     */
+    int ceilingPosition(int eventIndex) {
+        int position = Arrays.binarySearch(eventIndices, 0, size, eventIndex);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * @return Position of the first event index that is greater than the given one, or size if there is none.
+     */
+    int higherPosition(int eventIndex) {
+        int position = Arrays.binarySearch(eventIndices, 0, size, eventIndex);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    /**
+     * Opens a gap for one value at the given position, growing the arrays if needed.
+     */
+    private void insertAt(int position) {
+        if (size == eventIndices.length) {
+            int capacity = size * 2;
+            eventIndices = Arrays.copyOf(eventIndices, capacity);
+            if (ints != null) {
+                ints = Arrays.copyOf(ints, capacity);
+            } else if (longs != null) {
+                longs = Arrays.copyOf(longs, capacity);
+            } else if (doubles != null) {
+                doubles = Arrays.copyOf(doubles, capacity);
+            } else if (references != null) {
+                references = Arrays.copyOf(references, capacity);
+            }
+        }
+        if (position < size) {
+            int moved = size - position;
+            System.arraycopy(eventIndices, position, eventIndices, position + 1, moved);
+            if (ints != null) {
+                System.arraycopy(ints, position, ints, position + 1, moved);
+            } else if (longs != null) {
+                System.arraycopy(longs, position, longs, position + 1, moved);
+            } else if (doubles != null) {
+                System.arraycopy(doubles, position, doubles, position + 1, moved);
+            } else if (references != null) {
+                System.arraycopy(references, position, references, position + 1, moved);
+            }
+        }
+        size++;
+    }
+
+    private void store(int position, Object value) {
+        byte valueKind = kindOf(value);
+        if (kind == 0) {
+            allocate(valueKind);
+        } else if (kind != valueKind && kind != KIND_OBJECT) {
+            promoteToReferences(position);
+        }
+        switch (kind) {
+            case KIND_BYTE -> ints[position] = (Byte) value;
+            case KIND_CHAR -> ints[position] = (Character) value;
+            case KIND_SHORT -> ints[position] = (Short) value;
+            case KIND_INT -> ints[position] = (Integer) value;
+            case KIND_BOOLEAN -> ints[position] = (Boolean) value ? 1 : 0;
+            case KIND_LONG -> longs[position] = (Long) value;
+            case KIND_FLOAT -> doubles[position] = (Float) value;
+            case KIND_DOUBLE -> doubles[position] = (Double) value;
+            case KIND_STRING -> ints[position] = strings.intern((String) value);
+            default -> references[position] = value;
+        }
+    }
+
+    private void allocate(byte valueKind) {
+        kind = valueKind;
+        switch (valueKind == KIND_STRING ? KIND_INT : storageOf(valueKind)) {
+            case KIND_INT -> ints = new int[eventIndices.length];
+            case KIND_LONG -> longs = new long[eventIndices.length];
+            case KIND_DOUBLE -> doubles = new double[eventIndices.length];
+            default -> references = new Object[eventIndices.length];
+        }
+    }
+
+    /**
+     * Boxes the typed column into a reference column, skipping the gap being written.
+     */
+    private void promoteToReferences(int gap) {
+        Object[] boxed = new Object[eventIndices.length];
+        for (int i = 0; i < size; i++) {
+            if (i != gap) {
+                boxed[i] = valueAt(i);
+            }
+        }
+        ints = null;
+        longs = null;
+        doubles = null;
+        references = boxed;
+        kind = KIND_OBJECT;
+    }
+
+    private static byte kindOf(Object value) {
+        if (value instanceof Integer) {
+            return KIND_INT;
+        } else if (value instanceof Long) {
+            return KIND_LONG;
+        } else if (value instanceof Boolean) {
+            return KIND_BOOLEAN;
+        } else if (value instanceof Double) {
+            return KIND_DOUBLE;
+        } else if (value instanceof Float) {
+            return KIND_FLOAT;
+        } else if (value instanceof Character) {
+            return KIND_CHAR;
+        } else if (value instanceof Byte) {
+            return KIND_BYTE;
+        } else if (value instanceof Short) {
+            return KIND_SHORT;
+        } else if (value instanceof String) {
+            return KIND_STRING;
+        }
+        return KIND_OBJECT;
+    }
+}
@@ -0,0 +1,327 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Unmodifiable {@link NavigableMap} view of a {@link SlotHistory}, optionally limited to a range of event indices.
+ *
+ * <p>Lookups are binary searches over the history's arrays and iteration walks them in
+ * place, so neither copies the history. The view reflects values added later. Descending
+ * views and navigable key sets are rarely used and are materialized into a
+ * {@link TreeMap} when requested.
+ */
+final class SlotHistoryView extends AbstractMap<Integer, Object> implements NavigableMap<Integer, Object> {
+    private final SlotHistory history;
+    private final boolean hasLow;
+    private final int low;
+    private final boolean lowInclusive;
+    private final boolean hasHigh;
+    private final int high;
+    private final boolean highInclusive;
+
+    SlotHistoryView(SlotHistory history) {
+        this(history, false, 0, true, false, 0, true);
+    }
+
+    private SlotHistoryView(SlotHistory history, boolean hasLow, int low, boolean lowInclusive,
+                            boolean hasHigh, int high, boolean highInclusive) {
+        this.history = history;
+        this.hasLow = hasLow;
+        this.low = low;
+        this.lowInclusive = lowInclusive;
+        this.hasHigh = hasHigh;
+        this.high = high;
+        this.highInclusive = highInclusive;
+    }
+
+    /**
+     * @return First position inside the range.
+     */
+    private int start() {
+        if (!hasLow) {
+            return 0;
+        }
+        return lowInclusive ? history.ceilingPosition(low) : history.higherPosition(low);
+    }
+
+    /**
+     * @return Position after the last one inside the range.
+     */
+    private int end() {
+        if (!hasHigh) {
+            return history.size();
+        }
+        return highInclusive ? history.higherPosition(high) : history.ceilingPosition(high);
+    }
+
+    private boolean inRange(int eventIndex) {
+        boolean aboveLow = !hasLow || (lowInclusive ? eventIndex >= low : eventIndex > low);
+        boolean belowHigh = !hasHigh || (highInclusive ? eventIndex <= high : eventIndex < high);
+        return aboveLow && belowHigh;
+    }
+
+    /**
+     * Checks a bound of a sub-view, which may equal an exclusive bound of this view only if
+     * it is exclusive itself, as in {@link TreeMap}.
+     */
+    private boolean inRange(int eventIndex, boolean inclusive) {
+        if (inclusive) {
+            return inRange(eventIndex);
+        }
+        return (!hasLow || eventIndex >= low) && (!hasHigh || eventIndex <= high);
+    }
+
+    private Map.Entry<Integer, Object> entryAt(int position) {
+        if (position < start() || position >= end()) {
+            return null;
+        }
+        return new SimpleImmutableEntry<>(history.eventIndexAt(position), history.valueAt(position));
+    }
+
+    /**
+     * @return The last entry of the range before the given position, or null if there is none.
+     */
+    private Map.Entry<Integer, Object> lastEntryBefore(int position) {
+        return entryAt(Math.min(position, end()) - 1);
+    }
+
+    /**
+     * @return The first entry of the range at or after the given position, or null if there is none.
+     */
+    private Map.Entry<Integer, Object> firstEntryFrom(int position) {
+        return entryAt(Math.max(position, start()));
+    }
+
+    private static Integer keyOf(Map.Entry<Integer, Object> entry) {
+        return entry == null ? null : entry.getKey();
+    }
+
+    @Override
+    public int size() {
+        return Math.max(0, end() - start());
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer eventIndex && inRange(eventIndex) && history.positionOf(eventIndex) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof Integer eventIndex) || !inRange(eventIndex)) {
+            return null;
+        }
+        int position = history.positionOf(eventIndex);
+        return position >= 0 ? history.valueAt(position) : null;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<Integer, Object>> iterator() {
+                int end = end();
+                return new Iterator<>() {
+                    private int position = start();
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < end;
+                    }
+
+                    @Override
+                    public Map.Entry<Integer, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<Integer, Object> entry = new SimpleImmutableEntry<>(
+                                history.eventIndexAt(position), history.valueAt(position));
+                        position++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return SlotHistoryView.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return null;
+    }
+
+    @Override
+    public Integer firstKey() {
+        Map.Entry<Integer, Object> entry = firstEntry();
+        if (entry == null) {
+            throw new NoSuchElementException();
+        }
+        return entry.getKey();
+    }
+
+    @Override
+    public Integer lastKey() {
+        Map.Entry<Integer, Object> entry = lastEntry();
+        if (entry == null) {
+            throw new NoSuchElementException();
+        }
+        return entry.getKey();
+    }
+
+    @Override
+    public Map.Entry<Integer, Object> firstEntry() {
+        return entryAt(start());
+    }
+
+    @Override
+    public Map.Entry<Integer, Object> lastEntry() {
+        return entryAt(end() - 1);
+    }
+
+    @Override
+    public Map.Entry<Integer, Object> lowerEntry(Integer key) {
+        return lastEntryBefore(history.ceilingPosition(key));
+    }
+
+    @Override
+    public Map.Entry<Integer, Object> floorEntry(Integer key) {
+        return lastEntryBefore(history.higherPosition(key));
+    }
+
+    @Override
+    public Map.Entry<Integer, Object> ceilingEntry(Integer key) {
+        return firstEntryFrom(history.ceilingPosition(key));
+    }
+
+    @Override
+    public Map.Entry<Integer, Object> higherEntry(Integer key) {
+        return firstEntryFrom(history.higherPosition(key));
+    }
+
+    @Override
+    public Integer lowerKey(Integer key) {
+        return keyOf(lowerEntry(key));
+    }
+
+    @Override
+    public Integer floorKey(Integer key) {
+        return keyOf(floorEntry(key));
+    }
+
+    @Override
+    public Integer ceilingKey(Integer key) {
+        return keyOf(ceilingEntry(key));
+    }
+
+    @Override
+    public Integer higherKey(Integer key) {
+        return keyOf(higherEntry(key));
+    }
+
+    @Override
+    public Map.Entry<Integer, Object> pollFirstEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map.Entry<Integer, Object> pollLastEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public NavigableMap<Integer, Object> subMap(Integer fromKey, boolean fromInclusive, Integer toKey, boolean toInclusive) {
+        return restrict(true, fromKey, fromInclusive, true, toKey, toInclusive);
+    }
+
+    @Override
+    public NavigableMap<Integer, Object> headMap(Integer toKey, boolean inclusive) {
+        return restrict(false, 0, true, true, toKey, inclusive);
+    }
+
+    @Override
+    public NavigableMap<Integer, Object> tailMap(Integer fromKey, boolean inclusive) {
+        return restrict(true, fromKey, inclusive, false, 0, true);
+    }
+
+    @Override
+    public SortedMap<Integer, Object> subMap(Integer fromKey, Integer toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<Integer, Object> headMap(Integer toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<Integer, Object> tailMap(Integer fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    /**
+     * Intersects this view's range with the given bounds.
+     *
+     * @throws IllegalArgumentException if the lower bound is above the upper one, or a bound
+     *                                  lies outside this view's range.
+     */
+    private NavigableMap<Integer, Object> restrict(boolean newHasLow, int newLow, boolean newLowInclusive,
+                                                   boolean newHasHigh, int newHigh, boolean newHighInclusive) {
+        if (newHasLow && newHasHigh && newLow > newHigh) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        if (newHasLow && !inRange(newLow, newLowInclusive)) {
+            throw new IllegalArgumentException("fromKey out of range");
+        }
+        if (newHasHigh && !inRange(newHigh, newHighInclusive)) {
+            throw new IllegalArgumentException("toKey out of range");
+        }
+        boolean resultHasLow = hasLow;
+        int resultLow = low;
+        boolean resultLowInclusive = lowInclusive;
+        if (newHasLow && (!hasLow || newLow > low || (newLow == low && !newLowInclusive))) {
+            resultHasLow = true;
+            resultLow = newLow;
+            resultLowInclusive = newLowInclusive;
+        }
+        boolean resultHasHigh = hasHigh;
+        int resultHigh = high;
+        boolean resultHighInclusive = highInclusive;
+        if (newHasHigh && (!hasHigh || newHigh < high || (newHigh == high && !newHighInclusive))) {
+            resultHasHigh = true;
+            resultHigh = newHigh;
+            resultHighInclusive = newHighInclusive;
+        }
+        return new SlotHistoryView(history, resultHasLow, resultLow, resultLowInclusive,
+                resultHasHigh, resultHigh, resultHighInclusive);
+    }
+
+    @Override
+    public NavigableMap<Integer, Object> descendingMap() {
+        return Collections.unmodifiableNavigableMap(new TreeMap<>(this)).descendingMap();
+    }
+
+    @Override
+    public NavigableSet<Integer> navigableKeySet() {
+        return Collections.unmodifiableNavigableMap(new TreeMap<>(this)).navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<Integer> descendingKeySet() {
+        return Collections.unmodifiableNavigableMap(new TreeMap<>(this)).descendingKeySet();
+    }
+}
@@ -0,0 +1,42 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interning table for frozen {@link ObjectSnapshot}s.
+ *
+ * <p>{@link #intern(ObjectSnapshot)} freezes a snapshot together with the snapshots nested
+ * in it and returns one shared instance per distinct object state, so repeated captures of
+ * an unchanged object cost one instance and compare by a cached hash. Nested snapshots are
+ * interned first, which makes most field comparisons identity checks. Snapshots that can
+ * reach themselves are frozen but not interned. Instances are safe for concurrent use.
+ */
+public final class SnapshotInterner {
+    private final Map<ObjectSnapshot, ObjectSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared frozen snapshot equal to the given one.
+     *
+     * @param snapshot Snapshot to intern, it is not modified.
+     * @return The shared instance, or null for a null snapshot.
+     */
+    public ObjectSnapshot intern(ObjectSnapshot snapshot) {
+        if (snapshot == null) {
+            return null;
+        }
+        return ObjectSnapshot.freeze(snapshot, this::canonical);
+    }
+
+    private ObjectSnapshot canonical(ObjectSnapshot frozen) {
+        ObjectSnapshot existing = snapshots.putIfAbsent(frozen, frozen);
+        return existing != null ? existing : frozen;
+    }
+
+    /**
+     * @return Number of distinct snapshots in the table.
+     */
+    public int size() {
+        return snapshots.size();
+    }
+}
@@ -0,0 +1,24 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import cz.cuni.mff.d3s.autodebugger.model.common.identifiers.ExportableValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * State of a {@link TemporalTrace} at one event index, as produced by
+ * {@link TemporalTrace#snapshotIterator(int, int)}.
+ */
+@Getter
+@AllArgsConstructor
+public class StateSnapshot {
+    /** The event index at which a value was recorded. */
+    private final int eventIndex;
+
+    /**
+     * Every tracked variable's most recent value at or before the event index. The map is a
+     * view that changes when the iterator advances; copy it to keep it.
+     */
+    private final Map<ExportableValue, Object> state;
+}
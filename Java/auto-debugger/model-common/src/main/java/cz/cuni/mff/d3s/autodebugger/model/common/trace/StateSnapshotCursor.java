@@ -0,0 +1,71 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import cz.cuni.mff.d3s.autodebugger.model.common.identifiers.ExportableValue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reconstructs the state of a {@link TemporalTrace} at successive event indices.
+ *
+ * <p>The cursor keeps the current state and, when moved forward, applies only the value
+ * recordings between the old and the new event index. Visiting k sorted event indices of a
+ * trace with n recordings therefore costs O(n + k) instead of a lookup per variable for each
+ * of them. Moving backwards, or far forwards, restarts from the nearest checkpoint if the
+ * trace keeps them (see {@link TemporalTrace#setCheckpointInterval(int)}), or from the start
+ * of the trace otherwise.
+ *
+ * <p>The cursor reads the trace as it was when the cursor was created. It is not thread-safe.
+ */
+public final class StateSnapshotCursor {
+    private final MergedTimeline timeline;
+    private final Map<ExportableValue, Object> state = new HashMap<>();
+    private final Map<ExportableValue, Object> stateView = Collections.unmodifiableMap(state);
+    // Number of recordings applied to the state
+    private int position;
+
+    StateSnapshotCursor(MergedTimeline timeline) {
+        this.timeline = timeline;
+    }
+
+    /**
+     * Moves the cursor to the given event index.
+     *
+     * @param eventIndex The point in time for the snapshot.
+     * @return Unmodifiable view of every tracked variable's most recent value at or before the
+     *         event index. The view changes when the cursor moves; copy it to keep it.
+     */
+    public Map<ExportableValue, Object> advanceTo(int eventIndex) {
+        moveTo(timeline.higherPosition(eventIndex));
+        return stateView;
+    }
+
+    /**
+     * @return Unmodifiable view of the current state.
+     */
+    public Map<ExportableValue, Object> getState() {
+        return stateView;
+    }
+
+    /**
+     * @return Number of value recordings applied to the current state.
+     */
+    int getPosition() {
+        return position;
+    }
+
+    void moveTo(int target) {
+        int checkpoint = timeline.checkpointBefore(target);
+        if (target < position || checkpoint > position) {
+            state.clear();
+            position = 0;
+            if (checkpoint > 0) {
+                state.putAll(timeline.checkpointAt(checkpoint));
+                position = checkpoint;
+            }
+        }
+        timeline.replay(state, position, target);
+        position = target;
+    }
+}
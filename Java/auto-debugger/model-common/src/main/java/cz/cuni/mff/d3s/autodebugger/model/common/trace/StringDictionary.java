@@ -0,0 +1,117 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Trace-scoped dictionary that stores every distinct string once and refers to it by an int ID.
+ *
+ * <p>IDs are assigned densely from 0 in the order the strings are first seen. Lookups go
+ * through an open-addressing table of IDs with linear probing. Only the strings are
+ * serialized; the table is rebuilt when the dictionary is read back. It is not thread-safe.
+ */
+public final class StringDictionary implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] strings = new String[INITIAL_CAPACITY];
+    private int size;
+    // Holds ID + 1 of the string hashed to a slot, 0 marks a free slot
+    private transient int[] table = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * Returns the ID of the string, adding it to the dictionary if it is new.
+     *
+     * @param value The string, must not be null.
+     * @return The ID of the string.
+     */
+    public int intern(String value) {
+        int mask = table.length - 1;
+        int index = mix(value.hashCode()) & mask;
+        while (table[index] != 0) {
+            int id = table[index] - 1;
+            if (strings[id].equals(value)) {
+                return id;
+            }
+            index = (index + 1) & mask;
+        }
+        if (size == strings.length) {
+            strings = Arrays.copyOf(strings, size * 2);
+        }
+        int id = size++;
+        strings[id] = value;
+        table[index] = id + 1;
+        // Grow at 1/2 occupancy; a slot is only an int, so short probes are cheap to keep
+        if (size * 2L > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the ID of the string without adding it.
+     *
+     * @return The ID, or -1 if the string is not in the dictionary.
+     */
+    public int indexOf(String value) {
+        int mask = table.length - 1;
+        int index = mix(value.hashCode()) & mask;
+        while (table[index] != 0) {
+            int id = table[index] - 1;
+            if (strings[id].equals(value)) {
+                return id;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if no string has the ID.
+     */
+    public String get(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown string ID " + id);
+        }
+        return strings[id];
+    }
+
+    /**
+     * @return Number of distinct strings.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int index = mix(strings[id].hashCode()) & mask;
+            while (rehashed[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            rehashed[index] = id + 1;
+        }
+        table = rehashed;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int capacity = INITIAL_CAPACITY * 2;
+        while (capacity < size * 2) {
+            capacity *= 2;
+        }
+        rehash(capacity);
+    }
+
+    /**
+     * Spreads the hash bits, so strings differing only in their last chars do not share probe runs.
+     */
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
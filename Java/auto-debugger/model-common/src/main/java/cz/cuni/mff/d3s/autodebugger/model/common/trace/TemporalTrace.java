@@ -12,6 +12,9 @@ import java.util.concurrent.ConcurrentHashMap;
  * variables (ExportableValue) at specific execution points (event indices) to their values.
  * The design uses the Facade pattern to hide the complexity of the internal
  * map-of-maps structure and provides efficient queries for test generation.
+ *
+ * <p>Adding values is not thread-safe; to fill a trace from several threads, use
+ * {@link ConcurrentTraceBuilder#forTemporalTrace()}.
  */
 @Slf4j
 public class TemporalTrace implements Serializable {
@@ -32,6 +35,21 @@ public class TemporalTrace implements Serializable {
      * Metadata about the trace collection
      */
     private final Map<String, Object> metadata;
+
+    /**
+     * Number of recordings between state checkpoints of the merged timeline; 0 disables checkpoints
+     */
+    private int checkpointInterval;
+
+    /**
+     * All recordings merged by event index, built on first use and dropped when the trace changes
+     */
+    private transient volatile MergedTimeline timeline;
+
+    /**
+     * Set by {@link #freeze()}; a frozen trace rejects new values.
+     */
+    private boolean frozen;
     
     public TemporalTrace() {
         this.traceData = new ConcurrentHashMap<>();
@@ -45,13 +63,18 @@ public class TemporalTrace implements Serializable {
      * @param identifier The unique identifier for the variable being tracked.
      * @param eventIndex The point in the execution timeline when the value was captured.
      * @param value The runtime value of the variable.
+     * @throws IllegalStateException if the trace is frozen.
      */
     public void addValue(ExportableValue identifier, int eventIndex, Object value) {
+        if (frozen) {
+            throw new IllegalStateException("Cannot add values to a frozen TemporalTrace");
+        }
         log.debug("Adding value for identifier {} at event {}: {}", 
                  identifier, eventIndex, value);
         
         traceData.computeIfAbsent(identifier, k -> new TreeMap<>())
                  .put(eventIndex, value);
+        timeline = null;
         
         // Update next event index if this is the latest event
         if (eventIndex >= nextEventIndex) {
@@ -67,10 +90,25 @@ public class TemporalTrace implements Serializable {
      * @return The assigned event index.
      */
     public int addValue(ExportableValue identifier, Object value) {
-        int eventIndex = nextEventIndex++;
+        int eventIndex = nextEventIndex;
         addValue(identifier, eventIndex, value);
         return eventIndex;
     }
+
+    /**
+     * Makes the recorded values read-only, so the trace can be shared between threads once
+     * published. Metadata can still be added.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * @return true if {@link #freeze()} has been called.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
     
     /**
      * Retrieves the most recent value of a variable at or before a given event index.
@@ -124,6 +162,10 @@ public class TemporalTrace implements Serializable {
      * @return A Map of variable identifiers to their last known value.
      */
     public Map<ExportableValue, Object> getStateSnapshotAt(int eventIndex) {
+        if (checkpointInterval > 0) {
+            return new HashMap<>(stateCursor().advanceTo(eventIndex));
+        }
+
         Map<ExportableValue, Object> snapshot = new HashMap<>();
         
         for (ExportableValue identifier : traceData.keySet()) {
@@ -136,6 +178,76 @@ public class TemporalTrace implements Serializable {
         return snapshot;
     }
     
+    /**
+     * Creates a cursor that reconstructs snapshots incrementally. Visiting many event indices
+     * in ascending order through one cursor replays every recording once, instead of looking
+     * up every variable for each index as {@link #getStateSnapshotAt(int)} does.
+     *
+     * @return A cursor positioned before the first event.
+     */
+    public StateSnapshotCursor stateCursor() {
+        return new StateSnapshotCursor(getTimeline());
+    }
+
+    /**
+     * Sweeps the trace once and yields the state at every event index in [from, to] at which a
+     * value was recorded. Each state also includes the values recorded before {@code from}.
+     *
+     * @param from The first event index to report.
+     * @param to The last event index to report.
+     * @return Iterator of snapshots in ascending event order. The state maps are views that
+     *         change when the iterator advances.
+     */
+    public Iterator<StateSnapshot> snapshotIterator(int from, int to) {
+        MergedTimeline merged = getTimeline();
+        StateSnapshotCursor cursor = new StateSnapshotCursor(merged);
+        cursor.moveTo(merged.ceilingPosition(from));
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.getPosition() < merged.size() && merged.eventIndexAt(cursor.getPosition()) <= to;
+            }
+
+            @Override
+            public StateSnapshot next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int eventIndex = merged.eventIndexAt(cursor.getPosition());
+                return new StateSnapshot(eventIndex, cursor.advanceTo(eventIndex));
+            }
+        };
+    }
+
+    /**
+     * Sets how many recordings apart the merged timeline keeps state checkpoints. With
+     * checkpoints, {@link #getStateSnapshotAt(int)} and cursor jumps replay at most this many
+     * recordings, at the cost of one state copy per checkpoint.
+     *
+     * @param checkpointInterval Recordings between checkpoints, or 0 to disable them.
+     */
+    public void setCheckpointInterval(int checkpointInterval) {
+        if (checkpointInterval < 0) {
+            throw new IllegalArgumentException("Checkpoint interval must not be negative: " + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+        timeline = null;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    private MergedTimeline getTimeline() {
+        MergedTimeline merged = timeline;
+        if (merged == null) {
+            merged = new MergedTimeline(traceData, checkpointInterval);
+            timeline = merged;
+            log.debug("Merged {} recordings into a timeline", merged.size());
+        }
+        return merged;
+    }
+    
     /**
      * Gets all tracked variable identifiers.
      *
@@ -217,11 +329,17 @@ public class TemporalTrace implements Serializable {
     
     /**
      * Clears all trace data and metadata.
+     *
+     * @throws IllegalStateException if the trace is frozen.
      */
     public void clear() {
+        if (frozen) {
+            throw new IllegalStateException("Cannot clear a frozen TemporalTrace");
+        }
         traceData.clear();
         metadata.clear();
         nextEventIndex = 0;
+        timeline = null;
         log.info("Trace data cleared");
     }
     
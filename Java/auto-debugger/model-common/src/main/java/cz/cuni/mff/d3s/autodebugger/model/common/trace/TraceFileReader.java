@@ -0,0 +1,404 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Reads {@code .adtrace} files produced by {@link TraceFileWriter}.
+ *
+ * <p>When the file ends with a footer, chunks are located through its chunk index. Otherwise
+ * (the writing process was killed before closing the file) the chunks are scanned
+ * sequentially and a truncated trailing chunk is ignored. Chunks are always decoded in file
+ * order, because each chunk extends the string dictionary of the chunks before it.
+ */
+public final class TraceFileReader {
+
+    /**
+     * Receives the values of a chunk slot by slot, in the order they were recorded.
+     */
+    @FunctionalInterface
+    public interface ValueConsumer {
+        void accept(int slotId, int eventIndex, Object value);
+    }
+
+    private TraceFileReader() {
+    }
+
+    /**
+     * Checks whether the file starts with the trace file header.
+     *
+     * @param traceFile The file to inspect.
+     * @return true if the file is a trace file, false otherwise or if it cannot be read.
+     */
+    public static boolean isTraceFile(Path traceFile) {
+        if (traceFile == null || !Files.isRegularFile(traceFile)) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(traceFile))) {
+            return input.readInt() == TraceFileWriter.MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the file into a set-based trace (NAIVE mode).
+     */
+    public static Trace readTrace(Path traceFile) throws IOException {
+        Trace trace = new Trace();
+        forEachValue(traceFile, (slotId, eventIndex, value) -> addToTrace(trace, slotId, value));
+        return trace;
+    }
+
+    /**
+     * Reads the file into an indexed trace (TEMPORAL mode). Each invocation gets its own event index.
+     */
+    public static IndexedTrace readIndexedTrace(Path traceFile) throws IOException {
+        IndexedTrace indexedTrace = new IndexedTrace();
+        forEachValue(traceFile, indexedTrace::addValue);
+        return indexedTrace;
+    }
+
+    /**
+     * Streams every recorded value of the file to the consumer, one chunk in memory at a time.
+     * The event index of a value is the index of the invocation it was recorded in.
+     *
+     * @throws IOException if the file is not a trace file or cannot be read.
+     */
+    public static void forEachValue(Path traceFile, ValueConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(traceFile, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, 8);
+            if (header == null || header.getInt() != TraceFileWriter.MAGIC) {
+                throw new IOException("Not a trace file: " + traceFile);
+            }
+            int version = header.getInt();
+            if (version != TraceFileWriter.VERSION) {
+                throw new IOException("Unsupported trace file version " + version + " in " + traceFile);
+            }
+
+            List<String> dictionary = new ArrayList<>();
+            SnapshotInterner snapshots = new SnapshotInterner();
+            List<Long> chunkOffsets = readFooterIndex(channel);
+            if (chunkOffsets != null) {
+                for (long offset : chunkOffsets) {
+                    if (readChunk(channel, offset, dictionary, snapshots, consumer) < 0) {
+                        throw new IOException("Corrupt chunk at offset " + offset + " in " + traceFile);
+                    }
+                }
+            } else {
+                long offset = 8;
+                while (offset >= 0) {
+                    offset = readChunk(channel, offset, dictionary, snapshots, consumer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the chunk at the given offset and returns the offset of the next chunk,
+     * or -1 if there is no complete chunk at the offset.
+     */
+    private static long readChunk(FileChannel channel, long offset, List<String> dictionary,
+                                  SnapshotInterner snapshots, ValueConsumer consumer) throws IOException {
+        ByteBuffer chunkHeader = readFully(channel, offset, 16);
+        if (chunkHeader == null || chunkHeader.getInt() != TraceFileWriter.CHUNK_MAGIC) {
+            return -1;
+        }
+        int firstEventIndex = chunkHeader.getInt();
+        chunkHeader.getInt();  // invocation count
+        int payloadLength = chunkHeader.getInt();
+        ByteBuffer payload = readFully(channel, offset + 16, payloadLength);
+        if (payload == null) {
+            return -1;
+        }
+
+        try {
+            decodeChunk(payload, firstEventIndex, dictionary, snapshots, consumer);
+        } catch (BufferUnderflowException | IllegalArgumentException | ClassCastException e) {
+            throw new IOException("Malformed chunk at offset " + offset, e);
+        }
+        return offset + 16 + payloadLength;
+    }
+
+    /**
+     * Decodes a chunk payload: adds the strings it defines to the dictionary and passes every value to the consumer.
+     * Snapshots are interned, so equal captures across the file share one frozen instance.
+     */
+    static void decodeChunk(ByteBuffer payload, int firstEventIndex, List<String> dictionary,
+                            SnapshotInterner snapshots, ValueConsumer consumer) {
+        int stringCount = readCount(payload);
+        for (int i = 0; i < stringCount; i++) {
+            dictionary.add(readString(payload));
+        }
+
+        int slotCount = readCount(payload);
+        int[] slotIds = new int[slotCount];
+        byte[] kinds = new byte[slotCount];
+        int[] counts = new int[slotCount];
+        for (int s = 0; s < slotCount; s++) {
+            slotIds[s] = (int) readVarLong(payload);
+            kinds[s] = payload.get();
+            counts[s] = readCount(payload);
+            readCount(payload);  // column length, only needed to skip columns
+        }
+
+        ColumnDecoder decoder = new ColumnDecoder(payload, id -> {
+            if (id >= dictionary.size()) {
+                throw new IllegalArgumentException("Unknown dictionary entry " + id);
+            }
+            return dictionary.get(id);
+        }, snapshots);
+        for (int s = 0; s < slotCount; s++) {
+            int[] rows = readRows(payload, counts[s]);
+            decoder.startColumn();
+            for (int i = 0; i < counts[s]; i++) {
+                consumer.accept(slotIds[s], firstEventIndex + rows[i], decoder.readValue(kinds[s]));
+            }
+        }
+    }
+
+    /**
+     * Reads the delta-encoded rows at the start of a column.
+     */
+    static int[] readRows(ByteBuffer buffer, int count) {
+        int[] rows = new int[count];
+        int row = -1;
+        for (int i = 0; i < count; i++) {
+            row += (int) readVarLong(buffer) + 1;
+            rows[i] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * Decodes the values of columns. Object indices for back-references are scoped to one column.
+     */
+    static final class ColumnDecoder {
+        private final ByteBuffer buffer;
+        private final IntFunction<String> dictionary;
+        private final SnapshotInterner snapshots;
+        private final List<ObjectSnapshot> objects = new ArrayList<>();
+
+        /**
+         * @param buffer Buffer positioned at the values of a column.
+         * @param dictionary Resolves string dictionary IDs; throws IllegalArgumentException for unknown IDs.
+         * @param snapshots Interns the decoded snapshots.
+         */
+        ColumnDecoder(ByteBuffer buffer, IntFunction<String> dictionary, SnapshotInterner snapshots) {
+            this.buffer = buffer;
+            this.dictionary = dictionary;
+            this.snapshots = snapshots;
+        }
+
+        void startColumn() {
+            objects.clear();
+        }
+
+        /**
+         * Reads one value of a column of the given kind, boxed to its original wrapper type.
+         */
+        Object readValue(byte kind) {
+            return switch (kind) {
+                case InvocationColumns.KIND_BYTE -> (byte) zigzag(readVarLong(buffer));
+                case InvocationColumns.KIND_CHAR -> (char) zigzag(readVarLong(buffer));
+                case InvocationColumns.KIND_SHORT -> (short) zigzag(readVarLong(buffer));
+                case InvocationColumns.KIND_INT -> (int) zigzag(readVarLong(buffer));
+                case InvocationColumns.KIND_BOOLEAN -> buffer.get() != 0;
+                case InvocationColumns.KIND_LONG -> zigzag(readVarLong(buffer));
+                case InvocationColumns.KIND_FLOAT -> Float.intBitsToFloat(buffer.getInt());
+                case InvocationColumns.KIND_DOUBLE -> Double.longBitsToDouble(buffer.getLong());
+                case InvocationColumns.KIND_STRING -> readStringRef();
+                case InvocationColumns.KIND_OBJECT -> {
+                    Object value = readSnapshotValue();
+                    // Back-references resolve to the mutable snapshots, which the interner maps to the same instance
+                    yield value instanceof ObjectSnapshot snapshot ? snapshots.intern(snapshot) : value;
+                }
+                default -> throw new IllegalArgumentException("Unknown value kind " + kind);
+            };
+        }
+
+        private Object readSnapshotValue() {
+            int tag = buffer.get();
+            return switch (tag) {
+                case BinarySnapshotDecoder.TAG_NULL -> null;
+                case BinarySnapshotDecoder.TAG_FALSE -> Boolean.FALSE;
+                case BinarySnapshotDecoder.TAG_TRUE -> Boolean.TRUE;
+                case BinarySnapshotDecoder.TAG_BYTE -> buffer.get();
+                case BinarySnapshotDecoder.TAG_SHORT -> (short) zigzag(readVarLong(buffer));
+                case BinarySnapshotDecoder.TAG_CHAR -> (char) readVarLong(buffer);
+                case BinarySnapshotDecoder.TAG_INT -> (int) zigzag(readVarLong(buffer));
+                case BinarySnapshotDecoder.TAG_LONG -> zigzag(readVarLong(buffer));
+                case BinarySnapshotDecoder.TAG_FLOAT -> Float.intBitsToFloat(buffer.getInt());
+                case BinarySnapshotDecoder.TAG_DOUBLE -> Double.longBitsToDouble(buffer.getLong());
+                case BinarySnapshotDecoder.TAG_STRING -> readStringRef();
+                case BinarySnapshotDecoder.TAG_OBJECT -> {
+                    ObjectSnapshot snapshot = new ObjectSnapshot(readStringRef());
+                    objects.add(snapshot);
+                    int fieldCount = readCount(buffer);
+                    for (int i = 0; i < fieldCount; i++) {
+                        String name = readStringRef();
+                        snapshot.putField(name, readSnapshotValue());
+                    }
+                    yield snapshot;
+                }
+                case BinarySnapshotDecoder.TAG_BACKREF -> {
+                    int index = readCount(buffer);
+                    if (index >= objects.size()) {
+                        throw new IllegalArgumentException("Back-reference to unknown object " + index);
+                    }
+                    yield objects.get(index);
+                }
+                default -> throw new IllegalArgumentException("Unknown snapshot tag " + tag);
+            };
+        }
+
+        private String readStringRef() {
+            long reference = readVarLong(buffer);
+            if (reference == TraceFileWriter.STRING_NULL) {
+                return null;
+            }
+            if (reference == TraceFileWriter.STRING_INLINE) {
+                return readString(buffer);
+            }
+            long id = reference - TraceFileWriter.STRING_DICTIONARY_BASE;
+            if (id > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Unknown dictionary entry " + id);
+            }
+            return dictionary.apply((int) id);
+        }
+    }
+
+    /**
+     * Returns the chunk offsets recorded in the footer, or null if the file has no valid footer.
+     */
+    static List<Long> readFooterIndex(FileChannel channel) throws IOException {
+        ByteBuffer footer = readFooter(channel);
+        if (footer == null) {
+            return null;
+        }
+        int chunkCount = footer.getInt();
+        if (chunkCount < 0 || footer.remaining() < chunkCount * 16L) {
+            return null;
+        }
+        List<Long> offsets = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            offsets.add(footer.getLong());
+            footer.getInt();  // first event index
+            footer.getInt();  // invocation count
+        }
+        return offsets;
+    }
+
+    /**
+     * Returns the footer positioned after FOOTER_MAGIC, or null if the file has no valid footer.
+     */
+    static ByteBuffer readFooter(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer tail = size >= 8 + 12 ? readFully(channel, size - 12, 12) : null;
+        if (tail == null) {
+            return null;
+        }
+        long footerOffset = tail.getLong();
+        if (tail.getInt() != TraceFileWriter.END_MAGIC || footerOffset < 8 || footerOffset > size - 12) {
+            return null;
+        }
+        ByteBuffer footer = readFully(channel, footerOffset, (int) (size - 12 - footerOffset));
+        if (footer == null || footer.remaining() < 8 || footer.getInt() != TraceFileWriter.FOOTER_MAGIC) {
+            return null;
+        }
+        return footer;
+    }
+
+    static ByteBuffer readFully(FileChannel channel, long offset, int length) throws IOException {
+        if (length < 0 || offset + length > channel.size()) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at offset " + buffer.position());
+    }
+
+    /**
+     * Reads a varint that counts or indexes something in memory.
+     */
+    static int readCount(ByteBuffer buffer) {
+        long count = readVarLong(buffer);
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Count " + count + " out of range");
+        }
+        return (int) count;
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = readCount(buffer);
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("Truncated string at offset " + buffer.position());
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    static long zigzag(long encoded) {
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    static void addToTrace(Trace trace, int slotId, Object value) {
+        if (value instanceof Integer intValue) {
+            trace.addIntValue(slotId, intValue);
+        } else if (value instanceof Byte byteValue) {
+            trace.addByteValue(slotId, byteValue);
+        } else if (value instanceof Character charValue) {
+            trace.addCharValue(slotId, charValue);
+        } else if (value instanceof Short shortValue) {
+            trace.addShortValue(slotId, shortValue);
+        } else if (value instanceof Long longValue) {
+            trace.addLongValue(slotId, longValue);
+        } else if (value instanceof Float floatValue) {
+            trace.addFloatValue(slotId, floatValue);
+        } else if (value instanceof Double doubleValue) {
+            trace.addDoubleValue(slotId, doubleValue);
+        } else if (value instanceof Boolean boolValue) {
+            trace.addBooleanValue(slotId, boolValue);
+        } else if (value instanceof String stringValue) {
+            trace.addStringValue(slotId, stringValue);
+        } else if (value instanceof ObjectSnapshot objSnapshot) {
+            trace.addObjectValue(slotId, objSnapshot);
+        }
+    }
+}
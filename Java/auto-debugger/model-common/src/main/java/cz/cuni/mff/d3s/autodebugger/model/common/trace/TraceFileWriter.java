@@ -0,0 +1,647 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+
+/**
+ * Streams completed invocations to an {@code .adtrace} file in fixed-size chunks instead of
+ * buffering the whole run in memory until the analysis exits.
+ *
+ * <p>Values are recorded into the writer's {@link InvocationColumns} buffer. Whenever a
+ * row is completed and the buffer holds the maximum number of rows, or the flush interval
+ * has elapsed since the last chunk, the buffer is appended to the file as one chunk and
+ * reused. Closing the writer appends a footer with the chunk index and the slot directory,
+ * so a reader can locate chunks and slots without scanning. If the analysis dies before
+ * {@link #close()}, every chunk flushed so far is still readable by sequential scan.
+ *
+ * <p>File layout (fixed-width integers big-endian):
+ * <pre>
+ *   header:  int MAGIC, int VERSION
+ *   chunk*:  int CHUNK_MAGIC, int firstEventIndex, int invocationCount, int payloadLength, byte[payloadLength]
+ *   footer:  int FOOTER_MAGIC, int chunkCount, (long offset, int firstEventIndex, int invocationCount)*,
+ *            int slotCount, (int slotId, byte kind, long valueCount)*,
+ *            long footerOffset, int END_MAGIC
+ * </pre>
+ * A chunk payload is columnar:
+ * <pre>
+ *   payload := varint stringCount, string*                        (next entries of the string dictionary)
+ *              varint slotCount, (varint slotId, byte kind, varint valueCount, varint columnLength)*
+ *              column*                                            (in slot directory order)
+ *   column  := varint rowGap*, value*                             (rowGap = row - previous row - 1)
+ *   value   := zigzag varint                 byte, char, short, int and long slots
+ *            | byte 0/1                      boolean slots
+ *            | int32 / int64 IEEE bits       float / double slots
+ *            | stringRef                     string slots
+ *            | snapshot                      object slots
+ *   stringRef := varint 0 (null) | varint 1, string (inline) | varint id + 2 (dictionary entry)
+ *   string    := varint byteLength, UTF-8 bytes
+ *   snapshot  := TAG_NULL | TAG_FALSE | TAG_TRUE | TAG_BYTE byte | TAG_SHORT zigzag | TAG_CHAR varint
+ *              | TAG_INT zigzag | TAG_LONG zigzag | TAG_FLOAT int32 | TAG_DOUBLE int64
+ *              | TAG_STRING stringRef | TAG_OBJECT stringRef varint fieldCount (stringRef snapshot)*
+ *              | TAG_BACKREF varint objectIndex
+ * </pre>
+ * Row numbers are relative to the first event index of the chunk. The string dictionary
+ * spans the whole file: every chunk defines the strings it introduces, and later chunks
+ * refer to them by ID. Strings, class names and field names share the dictionary. Snapshot
+ * tags are those of {@link BinarySnapshotDecoder}; every snapshot of a column gets the next
+ * object index, so a snapshot recorded several times in a chunk (an unchanged object) is
+ * written once and referenced afterwards. A slot that records a null, or values of more than
+ * one kind, is written as an object slot from the chunk that holds such a value on, with
+ * every value under its own tag; the footer then lists the slot as an object slot.
+ *
+ * <p>This class is embedded in the ShadowVM instrumentation JAR, so it only depends on
+ * plain Java types. It is not thread-safe.
+ */
+public class TraceFileWriter implements Closeable {
+    public static final String FILE_EXTENSION = ".adtrace";
+
+    public static final int MAGIC = 0x41445452;  // "ADTR"
+    public static final int VERSION = 1;
+    public static final int CHUNK_MAGIC = 0x43484E4B;  // "CHNK"
+    public static final int FOOTER_MAGIC = 0x46545258;  // "FTRX"
+    public static final int END_MAGIC = 0x454E4421;  // "END!"
+
+    public static final int STRING_NULL = 0;
+    public static final int STRING_INLINE = 1;
+    public static final int STRING_DICTIONARY_BASE = 2;
+
+    // Strings past this many dictionary entries are written inline, bounding the writer's memory
+    static final int MAX_DICTIONARY_SIZE = 1 << 20;
+
+    private final DataOutputStream output;
+    private final int maxBufferedInvocations;
+    private final long flushIntervalMillis;
+
+    private final InvocationColumns columns = new InvocationColumns();
+    private final List<long[]> chunkIndex = new ArrayList<>();
+    private long position;
+    private int nextEventIndex;
+    private long lastFlushMillis;
+    private boolean closed;
+
+    // String dictionary of the file and the entries the current chunk introduces
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> newStrings = new ArrayList<>();
+    // Slot directory of the footer: kind and total value count of every slot
+    private final Map<Integer, long[]> slotDirectory = new HashMap<>();
+    private final List<Integer> slotOrder = new ArrayList<>();
+
+    // Encoding buffers, reused for every chunk
+    private final ByteSink payload = new ByteSink();
+    private final ByteSink column = new ByteSink();
+    private final ByteSink columnData = new ByteSink();
+    private final Map<ObjectSnapshot, Integer> columnObjects = new IdentityHashMap<>();
+
+    /**
+     * Opens a new trace file, replacing any existing file at the path.
+     *
+     * @param traceFile The file to write.
+     * @param maxBufferedInvocations Number of invocations buffered before a chunk is written.
+     * @param flushIntervalMillis Maximum time buffered invocations may wait before being written;
+     *                            zero or negative disables time-based flushing.
+     * @throws IOException if the file cannot be created.
+     */
+    public TraceFileWriter(Path traceFile, int maxBufferedInvocations, long flushIntervalMillis) throws IOException {
+        if (maxBufferedInvocations <= 0) {
+            throw new IllegalArgumentException("maxBufferedInvocations must be positive: " + maxBufferedInvocations);
+        }
+        Path parent = traceFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(traceFile.toFile())));
+        this.maxBufferedInvocations = maxBufferedInvocations;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.lastFlushMillis = System.currentTimeMillis();
+
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.flush();
+        position = 8;
+    }
+
+    /**
+     * Writes a set-based trace (NAIVE mode) to a file. Every distinct value of a slot takes its
+     * own row, so reading the file back as a {@link Trace} restores the same value sets.
+     */
+    public static void write(Path traceFile, Trace trace) throws IOException {
+        try (TraceFileWriter writer = new TraceFileWriter(traceFile, Integer.MAX_VALUE, 0)) {
+            InvocationColumns columns = writer.getColumns();
+            int rows = 0;
+            for (int slotId : trace.getAllSlotIDs()) {
+                int row = 0;
+                for (byte value : trace.getByteValues(slotId)) {
+                    rows = writer.advanceTo(row++, rows);
+                    columns.putByte(slotId, value);
+                }
+                for (char value : trace.getCharValues(slotId)) {
+                    rows = writer.advanceTo(row++, rows);
+                    columns.putChar(slotId, value);
+                }
+                for (short value : trace.getShortValues(slotId)) {
+                    rows = writer.advanceTo(row++, rows);
+                    columns.putShort(slotId, value);
+                }
+                for (int value : trace.getIntValues(slotId)) {
+                    rows = writer.advanceTo(row++, rows);
+                    columns.putInt(slotId, value);
+                }
+                for (long value : trace.getLongValues(slotId)) {
+                    rows = writer.advanceTo(row++, rows);
+                    columns.putLong(slotId, value);
+                }
+                for (float value : trace.getFloatValues(slotId)) {
+                    rows = writer.advanceTo(row++, rows);
+                    columns.putFloat(slotId, value);
+                }
+                for (double value : trace.getDoubleValues(slotId)) {
+                    rows = writer.advanceTo(row++, rows);
+                    columns.putDouble(slotId, value);
+                }
+                for (boolean value : trace.getBooleanValues(slotId)) {
+                    rows = writer.advanceTo(row++, rows);
+                    columns.putBoolean(slotId, value);
+                }
+                for (String value : trace.getStringValues(slotId)) {
+                    rows = writer.advanceTo(row++, rows);
+                    columns.putString(slotId, value);
+                }
+                for (ObjectSnapshot value : trace.getObjectValues(slotId)) {
+                    rows = writer.advanceTo(row++, rows);
+                    columns.putObject(slotId, value);
+                }
+            }
+            columns.seekRow(rows);
+        }
+    }
+
+    /**
+     * Writes an indexed trace (TEMPORAL mode) to a file. Event indices become rows, so they must
+     * not be negative.
+     */
+    public static void write(Path traceFile, IndexedTrace indexedTrace) throws IOException {
+        try (TraceFileWriter writer = new TraceFileWriter(traceFile, Integer.MAX_VALUE, 0)) {
+            InvocationColumns columns = writer.getColumns();
+            int rows = 0;
+            for (int slotId : sorted(indexedTrace.getAllSlotIDs())) {
+                NavigableMap<Integer, Object> history = indexedTrace.getValues(slotId);
+                for (Map.Entry<Integer, Object> entry : history.entrySet()) {
+                    rows = writer.advanceTo(entry.getKey(), rows);
+                    putValue(columns, slotId, entry.getValue());
+                }
+            }
+            columns.seekRow(rows);
+        }
+    }
+
+    /**
+     * @return The buffer values of the current invocation are recorded into.
+     */
+    public InvocationColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Completes the current invocation and writes a chunk if the buffer is full
+     * or the flush interval has elapsed.
+     *
+     * @throws IOException if a chunk had to be written and writing failed.
+     */
+    public void completeRow() throws IOException {
+        ensureOpen();
+        columns.completeRow();
+        if (columns.getRowCount() >= maxBufferedInvocations || isStale()) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all completed invocations as a single chunk. Does nothing if there are none.
+     *
+     * @throws IOException if writing the chunk failed.
+     */
+    public void flush() throws IOException {
+        ensureOpen();
+        lastFlushMillis = System.currentTimeMillis();
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        int rowCount = columns.getRowCount();
+        encodePayload(rowCount);
+        chunkIndex.add(new long[] { position, nextEventIndex, rowCount });
+
+        output.writeInt(CHUNK_MAGIC);
+        output.writeInt(nextEventIndex);
+        output.writeInt(rowCount);
+        output.writeInt(payload.size());
+        output.write(payload.bytes(), 0, payload.size());
+        output.flush();
+
+        position += 16 + payload.size();
+        nextEventIndex += rowCount;
+        columns.clear();
+    }
+
+    /**
+     * Writes the completed invocations as a chunk if the flush interval has elapsed since the
+     * last chunk, so they reach the file even when no further invocation completes.
+     * Does nothing if the writer is closed or has no flush interval, or while an invocation is
+     * being recorded, as a flush would drop the values of its open row; completing the row
+     * flushes it then.
+     *
+     * @throws IOException if writing the chunk failed.
+     */
+    public void flushIfStale() throws IOException {
+        if (!closed && columns.getCurrentRowSize() == 0 && isStale()) {
+            flush();
+        }
+    }
+
+    /**
+     * Flushes the remaining invocations, writes the footer and closes the file.
+     * Values of an invocation that was never completed are dropped.
+     * Calling this method more than once has no effect.
+     *
+     * @throws IOException if writing failed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+            long footerOffset = position;
+            output.writeInt(FOOTER_MAGIC);
+            output.writeInt(chunkIndex.size());
+            for (long[] entry : chunkIndex) {
+                output.writeLong(entry[0]);
+                output.writeInt((int) entry[1]);
+                output.writeInt((int) entry[2]);
+            }
+            output.writeInt(slotOrder.size());
+            for (int slotId : slotOrder) {
+                long[] entry = slotDirectory.get(slotId);
+                output.writeInt(slotId);
+                output.writeByte((int) entry[0]);
+                output.writeLong(entry[1]);
+            }
+            output.writeLong(footerOffset);
+            output.writeInt(END_MAGIC);
+            output.flush();
+        } finally {
+            closed = true;
+            output.close();
+        }
+    }
+
+    /**
+     * @return Number of completed invocations so far, written or buffered.
+     */
+    public int getInvocationCount() {
+        return nextEventIndex + columns.getRowCount();
+    }
+
+    /**
+     * @return Number of chunks written so far.
+     */
+    public int getChunkCount() {
+        return chunkIndex.size();
+    }
+
+    /**
+     * @return Number of entries in the string dictionary of the file.
+     */
+    public int getDictionarySize() {
+        return dictionary.size();
+    }
+
+    private boolean isStale() {
+        return flushIntervalMillis > 0 && System.currentTimeMillis() - lastFlushMillis >= flushIntervalMillis;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Trace writer is closed");
+        }
+    }
+
+    /**
+     * Moves the open row of the buffer to the given row when converting a whole trace.
+     *
+     * @return The number of rows the converted trace needs so far.
+     */
+    private int advanceTo(int row, int rows) {
+        if (row < 0) {
+            throw new IllegalArgumentException("Event index must not be negative: " + row);
+        }
+        columns.seekRow(row);
+        return Math.max(rows, row + 1);
+    }
+
+    private void encodePayload(int rowCount) {
+        payload.reset();
+        columnData.reset();
+        newStrings.clear();
+        int[] slotIds = columns.getSlotIds();
+
+        // Columns are encoded first, so the strings they introduce are known before the dictionary section
+        int[] counts = new int[slotIds.length];
+        int[] lengths = new int[slotIds.length];
+        int slotCount = 0;
+        for (int s = 0; s < slotIds.length; s++) {
+            int slotId = slotIds[s];
+            // Values of the open row are not part of this chunk
+            int count = columns.getValueCount(slotId);
+            while (count > 0 && columns.getRow(slotId, count - 1) >= rowCount) {
+                count--;
+            }
+            counts[s] = count;
+            if (count == 0) {
+                continue;
+            }
+            slotCount++;
+            encodeColumn(slotId, count);
+            lengths[s] = column.size();
+            columnData.write(column);
+            recordInDirectory(slotId, columns.getKind(slotId), count);
+        }
+
+        payload.writeVarLong(newStrings.size());
+        for (String string : newStrings) {
+            payload.writeString(string);
+        }
+        payload.writeVarLong(slotCount);
+        for (int s = 0; s < slotIds.length; s++) {
+            if (counts[s] == 0) {
+                continue;
+            }
+            payload.writeVarLong(slotIds[s]);
+            payload.writeByte(columns.getKind(slotIds[s]));
+            payload.writeVarLong(counts[s]);
+            payload.writeVarLong(lengths[s]);
+        }
+        payload.write(columnData);
+    }
+
+    private void encodeColumn(int slotId, int count) {
+        column.reset();
+        int previousRow = -1;
+        for (int i = 0; i < count; i++) {
+            int row = columns.getRow(slotId, i);
+            column.writeVarLong(row - previousRow - 1);
+            previousRow = row;
+        }
+        byte kind = columns.getKind(slotId);
+        switch (kind) {
+            case InvocationColumns.KIND_BOOLEAN -> {
+                for (int i = 0; i < count; i++) {
+                    column.writeByte(columns.getInt(slotId, i));
+                }
+            }
+            case InvocationColumns.KIND_BYTE, InvocationColumns.KIND_CHAR, InvocationColumns.KIND_SHORT,
+                 InvocationColumns.KIND_INT -> {
+                for (int i = 0; i < count; i++) {
+                    column.writeZigzag(columns.getInt(slotId, i));
+                }
+            }
+            case InvocationColumns.KIND_LONG -> {
+                for (int i = 0; i < count; i++) {
+                    column.writeZigzag(columns.getLong(slotId, i));
+                }
+            }
+            case InvocationColumns.KIND_FLOAT -> {
+                for (int i = 0; i < count; i++) {
+                    column.writeInt32(Float.floatToRawIntBits((float) columns.getDouble(slotId, i)));
+                }
+            }
+            case InvocationColumns.KIND_DOUBLE -> {
+                for (int i = 0; i < count; i++) {
+                    column.writeInt64(Double.doubleToRawLongBits(columns.getDouble(slotId, i)));
+                }
+            }
+            case InvocationColumns.KIND_STRING -> {
+                for (int i = 0; i < count; i++) {
+                    writeStringRef((String) columns.getReference(slotId, i));
+                }
+            }
+            default -> {
+                columnObjects.clear();
+                for (int i = 0; i < count; i++) {
+                    writeSnapshotValue(columns.getReference(slotId, i));
+                }
+                columnObjects.clear();
+            }
+        }
+    }
+
+    private void writeSnapshotValue(Object value) {
+        if (value == null) {
+            column.writeByte(BinarySnapshotDecoder.TAG_NULL);
+        } else if (value instanceof Boolean bool) {
+            column.writeByte(bool ? BinarySnapshotDecoder.TAG_TRUE : BinarySnapshotDecoder.TAG_FALSE);
+        } else if (value instanceof Byte byteValue) {
+            column.writeByte(BinarySnapshotDecoder.TAG_BYTE);
+            column.writeByte(byteValue);
+        } else if (value instanceof Short shortValue) {
+            column.writeByte(BinarySnapshotDecoder.TAG_SHORT);
+            column.writeZigzag(shortValue);
+        } else if (value instanceof Character charValue) {
+            column.writeByte(BinarySnapshotDecoder.TAG_CHAR);
+            column.writeVarLong(charValue);
+        } else if (value instanceof Integer intValue) {
+            column.writeByte(BinarySnapshotDecoder.TAG_INT);
+            column.writeZigzag(intValue);
+        } else if (value instanceof Long longValue) {
+            column.writeByte(BinarySnapshotDecoder.TAG_LONG);
+            column.writeZigzag(longValue);
+        } else if (value instanceof Float floatValue) {
+            column.writeByte(BinarySnapshotDecoder.TAG_FLOAT);
+            column.writeInt32(Float.floatToRawIntBits(floatValue));
+        } else if (value instanceof Double doubleValue) {
+            column.writeByte(BinarySnapshotDecoder.TAG_DOUBLE);
+            column.writeInt64(Double.doubleToRawLongBits(doubleValue));
+        } else if (value instanceof ObjectSnapshot snapshot) {
+            Integer index = columnObjects.get(snapshot);
+            if (index != null) {
+                column.writeByte(BinarySnapshotDecoder.TAG_BACKREF);
+                column.writeVarLong(index);
+                return;
+            }
+            // Registered before the fields, so a snapshot reachable from itself becomes a back-reference
+            columnObjects.put(snapshot, columnObjects.size());
+            column.writeByte(BinarySnapshotDecoder.TAG_OBJECT);
+            writeStringRef(snapshot.getClassName());
+            column.writeVarLong(snapshot.getFieldCount());
+            for (Map.Entry<String, Object> field : snapshot.getFields().entrySet()) {
+                writeStringRef(field.getKey());
+                writeSnapshotValue(field.getValue());
+            }
+        } else if (value instanceof String string) {
+            column.writeByte(BinarySnapshotDecoder.TAG_STRING);
+            writeStringRef(string);
+        } else {
+            throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    private void writeStringRef(String value) {
+        if (value == null) {
+            column.writeVarLong(STRING_NULL);
+            return;
+        }
+        Integer id = dictionary.get(value);
+        if (id == null) {
+            if (dictionary.size() >= MAX_DICTIONARY_SIZE) {
+                column.writeVarLong(STRING_INLINE);
+                column.writeString(value);
+                return;
+            }
+            id = dictionary.size();
+            dictionary.put(value, id);
+            newStrings.add(value);
+        }
+        column.writeVarLong(id + STRING_DICTIONARY_BASE);
+    }
+
+    private void recordInDirectory(int slotId, byte kind, int count) {
+        long[] entry = slotDirectory.get(slotId);
+        if (entry == null) {
+            entry = new long[] { kind, 0 };
+            slotDirectory.put(slotId, entry);
+            slotOrder.add(slotId);
+        } else if (entry[0] != kind) {
+            // The slot moved to an object column in this chunk
+            entry[0] = InvocationColumns.KIND_OBJECT;
+        }
+        entry[1] += count;
+    }
+
+    /**
+     * Records a boxed value in the column of its kind. A null, or a value of another kind than
+     * the slot already holds, is recorded in the slot's object column with its own snapshot tag;
+     * a null string is a null string reference.
+     *
+     * @throws IllegalArgumentException if the value is not a boxed primitive, string or snapshot.
+     */
+    static void putValue(InvocationColumns columns, int slotId, Object value) {
+        byte current = columns.getKind(slotId);
+        if (value == null) {
+            if (current == InvocationColumns.KIND_STRING) {
+                columns.putString(slotId, null);
+            } else {
+                columns.putTagged(slotId, null);
+            }
+            return;
+        }
+        byte kind = InvocationColumns.kindOf(value);
+        if (current != 0 && current != kind) {
+            columns.putTagged(slotId, value);
+            return;
+        }
+        switch (kind) {
+            case InvocationColumns.KIND_INT -> columns.putInt(slotId, (Integer) value);
+            case InvocationColumns.KIND_BYTE -> columns.putByte(slotId, (Byte) value);
+            case InvocationColumns.KIND_CHAR -> columns.putChar(slotId, (Character) value);
+            case InvocationColumns.KIND_SHORT -> columns.putShort(slotId, (Short) value);
+            case InvocationColumns.KIND_LONG -> columns.putLong(slotId, (Long) value);
+            case InvocationColumns.KIND_FLOAT -> columns.putFloat(slotId, (Float) value);
+            case InvocationColumns.KIND_DOUBLE -> columns.putDouble(slotId, (Double) value);
+            case InvocationColumns.KIND_BOOLEAN -> columns.putBoolean(slotId, (Boolean) value);
+            case InvocationColumns.KIND_STRING -> columns.putString(slotId, (String) value);
+            default -> columns.putTagged(slotId, value);
+        }
+    }
+
+    private static int[] sorted(Set<Integer> slotIds) {
+        int[] sorted = slotIds.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Growable byte buffer with the varint and fixed-width encodings of the file format.
+     */
+    static final class ByteSink {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt32(int value) {
+            ensureCapacity(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt64(long value) {
+            writeInt32((int) (value >>> 32));
+            writeInt32((int) value);
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeZigzag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        void write(ByteSink other) {
+            ensureCapacity(other.size);
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Merges the {@code .adtrace} files of several runs of the same target into one trace file.
+ *
+ * <p>{@link #mergeNaive(List, Path)} unions the value sets of every slot. The inputs are
+ * split into halves on a {@link ForkJoinPool} down to single files, and every task reads its
+ * file and unions the results of its halves, so at most one partial union per worker is in
+ * memory besides the result.
+ *
+ * <p>{@link #mergeTemporal(List, Path)} gives every run a disjoint range of event indices,
+ * in input order: a run's event {@code e} becomes {@code firstEventIndex + e}, and the next
+ * run starts after the run's highest event index. The returned {@link MergedRun}s map the
+ * ranges back to run IDs. Runs are decoded in parallel, a window of one run per worker ahead
+ * of the writer, and each run is written by a k-way merge of its slot histories by event
+ * index. The output is streamed to disk in chunks, so memory use depends on the size of the
+ * runs in flight, not on the number of inputs.
+ */
+public final class TraceMerger {
+    // Invocations per chunk of the merged file
+    static final int CHUNK_SIZE = 4096;
+
+    private TraceMerger() {
+    }
+
+    /**
+     * Merges set-based traces (NAIVE mode) on the common pool.
+     *
+     * @see #mergeNaive(List, Path, ForkJoinPool)
+     */
+    public static void mergeNaive(List<Path> inputs, Path output) throws IOException {
+        mergeNaive(inputs, output, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Merges set-based traces (NAIVE mode): every slot of the output holds the union of the
+     * slot's values in all inputs.
+     *
+     * @param inputs Trace files to merge.
+     * @param output File to write the merged trace to, replaced if it exists.
+     * @param pool Pool reading and unioning the inputs.
+     * @throws IOException if an input cannot be read or the output cannot be written.
+     */
+    public static void mergeNaive(List<Path> inputs, Path output, ForkJoinPool pool) throws IOException {
+        Trace merged;
+        if (inputs.isEmpty()) {
+            merged = new Trace();
+        } else {
+            try {
+                merged = pool.invoke(new UnionTask(inputs, 0, inputs.size()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        TraceFileWriter.write(output, merged);
+    }
+
+    /**
+     * Merges indexed traces (TEMPORAL mode) on the common pool.
+     *
+     * @see #mergeTemporal(List, Path, ForkJoinPool)
+     */
+    public static List<MergedRun> mergeTemporal(List<Path> inputs, Path output) throws IOException {
+        return mergeTemporal(inputs, output, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Merges indexed traces (TEMPORAL mode) into disjoint ranges of event indices, one per run.
+     *
+     * @param inputs Trace files to merge, one per run; the run ID is the position in this list.
+     * @param output File to write the merged trace to, replaced if it exists.
+     * @param pool Pool decoding the inputs.
+     * @return The event index range of every run, in input order.
+     * @throws IOException if an input cannot be read, the output cannot be written, or the
+     *                     event indices of all runs do not fit into an int.
+     */
+    public static List<MergedRun> mergeTemporal(List<Path> inputs, Path output, ForkJoinPool pool) throws IOException {
+        List<MergedRun> runs = new ArrayList<>(inputs.size());
+        Deque<ForkJoinTask<IndexedTrace>> window = new ArrayDeque<>();
+        int windowSize = Math.max(1, pool.getParallelism());
+        int next = 0;
+        try (TraceFileWriter writer = new TraceFileWriter(output, CHUNK_SIZE, 0)) {
+            while (runs.size() < inputs.size()) {
+                while (next < inputs.size() && window.size() < windowSize) {
+                    Path input = inputs.get(next++);
+                    window.add(pool.submit(() -> TraceFileReader.readIndexedTrace(input)));
+                }
+                int runId = runs.size();
+                IndexedTrace run = await(window.poll(), inputs.get(runId));
+                int firstEventIndex = writer.getInvocationCount();
+                appendRun(writer, run, firstEventIndex);
+                runs.add(new MergedRun(runId, inputs.get(runId), firstEventIndex,
+                        writer.getInvocationCount() - firstEventIndex));
+            }
+        } finally {
+            window.forEach(task -> task.cancel(true));
+        }
+        return Collections.unmodifiableList(runs);
+    }
+
+    /**
+     * Finds the run an event index of a merged trace belongs to.
+     *
+     * @param runs Runs returned by {@link #mergeTemporal(List, Path)}.
+     * @return The run ID, or -1 if the event index lies outside every run.
+     */
+    public static int findRun(List<MergedRun> runs, int eventIndex) {
+        int low = 0;
+        int high = runs.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            MergedRun run = runs.get(middle);
+            if (eventIndex < run.getFirstEventIndex()) {
+                high = middle - 1;
+            } else if (run.getEventCount() == 0 || !run.contains(eventIndex)) {
+                // Empty runs share their first event index with the next run
+                low = middle + 1;
+            } else {
+                return run.getRunId();
+            }
+        }
+        return -1;
+    }
+
+    private static IndexedTrace await(ForkJoinTask<IndexedTrace> task, Path input) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + input, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to read " + input, e.getCause());
+        }
+    }
+
+    /**
+     * Writes the values of a run in event order, moving every event index by the offset.
+     */
+    private static void appendRun(TraceFileWriter writer, IndexedTrace run, int offset) throws IOException {
+        PriorityQueue<SlotCursor> cursors = new PriorityQueue<>();
+        for (int slotId : run.getAllSlotIDs()) {
+            SlotCursor cursor = new SlotCursor(slotId, run.getValues(slotId).entrySet().iterator());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        InvocationColumns columns = writer.getColumns();
+        boolean written = false;
+        while (!cursors.isEmpty()) {
+            SlotCursor cursor = cursors.poll();
+            long row = (long) offset + cursor.eventIndex;
+            if (row > Integer.MAX_VALUE) {
+                throw new IOException("Merged trace exceeds " + Integer.MAX_VALUE + " events");
+            }
+            while (writer.getInvocationCount() < row) {
+                writer.completeRow();
+            }
+            TraceFileWriter.putValue(columns, cursor.slotId, cursor.value);
+            written = true;
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        if (written) {
+            writer.completeRow();
+        }
+    }
+
+    /**
+     * Position in the history of one slot during the k-way merge of a run.
+     */
+    private static final class SlotCursor implements Comparable<SlotCursor> {
+        final int slotId;
+        final Iterator<Map.Entry<Integer, Object>> entries;
+        int eventIndex;
+        Object value;
+
+        SlotCursor(int slotId, Iterator<Map.Entry<Integer, Object>> entries) {
+            this.slotId = slotId;
+            this.entries = entries;
+        }
+
+        boolean advance() {
+            if (!entries.hasNext()) {
+                return false;
+            }
+            Map.Entry<Integer, Object> entry = entries.next();
+            eventIndex = entry.getKey();
+            value = entry.getValue();
+            return true;
+        }
+
+        @Override
+        public int compareTo(SlotCursor other) {
+            int byEvent = Integer.compare(eventIndex, other.eventIndex);
+            return byEvent != 0 ? byEvent : Integer.compare(slotId, other.slotId);
+        }
+    }
+
+    /**
+     * Reads a range of the inputs and unions their value sets, splitting the range in halves.
+     */
+    private static final class UnionTask extends RecursiveTask<Trace> {
+        private final List<Path> inputs;
+        private final int from;
+        private final int to;
+
+        UnionTask(List<Path> inputs, int from, int to) {
+            this.inputs = inputs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Trace compute() {
+            if (to - from == 1) {
+                try {
+                    return TraceFileReader.readTrace(inputs.get(from));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            UnionTask left = new UnionTask(inputs, from, middle);
+            left.fork();
+            Trace right = new UnionTask(inputs, middle, to).compute();
+            return union(left.join(), right);
+        }
+    }
+
+    /**
+     * Adds the values of one trace to the other.
+     *
+     * @return The trace that received the values.
+     */
+    static Trace union(Trace first, Trace second) {
+        for (int slotId : second.getAllSlotIDs()) {
+            second.getByteValues(slotId).forEach(value -> first.addByteValue(slotId, value));
+            second.getCharValues(slotId).forEach(value -> first.addCharValue(slotId, value));
+            second.getShortValues(slotId).forEach(value -> first.addShortValue(slotId, value));
+            second.getIntValues(slotId).forEach(value -> first.addIntValue(slotId, value));
+            second.getLongValues(slotId).forEach(value -> first.addLongValue(slotId, value));
+            second.getFloatValues(slotId).forEach(value -> first.addFloatValue(slotId, value));
+            second.getDoubleValues(slotId).forEach(value -> first.addDoubleValue(slotId, value));
+            second.getBooleanValues(slotId).forEach(value -> first.addBooleanValue(slotId, value));
+            second.getStringValues(slotId).forEach(value -> first.addStringValue(slotId, value));
+            second.getObjectValues(slotId).forEach(value -> first.addObjectValue(slotId, value));
+        }
+        return first;
+    }
+}
@@ -0,0 +1,38 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * Storage of the distinct values a {@link Trace} records for every slot.
+ *
+ * <p>Values are passed in their primitive storage form and tagged with a kind constant of
+ * {@link InvocationColumns}. Byte, char, short, int and boolean values use
+ * {@link #addInt}, as do floats as {@link Float#floatToIntBits(float)}. Longs use
+ * {@link #addLong}, as do doubles as {@link Double#doubleToLongBits(double)}. Strings and
+ * object snapshots use {@link #addObject}. A slot may hold values of several kinds. Boxed
+ * values only appear in the sets returned by {@link #getValues}.
+ */
+public interface TraceStore extends Serializable {
+
+    void addInt(int slotId, byte kind, int value);
+
+    void addLong(int slotId, byte kind, long value);
+
+    void addObject(int slotId, byte kind, Object value);
+
+    /**
+     * @return Read-only set of the boxed values of the given kind recorded for the slot; empty if there are none.
+     */
+    <T> Set<T> getValues(int slotId, byte kind);
+
+    /**
+     * @return Read-only set of the slots that hold at least one value.
+     */
+    Set<Integer> getSlotIds();
+
+    /**
+     * @return The kinds the slot holds values of, in ascending order.
+     */
+    byte[] getKinds(int slotId);
+}
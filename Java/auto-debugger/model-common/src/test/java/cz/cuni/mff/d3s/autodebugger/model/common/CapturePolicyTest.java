@@ -0,0 +1,50 @@
+package cz.cuni.mff.d3s.autodebugger.model.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapturePolicyTest {
+
+    @Test
+    void givenPolicySpecifications_whenParsed_thenKindAndParametersAreSet() {
+        // when
+        CapturePolicy everyNth = CapturePolicy.parse("every-nth:100");
+        CapturePolicy probabilistic = CapturePolicy.parse("Probabilistic:0.25:7");
+        CapturePolicy tokenBucket = CapturePolicy.parse("token-bucket:500");
+        CapturePolicy firstN = CapturePolicy.parse("first-n:10");
+
+        // then
+        assertSame(CapturePolicy.ALL, CapturePolicy.parse("all"));
+        assertEquals(CapturePolicy.Kind.EVERY_NTH, everyNth.getKind());
+        assertEquals(100, everyNth.getCount());
+        assertEquals(0.25, probabilistic.getProbability());
+        assertEquals(7, probabilistic.getSeed());
+        assertEquals(500, tokenBucket.getCount());
+        assertEquals(CapturePolicy.firstN(10), firstN);
+        assertFalse(CapturePolicy.ALL.isSampling());
+        assertTrue(firstN.isSampling());
+    }
+
+    @Test
+    void givenPolicy_whenFormatted_thenParsingRestoresIt() {
+        // given
+        CapturePolicy policy = CapturePolicy.probabilistic(0.5, 42);
+
+        // when
+        CapturePolicy parsed = CapturePolicy.parse(policy.toString());
+
+        // then
+        assertEquals(policy, parsed);
+    }
+
+    @Test
+    void givenInvalidSpecifications_whenParsed_thenIllegalArgumentExceptionIsThrown() {
+        assertThrows(IllegalArgumentException.class, () -> CapturePolicy.parse("sometimes"));
+        assertThrows(IllegalArgumentException.class, () -> CapturePolicy.parse("every-nth"));
+        assertThrows(IllegalArgumentException.class, () -> CapturePolicy.parse("every-nth:0"));
+        assertThrows(IllegalArgumentException.class, () -> CapturePolicy.parse("first-n:ten"));
+        assertThrows(IllegalArgumentException.class, () -> CapturePolicy.parse("probabilistic:1.5"));
+        assertThrows(IllegalArgumentException.class, () -> CapturePolicy.parse(""));
+    }
+}
@@ -0,0 +1,245 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static cz.cuni.mff.d3s.autodebugger.model.common.trace.BinarySnapshotDecoder.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotDecoderTest {
+
+    @Test
+    void givenObjectWithTypedFields_whenDecoded_thenFieldsKeepTheirJavaTypes() {
+        // given
+        byte[] payload = new Payload(1L)
+                .tag(TAG_OBJECT).newName("com.example.Point").varint(6)
+                .newName("x").tag(TAG_INT).zigzag(-3)
+                .newName("id").tag(TAG_LONG).zigzag(1L << 40)
+                .newName("ratio").tag(TAG_DOUBLE).int64(Double.doubleToRawLongBits(2.5))
+                .newName("code").tag(TAG_CHAR).varint('q')
+                .newName("label").tag(TAG_STRING).string("žluť")
+                .newName("visible").tag(TAG_TRUE)
+                .bytes();
+
+        // when
+        ObjectSnapshot snapshot = new BinarySnapshotDecoder().decode(payload);
+
+        // then
+        assertEquals("com.example.Point", snapshot.getClassName());
+        assertEquals(-3, snapshot.getField("x"));
+        assertEquals(1L << 40, snapshot.getField("id"));
+        assertEquals(2.5, snapshot.getField("ratio"));
+        assertEquals('q', snapshot.getField("code"));
+        assertEquals("žluť", snapshot.getField("label"));
+        assertEquals(true, snapshot.getField("visible"));
+    }
+
+    @Test
+    void givenNamesDefinedByEarlierPayload_whenLaterPayloadRefersToThem_thenNamesAreResolved() {
+        // given
+        BinarySnapshotDecoder decoder = new BinarySnapshotDecoder();
+        decoder.decode(new Payload(5L)
+                .tag(TAG_OBJECT).newName("com.example.Counter").varint(1)
+                .newName("count").tag(TAG_INT).zigzag(1)
+                .bytes());
+        byte[] second = new Payload(5L)
+                .tag(TAG_OBJECT).nameRef(0).varint(1)
+                .nameRef(1).tag(TAG_INT).zigzag(2)
+                .bytes();
+
+        // when
+        ObjectSnapshot snapshot = decoder.decode(second);
+
+        // then
+        assertEquals("com.example.Counter", snapshot.getClassName());
+        assertEquals(2, snapshot.getField("count"));
+        assertEquals(2, decoder.getDictionarySize(5L));
+        assertEquals(0, decoder.getDictionarySize(6L));
+    }
+
+    @Test
+    void givenBackReference_whenDecoded_thenSharedObjectIsTheSameSnapshot() {
+        // given
+        byte[] payload = new Payload(1L)
+                .tag(TAG_OBJECT).newName("com.example.Pair").varint(2)
+                .newName("left").tag(TAG_TO_STRING).newName("java.math.BigDecimal").string("1.5")
+                .newName("right").tag(TAG_BACKREF).varint(1)
+                .bytes();
+
+        // when
+        ObjectSnapshot snapshot = new BinarySnapshotDecoder().decode(payload);
+
+        // then
+        ObjectSnapshot left = (ObjectSnapshot) snapshot.getField("left");
+        assertEquals("1.5", left.getField("$value"));
+        assertSame(left, snapshot.getField("right"));
+    }
+
+    @Test
+    void givenDepthLimitAndCycleMarkers_whenDecoded_thenJsonMarkerValuesAreProduced() {
+        // given
+        byte[] payload = new Payload(1L)
+                .tag(TAG_OBJECT).newName("com.example.Node").varint(3)
+                .newName("next").tag(TAG_DEPTH_REF).nameRef(0)
+                .newName("self").tag(TAG_CYCLE)
+                .newName("state").tag(TAG_ENUM).string("ACTIVE")
+                .bytes();
+
+        // when
+        ObjectSnapshot snapshot = new BinarySnapshotDecoder().decode(payload);
+
+        // then
+        assertEquals("$ref:com.example.Node", snapshot.getField("next"));
+        assertEquals("$cycle", snapshot.getField("self"));
+        assertEquals("ACTIVE", snapshot.getField("state"));
+    }
+
+    @Test
+    void givenPayloadShippedAsLatin1String_whenDecoded_thenBytesAreRecovered() {
+        // given
+        byte[] payload = new Payload(300L)
+                .tag(TAG_OBJECT).newName("com.example.Box").varint(1)
+                .newName("weight").tag(TAG_INT).zigzag(-200)
+                .bytes();
+        String shipped = new String(payload, StandardCharsets.ISO_8859_1);
+
+        // when
+        ObjectSnapshot snapshot = new BinarySnapshotDecoder().decodeLatin1(shipped);
+
+        // then
+        assertEquals(-200, snapshot.getField("weight"));
+    }
+
+    @Test
+    void givenStoredSnapshot_whenReferencedByLaterPayload_thenSameSnapshotIsReturned() {
+        // given
+        BinarySnapshotDecoder decoder = new BinarySnapshotDecoder();
+        ObjectSnapshot stored = decoder.decode(new Payload(2L)
+                .tag(TAG_SNAPSHOT_STORE).varint(37)
+                .tag(TAG_OBJECT).newName("com.example.Config").varint(1)
+                .newName("retries").tag(TAG_INT).zigzag(3)
+                .bytes());
+
+        // when
+        ObjectSnapshot referenced = decoder.decode(new Payload(2L).tag(TAG_SNAPSHOT_REF).varint(37).bytes());
+
+        // then
+        assertSame(stored, referenced);
+        assertEquals(3, referenced.getField("retries"));
+        assertEquals(1, decoder.getResolvedReferenceCount());
+        assertThrows(IllegalArgumentException.class,
+                () -> decoder.decode(new Payload(3L).tag(TAG_SNAPSHOT_REF).varint(37).bytes()));
+    }
+
+    @Test
+    void givenStoreThatFailsToDecode_whenSlotIsReferenced_thenOldSnapshotIsNotReturned() {
+        // given
+        BinarySnapshotDecoder decoder = new BinarySnapshotDecoder();
+        decoder.decode(new Payload(2L)
+                .tag(TAG_SNAPSHOT_STORE).varint(1)
+                .tag(TAG_OBJECT).newName("com.example.Config").varint(0)
+                .bytes());
+        byte[] brokenStore = new Payload(2L).tag(TAG_SNAPSHOT_STORE).varint(1).tag(TAG_OBJECT).bytes();
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(brokenStore));
+
+        // when / then
+        assertThrows(IllegalArgumentException.class,
+                () -> decoder.decode(new Payload(2L).tag(TAG_SNAPSHOT_REF).varint(1).bytes()));
+    }
+
+    @Test
+    void givenDetachedPayload_whenDecoded_thenThreadDictionaryIsNeitherUsedNorExtended() {
+        // given
+        BinarySnapshotDecoder decoder = new BinarySnapshotDecoder();
+        decoder.decode(new Payload(4L)
+                .tag(TAG_OBJECT).newName("com.example.Counter").varint(0)
+                .bytes());
+        byte[] detached = new Payload(4L)
+                .tag(TAG_DETACHED)
+                .tag(TAG_OBJECT).newName("com.example.Order").varint(1)
+                .nameRef(0).tag(TAG_INT).zigzag(7)
+                .bytes();
+
+        // when
+        ObjectSnapshot snapshot = decoder.decode(detached);
+
+        // then
+        assertEquals("com.example.Order", snapshot.getClassName());
+        assertEquals(7, snapshot.getField("com.example.Order"));
+        assertEquals(1, decoder.getDictionarySize(4L));
+    }
+
+    @Test
+    void givenMalformedPayloads_whenDecoded_thenIllegalArgumentExceptionIsThrown() {
+        // given
+        BinarySnapshotDecoder decoder = new BinarySnapshotDecoder();
+        byte[] truncated = new Payload(1L).tag(TAG_OBJECT).newName("com.example.A").varint(1).bytes();
+        byte[] unknownName = new Payload(1L).tag(TAG_OBJECT).nameRef(7).varint(0).bytes();
+        byte[] notAnObject = new Payload(1L).tag(TAG_STRING).string("x").bytes();
+        byte[] wrongVersion = {99, 1, TAG_NULL};
+
+        // when / then
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(truncated));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(unknownName));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(notAnObject));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(wrongVersion));
+    }
+
+    /**
+     * Writes payloads the way CollectorRE encodes them.
+     */
+    private static class Payload {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Payload(long threadId) {
+            out.write(FORMAT_VERSION);
+            varint(threadId);
+        }
+
+        Payload tag(byte tag) {
+            out.write(tag);
+            return this;
+        }
+
+        Payload varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+            return this;
+        }
+
+        Payload zigzag(long value) {
+            return varint((value << 1) ^ (value >> 63));
+        }
+
+        Payload int64(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (value >>> shift));
+            }
+            return this;
+        }
+
+        Payload string(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            out.writeBytes(bytes);
+            return this;
+        }
+
+        Payload newName(String name) {
+            return varint(0).string(name);
+        }
+
+        Payload nameRef(int id) {
+            return varint(id + 1L);
+        }
+
+        byte[] bytes() {
+            return out.toByteArray();
+        }
+    }
+}
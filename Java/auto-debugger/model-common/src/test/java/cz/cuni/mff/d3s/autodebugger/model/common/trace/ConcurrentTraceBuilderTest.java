@@ -0,0 +1,137 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import cz.cuni.mff.d3s.autodebugger.model.common.identifiers.ExportableValue;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for building traces from several producer threads.
+ */
+class ConcurrentTraceBuilderTest {
+
+    @Test
+    void givenSeveralProducers_whenFrozen_thenEveryValueIsMergedWithUniqueEventIndices() throws Exception {
+        // given
+        ConcurrentTraceBuilder<Integer, IndexedTrace> builder = ConcurrentTraceBuilder.forIndexedTrace();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> producers = new ArrayList<>();
+
+        // when
+        for (int producer = 0; producer < 4; producer++) {
+            int slotId = producer;
+            producers.add(executor.submit(() -> {
+                ConcurrentTraceBuilder.Segment<Integer> segment = builder.newSegment();
+                for (int i = 0; i < 1_000; i++) {
+                    segment.append(slotId, i);
+                }
+            }));
+        }
+        for (Future<?> producer : producers) {
+            producer.get();
+        }
+        executor.shutdown();
+        IndexedTrace trace = builder.freeze();
+
+        // then
+        assertEquals(4_000, trace.getTotalEventCount());
+        assertArrayEquals(new int[] { 0, 3_999 }, trace.getEventIndexRange().orElseThrow());
+        NavigableMap<Integer, Object> values = trace.getValues(2);
+        assertEquals(1_000, values.size());
+        assertEquals(999, values.lastEntry().getValue());
+        assertTrue(trace.isFrozen());
+    }
+
+    @Test
+    void givenExplicitOutOfOrderIndices_whenFrozen_thenHistoriesAreSorted() {
+        // given
+        ConcurrentTraceBuilder<Integer, IndexedTrace> builder = ConcurrentTraceBuilder.forIndexedTrace();
+        ConcurrentTraceBuilder.Segment<Integer> first = builder.newSegment();
+        ConcurrentTraceBuilder.Segment<Integer> second = builder.newSegment();
+
+        // when
+        first.append(1, 30, "c");
+        first.append(1, 10, "a");
+        second.append(1, 20, "b");
+        IndexedTrace trace = builder.freeze();
+
+        // then
+        assertEquals(List.of("a", "b", "c"), List.copyOf(trace.getValues(1).values()));
+    }
+
+    @Test
+    void givenParallelStreamConversion_whenFrozen_thenBuilderCanBeCollected() throws Exception {
+        // given
+        ConcurrentTraceBuilder<Integer, IndexedTrace> builder = ConcurrentTraceBuilder.forIndexedTrace();
+        WeakReference<ConcurrentTraceBuilder<Integer, IndexedTrace>> reference = new WeakReference<>(builder);
+        IndexedTrace trace = freezeInParallel(builder);
+
+        // when
+        builder = null;
+        for (int attempt = 0; attempt < 50 && reference.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        // then
+        assertNull(reference.get(), "Pooled threads must not keep the builder reachable");
+        assertEquals(6_400, trace.getTotalEventCount());
+    }
+
+    @Test
+    void givenTemporalTraceBuilder_whenFrozen_thenTraceRejectsNewValues() {
+        // given
+        ConcurrentTraceBuilder<ExportableValue, TemporalTrace> builder = ConcurrentTraceBuilder.forTemporalTrace();
+        ExportableValue identifier = () -> 7;
+        builder.newSegment().append(identifier, 0, "a");
+
+        // when
+        TemporalTrace trace = builder.freeze();
+
+        // then
+        assertTrue(trace.isFrozen());
+        assertEquals(Optional.of("a"), trace.getLatestValueBefore(identifier, 0));
+        assertThrows(IllegalStateException.class, () -> trace.addValue(identifier, 1, "b"));
+        trace.addMetadata("source", "test");
+        assertEquals("test", trace.getMetadata("source"));
+    }
+
+    @Test
+    void givenFrozenBuilder_whenAppending_thenIllegalStateExceptionIsThrown() {
+        // given
+        ConcurrentTraceBuilder<Integer, IndexedTrace> builder = ConcurrentTraceBuilder.forIndexedTrace();
+        ConcurrentTraceBuilder.Segment<Integer> segment = builder.newSegment();
+        segment.append(1, 0, 1);
+
+        // when
+        IndexedTrace trace = builder.freeze();
+
+        // then
+        assertThrows(IllegalStateException.class, () -> segment.append(1, 1, 2));
+        assertThrows(IllegalStateException.class, builder::freeze);
+        assertThrows(IllegalStateException.class, () -> trace.addValue(1, 1, 2));
+    }
+
+    /**
+     * Fills the builder from the common pool, one segment per slot, as the trace conversion does.
+     */
+    private static IndexedTrace freezeInParallel(ConcurrentTraceBuilder<Integer, IndexedTrace> builder) {
+        IntStream.range(0, 64).parallel().forEach(slotId -> {
+            ConcurrentTraceBuilder.Segment<Integer> segment = builder.newSegment();
+            for (int i = 0; i < 100; i++) {
+                segment.append(slotId, slotId * 100 + i, i);
+            }
+        });
+        return builder.freeze();
+    }
+}
@@ -0,0 +1,87 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventFrameTest {
+
+    @Test
+    void givenFrameWithMixedValues_whenAppended_thenValuesFormOneRow() {
+        // given
+        EventFrame frame = new EventFrame(1L);
+        frame.begin(EventFrame.KIND_BEFORE, 4);
+        frame.putInt(0, 42);
+        frame.putDouble(1, 2.5);
+        frame.putFloat(2, 1.5f);
+        frame.putString(3, "x");
+        InvocationColumns columns = new InvocationColumns();
+
+        // when
+        int appended = frame.appendTo(columns);
+        columns.completeRow();
+
+        // then
+        assertEquals(4, appended);
+        assertEquals(1, columns.getRowCount());
+        assertEquals(42, columns.getValue(0, 0));
+        assertEquals(2.5, columns.getValue(1, 0));
+        assertEquals(1.5f, columns.getValue(2, 0));
+        assertEquals("x", columns.getValue(3, 0));
+        assertEquals(0, columns.getRow(3, 0));
+    }
+
+    @Test
+    void givenAppendedFrame_whenInspected_thenItIsClosedAndEmpty() {
+        // given
+        EventFrame frame = new EventFrame(7L);
+        frame.begin(EventFrame.KIND_AFTER, 1);
+        frame.putLong(0, 5L);
+
+        // when
+        frame.appendTo(new InvocationColumns());
+
+        // then
+        assertFalse(frame.isOpen());
+        assertEquals(0, frame.size());
+        assertEquals(7L, frame.getThreadId());
+        assertEquals(EventFrame.KIND_AFTER, frame.getEventKind());
+    }
+
+    @Test
+    void givenMoreValuesThanAnnounced_whenAppended_thenAllValuesAreKept() {
+        // given
+        EventFrame frame = new EventFrame(1L);
+        frame.begin(EventFrame.KIND_BEFORE, 0);
+        for (int slot = 0; slot < 20; slot++) {
+            frame.putBoolean(slot, slot % 2 == 0);
+        }
+        InvocationColumns columns = new InvocationColumns();
+
+        // when
+        frame.appendTo(columns);
+
+        // then
+        assertEquals(20, columns.getCurrentRowSize());
+        assertEquals(true, columns.getValue(18, 0));
+        assertEquals(false, columns.getValue(19, 0));
+    }
+
+    @Test
+    void givenFrameBegunAgain_whenAppended_thenOnlyValuesOfNewFrameAreKept() {
+        // given
+        EventFrame frame = new EventFrame(1L);
+        frame.begin(EventFrame.KIND_BEFORE, 1);
+        frame.putInt(0, 1);
+        frame.begin(EventFrame.KIND_AFTER, 1);
+        frame.putInt(1, 2);
+        InvocationColumns columns = new InvocationColumns();
+
+        // when
+        frame.appendTo(columns);
+
+        // then
+        assertEquals(0, columns.getValueCount(0));
+        assertEquals(2, columns.getValue(1, 0));
+    }
+}
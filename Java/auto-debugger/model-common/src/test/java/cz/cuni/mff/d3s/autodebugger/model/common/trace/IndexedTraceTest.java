@@ -2,9 +2,15 @@ package cz.cuni.mff.d3s.autodebugger.model.common.trace;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
 import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -260,8 +266,8 @@ class IndexedTraceTest {
 
         // when - modify returned map
         NavigableMap<Integer, Object> values = trace.getValues(1);
-        values.put(5, "modified");
-        values.remove(0);
+        assertThrows(UnsupportedOperationException.class, () -> values.put(5, "modified"));
+        assertThrows(UnsupportedOperationException.class, () -> values.remove(0));
 
         // then - original trace should be unaffected
         NavigableMap<Integer, Object> freshValues = trace.getValues(1);
@@ -278,7 +284,7 @@ class IndexedTraceTest {
 
         // when - modify returned set
         Set<Integer> slotIDs = trace.getAllSlotIDs();
-        slotIDs.add(999);
+        assertThrows(UnsupportedOperationException.class, () -> slotIDs.add(999));
 
         // then - original trace should be unaffected
         Set<Integer> freshSlots = trace.getAllSlotIDs();
@@ -307,4 +313,173 @@ class IndexedTraceTest {
         assertEquals('c', trace.getValues(5).get(0));
         assertEquals(100L, trace.getValues(6).get(0));
     }
+
+    @Test
+    void givenOutOfOrderEventIndices_whenAdded_thenHistoryIsSorted() {
+        // given
+        IndexedTrace trace = new IndexedTrace();
+
+        // when
+        trace.addValue(1, 10, 100);
+        trace.addValue(1, 30, 300);
+        trace.addValue(1, 20, 200);
+        trace.addValue(1, 5, 50);
+
+        // then
+        NavigableMap<Integer, Object> values = trace.getValues(1);
+        assertEquals(List.of(5, 10, 20, 30), List.copyOf(values.keySet()));
+        assertEquals(200, values.floorEntry(25).getValue());
+        assertEquals(30, values.ceilingKey(21));
+        assertNull(values.lowerEntry(5));
+        assertEquals(List.of(10, 20), List.copyOf(values.subMap(10, true, 30, false).keySet()));
+    }
+
+    @Test
+    void givenBoundedView_whenNavigatedPastItsBounds_thenResultsStayInsideTheRangeLikeTreeMap() {
+        // given
+        IndexedTrace trace = new IndexedTrace();
+        TreeMap<Integer, Object> expected = new TreeMap<>();
+        for (int eventIndex : new int[] { 5, 10, 20, 30 }) {
+            trace.addValue(1, eventIndex, eventIndex * 10);
+            expected.put(eventIndex, eventIndex * 10);
+        }
+        NavigableMap<Integer, Object> values = trace.getValues(1);
+
+        // when
+        List<NavigableMap<Integer, Object>> views = List.of(
+                values.headMap(20, true), values.headMap(20, false), values.tailMap(10, true),
+                values.tailMap(10, false), values.subMap(6, true, 25, true), values.tailMap(5, false).headMap(30, false));
+        List<NavigableMap<Integer, Object>> expectedViews = List.of(
+                expected.headMap(20, true), expected.headMap(20, false), expected.tailMap(10, true),
+                expected.tailMap(10, false), expected.subMap(6, true, 25, true), expected.tailMap(5, false).headMap(30, false));
+
+        // then
+        assertEquals(200, values.headMap(20, true).floorEntry(100).getValue());
+        assertEquals(10, values.tailMap(10, true).ceilingKey(0));
+        assertNull(values.headMap(20, false).higherEntry(10));
+        for (int v = 0; v < views.size(); v++) {
+            for (int key = 0; key <= 40; key++) {
+                String message = "view " + v + ", key " + key;
+                assertEquals(expectedViews.get(v).lowerEntry(key), views.get(v).lowerEntry(key), message);
+                assertEquals(expectedViews.get(v).floorEntry(key), views.get(v).floorEntry(key), message);
+                assertEquals(expectedViews.get(v).ceilingEntry(key), views.get(v).ceilingEntry(key), message);
+                assertEquals(expectedViews.get(v).higherEntry(key), views.get(v).higherEntry(key), message);
+            }
+        }
+    }
+
+    @Test
+    void givenBoundedView_whenRestrictedOutsideItsRange_thenIllegalArgumentExceptionIsThrown() {
+        // given
+        IndexedTrace trace = new IndexedTrace();
+        trace.addValue(1, 10, 100);
+        trace.addValue(1, 20, 200);
+        NavigableMap<Integer, Object> values = trace.getValues(1);
+        NavigableMap<Integer, Object> head = values.headMap(15, false);
+
+        // when / then
+        assertThrows(IllegalArgumentException.class, () -> values.subMap(20, true, 10, true));
+        assertThrows(IllegalArgumentException.class, () -> head.headMap(16, true));
+        assertThrows(IllegalArgumentException.class, () -> head.headMap(15, true));
+        assertThrows(IllegalArgumentException.class, () -> head.tailMap(15, true));
+        assertThrows(IllegalArgumentException.class, () -> values.tailMap(10, false).subMap(5, 12));
+        assertEquals(List.of(10), List.copyOf(head.headMap(15, false).keySet()));
+        assertTrue(head.tailMap(15, false).isEmpty());
+        assertTrue(values.subMap(10, false, 10, false).isEmpty());
+    }
+
+    @Test
+    void givenValuesOfDifferentTypesInOneSlot_whenAdded_thenOriginalWrapperTypesAreReturned() {
+        // given
+        IndexedTrace trace = new IndexedTrace();
+
+        // when
+        trace.addValue(1, 0, 1.5f);
+        trace.addValue(1, 1, 2.5f);
+        trace.addValue(1, 2, "text");
+        trace.addValue(1, 3, null);
+
+        // then
+        NavigableMap<Integer, Object> values = trace.getValues(1);
+        assertEquals(1.5f, values.get(0));
+        assertEquals(2.5f, values.get(1));
+        assertEquals("text", values.get(2));
+        assertTrue(values.containsKey(3));
+        assertNull(values.get(3));
+    }
+
+    @Test
+    void givenValuesView_whenMoreValuesAdded_thenViewReflectsThem() {
+        // given
+        IndexedTrace trace = new IndexedTrace();
+        trace.addValue(1, 0, 1L);
+        NavigableMap<Integer, Object> values = trace.getValues(1);
+
+        // when
+        trace.addValue(1, 1, 2L);
+
+        // then
+        assertEquals(2, values.size());
+        assertEquals(2L, values.lastEntry().getValue());
+    }
+
+    @Test
+    void givenRepeatedStringsInSeveralSlots_whenAdded_thenEachDistinctStringStoredOnce() {
+        // given
+        IndexedTrace trace = new IndexedTrace();
+
+        // when
+        for (int i = 0; i < 1_000; i++) {
+            trace.addValue(1, i, new String(i % 2 == 0 ? "ACTIVE" : "INACTIVE"));
+            trace.addValue(2, i, new String("ACTIVE"));
+        }
+
+        // then
+        assertEquals(2, trace.getStringDictionary().size());
+        assertEquals("ACTIVE", trace.getValues(1).get(0));
+        assertEquals("INACTIVE", trace.getValues(1).get(999));
+        assertSame(trace.getValues(1).get(0), trace.getValues(2).get(500));
+    }
+
+    @Test
+    void givenStringSlot_whenValueOfOtherTypeAdded_thenStringsAreKept() {
+        // given
+        IndexedTrace trace = new IndexedTrace();
+        trace.addValue(1, 0, "first");
+        trace.addValue(1, 1, "second");
+
+        // when
+        trace.addValue(1, 2, 3);
+
+        // then
+        NavigableMap<Integer, Object> values = trace.getValues(1);
+        assertEquals("first", values.get(0));
+        assertEquals("second", values.get(1));
+        assertEquals(3, values.get(2));
+    }
+
+    @Test
+    void givenTraceWithStrings_whenSerialized_thenStringsAndDictionaryRestored() throws Exception {
+        // given
+        IndexedTrace trace = new IndexedTrace();
+        for (int i = 0; i < 100; i++) {
+            trace.addValue(1, i, "value" + (i % 3));
+        }
+
+        // when
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(trace);
+        }
+        IndexedTrace restored;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = (IndexedTrace) in.readObject();
+        }
+
+        // then
+        assertEquals(3, restored.getStringDictionary().size());
+        assertEquals(trace.getValues(1), restored.getValues(1));
+        restored.addValue(1, 100, "value0");
+        assertEquals(3, restored.getStringDictionary().size());
+    }
 }
@@ -0,0 +1,114 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the columnar invocation buffer used by the ShadowVM collector.
+ */
+class InvocationColumnsTest {
+
+    @Test
+    void givenValuesInSeveralRows_whenRead_thenEachValueKeepsItsRow() {
+        // given
+        InvocationColumns columns = new InvocationColumns();
+        columns.putInt(0, 10);
+        columns.putLong(1, 100L);
+        columns.completeRow();
+        columns.putInt(0, 20);
+        columns.completeRow();
+
+        // when / then
+        assertEquals(2, columns.getRowCount());
+        assertEquals(2, columns.getValueCount(0));
+        assertEquals(1, columns.getValueCount(1));
+        assertEquals(10, columns.getInt(0, 0));
+        assertEquals(20, columns.getInt(0, 1));
+        assertEquals(1, columns.getRow(0, 1));
+        assertEquals(100L, columns.getLong(1, 0));
+        assertEquals(0, columns.getRow(1, 0));
+    }
+
+    @Test
+    void givenSameSlotTwiceInOneRow_whenRead_thenLastValueWins() {
+        // given
+        InvocationColumns columns = new InvocationColumns();
+        columns.putString(3, "first");
+        columns.putString(3, "second");
+
+        // when
+        int rowSize = columns.getCurrentRowSize();
+        columns.completeRow();
+
+        // then
+        assertEquals(1, rowSize);
+        assertEquals(1, columns.getValueCount(3));
+        assertEquals("second", columns.getReference(3, 0));
+    }
+
+    @Test
+    void givenNarrowPrimitives_whenReadBoxed_thenOriginalWrapperTypesAreReturned() {
+        // given
+        InvocationColumns columns = new InvocationColumns();
+        columns.putByte(0, (byte) 7);
+        columns.putChar(1, 'c');
+        columns.putShort(2, (short) 9);
+        columns.putBoolean(3, true);
+        columns.putFloat(4, 0.5f);
+        columns.completeRow();
+
+        // when / then
+        assertEquals((byte) 7, columns.getValue(0, 0));
+        assertEquals('c', columns.getValue(1, 0));
+        assertEquals((short) 9, columns.getValue(2, 0));
+        assertEquals(true, columns.getValue(3, 0));
+        assertEquals(0.5f, columns.getValue(4, 0));
+    }
+
+    @Test
+    void givenMoreValuesThanInitialCapacity_whenRecorded_thenColumnGrows() {
+        // given
+        InvocationColumns columns = new InvocationColumns();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            columns.putDouble(40, i);
+            columns.completeRow();
+        }
+
+        // then
+        assertEquals(1000, columns.getValueCount(40));
+        assertEquals(999.0, columns.getDouble(40, 999));
+        assertArrayEquals(new int[] { 40 }, columns.getSlotIds());
+    }
+
+    @Test
+    void givenClearedBuffer_whenReused_thenSlotsAreKeptButValuesDropped() {
+        // given
+        InvocationColumns columns = new InvocationColumns();
+        columns.putInt(0, 1);
+        columns.completeRow();
+
+        // when
+        columns.clear();
+        columns.putInt(0, 2);
+        columns.completeRow();
+
+        // then
+        assertEquals(1, columns.getRowCount());
+        assertEquals(1, columns.getValueCount(0));
+        assertEquals(2, columns.getInt(0, 0));
+        assertEquals(0, columns.getRow(0, 0));
+    }
+
+    @Test
+    void givenSlotWithDifferentKind_whenRecorded_thenExceptionIsThrown() {
+        // given
+        InvocationColumns columns = new InvocationColumns();
+        columns.putInt(0, 1);
+
+        // when / then
+        assertThrows(IllegalArgumentException.class, () -> columns.putLong(0, 1L));
+    }
+}
@@ -0,0 +1,132 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the memory-mapped view of .adtrace files.
+ */
+class MappedTraceReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void givenTraceFile_whenOpenedMapped_thenValuesMatchEagerReader() throws Exception {
+        // given
+        Path traceFile = writeSampleTrace();
+
+        // when
+        MappedTraceReader reader = MappedTraceReader.open(traceFile);
+        IndexedTrace expected = TraceFileReader.readIndexedTrace(traceFile);
+
+        // then
+        assertEquals(expected.getAllSlotIDs(), reader.getAllSlotIDs());
+        for (int slotId : expected.getAllSlotIDs()) {
+            assertEquals(expected.getValues(slotId), reader.getValues(slotId));
+        }
+        assertArrayEquals(expected.getEventIndexRange().orElseThrow(), reader.getEventIndexRange().orElseThrow());
+        assertEquals(expected.getTotalEventCount(), reader.getTotalEventCount());
+    }
+
+    @Test
+    void givenTraceFile_whenTypedValuesRequested_thenOnlyMatchingKindIsReturned() throws Exception {
+        // given
+        MappedTraceReader reader = MappedTraceReader.open(writeSampleTrace());
+
+        // when
+        Set<Integer> intValues = reader.getIntValues(0);
+        Set<Integer> mismatched = reader.getIntValues(1);
+
+        // then
+        assertEquals(Set.of(0, 3, 6, 9, 12), intValues);
+        assertEquals(Set.of("s0", "s1", "s2"), reader.getStringValues(1));
+        assertEquals(InvocationColumns.KIND_STRING, reader.getKind(1));
+        assertEquals(5, reader.getValueCount(1));
+        assertTrue(mismatched.isEmpty());
+    }
+
+    @Test
+    void givenMappedTrace_whenUsedAsTrace_thenGettersDelegateAndAddersAreRejected() throws Exception {
+        // given
+        MappedTraceReader reader = MappedTraceReader.open(writeSampleTrace());
+
+        // when
+        Trace trace = reader.asTrace();
+        IndexedTrace indexedTrace = reader.asIndexedTrace();
+
+        // then
+        assertEquals(Set.of(0, 1, 2), trace.getAllSlotIDs());
+        assertEquals(1, trace.getObjectValues(2).size());
+        assertEquals(3, indexedTrace.getValues(2).size());
+        assertFalse(indexedTrace.isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> trace.addIntValue(0, 1));
+        assertThrows(UnsupportedOperationException.class, () -> indexedTrace.addValue(0, 99, 1));
+    }
+
+    @Test
+    void givenMappedIndexedTrace_whenFrozenOrAskedForStrings_thenBehavesAsFrozenTraceOfTheFile() throws Exception {
+        // given
+        IndexedTrace indexedTrace = MappedTraceReader.open(writeSampleTrace()).asIndexedTrace();
+
+        // when
+        indexedTrace.freeze();
+        StringDictionary strings = indexedTrace.getStringDictionary();
+
+        // then
+        assertTrue(indexedTrace.isFrozen());
+        assertEquals(3, strings.size());
+        assertTrue(strings.indexOf("s2") >= 0);
+        assertTrue(strings.indexOf("com.example.Point") < 0, "Class names are not string values");
+        assertSame(strings, indexedTrace.getStringDictionary());
+    }
+
+    @Test
+    void givenTruncatedFile_whenOpenedMapped_thenCompleteChunksAreReadable() throws Exception {
+        // given
+        Path traceFile = writeSampleTrace();
+        byte[] content = Files.readAllBytes(traceFile);
+        Path truncated = tempDir.resolve("truncated.adtrace");
+        Files.write(truncated, Arrays.copyOf(content, content.length - 8));
+
+        // when
+        MappedTraceReader reader = MappedTraceReader.open(truncated);
+
+        // then
+        assertEquals(TraceFileReader.readIndexedTrace(truncated).getValues(0), reader.getValues(0));
+        assertEquals(3, reader.getChunkCount());
+    }
+
+    @Test
+    void givenNonTraceFile_whenOpenedMapped_thenIOExceptionIsThrown() throws Exception {
+        // given
+        Path file = tempDir.resolve("plain.bin");
+        Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+
+        // when / then
+        assertThrows(IOException.class, () -> MappedTraceReader.open(file));
+    }
+
+    private Path writeSampleTrace() throws Exception {
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        try (TraceFileWriter writer = new TraceFileWriter(traceFile, 2, 0)) {
+            for (int i = 0; i < 5; i++) {
+                writer.getColumns().putInt(0, i * 3);
+                writer.getColumns().putString(1, "s" + (i % 3));
+                if (i % 2 == 0) {
+                    writer.getColumns().putObject(2, new ObjectSnapshot("com.example.Point"));
+                }
+                writer.completeRow();
+            }
+        }
+        return traceFile;
+    }
+}
@@ -1,9 +1,16 @@
 package cz.cuni.mff.d3s.autodebugger.model.common.trace;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -102,6 +109,67 @@ class ObjectSnapshotTest {
         assertEquals("$cycle", snapshot.getField("parent")); // Cycle marker stored as string
     }
     
+    @Test
+    void givenJsonWithNumbers_whenParsing_thenNumbersHaveMatchingTypes() {
+        // Given
+        String json = "{\"$class\":\"com.example.Numbers\",\"small\":-42,\"large\":9000000000,"
+                + "\"fraction\":0.125,\"exponent\":-1.5e3,\"precise\":3.141592653589793238}";
+        
+        // When
+        ObjectSnapshot snapshot = ObjectSnapshot.fromJson(json);
+        
+        // Then
+        assertEquals(-42, snapshot.getField("small"));
+        assertEquals(9000000000L, snapshot.getField("large"));
+        assertEquals(0.125, snapshot.getField("fraction"));
+        assertEquals(-1500.0, snapshot.getField("exponent"));
+        assertEquals(Math.PI, snapshot.getField("precise"));
+    }
+    
+    @Test
+    void givenCharArrayRegion_whenParsing_thenOnlyRegionParsed() {
+        // Given
+        char[] buffer = "xx{\"$class\":\"com.example.User\",\"name\":\"John\"}yy".toCharArray();
+        
+        // When
+        ObjectSnapshot snapshot = JsonObjectParser.parse(buffer, 2, buffer.length - 4, false);
+        
+        // Then
+        assertEquals("com.example.User", snapshot.getClassName());
+        assertEquals("John", snapshot.getField("name"));
+    }
+    
+    @Test
+    void givenTruncatedJson_whenParsingTolerantly_thenOpenObjectsClosedAndCutFieldDropped() {
+        // Given
+        String json = "{\"$class\":\"com.example.Order\",\"id\":123,\"customer\":{\"$class\":\"com.example.Customer\",\"name\":\"Ali";
+        
+        // When
+        ObjectSnapshot snapshot = JsonObjectParser.parseTruncated(json);
+        
+        // Then
+        assertEquals(123, snapshot.getField("id"));
+        assertEquals(true, snapshot.getField(JsonObjectParser.TRUNCATED_FIELD));
+        ObjectSnapshot customer = (ObjectSnapshot) snapshot.getField("customer");
+        assertEquals("com.example.Customer", customer.getClassName());
+        assertNull(customer.getField("name"));
+        assertEquals(true, customer.getField(JsonObjectParser.TRUNCATED_FIELD));
+        assertThrows(IllegalArgumentException.class, () -> ObjectSnapshot.fromJson(json));
+    }
+    
+    @Test
+    void givenJsonCutInsideNumber_whenParsingTolerantly_thenNumberDropped() {
+        // Given
+        String json = "{\"$class\":\"com.example.Counter\",\"name\":\"c\",\"count\":12";
+        
+        // When
+        ObjectSnapshot snapshot = JsonObjectParser.parseTruncated(json);
+        
+        // Then
+        assertEquals("c", snapshot.getField("name"));
+        assertFalse(snapshot.getFields().containsKey("count"));
+    }
+    
     @Test
     void givenObjectSnapshot_whenSerialized_thenCanBeDeserialized() throws Exception {
         // Given
@@ -141,5 +209,129 @@ class ObjectSnapshotTest {
         assertFalse(trace.getObjectValues(0).isEmpty());
         assertTrue(trace.getObjectValues(0).contains(snapshot));
     }
+    
+    @Test
+    void givenMutableSnapshot_whenFrozen_thenEqualWithSameHashAndImmutable() {
+        // Given
+        ObjectSnapshot customer = new ObjectSnapshot("com.example.Customer");
+        customer.putField("name", "Alice");
+        ObjectSnapshot order = new ObjectSnapshot("com.example.Order");
+        order.putField("id", 7);
+        order.putField("customer", customer);
+        
+        // When
+        ObjectSnapshot frozen = order.freeze();
+        
+        // Then
+        assertTrue(frozen.isFrozen());
+        assertFalse(order.isFrozen());
+        assertEquals(order, frozen);
+        assertEquals(frozen, order);
+        assertEquals(order.hashCode(), frozen.hashCode());
+        assertEquals(order.getFields(), frozen.getFields());
+        assertTrue(((ObjectSnapshot) frozen.getField("customer")).isFrozen());
+        assertThrows(UnsupportedOperationException.class, () -> frozen.putField("id", 8));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.getFields().put("id", 8));
+    }
+    
+    @Test
+    void givenEqualSnapshots_whenInterned_thenSameInstanceReturned() {
+        // Given
+        SnapshotInterner interner = new SnapshotInterner();
+        ObjectSnapshot first = ObjectSnapshot.fromJson("{\"$class\":\"com.example.Point\",\"x\":1,\"y\":2}");
+        ObjectSnapshot second = ObjectSnapshot.fromJson("{\"$class\":\"com.example.Point\",\"y\":2,\"x\":1}");
+        ObjectSnapshot other = ObjectSnapshot.fromJson("{\"$class\":\"com.example.Point\",\"x\":1,\"y\":3}");
+        
+        // When
+        ObjectSnapshot internedFirst = interner.intern(first);
+        ObjectSnapshot internedSecond = interner.intern(second);
+        ObjectSnapshot internedOther = interner.intern(other);
+        
+        // Then
+        assertSame(internedFirst, internedSecond);
+        assertNotSame(internedFirst, internedOther);
+        assertSame(internedFirst, interner.intern(internedFirst));
+        assertEquals(2, interner.size());
+    }
+    
+    @Test
+    void givenNestedSnapshots_whenInterned_thenNestedSnapshotsShared() {
+        // Given
+        SnapshotInterner interner = new SnapshotInterner();
+        ObjectSnapshot first = ObjectSnapshot.fromJson(
+                "{\"$class\":\"com.example.Order\",\"id\":1,\"customer\":{\"$class\":\"com.example.Customer\",\"name\":\"Alice\"}}");
+        ObjectSnapshot second = ObjectSnapshot.fromJson(
+                "{\"$class\":\"com.example.Order\",\"id\":2,\"customer\":{\"$class\":\"com.example.Customer\",\"name\":\"Alice\"}}");
+        
+        // When
+        ObjectSnapshot internedFirst = interner.intern(first);
+        ObjectSnapshot internedSecond = interner.intern(second);
+        
+        // Then
+        assertNotEquals(internedFirst, internedSecond);
+        assertSame(internedFirst.getField("customer"), internedSecond.getField("customer"));
+        assertEquals(3, interner.size());
+    }
+    
+    @Test
+    void givenCyclicSnapshot_whenInterned_thenCycleKeptAndOnlyEqualToItself() {
+        // Given
+        SnapshotInterner interner = new SnapshotInterner();
+        ObjectSnapshot first = new ObjectSnapshot("com.example.Node");
+        ObjectSnapshot second = new ObjectSnapshot("com.example.Node");
+        first.putField("next", second);
+        second.putField("next", first);
+        
+        // When
+        ObjectSnapshot interned = interner.intern(first);
+        
+        // Then
+        ObjectSnapshot next = (ObjectSnapshot) interned.getField("next");
+        assertSame(interned, next.getField("next"));
+        assertEquals(interned, interned);
+        assertNotEquals(interned, interner.intern(first));
+        assertEquals(0, interner.size());
+    }
+    
+    @Test
+    void givenMutableAndFrozenSnapshots_whenVisitingFields_thenFieldsPassedInCaptureOrder() {
+        // Given
+        ObjectSnapshot snapshot = new ObjectSnapshot("com.example.Point");
+        snapshot.putField("y", 2);
+        snapshot.putField("x", 1);
+        
+        // When
+        List<String> mutableFields = new ArrayList<>();
+        snapshot.forEachField((name, value) -> mutableFields.add(name + "=" + value));
+        List<String> frozenFields = new ArrayList<>();
+        snapshot.freeze().forEachField((name, value) -> frozenFields.add(name + "=" + value));
+        
+        // Then
+        assertEquals(List.of("y=2", "x=1"), mutableFields);
+        assertEquals(mutableFields, frozenFields);
+    }
+    
+    @Test
+    void givenTraceFileWithRepeatedSnapshots_whenRead_thenEqualSnapshotsShareOneInstance(@TempDir Path tempDir) throws IOException {
+        // Given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        IndexedTrace indexedTrace = new IndexedTrace();
+        for (int i = 0; i < 100; i++) {
+            ObjectSnapshot snapshot = new ObjectSnapshot("com.example.Point");
+            snapshot.putField("x", i % 2);
+            indexedTrace.addValue(0, i, snapshot);
+        }
+        TraceFileWriter.write(traceFile, indexedTrace);
+        
+        // When
+        Trace trace = TraceFileReader.readTrace(traceFile);
+        IndexedTrace readTrace = TraceFileReader.readIndexedTrace(traceFile);
+        
+        // Then
+        assertEquals(2, trace.getObjectValues(0).size());
+        Set<Object> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        instances.addAll(readTrace.getValues(0).values());
+        assertEquals(2, instances.size());
+        assertTrue(instances.stream().allMatch(value -> ((ObjectSnapshot) value).isFrozen()));
+    }
 }
-
@@ -0,0 +1,81 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the unboxed value storage behind {@link Trace}.
+ */
+class PrimitiveTraceStoreTest {
+
+    @Test
+    void givenManyIntValues_whenAdded_thenBoxedViewMatchesHashSet() {
+        // given
+        Trace trace = new Trace();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            int value = random.nextInt(2_000) - 1_000;
+            trace.addIntValue(0, value);
+            expected.add(value);
+        }
+
+        // then
+        assertEquals(expected, trace.getIntValues(0));
+        assertEquals(expected.size(), trace.getIntValues(0).size());
+        assertEquals(expected.contains(0), trace.getIntValues(0).contains(0));
+    }
+
+    @Test
+    void givenSpecialFloatingPointValues_whenAdded_thenEqualityFollowsBoxedTypes() {
+        // given
+        Trace trace = new Trace();
+
+        // when
+        trace.addDoubleValue(0, Double.NaN);
+        trace.addDoubleValue(0, Double.NaN);
+        trace.addDoubleValue(0, 0.0);
+        trace.addDoubleValue(0, -0.0);
+        trace.addFloatValue(1, Float.NaN);
+        trace.addFloatValue(1, 1.5f);
+
+        // then
+        assertEquals(Set.of(Double.NaN, 0.0, -0.0), trace.getDoubleValues(0));
+        assertEquals(Set.of(Float.NaN, 1.5f), trace.getFloatValues(1));
+    }
+
+    @Test
+    void givenValuesOfSeveralKinds_whenSlotsListed_thenEachSlotAppearsOnceWithItsKinds() {
+        // given
+        PrimitiveTraceStore store = new PrimitiveTraceStore();
+        Trace trace = new Trace(store);
+
+        // when
+        trace.addIntValue(3, 1);
+        trace.addStringValue(3, "a");
+        trace.addLongValue(5, 2L);
+
+        // then
+        assertEquals(Set.of(3, 5), trace.getAllSlotIDs());
+        assertArrayEquals(new byte[] { InvocationColumns.KIND_INT, InvocationColumns.KIND_STRING }, store.getKinds(3));
+        assertTrue(trace.getIntValues(5).isEmpty());
+        assertFalse(trace.getLongValues(5).contains(2));
+    }
+
+    @Test
+    void givenBoxedView_whenModified_thenUnsupportedOperationExceptionIsThrown() {
+        // given
+        Trace trace = new Trace();
+        trace.addIntValue(0, 1);
+
+        // when / then
+        assertThrows(UnsupportedOperationException.class, () -> trace.getIntValues(0).add(2));
+    }
+}
@@ -0,0 +1,78 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the trace-scoped {@link StringDictionary}.
+ */
+class StringDictionaryTest {
+
+    @Test
+    void givenRepeatedStrings_whenInterned_thenIdsAreDenseAndStable() {
+        // given
+        StringDictionary dictionary = new StringDictionary();
+
+        // when
+        int red = dictionary.intern("RED");
+        int green = dictionary.intern("GREEN");
+        int redAgain = dictionary.intern(new String("RED"));
+
+        // then
+        assertEquals(0, red);
+        assertEquals(1, green);
+        assertEquals(red, redAgain);
+        assertEquals(2, dictionary.size());
+        assertEquals("GREEN", dictionary.get(green));
+        assertEquals(-1, dictionary.indexOf("BLUE"));
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.get(2));
+    }
+
+    @Test
+    void givenManyStrings_whenInterned_thenEveryStringResolvesToItsId() {
+        // given
+        StringDictionary dictionary = new StringDictionary();
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            dictionary.intern("s" + i);
+        }
+
+        // then
+        assertEquals(10_000, dictionary.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, dictionary.indexOf("s" + i));
+            assertEquals("s" + i, dictionary.get(i));
+        }
+    }
+
+    @Test
+    void givenDictionary_whenSerialized_thenLookupsWorkAfterDeserialization() throws Exception {
+        // given
+        StringDictionary dictionary = new StringDictionary();
+        for (int i = 0; i < 100; i++) {
+            dictionary.intern("s" + i);
+        }
+
+        // when
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(dictionary);
+        }
+        StringDictionary restored;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = (StringDictionary) in.readObject();
+        }
+
+        // then
+        assertEquals(100, restored.size());
+        assertEquals(42, restored.indexOf("s42"));
+        assertEquals(100, restored.intern("new"));
+    }
+}
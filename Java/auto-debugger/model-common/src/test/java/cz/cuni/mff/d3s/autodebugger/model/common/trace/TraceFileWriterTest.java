@@ -0,0 +1,417 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NavigableMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the .adtrace file written by the ShadowVM collector.
+ */
+class TraceFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void givenMoreInvocationsThanBufferSize_whenRecorded_thenChunksAreWrittenBeforeClose() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        TraceFileWriter writer = new TraceFileWriter(traceFile, 2, 0);
+
+        // when
+        recordInt(writer, 0, 1);
+        recordInt(writer, 0, 2);
+        recordInt(writer, 0, 3);
+
+        // then
+        assertEquals(1, writer.getChunkCount());
+        assertEquals(3, writer.getInvocationCount());
+        writer.close();
+        assertEquals(2, writer.getChunkCount());
+    }
+
+    @Test
+    void givenClosedWriter_whenReadAsTrace_thenAllValuesAreRestored() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        try (TraceFileWriter writer = new TraceFileWriter(traceFile, 2, 0)) {
+            writer.getColumns().putInt(0, 10);
+            writer.getColumns().putString(1, "a");
+            writer.completeRow();
+            writer.getColumns().putInt(0, 20);
+            writer.getColumns().putString(1, "b");
+            writer.completeRow();
+            writer.getColumns().putInt(0, 10);
+            writer.getColumns().putObject(2, new ObjectSnapshot("com.example.Point"));
+            writer.completeRow();
+        }
+
+        // when
+        Trace trace = TraceFileReader.readTrace(traceFile);
+
+        // then
+        assertTrue(TraceFileReader.isTraceFile(traceFile));
+        assertEquals(Set.of(10, 20), trace.getIntValues(0));
+        assertEquals(Set.of("a", "b"), trace.getStringValues(1));
+        assertEquals(1, trace.getObjectValues(2).size());
+    }
+
+    @Test
+    void givenClosedWriter_whenReadAsIndexedTrace_thenEventIndicesFollowInvocationOrder() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        try (TraceFileWriter writer = new TraceFileWriter(traceFile, 2, 0)) {
+            recordInt(writer, 0, 100);
+            recordInt(writer, 0, 200);
+            recordInt(writer, 0, 300);
+        }
+
+        // when
+        IndexedTrace indexedTrace = TraceFileReader.readIndexedTrace(traceFile);
+
+        // then
+        NavigableMap<Integer, Object> values = indexedTrace.getValues(0);
+        assertEquals(3, values.size());
+        assertEquals(100, values.get(0));
+        assertEquals(200, values.get(1));
+        assertEquals(300, values.get(2));
+    }
+
+    @Test
+    void givenWriterThatWasNeverClosed_whenRead_thenFlushedChunksAreRecovered() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        TraceFileWriter writer = new TraceFileWriter(traceFile, 2, 0);
+        recordInt(writer, 0, 1);
+        recordInt(writer, 0, 2);
+        recordInt(writer, 0, 3);  // still buffered, lost with the process
+
+        // when
+        Trace trace = TraceFileReader.readTrace(traceFile);
+
+        // then
+        assertEquals(Set.of(1, 2), trace.getIntValues(0));
+    }
+
+    @Test
+    void givenTruncatedTrailingChunk_whenRead_thenCompleteChunksAreRecovered() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        TraceFileWriter writer = new TraceFileWriter(traceFile, 1, 0);
+        recordInt(writer, 0, 1);
+        recordInt(writer, 0, 2);
+        long size = Files.size(traceFile);
+        try (var channel = java.nio.channels.FileChannel.open(traceFile, java.nio.file.StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        // when
+        Trace trace = TraceFileReader.readTrace(traceFile);
+
+        // then
+        assertEquals(Set.of(1), trace.getIntValues(0));
+    }
+
+    @Test
+    void givenElapsedFlushInterval_whenRowCompleted_thenBufferedInvocationsAreWritten() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        TraceFileWriter writer = new TraceFileWriter(traceFile, 100, 1);
+        Thread.sleep(5);
+
+        // when
+        recordInt(writer, 0, 1);
+
+        // then
+        assertEquals(1, writer.getChunkCount());
+        writer.close();
+    }
+
+    @Test
+    void givenElapsedFlushIntervalWithoutNewRows_whenFlushIfStale_thenBufferedInvocationsAreWritten() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        TraceFileWriter writer = new TraceFileWriter(traceFile, 100, 50);
+        recordInt(writer, 0, 1);
+        writer.flushIfStale();
+        assertEquals(0, writer.getChunkCount(), "Interval has not elapsed yet");
+        Thread.sleep(60);
+
+        // when
+        writer.flushIfStale();
+
+        // then
+        assertEquals(1, writer.getChunkCount());
+        writer.close();
+        writer.flushIfStale();
+        assertEquals(Set.of(1), TraceFileReader.readTrace(traceFile).getIntValues(0));
+    }
+
+    @Test
+    void givenStaleWriterWithOpenRow_whenFlushingBetweenPuts_thenKeepsValuesOfTheRow() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        TraceFileWriter writer = new TraceFileWriter(traceFile, 100, 50);
+        recordInt(writer, 0, 1);
+        writer.getColumns().putInt(0, 2);
+        Thread.sleep(60);
+
+        // when
+        writer.flushIfStale();
+        writer.getColumns().putInt(1, 3);
+        writer.completeRow();
+
+        // then
+        assertEquals(1, writer.getChunkCount(), "Completing the row should flush the stale buffer");
+        writer.close();
+        IndexedTrace indexedTrace = TraceFileReader.readIndexedTrace(traceFile);
+        assertEquals(2, indexedTrace.getValues(0).get(1));
+        assertEquals(3, indexedTrace.getValues(1).get(1));
+    }
+
+    @Test
+    void givenMixedPrimitiveSlots_whenReadAsTrace_thenOriginalWrapperTypesAreRestored() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        try (TraceFileWriter writer = new TraceFileWriter(traceFile, 10, 0)) {
+            InvocationColumns columns = writer.getColumns();
+            columns.putByte(0, (byte) 1);
+            columns.putChar(1, 'x');
+            columns.putShort(2, (short) 3);
+            columns.putBoolean(3, true);
+            columns.putLong(4, 5L);
+            columns.putFloat(5, 1.5f);
+            columns.putDouble(6, 2.5);
+            writer.completeRow();
+        }
+
+        // when
+        Trace trace = TraceFileReader.readTrace(traceFile);
+
+        // then
+        assertEquals(Set.of((byte) 1), trace.getByteValues(0));
+        assertEquals(Set.of('x'), trace.getCharValues(1));
+        assertEquals(Set.of((short) 3), trace.getShortValues(2));
+        assertEquals(Set.of(true), trace.getBooleanValues(3));
+        assertEquals(Set.of(5L), trace.getLongValues(4));
+        assertEquals(Set.of(1.5f), trace.getFloatValues(5));
+        assertEquals(Set.of(2.5), trace.getDoubleValues(6));
+    }
+
+    @Test
+    void givenOpenRowWhenClosed_whenRead_thenIncompleteInvocationIsDropped() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        try (TraceFileWriter writer = new TraceFileWriter(traceFile, 10, 0)) {
+            recordInt(writer, 0, 1);
+            writer.getColumns().putInt(0, 2);
+        }
+
+        // when
+        IndexedTrace indexedTrace = TraceFileReader.readIndexedTrace(traceFile);
+
+        // then
+        assertEquals(1, indexedTrace.getTotalEventCount());
+        assertEquals(1, indexedTrace.getValues(0).get(0));
+    }
+
+    @Test
+    void givenNoInvocations_whenClosed_thenEmptyTraceIsRead() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        new TraceFileWriter(traceFile, 10, 0).close();
+
+        // when
+        Trace trace = TraceFileReader.readTrace(traceFile);
+
+        // then
+        assertTrue(trace.getAllSlotIDs().isEmpty());
+    }
+
+    @Test
+    void givenObjectStreamTrace_whenCheckedForTraceFileFormat_thenItIsNotDetected() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("legacy.ser");
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(traceFile.toFile()))) {
+            oos.writeObject(new Trace());
+        }
+
+        // when / then
+        assertFalse(TraceFileReader.isTraceFile(traceFile));
+    }
+
+    @Test
+    void givenStringsRepeatedAcrossChunks_whenWritten_thenDictionaryHoldsEachStringOnce() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        TraceFileWriter writer = new TraceFileWriter(traceFile, 1, 0);
+
+        // when
+        for (String value : new String[] { "alpha", "beta", "alpha", "beta", "alpha" }) {
+            writer.getColumns().putString(0, value);
+            writer.completeRow();
+        }
+        writer.close();
+
+        // then
+        assertEquals(2, writer.getDictionarySize());
+        NavigableMap<Integer, Object> values = TraceFileReader.readIndexedTrace(traceFile).getValues(0);
+        assertEquals("alpha", values.get(0));
+        assertEquals("beta", values.get(3));
+        assertEquals("alpha", values.get(4));
+    }
+
+    @Test
+    void givenRepeatedSnapshotInChunk_whenRead_thenFieldsAndSharedInstanceAreRestored() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        ObjectSnapshot point = new ObjectSnapshot("com.example.Point");
+        point.putField("x", 1);
+        point.putField("label", "origin");
+        point.putField("scale", 0.5);
+        point.putField("next", null);
+        try (TraceFileWriter writer = new TraceFileWriter(traceFile, 10, 0)) {
+            writer.getColumns().putObject(0, point);
+            writer.completeRow();
+            writer.getColumns().putObject(0, point);
+            writer.completeRow();
+        }
+
+        // when
+        NavigableMap<Integer, Object> values = TraceFileReader.readIndexedTrace(traceFile).getValues(0);
+
+        // then
+        assertEquals(point, values.get(0));
+        assertSame(values.get(0), values.get(1));
+    }
+
+    @Test
+    void givenIndexedTraceWithGaps_whenConvertedToTraceFile_thenEventIndicesArePreserved() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        IndexedTrace original = new IndexedTrace();
+        original.addValue(0, 3, 10);
+        original.addValue(0, 1000, -20);
+        original.addValue(1, 7, "x");
+
+        // when
+        TraceFileWriter.write(traceFile, original);
+        IndexedTrace restored = TraceFileReader.readIndexedTrace(traceFile);
+
+        // then
+        assertEquals(original.getValues(0), restored.getValues(0));
+        assertEquals(original.getValues(1), restored.getValues(1));
+    }
+
+    @Test
+    void givenIndexedTraceWithNulls_whenConvertedToTraceFile_thenNullsArePreserved() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        IndexedTrace original = new IndexedTrace();
+        original.addValue(0, 0, "a");
+        original.addValue(0, 1, null);
+        original.addValue(0, 2, "b");
+        original.addValue(1, 0, null);
+        original.addValue(1, 1, 5);
+        original.addValue(2, 0, 7L);
+        original.addValue(2, 1, null);
+        original.addValue(3, 0, 1);
+        original.addValue(3, 1, "x");
+
+        // when
+        TraceFileWriter.write(traceFile, original);
+        IndexedTrace restored = TraceFileReader.readIndexedTrace(traceFile);
+        MappedTraceReader mapped = MappedTraceReader.open(traceFile);
+
+        // then
+        NavigableMap<Integer, Object> strings = new TreeMap<>();
+        strings.put(0, "a");
+        strings.put(1, null);
+        strings.put(2, "b");
+        assertEquals(strings, restored.getValues(0));
+        assertEquals(strings, mapped.getValues(0));
+        for (int slotId = 1; slotId <= 3; slotId++) {
+            assertEquals(original.getValues(slotId), restored.getValues(slotId));
+            assertEquals(original.getValues(slotId), mapped.getValues(slotId));
+        }
+        assertEquals(Set.of(7L), mapped.getLongValues(2));
+    }
+
+    @Test
+    void givenSlotThatRecordsNullAfterFlushedChunk_whenMapped_thenBothChunksAreRead() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        try (TraceFileWriter writer = new TraceFileWriter(traceFile, 1, 0)) {
+            TraceFileWriter.putValue(writer.getColumns(), 0, 42);
+            writer.completeRow();
+            TraceFileWriter.putValue(writer.getColumns(), 0, null);
+            writer.completeRow();
+            TraceFileWriter.putValue(writer.getColumns(), 0, 43);
+            writer.completeRow();
+        }
+
+        // when
+        MappedTraceReader mapped = MappedTraceReader.open(traceFile);
+
+        // then
+        NavigableMap<Integer, Object> expected = new TreeMap<>();
+        expected.put(0, 42);
+        expected.put(1, null);
+        expected.put(2, 43);
+        assertEquals(3, mapped.getChunkCount());
+        assertEquals(InvocationColumns.KIND_OBJECT, mapped.getKind(0));
+        assertEquals(expected, mapped.getValues(0));
+        assertEquals(Set.of(42, 43), mapped.getIntValues(0));
+        assertEquals(expected, TraceFileReader.readIndexedTrace(traceFile).getValues(0));
+    }
+
+    @Test
+    void givenUnsupportedValueType_whenConvertedToTraceFile_thenThrows() {
+        IndexedTrace trace = new IndexedTrace();
+        trace.addValue(0, 0, new Object());
+        IndexedTrace field = new IndexedTrace();
+        ObjectSnapshot snapshot = new ObjectSnapshot("com.example.Holder");
+        snapshot.putField("items", List.of(1));
+        field.addValue(0, 0, snapshot);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> TraceFileWriter.write(tempDir.resolve("object.adtrace"), trace));
+        assertThrows(IllegalArgumentException.class,
+                () -> TraceFileWriter.write(tempDir.resolve("field.adtrace"), field));
+    }
+
+    @Test
+    void givenSetBasedTrace_whenConvertedToTraceFile_thenValueSetsArePreserved() throws Exception {
+        // given
+        Path traceFile = tempDir.resolve("trace.adtrace");
+        Trace original = new Trace();
+        original.addIntValue(0, 1);
+        original.addIntValue(0, 2);
+        original.addStringValue(1, "s");
+        original.addBooleanValue(2, false);
+
+        // when
+        TraceFileWriter.write(traceFile, original);
+        Trace restored = TraceFileReader.readTrace(traceFile);
+
+        // then
+        assertEquals(Set.of(1, 2), restored.getIntValues(0));
+        assertEquals(Set.of("s"), restored.getStringValues(1));
+        assertEquals(Set.of(false), restored.getBooleanValues(2));
+    }
+
+    private static void recordInt(TraceFileWriter writer, int slotId, int value) throws Exception {
+        writer.getColumns().putInt(slotId, value);
+        writer.completeRow();
+    }
+}
@@ -0,0 +1,175 @@
+package cz.cuni.mff.d3s.autodebugger.model.common.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for merging the trace files of several runs.
+ */
+class TraceMergerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void givenNaiveTraces_whenMerged_thenSlotsHoldUnionOfValues() throws Exception {
+        // given
+        List<Path> inputs = new ArrayList<>();
+        for (int run = 0; run < 5; run++) {
+            Trace trace = new Trace();
+            trace.addIntValue(0, run);
+            trace.addIntValue(0, 100);
+            trace.addStringValue(1, "run" + (run % 2));
+            ObjectSnapshot point = new ObjectSnapshot("com.example.Point");
+            point.putField("x", run % 3);
+            trace.addObjectValue(2, point);
+            inputs.add(write(trace, run));
+        }
+        Path output = tempDir.resolve("merged.adtrace");
+
+        // when
+        TraceMerger.mergeNaive(inputs, output, new ForkJoinPool(3));
+
+        // then
+        Trace merged = TraceFileReader.readTrace(output);
+        assertEquals(Set.of(0, 1, 2, 3, 4, 100), merged.getIntValues(0));
+        assertEquals(Set.of("run0", "run1"), merged.getStringValues(1));
+        assertEquals(3, merged.getObjectValues(2).size());
+    }
+
+    @Test
+    void givenIndexedTraces_whenMerged_thenRunsGetDisjointEventRanges() throws Exception {
+        // given
+        IndexedTrace first = new IndexedTrace();
+        first.addValue(0, 0, 1);
+        first.addValue(1, 0, "a");
+        first.addValue(0, 2, 3);
+        IndexedTrace empty = new IndexedTrace();
+        IndexedTrace second = new IndexedTrace();
+        second.addValue(0, 0, 10);
+        second.addValue(1, 1, "b");
+        List<Path> inputs = List.of(writeIndexed(first, 0), writeIndexed(empty, 1), writeIndexed(second, 2));
+        Path output = tempDir.resolve("merged.adtrace");
+
+        // when
+        List<MergedRun> runs = TraceMerger.mergeTemporal(inputs, output, new ForkJoinPool(2));
+
+        // then
+        IndexedTrace merged = TraceFileReader.readIndexedTrace(output);
+        NavigableMap<Integer, Object> slot0 = merged.getValues(0);
+        assertEquals(1, slot0.get(0));
+        assertEquals(3, slot0.get(2));
+        assertEquals(10, slot0.get(3));
+        assertEquals("b", merged.getValues(1).get(4));
+        assertEquals(3, runs.size());
+        assertEquals(0, runs.get(0).getFirstEventIndex());
+        assertEquals(3, runs.get(0).getEventCount());
+        assertEquals(0, runs.get(1).getEventCount());
+        assertEquals(3, runs.get(2).getFirstEventIndex());
+        assertEquals(0, TraceMerger.findRun(runs, 2));
+        assertEquals(2, TraceMerger.findRun(runs, 3));
+        assertEquals(2, TraceMerger.findRun(runs, 4));
+        assertEquals(-1, TraceMerger.findRun(runs, 5));
+    }
+
+    @Test
+    void givenManyRunsLargerThanChunk_whenMerged_thenEveryValueIsAtItsShiftedIndex() throws Exception {
+        // given
+        int runCount = 12;
+        int eventsPerRun = TraceMerger.CHUNK_SIZE / 3;
+        List<Path> inputs = new ArrayList<>();
+        for (int run = 0; run < runCount; run++) {
+            IndexedTrace trace = new IndexedTrace();
+            for (int event = 0; event < eventsPerRun; event++) {
+                trace.addValue(event % 4, event, (long) run * eventsPerRun + event);
+            }
+            inputs.add(writeIndexed(trace, run));
+        }
+        Path output = tempDir.resolve("merged.adtrace");
+
+        // when
+        List<MergedRun> runs = TraceMerger.mergeTemporal(inputs, output);
+
+        // then
+        IndexedTrace merged = TraceFileReader.readIndexedTrace(output);
+        assertEquals(runCount * eventsPerRun, merged.getTotalEventCount());
+        for (int eventIndex = 0; eventIndex < runCount * eventsPerRun; eventIndex++) {
+            assertEquals((long) eventIndex, merged.getValues(eventIndex % eventsPerRun % 4).get(eventIndex));
+        }
+        assertEquals(runCount - 1, TraceMerger.findRun(runs, runCount * eventsPerRun - 1));
+    }
+
+    @Test
+    void givenIndexedTracesWithNulls_whenMerged_thenNullsKeepTheirEventIndices() throws Exception {
+        // given
+        IndexedTrace first = new IndexedTrace();
+        first.addValue(0, 0, 1);
+        first.addValue(0, 1, 2);
+        first.addValue(1, 0, "a");
+        first.addValue(1, 1, null);
+        IndexedTrace second = new IndexedTrace();
+        second.addValue(0, 0, null);
+        second.addValue(0, 1, 3);
+        second.addValue(1, 0, null);
+        second.addValue(1, 1, "b");
+        List<Path> inputs = List.of(writeIndexed(first, 0), writeIndexed(second, 1));
+        Path output = tempDir.resolve("merged.adtrace");
+
+        // when
+        List<MergedRun> runs = TraceMerger.mergeTemporal(inputs, output, new ForkJoinPool(2));
+
+        // then
+        NavigableMap<Integer, Object> ints = new TreeMap<>();
+        ints.put(0, 1);
+        ints.put(1, 2);
+        ints.put(2, null);
+        ints.put(3, 3);
+        NavigableMap<Integer, Object> strings = new TreeMap<>();
+        strings.put(0, "a");
+        strings.put(1, null);
+        strings.put(2, null);
+        strings.put(3, "b");
+        IndexedTrace merged = TraceFileReader.readIndexedTrace(output);
+        assertEquals(ints, merged.getValues(0));
+        assertEquals(strings, merged.getValues(1));
+        MappedTraceReader mapped = MappedTraceReader.open(output);
+        assertEquals(ints, mapped.getValues(0));
+        assertEquals(strings, mapped.getValues(1));
+        assertEquals(2, runs.get(1).getFirstEventIndex());
+        assertEquals(2, runs.get(1).getEventCount());
+    }
+
+    @Test
+    void givenMissingInput_whenMerged_thenIOExceptionIsThrown() {
+        // given
+        List<Path> inputs = List.of(tempDir.resolve("missing.adtrace"));
+        Path output = tempDir.resolve("merged.adtrace");
+
+        // when / then
+        assertThrows(IOException.class, () -> TraceMerger.mergeTemporal(inputs, output));
+        assertThrows(IOException.class, () -> TraceMerger.mergeNaive(inputs, output));
+    }
+
+    private Path write(Trace trace, int run) throws IOException {
+        Path file = tempDir.resolve("run" + run + ".adtrace");
+        TraceFileWriter.write(file, trace);
+        return file;
+    }
+
+    private Path writeIndexed(IndexedTrace trace, int run) throws IOException {
+        Path file = tempDir.resolve("run" + run + ".adtrace");
+        TraceFileWriter.write(file, trace);
+        return file;
+    }
+}
@@ -1,5 +1,6 @@
 package cz.cuni.mff.d3s.autodebugger.model.java;
 
+import cz.cuni.mff.d3s.autodebugger.model.common.CapturePolicy;
 import cz.cuni.mff.d3s.autodebugger.model.common.RunConfiguration;
 import cz.cuni.mff.d3s.autodebugger.model.common.TargetLanguage;
 import cz.cuni.mff.d3s.autodebugger.model.common.TempPathResolver;
@@ -65,6 +66,40 @@ public class JavaRunConfiguration implements RunConfiguration {
      */
     private final Integer maxArgumentCombinations;
 
+    /**
+     * Number of completed invocations the collector buffers before appending them
+     * to the trace file as one chunk.
+     */
+    @Builder.Default
+    private final int traceChunkSize = 1024;
+
+    /**
+     * Maximum time in milliseconds that buffered invocations may wait before the collector
+     * flushes them to the trace file. Zero disables time-based flushing.
+     */
+    @Builder.Default
+    private final long traceFlushIntervalMillis = 1000;
+
+    /**
+     * Which invocations of the target method the instrumentation captures.
+     * Rejected invocations return from the probe before any value is read.
+     */
+    @Builder.Default
+    private final CapturePolicy capturePolicy = CapturePolicy.ALL;
+
+    /**
+     * Number of distinct values the instrumentation captures per slot in NAIVE mode before the
+     * slot is saturated and no longer sent. Zero means no cap.
+     */
+    private final int maxDistinctValuesPerSlot;
+
+    /**
+     * Number of most recent invocations per thread the instrumentation keeps in FLIGHT_RECORDER mode.
+     * They are sent to the collector when the target method exits with an exception.
+     */
+    @Builder.Default
+    private final int flightRecorderInvocations = 256;
+
     // No default - must be explicitly set via CLI argument or DISL_HOME env var
     private final Path dislHomePath;
 
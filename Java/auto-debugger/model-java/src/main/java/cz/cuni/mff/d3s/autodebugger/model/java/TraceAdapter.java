@@ -1,14 +1,15 @@
 package cz.cuni.mff.d3s.autodebugger.model.java;
 
 import cz.cuni.mff.d3s.autodebugger.model.common.identifiers.ExportableValue;
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.ConcurrentTraceBuilder;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.IndexedTrace;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.TemporalTrace;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.Trace;
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.JavaValueIdentifier;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.NavigableMap;
 import java.util.Set;
 
 /**
@@ -71,18 +72,17 @@ public class TraceAdapter {
      *
      * @param indexedTrace The IndexedTrace containing slot-based data with true event indices
      * @param identifierMapping Mapping from slot IDs to JavaValueIdentifier instances
-     * @return TemporalTrace with all values transferred using their original event indices
+     * @return Frozen TemporalTrace with all values transferred using their original event indices
      */
     public static TemporalTrace convertFromIndexed(IndexedTrace indexedTrace,
                                                    Map<Integer, JavaValueIdentifier> identifierMapping) {
         log.info("Converting IndexedTrace to TemporalTrace with {} identifiers",
                 identifierMapping.size());
 
-        TemporalTrace temporalTrace = new TemporalTrace();
-        int totalValuesConverted = 0;
+        Map<Integer, JavaValueIdentifier> mappedSlots = new HashMap<>();
         int skippedSlots = 0;
 
-        // Process each slot in the indexed trace
+        // Resolve the identifier of each slot in the indexed trace
         for (Integer slotId : indexedTrace.getAllSlotIDs()) {
             JavaValueIdentifier identifier = identifierMapping.get(slotId);
 
@@ -91,22 +91,29 @@ public class TraceAdapter {
                 skippedSlots++;
                 continue;
             }
+            mappedSlots.put(slotId, identifier);
+        }
 
-            // Get all (eventIndex, value) pairs for this slot
-            NavigableMap<Integer, Object> slotValues = indexedTrace.getValues(slotId);
+        // Slots are independent, so their histories are copied in parallel, each slot into
+        // its own segment; freezing merges the segments by event index
+        ConcurrentTraceBuilder<ExportableValue, TemporalTrace> builder = ConcurrentTraceBuilder.forTemporalTrace();
+        mappedSlots.entrySet().parallelStream().forEach(slot -> {
+            ConcurrentTraceBuilder.Segment<ExportableValue> segment = builder.newSegment();
+            JavaValueIdentifier identifier = slot.getValue();
 
             // Transfer each value with its original event index
-            for (Map.Entry<Integer, Object> entry : slotValues.entrySet()) {
+            for (Map.Entry<Integer, Object> entry : indexedTrace.getValues(slot.getKey()).entrySet()) {
                 Integer eventIndex = entry.getKey();
                 Object value = entry.getValue();
 
-                temporalTrace.addValue(identifier, eventIndex, value);
-                totalValuesConverted++;
+                segment.append(identifier, eventIndex, value);
 
                 log.debug("Converted slot {} -> identifier {} at event {}: {}",
-                         slotId, identifier.getName(), eventIndex, value);
+                         slot.getKey(), identifier.getName(), eventIndex, value);
             }
-        }
+        });
+        TemporalTrace temporalTrace = builder.freeze();
+        int totalValuesConverted = temporalTrace.getTotalEventCount();
 
         // Add metadata about the conversion
         temporalTrace.addMetadata("converted_from", "indexed_trace");
@@ -1,5 +1,7 @@
 package cz.cuni.mff.d3s.autodebugger.model.java;
 
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.StateSnapshot;
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.StateSnapshotCursor;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.TemporalTrace;
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.*;
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.JavaClassIdentifier;
@@ -7,6 +9,8 @@ import cz.cuni.mff.d3s.autodebugger.model.common.identifiers.ExportableValue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.SortedMap;
@@ -258,4 +262,51 @@ class TemporalTraceTest {
         assertTrue(summary.contains("Event range: [100, 200]"));
         assertTrue(summary.contains("Metadata entries: 1"));
     }
+
+    @Test
+    void givenMultipleIdentifiers_whenAdvancingStateCursor_thenStatesMatchSnapshots() {
+        trace.addValue(argIdentifier, 100, 42);
+        trace.addValue(fieldIdentifier, 150, "hello");
+        trace.addValue(argIdentifier, 200, 84);
+
+        StateSnapshotCursor cursor = trace.stateCursor();
+        for (int eventIndex : new int[] { 50, 125, 175, 250, 125 }) {
+            assertEquals(trace.getStateSnapshotAt(eventIndex), cursor.advanceTo(eventIndex));
+        }
+    }
+
+    @Test
+    void givenEventRange_whenIteratingSnapshots_thenEveryRecordedEventIsVisitedOnce() {
+        trace.addValue(argIdentifier, 100, 42);
+        trace.addValue(fieldIdentifier, 150, "hello");
+        trace.addValue(argIdentifier, 150, 43);
+        trace.addValue(argIdentifier, 200, 84);
+
+        Iterator<StateSnapshot> snapshots = trace.snapshotIterator(120, 200);
+
+        StateSnapshot first = snapshots.next();
+        assertEquals(150, first.getEventIndex());
+        assertEquals(Map.of(argIdentifier, 43, fieldIdentifier, "hello"), first.getState());
+        StateSnapshot second = snapshots.next();
+        assertEquals(200, second.getEventIndex());
+        assertEquals(84, second.getState().get(argIdentifier));
+        assertFalse(snapshots.hasNext());
+    }
+
+    @Test
+    void givenCheckpoints_whenGettingStateSnapshot_thenMatchesSnapshotWithoutCheckpoints() {
+        for (int i = 0; i < 100; i++) {
+            trace.addValue(i % 3 == 0 ? fieldIdentifier : argIdentifier, i * 10, i);
+        }
+        Map<Integer, Map<ExportableValue, Object>> expected = new HashMap<>();
+        for (int eventIndex = -5; eventIndex < 1005; eventIndex += 7) {
+            expected.put(eventIndex, trace.getStateSnapshotAt(eventIndex));
+        }
+
+        trace.setCheckpointInterval(8);
+
+        for (Map.Entry<Integer, Map<ExportableValue, Object>> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), trace.getStateSnapshotAt(entry.getKey()));
+        }
+    }
 }
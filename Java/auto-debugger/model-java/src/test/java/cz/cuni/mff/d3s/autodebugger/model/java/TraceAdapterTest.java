@@ -150,6 +150,22 @@ class TraceAdapterTest {
         assertEquals(1, temporalTrace.getMetadata("skipped_slot_count"));
     }
 
+    @Test
+    void givenIndexedTrace_whenConvertFromIndexed_thenTemporalTraceIsFrozen() {
+        // given
+        IndexedTrace indexedTrace = new IndexedTrace();
+        indexedTrace.addValue(0, 0, 100);
+        indexedTrace.addValue(1, 1, 200);
+
+        // when
+        TemporalTrace temporalTrace = TraceAdapter.convertFromIndexed(indexedTrace, identifierMapping);
+
+        // then
+        assertTrue(temporalTrace.isFrozen());
+        assertThrows(IllegalStateException.class, () -> temporalTrace.addValue(arg0Identifier, 2, 300));
+        assertEquals(2, temporalTrace.getTotalEventCount());
+    }
+
     @Test
     void givenEmptyIndexedTrace_whenConvertFromIndexed_thenReturnsEmptyTemporalTrace() {
         // given - Convert an empty IndexedTrace
@@ -1,5 +1,6 @@
 package cz.cuni.mff.d3s.autodebugger.runner.args;
 
+import cz.cuni.mff.d3s.autodebugger.model.common.CapturePolicy;
 import cz.cuni.mff.d3s.autodebugger.model.common.TargetLanguage;
 import cz.cuni.mff.d3s.autodebugger.runner.strategies.TestGenerationStrategyProvider;
 import picocli.CommandLine;
@@ -16,6 +17,9 @@ import java.util.stream.Collectors;
  * default values, and help text for user-friendly CLI experience.
  */
 public class Arguments {
+    // Keeps the per-thread ring buffers of the flight recorder addressable with int indices
+    private static final int MAX_FLIGHT_RECORDER_INVOCATIONS = 1 << 20;
+
     @CommandLine.Option(names = { "-j", "--jar" }, paramLabel = "JAR", description = "Path to the application JAR file", required = true)
     public String applicationJarPath;
 
@@ -54,7 +58,8 @@ public class Arguments {
     public String testGenerationStrategy;
 
     @CommandLine.Option(names = { "-r", "--trace-mode" }, paramLabel = "TRACE_MODE",
-                        description = "Trace collection mode: naive or temporal",
+                        description = "Trace collection mode: naive, temporal or flight-recorder (sends the last " +
+                                      "invocations of a thread only when the target method throws)",
                         defaultValue = "naive")
     public String traceMode;
 
@@ -76,6 +81,34 @@ public class Arguments {
                                       "Use this to limit test generation if you have many captured values.")
     public Integer maxArgumentCombinations;
 
+    @CommandLine.Option(names = { "--trace-chunk-size" }, paramLabel = "COUNT",
+                        description = "Number of invocations the collector buffers before appending a chunk to the trace file",
+                        defaultValue = "1024")
+    public int traceChunkSize = 1024;
+
+    @CommandLine.Option(names = { "--trace-flush-interval" }, paramLabel = "MILLIS",
+                        description = "Maximum time in milliseconds buffered invocations wait before being flushed " +
+                                      "to the trace file (0 disables time-based flushing)",
+                        defaultValue = "1000")
+    public long traceFlushIntervalMillis = 1000;
+
+    @CommandLine.Option(names = { "--capture-policy" }, paramLabel = "POLICY",
+                        description = "Which invocations to capture: all, every-nth:N, probabilistic:P[:SEED], " +
+                                      "token-bucket:K (at most K per second) or first-n:N",
+                        defaultValue = "all")
+    public String capturePolicy = "all";
+
+    @CommandLine.Option(names = { "--max-distinct-values" }, paramLabel = "COUNT",
+                        description = "In naive trace mode, stop capturing a value slot once it has this many " +
+                                      "distinct values (0 means no limit)",
+                        defaultValue = "0")
+    public int maxDistinctValuesPerSlot = 0;
+
+    @CommandLine.Option(names = { "--flight-recorder-invocations" }, paramLabel = "COUNT",
+                        description = "In flight-recorder trace mode, number of most recent invocations kept per thread",
+                        defaultValue = "256")
+    public int flightRecorderInvocations = 256;
+
     @CommandLine.Option(names = { "-h", "--help" }, usageHelp = true, description = "display a help message")
     private boolean helpRequested = false;
 
@@ -156,8 +189,35 @@ public class Arguments {
 
         // Validate trace mode
         if (traceMode != null && !traceMode.isEmpty()) {
-            if (!traceMode.equalsIgnoreCase("naive") && !traceMode.equalsIgnoreCase("temporal")) {
-                errors.add("Invalid trace mode: '" + traceMode + "'. Supported modes: naive, temporal");
+            if (!traceMode.equalsIgnoreCase("naive") && !traceMode.equalsIgnoreCase("temporal")
+                    && !traceMode.equalsIgnoreCase("flight-recorder")) {
+                errors.add("Invalid trace mode: '" + traceMode + "'. Supported modes: naive, temporal, flight-recorder");
+            }
+        }
+
+        // Validate trace streaming settings
+        if (traceChunkSize <= 0) {
+            errors.add("Invalid trace chunk size: " + traceChunkSize + ". Must be a positive number of invocations");
+        }
+        if (traceFlushIntervalMillis < 0) {
+            errors.add("Invalid trace flush interval: " + traceFlushIntervalMillis + ". Must not be negative");
+        }
+
+        if (flightRecorderInvocations <= 0 || flightRecorderInvocations > MAX_FLIGHT_RECORDER_INVOCATIONS) {
+            errors.add("Invalid flight recorder size: " + flightRecorderInvocations + ". Must be between 1 and "
+                    + MAX_FLIGHT_RECORDER_INVOCATIONS + " invocations");
+        }
+
+        if (maxDistinctValuesPerSlot < 0) {
+            errors.add("Invalid distinct value limit: " + maxDistinctValuesPerSlot + ". Must not be negative");
+        }
+
+        // Validate capture policy
+        if (capturePolicy != null) {
+            try {
+                CapturePolicy.parse(capturePolicy);
+            } catch (IllegalArgumentException e) {
+                errors.add(e.getMessage());
             }
         }
 
@@ -23,7 +23,8 @@ public class InstrumentationModelFactory {
         log.info("Building DiSL instrumentation model");
 
         if (runConfiguration instanceof JavaRunConfiguration javaRunConfiguration) {
-            DiSLModel model = new DiSLModel(javaRunConfiguration.getTargetMethod(), javaRunConfiguration.getExportableValues());
+            DiSLModel model = new DiSLModel(javaRunConfiguration.getTargetMethod(), javaRunConfiguration.getExportableValues(),
+                    javaRunConfiguration.getCapturePolicy(), javaRunConfiguration.getTraceMode());
             log.info("Successfully built DiSL instrumentation model");
             return model;
         }
@@ -1,5 +1,6 @@
 package cz.cuni.mff.d3s.autodebugger.runner.factories;
 
+import cz.cuni.mff.d3s.autodebugger.model.common.CapturePolicy;
 import cz.cuni.mff.d3s.autodebugger.model.common.RunConfiguration;
 import cz.cuni.mff.d3s.autodebugger.model.common.TargetLanguage;
 import cz.cuni.mff.d3s.autodebugger.model.common.TempPathResolver;
@@ -70,9 +71,7 @@ public class RunConfigurationFactory {
             exportableValues.addAll(fieldValues);
 
             // Determine trace mode
-            var traceMode = (arguments.traceMode != null && arguments.traceMode.equalsIgnoreCase("temporal"))
-                    ? TraceMode.TEMPORAL
-                    : TraceMode.NAIVE;
+            var traceMode = parseTraceMode(arguments.traceMode);
 
             // Handle null runtimeArguments - default to empty list
             var runtimeArgs = arguments.runtimeArguments != null
@@ -92,6 +91,11 @@ public class RunConfigurationFactory {
                     .traceMode(traceMode)
                     .testGenerationStrategy(arguments.testGenerationStrategy)
                     .maxArgumentCombinations(arguments.maxArgumentCombinations)
+                    .traceChunkSize(arguments.traceChunkSize)
+                    .traceFlushIntervalMillis(arguments.traceFlushIntervalMillis)
+                    .maxDistinctValuesPerSlot(arguments.maxDistinctValuesPerSlot)
+                    .flightRecorderInvocations(arguments.flightRecorderInvocations)
+                    .capturePolicy(arguments.capturePolicy != null ? CapturePolicy.parse(arguments.capturePolicy) : CapturePolicy.ALL)
                     .build();
 
             // Validate the configuration
@@ -133,6 +137,20 @@ public class RunConfigurationFactory {
             DISL_HOME_ENV + " environment variable.");
     }
 
+    /**
+     * Maps the trace mode argument to a TraceMode; unknown or missing modes fall back to NAIVE.
+     */
+    private static TraceMode parseTraceMode(String traceMode) {
+        if (traceMode == null) {
+            return TraceMode.NAIVE;
+        }
+        return switch (traceMode.toLowerCase()) {
+            case "temporal" -> TraceMode.TEMPORAL;
+            case "flight-recorder" -> TraceMode.FLIGHT_RECORDER;
+            default -> TraceMode.NAIVE;
+        };
+    }
+
     /**
      * Expands ~ at the beginning of a path to the user's home directory.
      */
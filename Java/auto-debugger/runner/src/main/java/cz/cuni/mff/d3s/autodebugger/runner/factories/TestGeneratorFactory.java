@@ -2,7 +2,6 @@ package cz.cuni.mff.d3s.autodebugger.runner.factories;
 
 import cz.cuni.mff.d3s.autodebugger.model.common.RunConfiguration;
 import cz.cuni.mff.d3s.autodebugger.model.common.TargetLanguage;
-import cz.cuni.mff.d3s.autodebugger.model.common.TraceMode;
 import cz.cuni.mff.d3s.autodebugger.model.java.JavaRunConfiguration;
 import cz.cuni.mff.d3s.autodebugger.runner.strategies.TestGenerationStrategyProvider;
 import cz.cuni.mff.d3s.autodebugger.testgenerator.common.LLMConfiguration;
@@ -96,8 +95,8 @@ public class TestGeneratorFactory {
                     return llmGenerator;
 
                 } else if (strategyId.startsWith("trace-based")) {
-                    // Route based on TraceMode: TEMPORAL mode uses TemporalTraceBasedGenerator
-                    if (runConfiguration.getTraceMode() == TraceMode.TEMPORAL) {
+                    // Route based on TraceMode: TEMPORAL and FLIGHT_RECORDER modes use TemporalTraceBasedGenerator
+                    if (runConfiguration.getTraceMode().isTemporal()) {
                         log.info("Temporal trace mode detected, using TemporalTraceBasedGenerator");
                         TemporalTraceBasedGenerator generator = new TemporalTraceBasedGenerator();
                         log.info("Successfully created TemporalTraceBasedGenerator for strategy: {}", strategyId);
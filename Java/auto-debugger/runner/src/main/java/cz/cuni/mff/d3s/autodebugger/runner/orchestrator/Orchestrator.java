@@ -4,13 +4,14 @@ import cz.cuni.mff.d3s.autodebugger.analyzer.common.AnalysisResult;
 import cz.cuni.mff.d3s.autodebugger.instrumentor.common.modelling.InstrumentationModel;
 import cz.cuni.mff.d3s.autodebugger.model.common.RunConfiguration;
 import cz.cuni.mff.d3s.autodebugger.model.common.TargetLanguage;
-import cz.cuni.mff.d3s.autodebugger.model.common.TraceMode;
 import cz.cuni.mff.d3s.autodebugger.model.common.artifacts.InstrumentationResult;
 import cz.cuni.mff.d3s.autodebugger.model.common.technique.TestTechniqueConfig;
 import cz.cuni.mff.d3s.autodebugger.model.common.tests.TestSuite;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.IndexedTrace;
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.MappedTraceReader;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.TemporalTrace;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.Trace;
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.TraceFileReader;
 import cz.cuni.mff.d3s.autodebugger.model.java.JavaRunConfiguration;
 import cz.cuni.mff.d3s.autodebugger.model.java.TraceAdapter;
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.JavaValueIdentifier;
@@ -33,6 +34,7 @@ import cz.cuni.mff.d3s.autodebugger.testrunner.common.TestExecutionResult;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.FileInputStream;
+import java.io.InvalidClassException;
 import java.io.ObjectInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -111,8 +113,8 @@ public class Orchestrator {
         TestGenerationContext context = createTestGenerationContext();
         List<Path> generatedTests;
 
-        if (runConfiguration.getTraceMode() == TraceMode.TEMPORAL && generator instanceof TemporalTraceBasedGenerator temporalGenerator) {
-            // TEMPORAL MODE: Deserialize IndexedTrace and convert to TemporalTrace with TRUE event indices
+        if (runConfiguration.getTraceMode().isTemporal() && generator instanceof TemporalTraceBasedGenerator temporalGenerator) {
+            // TEMPORAL and FLIGHT_RECORDER MODE: Deserialize IndexedTrace and convert to TemporalTrace with TRUE event indices
             log.info("Temporal trace mode detected, deserializing IndexedTrace with true temporal data");
             IndexedTrace indexedTrace = deserializeIndexedTrace(analysisResult.getTraceFilePath());
             if (indexedTrace == null) {
@@ -167,6 +169,9 @@ public class Orchestrator {
     /**
      * Deserializes an IndexedTrace from the given path.
      * Used for TEMPORAL mode where true event indices are preserved.
+     * Maps .adtrace files streamed by the collector and decodes slots on demand. Other files must hold
+     * one IndexedTrace written by Java serialization of the current version; streams of earlier versions
+     * are rejected, as the serialized forms of the trace classes changed.
      *
      * @param path Path to the serialized IndexedTrace file
      * @return IndexedTrace or null if deserialization fails
@@ -177,6 +182,18 @@ public class Orchestrator {
             return null;
         }
 
+        if (TraceFileReader.isTraceFile(path)) {
+            try {
+                IndexedTrace indexedTrace = MappedTraceReader.open(path).asIndexedTrace();
+                log.info("Mapped IndexedTrace with {} slots and {} events",
+                    indexedTrace.getAllSlotIDs().size(), indexedTrace.getTotalEventCount());
+                return indexedTrace;
+            } catch (Exception e) {
+                log.error("Failed to read IndexedTrace from: {}", path, e);
+                return null;
+            }
+        }
+
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(path.toFile()))) {
             Object obj = ois.readObject();
             if (obj instanceof IndexedTrace indexedTrace) {
@@ -187,6 +204,9 @@ public class Orchestrator {
                 log.error("Expected IndexedTrace but got: {}", obj.getClass().getName());
                 return null;
             }
+        } catch (InvalidClassException e) {
+            log.error("IndexedTrace in {} was written by an incompatible version: {}", path, e.getMessage());
+            return null;
         } catch (Exception e) {
             log.error("Failed to deserialize IndexedTrace from: {}", path, e);
             return null;
@@ -234,6 +254,9 @@ public class Orchestrator {
 
     /**
      * Deserializes a Trace object from a file.
+     * Maps .adtrace files streamed by the collector and decodes slots on demand. Other files must hold
+     * one Trace written by Java serialization of the current version; streams of earlier versions
+     * are rejected, as the serialized forms of the trace classes changed.
      */
     private Trace deserializeTrace(Path traceFilePath) {
         if (traceFilePath == null || !Files.exists(traceFilePath)) {
@@ -242,11 +265,24 @@ public class Orchestrator {
         }
 
         log.info("Deserializing trace from: {}", traceFilePath);
+        if (TraceFileReader.isTraceFile(traceFilePath)) {
+            try {
+                Trace trace = MappedTraceReader.open(traceFilePath).asTrace();
+                log.info("Successfully mapped trace file");
+                return trace;
+            } catch (Exception e) {
+                log.error("Failed to read trace file {}", traceFilePath, e);
+                return null;
+            }
+        }
         try (FileInputStream fileInput = new FileInputStream(traceFilePath.toFile());
              ObjectInputStream objectInput = new ObjectInputStream(fileInput)) {
             Trace trace = (Trace) objectInput.readObject();
             log.info("Successfully deserialized trace");
             return trace;
+        } catch (InvalidClassException e) {
+            log.error("Trace in {} was written by an incompatible version: {}", traceFilePath, e.getMessage());
+            return null;
         } catch (Exception e) {
             log.error("Failed to deserialize trace from {}", traceFilePath, e);
             return null;
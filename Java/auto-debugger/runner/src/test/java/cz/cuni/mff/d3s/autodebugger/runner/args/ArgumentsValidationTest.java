@@ -132,6 +132,34 @@ class ArgumentsValidationTest {
         assertTrue(errors.stream().anyMatch(e -> e.contains("Invalid trace mode")));
     }
 
+    @Test
+    void givenInvalidCapturePolicy_whenValidate_thenReturnsError() {
+        Arguments args = new Arguments();
+        args.applicationJarPath = validJar.toString();
+        args.sourceCodePath = validSourceDir.toString();
+        args.targetMethodReference = "Calculator.add(int,int)";
+        args.targetParameters = List.of("0:int");
+        args.capturePolicy = "every-nth:0";
+
+        List<String> errors = args.validate();
+
+        assertTrue(errors.stream().anyMatch(e -> e.contains("every-nth interval must be positive")));
+    }
+
+    @Test
+    void givenNegativeDistinctValueLimit_whenValidate_thenReturnsError() {
+        Arguments args = new Arguments();
+        args.applicationJarPath = validJar.toString();
+        args.sourceCodePath = validSourceDir.toString();
+        args.targetMethodReference = "Calculator.add(int,int)";
+        args.targetParameters = List.of("0:int");
+        args.maxDistinctValuesPerSlot = -1;
+
+        List<String> errors = args.validate();
+
+        assertTrue(errors.stream().anyMatch(e -> e.contains("Invalid distinct value limit")));
+    }
+
     @Test
     void givenInvalidParameterFormat_whenValidate_thenReturnsError() {
         Arguments args = new Arguments();
@@ -0,0 +1,17 @@
+package cz.cuni.mff.d3s.autodebugger.testgenerator.common;
+
+/**
+ * Strategies for combining the captured values of several variables into test scenarios.
+ */
+public enum CombinationStrategy {
+    /**
+     * Use every combination of the captured values (the Cartesian product).
+     */
+    EXHAUSTIVE,
+
+    /**
+     * Use a covering array: every combination of values of any t variables appears in at
+     * least one scenario, where t is the combination strength (2 for pairwise testing).
+     */
+    COVERING_ARRAY
+}
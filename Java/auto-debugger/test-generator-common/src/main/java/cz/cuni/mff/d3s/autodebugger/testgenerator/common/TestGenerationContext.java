@@ -97,9 +97,12 @@ public class TestGenerationContext {
     
     /**
      * Whether to generate parameterized tests when applicable.
+     * Used by NaiveTraceBasedGenerator to write the scenario inputs into a binary resource next
+     * to the test class, read by a single parameterized test, instead of one test method per scenario.
+     * Default: false.
      */
     @Builder.Default
-    private final boolean generateParameterizedTests = true;
+    private final boolean generateParameterizedTests = false;
 
     // === Configurable limits for test generation strategies ===
     // By default, all limits are set to Integer.MAX_VALUE (no limits) to ensure
@@ -121,6 +124,22 @@ public class TestGenerationContext {
     @Builder.Default
     private final int maxFieldCombinations = Integer.MAX_VALUE;
 
+    /**
+     * How argument and field values are combined into scenarios.
+     * Used by NaiveTraceBasedGenerator before the maxArgumentCombinations and maxFieldCombinations limits apply.
+     * Default: EXHAUSTIVE (every combination of the captured values).
+     */
+    @Builder.Default
+    private final CombinationStrategy combinationStrategy = CombinationStrategy.EXHAUSTIVE;
+
+    /**
+     * Number of variables whose value combinations must all be covered (t) when the
+     * combinationStrategy is COVERING_ARRAY.
+     * Default: 2 (pairwise).
+     */
+    @Builder.Default
+    private final int combinationStrength = 2;
+
     /**
      * Maximum number of state change samples to capture.
      * Used by TemporalTraceBasedGenerator when creating scenarios from state changes.
@@ -129,6 +148,24 @@ public class TestGenerationContext {
     @Builder.Default
     private final int maxStateChangeSamples = Integer.MAX_VALUE;
 
+    /**
+     * Maximum number of test methods in one generated test class.
+     * Used by NaiveTraceBasedGenerator and TemporalTraceBasedGenerator; larger suites are split
+     * into several classes extending a shared base class.
+     * Default: 1000.
+     */
+    @Builder.Default
+    private final int maxTestsPerClass = 1000;
+
+    /**
+     * Maximum size of the test methods of one generated test class, in chars of source code.
+     * Used by NaiveTraceBasedGenerator and TemporalTraceBasedGenerator as an estimate of the
+     * class file size, to stay well within the constant pool and class file limits of the JVM.
+     * Default: 1,000,000.
+     */
+    @Builder.Default
+    private final long maxTestClassSourceChars = 1_000_000L;
+
     /**
      * Maximum number of values per variable to include in LLM prompts.
      * Used by LLMBasedTestGenerator when formatting trace data for the LLM.
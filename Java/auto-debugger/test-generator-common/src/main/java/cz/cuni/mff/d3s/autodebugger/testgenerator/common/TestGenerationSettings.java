@@ -62,9 +62,10 @@ public class TestGenerationSettings {
     
     /**
      * Whether to generate parameterized tests when applicable.
+     * Off by default, trace-based generators then emit one test method per scenario.
      */
     @Builder.Default
-    private final boolean generateParameterizedTests = true;
+    private final boolean generateParameterizedTests = false;
     
     /**
      * Creates default test generation settings.
@@ -2,6 +2,7 @@ package cz.cuni.mff.d3s.autodebugger.testgenerator.java.llm;
 
 import cz.cuni.mff.d3s.autodebugger.model.common.RunConfiguration;
 import cz.cuni.mff.d3s.autodebugger.model.common.identifiers.ExportableValue;
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.StateSnapshotCursor;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.TemporalTrace;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.Trace;
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.JavaValueIdentifier;
@@ -470,9 +471,10 @@ public class LLMBasedTestGenerator implements TestGenerator {
             int sampleCount = Math.min(maxExecutionScenarios, range[1] - range[0] + 1);
             sb.append("// Key execution scenarios:\n");
 
+            StateSnapshotCursor cursor = trace.stateCursor();
             for (int i = 0; i < sampleCount; i++) {
                 int sampleEvent = range[0] + (i * (range[1] - range[0]) / Math.max(1, sampleCount - 1));
-                Map<ExportableValue, Object> snapshot = trace.getStateSnapshotAt(sampleEvent);
+                Map<ExportableValue, Object> snapshot = cursor.advanceTo(sampleEvent);
 
                 sb.append("//   Scenario at event ").append(sampleEvent).append(":\n");
                 for (Map.Entry<ExportableValue, Object> entry : snapshot.entrySet()) {
@@ -0,0 +1,311 @@
+package cz.cuni.mff.d3s.autodebugger.testgenerator.java.trace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Builds t-way covering arrays over the captured values of trace slots with the IPOG
+ * (In-Parameter-Order-General) strategy.
+ *
+ * <p>The array starts as the Cartesian product of the first t slots and grows by one slot
+ * at a time. Every existing row gets the value of the new slot that covers the most
+ * uncovered t-way combinations (horizontal growth); the combinations left over are then
+ * placed into rows with unassigned positions, or into new rows (vertical growth). Slots
+ * with more values go first, which keeps the array close to the product of the t largest
+ * value counts instead of the product of all of them. The array is built up front, but only
+ * up to the requested number of rows: the initial product and the vertical growth stop at
+ * the limit, so a strong or wide request costs no more rows than it may return.
+ */
+final class CoveringArrayGenerator {
+    // Position not assigned yet, any value may be put there
+    private static final int UNSET = -1;
+    // Most t-way combinations tracked while adding one slot, one bit each
+    static final long MAX_TRACKED_COMBINATIONS = 1L << 27;
+
+    private final int strength;
+
+    /**
+     * @param strength Number of slots whose value combinations must all appear, 2 for pairwise.
+     * @throws IllegalArgumentException if the strength is less than 1.
+     */
+    CoveringArrayGenerator(int strength) {
+        if (strength < 1) {
+            throw new IllegalArgumentException("Combination strength must be at least 1, was " + strength);
+        }
+        this.strength = strength;
+    }
+
+    /**
+     * Combines slot values so that every combination of values of any t slots appears in at
+     * least one of the returned combinations.
+     *
+     * @param slotIDs Slots to combine.
+     * @param values Captured values of every slot.
+     * @param maxCombinations Maximum number of combinations to return; the array is cut
+     *                        at this size even if it then no longer covers every combination.
+     * @return Combinations with the values in the order of the slot IDs, one per row of the
+     *         covering array; the rows are built before the first one is returned.
+     * @throws IllegalArgumentException if covering the slots would take tracking more than
+     *                                  {@link #MAX_TRACKED_COMBINATIONS} combinations for a slot.
+     */
+    Iterator<Object[]> generate(List<Integer> slotIDs, Map<Integer, List<Object>> values, int maxCombinations) {
+        if (slotIDs.isEmpty() || maxCombinations <= 0) {
+            return Collections.emptyIterator();
+        }
+
+        // Order slots by descending number of values
+        List<List<Object>> slotValues = slotIDs.stream().map(values::get).toList();
+        Integer[] order = IntStream.range(0, slotIDs.size()).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> slotValues.get(i).size()).reversed());
+        int[] domains = new int[order.length];
+        for (int j = 0; j < order.length; j++) {
+            domains[j] = slotValues.get(order[j]).size();
+            if (domains[j] == 0) {
+                return Collections.emptyIterator();
+            }
+        }
+
+        return build(domains, maxCombinations).stream()
+                .limit(maxCombinations)
+                .map(row -> {
+                    Object[] combination = new Object[row.length];
+                    for (int j = 0; j < row.length; j++) {
+                        combination[order[j]] = slotValues.get(order[j]).get(row[j] == UNSET ? 0 : row[j]);
+                    }
+                    return combination;
+                })
+                .iterator();
+    }
+
+    /**
+     * Builds a covering array of value indices.
+     *
+     * @param domains Number of values of every parameter, in descending order.
+     * @param maxRows Maximum number of rows, the array may not cover every combination once it is reached.
+     * @return Rows of value indices, possibly with {@link #UNSET} positions.
+     */
+    private List<int[]> build(int[] domains, int maxRows) {
+        int t = Math.min(strength, domains.length);
+        long tracked = trackedCombinations(domains, t);
+        if (tracked > MAX_TRACKED_COMBINATIONS) {
+            throw new IllegalArgumentException("A strength-" + t + " covering array of " + domains.length
+                    + " slots with " + Arrays.toString(domains) + " values has to track " + tracked
+                    + " combinations per slot, more than " + MAX_TRACKED_COMBINATIONS
+                    + "; lower the combination strength or capture fewer values");
+        }
+        List<int[]> rows = product(domains, t, maxRows);
+        for (int parameter = t; parameter < domains.length; parameter++) {
+            extend(rows, domains, parameter, t, maxRows);
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the Cartesian product of the first {@code count} parameters, other positions unset.
+     */
+    private static List<int[]> product(int[] domains, int count, int maxRows) {
+        List<int[]> rows = new ArrayList<>();
+        int[] current = new int[domains.length];
+        Arrays.fill(current, count, domains.length, UNSET);
+        while (rows.size() < maxRows) {
+            rows.add(current.clone());
+            // Increment the mixed-radix counter, last parameter fastest
+            int position = count - 1;
+            while (position >= 0 && ++current[position] == domains[position]) {
+                current[position] = 0;
+                position--;
+            }
+            if (position < 0) {
+                break;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Adds a parameter to the array, so that its combinations with every t - 1 of the
+     * preceding parameters are covered, or until the array has {@code maxRows} rows.
+     */
+    private static void extend(List<int[]> rows, int[] domains, int parameter, int t, int maxRows) {
+        int[][] subsets = subsets(parameter, t - 1);
+        BitSet[] covered = new BitSet[subsets.length];
+        long uncovered = 0;
+        for (int s = 0; s < subsets.length; s++) {
+            covered[s] = new BitSet(tupleCount(subsets[s], domains, parameter));
+            uncovered += tupleCount(subsets[s], domains, parameter);
+        }
+
+        // Horizontal growth
+        int[] bases = new int[subsets.length];
+        for (int[] row : rows) {
+            if (uncovered == 0) {
+                break;
+            }
+            for (int s = 0; s < subsets.length; s++) {
+                bases[s] = baseIndex(row, subsets[s], domains);
+            }
+            int bestValue = 0;
+            int bestGain = -1;
+            for (int value = 0; value < domains[parameter]; value++) {
+                int gain = 0;
+                for (int s = 0; s < subsets.length; s++) {
+                    if (bases[s] != UNSET && !covered[s].get(bases[s] * domains[parameter] + value)) {
+                        gain++;
+                    }
+                }
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    bestValue = value;
+                }
+            }
+            row[parameter] = bestValue;
+            for (int s = 0; s < subsets.length; s++) {
+                if (bases[s] != UNSET && !covered[s].get(bases[s] * domains[parameter] + bestValue)) {
+                    covered[s].set(bases[s] * domains[parameter] + bestValue);
+                    uncovered--;
+                }
+            }
+        }
+        if (uncovered == 0 || rows.size() >= maxRows) {
+            return;
+        }
+
+        // Vertical growth, only rows with unset positions can take a missing combination
+        List<int[]> open = new ArrayList<>();
+        for (int[] row : rows) {
+            for (int position = 0; position <= parameter; position++) {
+                if (row[position] == UNSET) {
+                    open.add(row);
+                    break;
+                }
+            }
+        }
+        int[] tuple = new int[t];
+        for (int s = 0; s < subsets.length; s++) {
+            int[] positions = Arrays.copyOf(subsets[s], t);
+            positions[t - 1] = parameter;
+            int count = tupleCount(subsets[s], domains, parameter);
+            for (int index = covered[s].nextClearBit(0); index < count; index = covered[s].nextClearBit(index + 1)) {
+                int rest = index;
+                for (int i = t - 1; i >= 0; i--) {
+                    tuple[i] = rest % domains[positions[i]];
+                    rest /= domains[positions[i]];
+                }
+                int[] target = null;
+                for (int[] row : open) {
+                    if (accepts(row, positions, tuple)) {
+                        target = row;
+                        break;
+                    }
+                }
+                if (target == null) {
+                    if (rows.size() >= maxRows) {
+                        // The array is cut here anyway, leave the remaining combinations uncovered
+                        return;
+                    }
+                    target = new int[domains.length];
+                    Arrays.fill(target, UNSET);
+                    rows.add(target);
+                    open.add(target);
+                }
+                for (int i = 0; i < t; i++) {
+                    target[positions[i]] = tuple[i];
+                }
+            }
+        }
+    }
+
+    private static boolean accepts(int[] row, int[] positions, int[] tuple) {
+        for (int i = 0; i < positions.length; i++) {
+            int current = row[positions[i]];
+            if (current != UNSET && current != tuple[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the mixed-radix index of the row's values at the subset positions, or
+     * {@link #UNSET} if one of them is unset.
+     */
+    private static int baseIndex(int[] row, int[] subset, int[] domains) {
+        int index = 0;
+        for (int position : subset) {
+            if (row[position] == UNSET) {
+                return UNSET;
+            }
+            index = index * domains[position] + row[position];
+        }
+        return index;
+    }
+
+    private static int tupleCount(int[] subset, int[] domains, int parameter) {
+        long count = domains[parameter];
+        for (int position : subset) {
+            count *= domains[position];
+        }
+        // Fits, build() rejects arrays tracking more than MAX_TRACKED_COMBINATIONS
+        return (int) count;
+    }
+
+    /**
+     * Returns the largest number of combinations {@link #extend} tracks for one parameter,
+     * saturating at {@link Long#MAX_VALUE}.
+     */
+    private static long trackedCombinations(int[] domains, int t) {
+        // sums[k] is the sum over k-subsets of the parameters so far of their domain products
+        long[] sums = new long[t];
+        sums[0] = 1;
+        long max = 0;
+        for (int parameter = 0; parameter < domains.length; parameter++) {
+            if (parameter >= t) {
+                max = Math.max(max, saturatedMultiply(sums[t - 1], domains[parameter]));
+            }
+            for (int k = t - 1; k >= 1; k--) {
+                sums[k] = saturatedAdd(sums[k], saturatedMultiply(sums[k - 1], domains[parameter]));
+            }
+        }
+        return max;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long product = a * b;
+        return high != 0 || product < 0 ? Long.MAX_VALUE : product;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Returns every subset of {@code size} elements of {0, ..., n - 1}, each in ascending order.
+     */
+    private static int[][] subsets(int n, int size) {
+        List<int[]> subsets = new ArrayList<>();
+        int[] current = IntStream.range(0, size).toArray();
+        while (true) {
+            subsets.add(current.clone());
+            int i = size - 1;
+            while (i >= 0 && current[i] == n - size + i) {
+                i--;
+            }
+            if (i < 0) {
+                return subsets.toArray(new int[0][]);
+            }
+            current[i]++;
+            for (int j = i + 1; j < size; j++) {
+                current[j] = current[j - 1] + 1;
+            }
+        }
+    }
+}
@@ -23,11 +23,13 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Naive trace-based test generator that creates simple unit tests
@@ -135,22 +137,19 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
         try {
             TraceIdentifierMapper mapper = new TraceIdentifierMapper(trace, identifierMapping);
 
-            // Group values by execution scenarios
-            List<TestScenario> scenarios = extractTestScenarios(mapper);
+            // Group values by execution scenarios, pulled lazily while the test class is written
+            Iterator<TestScenario> scenarios = extractTestScenarios(mapper);
 
-            if (scenarios.isEmpty()) {
+            if (!scenarios.hasNext()) {
                 log.warn("No test scenarios could be extracted from trace");
                 throw new IllegalArgumentException("No test scenarios could be extracted from the provided trace");
             }
 
-            // Generate test class
-            String testClassContent = generateTestClass(scenarios, sourceCodeDirectory);
-
-            // Write test file
-            Path testFile = writeTestFile(testClassContent);
-
-            log.info("Generated {} test scenarios in file: {}", scenarios.size(), testFile);
-            return List.of(testFile);
+            // Generate and write the test classes
+            if (context.isGenerateParameterizedTests()) {
+                return writeDataDrivenTestClass(scenarios, sourceCodeDirectory);
+            }
+            return writeTestClasses(scenarios, sourceCodeDirectory);
 
         } catch (Exception e) {
             log.error("Failed to generate naive trace-based tests", e);
@@ -179,154 +178,195 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
         return true; // No values found in any checked slot
     }
     
-    private List<TestScenario> extractTestScenarios(TraceIdentifierMapper mapper) {
-        List<TestScenario> scenarios = new ArrayList<>();
-
-        // Get all argument and field identifiers
-        Map<Integer, JavaArgumentIdentifier> arguments = new HashMap<>();
-        Map<Integer, JavaFieldIdentifier> fields = new HashMap<>();
+    /**
+     * Returns the test scenarios of the trace. Scenarios are pulled from the value combinations
+     * one at a time; only the 128-bit content hashes of the scenarios seen so far are kept to
+     * drop duplicates.
+     */
+    private Iterator<TestScenario> extractTestScenarios(TraceIdentifierMapper mapper) {
+        // Get all argument and field slots, in slot order
+        List<Integer> argumentSlots = new ArrayList<>();
+        List<Integer> fieldSlots = new ArrayList<>();
 
         for (Integer slotId : mapper.getSlotIDs()) {
             ExportableValue value = mapper.getExportableValue(slotId);
-            if (value instanceof JavaArgumentIdentifier arg) {
-                arguments.put(slotId, arg);
-            } else if (value instanceof JavaFieldIdentifier field) {
-                fields.put(slotId, field);
+            if (value instanceof JavaArgumentIdentifier) {
+                argumentSlots.add(slotId);
+            } else if (value instanceof JavaFieldIdentifier) {
+                fieldSlots.add(slotId);
             }
         }
+        Collections.sort(argumentSlots);
+        Collections.sort(fieldSlots);
 
         // Create test scenarios based on unique combinations of values
-        Set<String> uniqueScenarios = new HashSet<>();
-
-        if (!arguments.isEmpty()) {
-            // Create one scenario per unique combination of argument values
-            List<Map<Integer, Object>> argumentCombinations = generateArgumentCombinations(arguments, mapper);
-
-            for (Map<Integer, Object> argCombo : argumentCombinations) {
-                Map<Integer, Object> fieldCombo = extractFieldValues(fields, mapper);
-
-                String scenarioKey = createScenarioKey(argCombo, fieldCombo);
-                if (!uniqueScenarios.contains(scenarioKey)) {
-                    uniqueScenarios.add(scenarioKey);
-                    scenarios.add(new TestScenario(argCombo, fieldCombo, scenarios.size() + 1));
-                }
-            }
-        } else if (!fields.isEmpty()) {
+        ScenarioKeySet uniqueScenarios = new ScenarioKeySet();
+        int[] scenarioCount = {0};
+
+        if (!argumentSlots.isEmpty()) {
+            // Create one scenario per unique combination of argument values, fields keep their first value
+            int[] argumentSlotIDs = toIntArray(argumentSlots);
+            List<Integer> capturedFieldSlots = fieldSlots.stream()
+                    .filter(slotId -> !mapper.getSlotValues(slotId).isEmpty())
+                    .toList();
+            int[] fieldSlotIDs = toIntArray(capturedFieldSlots);
+            Object[] fieldValues = capturedFieldSlots.stream()
+                    .map(slotId -> mapper.getSlotValues(slotId).iterator().next())
+                    .toArray();
+
+            return stream(generateArgumentCombinations(argumentSlots, mapper))
+                    .filter(argumentValues -> uniqueScenarios.add(argumentValues, fieldValues))
+                    .map(argumentValues -> new TestScenario(argumentSlotIDs, argumentValues, fieldSlotIDs, fieldValues,
+                            ++scenarioCount[0]))
+                    .iterator();
+        } else if (!fieldSlots.isEmpty()) {
             // Field-only scenario: create scenarios based on unique field value combinations
-            List<Map<Integer, Object>> fieldCombinations = generateFieldCombinations(fields, mapper);
+            int[] fieldSlotIDs = toIntArray(fieldSlots);
 
-            for (Map<Integer, Object> fieldCombo : fieldCombinations) {
-                String scenarioKey = createScenarioKey(new HashMap<>(), fieldCombo);
-                if (!uniqueScenarios.contains(scenarioKey)) {
-                    uniqueScenarios.add(scenarioKey);
-                    scenarios.add(new TestScenario(new HashMap<>(), fieldCombo, scenarios.size() + 1));
-                }
-            }
+            return stream(generateFieldCombinations(fieldSlots, mapper))
+                    .filter(fieldValues -> uniqueScenarios.add(new Object[0], fieldValues))
+                    .map(fieldValues -> new TestScenario(new int[0], new Object[0], fieldSlotIDs, fieldValues,
+                            ++scenarioCount[0]))
+                    .iterator();
         }
 
-        return scenarios;
+        return Collections.emptyIterator();
     }
 
-    private List<Map<Integer, Object>> generateFieldCombinations(Map<Integer, JavaFieldIdentifier> fields,
-                                                                 TraceIdentifierMapper mapper) {
-        List<Map<Integer, Object>> combinations = new ArrayList<>();
-
+    private Iterator<Object[]> generateFieldCombinations(List<Integer> fieldSlots, TraceIdentifierMapper mapper) {
         // Get all possible values for each field
         Map<Integer, List<Object>> fieldValues = new HashMap<>();
-        for (Map.Entry<Integer, JavaFieldIdentifier> entry : fields.entrySet()) {
-            Integer slotId = entry.getKey();
+        for (Integer slotId : fieldSlots) {
             Set<?> values = mapper.getSlotValues(slotId);
             fieldValues.put(slotId, new ArrayList<>(values));
         }
 
         // Generate combinations (limit configurable via context to avoid explosion)
-        if (!fieldValues.isEmpty()) {
-            List<Integer> slotIDs = new ArrayList<>(fieldValues.keySet());
-            int maxCombinations = context != null ? context.getMaxFieldCombinations() : Integer.MAX_VALUE;
-            generateCombinationsRecursive(slotIDs, 0, new HashMap<>(), fieldValues, combinations, maxCombinations);
-        }
-
-        return combinations;
+        int maxCombinations = context != null ? context.getMaxFieldCombinations() : Integer.MAX_VALUE;
+        return generateCombinations(fieldSlots, fieldValues, maxCombinations);
     }
     
-    private List<Map<Integer, Object>> generateArgumentCombinations(Map<Integer, JavaArgumentIdentifier> arguments,
-                                                                   TraceIdentifierMapper mapper) {
-        List<Map<Integer, Object>> combinations = new ArrayList<>();
-        
+    private Iterator<Object[]> generateArgumentCombinations(List<Integer> argumentSlots, TraceIdentifierMapper mapper) {
         // Get all possible values for each argument
         Map<Integer, List<Object>> argumentValues = new HashMap<>();
-        for (Map.Entry<Integer, JavaArgumentIdentifier> entry : arguments.entrySet()) {
-            Integer slotId = entry.getKey();
+        for (Integer slotId : argumentSlots) {
             Set<?> values = mapper.getSlotValues(slotId);
             argumentValues.put(slotId, new ArrayList<>(values));
         }
         
         // Generate combinations (limit configurable via context)
-        if (!argumentValues.isEmpty()) {
-            List<Integer> slotIDs = new ArrayList<>(argumentValues.keySet());
-            int maxCombinations = context != null ? context.getMaxArgumentCombinations() : Integer.MAX_VALUE;
-            generateCombinationsRecursive(slotIDs, 0, new HashMap<>(), argumentValues, combinations, maxCombinations);
-        }
-        
-        return combinations;
+        int maxCombinations = context != null ? context.getMaxArgumentCombinations() : Integer.MAX_VALUE;
+        return generateCombinations(argumentSlots, argumentValues, maxCombinations);
     }
-    
-    private void generateCombinationsRecursive(List<Integer> slotIDs, int index, 
-                                             Map<Integer, Object> current,
-                                             Map<Integer, List<Object>> allValues,
-                                             List<Map<Integer, Object>> combinations,
-                                             int maxCombinations) {
-        if (combinations.size() >= maxCombinations) {
-            return;
-        }
-        
-        if (index >= slotIDs.size()) {
-            combinations.add(new HashMap<>(current));
-            return;
-        }
-        
-        Integer slotId = slotIDs.get(index);
-        List<Object> values = allValues.get(slotId);
-        
-        for (Object value : values) {
-            current.put(slotId, value);
-            generateCombinationsRecursive(slotIDs, index + 1, current, allValues, combinations, maxCombinations);
-            current.remove(slotId);
-            
-            if (combinations.size() >= maxCombinations) {
-                break;
-            }
+
+    /**
+     * Combines the values of the slots according to the context's combination strategy.
+     * Each combination holds the values in the order of the slot IDs.
+     */
+    private Iterator<Object[]> generateCombinations(List<Integer> slotIDs,
+                                                    Map<Integer, List<Object>> allValues,
+                                                    int maxCombinations) {
+        if (context != null && context.getCombinationStrategy() == CombinationStrategy.COVERING_ARRAY) {
+            return new CoveringArrayGenerator(context.getCombinationStrength())
+                    .generate(slotIDs, allValues, maxCombinations);
         }
+        return new CartesianIterator(slotIDs, allValues, maxCombinations);
     }
-    
-    private Map<Integer, Object> extractFieldValues(Map<Integer, JavaFieldIdentifier> fields,
-                                                   TraceIdentifierMapper mapper) {
-        Map<Integer, Object> fieldValues = new HashMap<>();
-        
-        for (Map.Entry<Integer, JavaFieldIdentifier> entry : fields.entrySet()) {
-            Integer slotId = entry.getKey();
-            Set<?> values = mapper.getSlotValues(slotId);
-            if (!values.isEmpty()) {
-                fieldValues.put(slotId, values.iterator().next()); // Take first value
-            }
-        }
-        
-        return fieldValues;
+
+    private static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
     }
-    
-    private String createScenarioKey(Map<Integer, Object> arguments, Map<Integer, Object> fields) {
-        StringBuilder key = new StringBuilder();
-        key.append("args:").append(arguments.toString());
-        key.append("|fields:").append(fields.toString());
-        return key.toString();
+
+    private static int[] toIntArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
     }
     
-    private String generateTestClass(List<TestScenario> scenarios, Path sourceCodeDirectory) {
-        // First, generate all test methods to collect object imports
+    /**
+     * Generates the test classes and writes them to the output directory, one test method per
+     * scenario as the scenarios are pulled. The methods are split over several classes with a
+     * shared base class when they exceed the per-class limits of the context.
+     *
+     * @return The base class file, if any, followed by the test class files.
+     */
+    private List<Path> writeTestClasses(Iterator<TestScenario> scenarios, Path sourceCodeDirectory) throws IOException {
         String targetClass = context.getTargetMethod() != null ? context.getTargetMethod().getFullyQualifiedClassName() : "UnknownClass";
         String instanceName = targetClass.substring(targetClass.lastIndexOf('.') + 1).toLowerCase();
 
         // look for the appropriate constructor (factory method, etc) based on field types and signature
+		String instanceCreatingStatement = buildMatchingInstanceCreationStatement(targetClass, sourceCodeDirectory, collectFieldTypes());
+
+        String testClassSig = context.getTargetMethod() != null
+                ? context.getTargetMethod().getFullyQualifiedSignature()
+                : "UnknownClass.unknownMethod()";
+        String testClassName = extractClassNameFromMethod(testClassSig) + "Test";
+
+        // Test methods go first, the headers need the object imports they collect
+        ShardedTestClassWriter.ClassTemplate template = new ShardedTestClassWriter.ClassTemplate() {
+            @Override
+            public String classHeader(String className, String baseClassName) {
+                return generateClassHeader(testClassSig, className, baseClassName, targetClass, instanceName);
+            }
+
+            @Override
+            public String baseClass(String baseClassName) {
+                return generateBaseClass(testClassSig, baseClassName, targetClass, instanceName);
+            }
+        };
+        try (ShardedTestClassWriter writer = new ShardedTestClassWriter(context.getOutputDirectory(), testClassName,
+                template, context.getMaxTestsPerClass(), context.getMaxTestClassSourceChars())) {
+            while (scenarios.hasNext()) {
+                writer.appendMethod(generateTestMethod(scenarios.next(), instanceCreatingStatement, instanceName));
+            }
+            List<Path> testFiles = writer.complete();
+            log.info("Generated {} test scenarios in files: {}", writer.getMethodCount(), testFiles);
+            return testFiles;
+        }
+    }
+
+    /**
+     * Writes the scenario inputs into a binary resource next to the test class, and a test
+     * class with a single parameterized test reading them, so the size of the source does
+     * not depend on the number of scenarios.
+     *
+     * @return The test class file; the resource is not a source file and is not returned, the
+     *         test compiler copies it next to the compiled class where the test looks it up.
+     */
+    private List<Path> writeDataDrivenTestClass(Iterator<TestScenario> scenarios, Path sourceCodeDirectory) throws IOException {
+        String targetClass = context.getTargetMethod() != null ? context.getTargetMethod().getFullyQualifiedClassName() : "UnknownClass";
+        String instanceName = targetClass.substring(targetClass.lastIndexOf('.') + 1).toLowerCase();
+        String instanceCreatingStatement = buildMatchingInstanceCreationStatement(targetClass, sourceCodeDirectory, collectFieldTypes());
+
+        String testClassSig = context.getTargetMethod() != null
+                ? context.getTargetMethod().getFullyQualifiedSignature()
+                : "UnknownClass.unknownMethod()";
+        String testClassName = extractClassNameFromMethod(testClassSig) + "Test";
+        Path outputDirectory = context.getOutputDirectory();
+        Files.createDirectories(outputDirectory);
+        Path resourceFile = outputDirectory.resolve(testClassName + ScenarioResourceWriter.FILE_EXTENSION);
+
+        // All scenarios share the slots of the first one
+        TestScenario first = scenarios.next();
+        int scenarioCount;
+        try (ScenarioResourceWriter resource = new ScenarioResourceWriter(resourceFile,
+                first.argumentValues.length + first.fieldValues.length)) {
+            resource.write(first.argumentValues, first.fieldValues);
+            while (scenarios.hasNext()) {
+                TestScenario scenario = scenarios.next();
+                resource.write(scenario.argumentValues, scenario.fieldValues);
+            }
+            resource.complete();
+            scenarioCount = resource.getScenarioCount();
+        }
+
+        Path testFile = outputDirectory.resolve(testClassName + ".java");
+        Files.writeString(testFile, generateDataDrivenTestClass(first, testClassSig, testClassName, targetClass,
+                instanceName, instanceCreatingStatement), StandardCharsets.UTF_8);
+
+        log.info("Generated {} test scenarios in file: {} with inputs in: {}", scenarioCount, testFile, resourceFile);
+        return List.of(testFile);
+    }
+
+    private List<String> collectFieldTypes() {
         List<String> fieldTypes = new ArrayList<>();
         for (Integer slotId : identifierMapping.keySet()) {
             ExportableValue value = identifierMapping.get(slotId);
@@ -334,16 +374,97 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
                 fieldTypes.add(field.getType());
             }
         }
-		String instanceCreatingStatement = buildMatchingInstanceCreationStatement(targetClass, sourceCodeDirectory, fieldTypes);
+        return fieldTypes;
+    }
+
+    /**
+     * Generates a test class with one parameterized test taking the argument and field values
+     * of a scenario, in the order of the slots of the given scenario.
+     */
+    private String generateDataDrivenTestClass(TestScenario slots, String testClassSig, String testClassName,
+                                               String targetClass, String instanceName, String instanceCreatingStatement) {
+        StringBuilder sb = new StringBuilder();
 
-        StringBuilder testMethodsBuilder = new StringBuilder();
-        for (TestScenario scenario : scenarios) {
-            testMethodsBuilder.append(generateTestMethod(scenario, instanceCreatingStatement, instanceName));
-            testMethodsBuilder.append("\n");
+        // Package declaration
+        String pkg = context.getTargetMethod() != null ? context.getTargetMethod().getPackageName() : "";
+        if (pkg != null && !pkg.isEmpty()) {
+            sb.append("package ").append(pkg).append(";\n\n");
         }
-        String testMethods = testMethodsBuilder.toString();
 
-        // Now build the complete class with imports
+        // Imports
+        sb.append("import org.junit.jupiter.params.ParameterizedTest;\n");
+        sb.append("import org.junit.jupiter.params.provider.MethodSource;\n");
+        for (String decoderImport : ScenarioResourceWriter.decoderImports()) {
+            sb.append("import ").append(decoderImport).append(";\n");
+        }
+        sb.append("import static org.junit.jupiter.api.Assertions.*;\n\n");
+
+        // Class declaration
+        sb.append("/**\n");
+        sb.append(" * Generated test class for ").append(testClassSig).append("\n");
+        sb.append(" * Generated on: ").append(LocalDateTime.now()).append("\n");
+        sb.append(" * Generation strategy: Naive Trace-Based, data-driven\n");
+        sb.append(" * Scenario inputs: ").append(testClassName).append(ScenarioResourceWriter.FILE_EXTENSION).append("\n");
+        sb.append(" */\n");
+        sb.append("public class ").append(testClassName).append(" {\n\n");
+
+        // Instance variable for the class under test (skip for static methods)
+        if (!isStaticMethod()) {
+            sb.append("    private ").append(targetClass).append(" ").append(instanceName).append(";\n\n");
+        }
+
+        // Parameters hold the values of the scenario, arguments first
+        List<String> parameters = new ArrayList<>();
+        List<String> argumentNames = new ArrayList<>();
+        List<String> fieldNames = new ArrayList<>();
+        for (int i = 0; i < slots.argumentSlots.length; i++) {
+            String name = "arg" + i;
+            argumentNames.add(name);
+            parameters.add(formatParameterType(identifierMapping.get(slots.argumentSlots[i])) + " " + name);
+        }
+        for (int i = 0; i < slots.fieldSlots.length; i++) {
+            JavaValueIdentifier field = identifierMapping.get(slots.fieldSlots[i]);
+            String name = field != null && field.getName() != null ? "field" + capitalize(field.getName()) : "field" + i;
+            fieldNames.add(name);
+            parameters.add(formatParameterType(field) + " " + name);
+        }
+
+        String methodName = extractMethodNameFromSignature(testClassSig);
+        sb.append("    @ParameterizedTest\n");
+        sb.append("    @MethodSource(\"scenarios\")\n");
+        sb.append("    void test").append(capitalize(methodName)).append("(").append(String.join(", ", parameters)).append(") {\n");
+        sb.append("        // Arrange\n");
+
+        if (!isStaticMethod()) {
+            sb.append("        // Initialize ").append(instanceName).append(" with appropriate constructor (factory method, etc)\n");
+            sb.append("        ").append(instanceName).append(" = ").append(instanceCreatingStatement).append("(")
+                    .append(String.join(", ", fieldNames)).append(");\n");
+        }
+
+        sb.append("\n        // Act\n");
+        boolean isVoidMethod = isVoidReturnType();
+        appendActAndAssert(sb, generateMethodCall(argumentNames, instanceName, isVoidMethod), isVoidMethod);
+        sb.append("    }\n\n");
+
+        sb.append(ScenarioResourceWriter.decoderSource(testClassName));
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+
+    private String formatParameterType(JavaValueIdentifier identifier) {
+        if (identifier == null || identifier.getType() == null || identifier.getType().isEmpty()) {
+            return "Object";
+        }
+        // Nested classes are captured with their binary names
+        return identifier.getType().replace('$', '.');
+    }
+
+    /**
+     * @param baseClassName Base class holding the instance under test, or null if the class holds it itself.
+     */
+    private String generateClassHeader(String testClassSig, String testClassName, String baseClassName,
+                                       String targetClass, String instanceName) {
         StringBuilder sb = new StringBuilder();
 
         // Package declaration
@@ -364,16 +485,17 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
         sb.append("\n");
 
         // Class declaration
-        String testClassSig = context.getTargetMethod() != null
-                ? context.getTargetMethod().getFullyQualifiedSignature()
-                : "UnknownClass.unknownMethod()";
-        String testClassName = extractClassNameFromMethod(testClassSig) + "Test";
         sb.append("/**\n");
         sb.append(" * Generated test class for ").append(testClassSig).append("\n");
         sb.append(" * Generated on: ").append(LocalDateTime.now()).append("\n");
         sb.append(" * Generation strategy: Naive Trace-Based\n");
         sb.append(" */\n");
-        sb.append("public class ").append(testClassName).append(" {\n\n");
+        sb.append("public class ").append(testClassName);
+        if (baseClassName != null) {
+            sb.append(" extends ").append(baseClassName).append(" {\n\n");
+            return sb.toString();
+        }
+        sb.append(" {\n\n");
 
         // Instance variable for the class under test (skip for static methods)
         if (!isStaticMethod()) {
@@ -382,9 +504,30 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
             // We are doing setup of the object instance in each test method, and not here via common setUp method, because we need to consider field values in the respective test scenario
         }
 
-        // Add the pre-generated test methods
-        sb.append(testMethods);
+        return sb.toString();
+    }
+
+    /**
+     * Generates the abstract base class of split test classes, holding the instance under test.
+     */
+    private String generateBaseClass(String testClassSig, String baseClassName, String targetClass, String instanceName) {
+        StringBuilder sb = new StringBuilder();
 
+        String pkg = context.getTargetMethod() != null ? context.getTargetMethod().getPackageName() : "";
+        if (pkg != null && !pkg.isEmpty()) {
+            sb.append("package ").append(pkg).append(";\n\n");
+        }
+
+        sb.append("/**\n");
+        sb.append(" * Shared fixture of the generated test classes for ").append(testClassSig).append("\n");
+        sb.append(" * Generated on: ").append(LocalDateTime.now()).append("\n");
+        sb.append(" * Generation strategy: Naive Trace-Based\n");
+        sb.append(" */\n");
+        sb.append("public abstract class ").append(baseClassName).append(" {\n");
+
+        if (!isStaticMethod()) {
+            sb.append("\n    protected ").append(targetClass).append(" ").append(instanceName).append(";\n");
+        }
         sb.append("}\n");
 
         return sb.toString();
@@ -405,27 +548,34 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
             // Set up field values if any (through arguments of the constructor with the right signature)
             sb.append("        // Initialize ").append(instanceName).append(" with appropriate constructor (factory method, etc)\n");
             sb.append("        ").append(instanceName).append(" = ").append(instanceCreatingStatement).append("(");
-            boolean first = true;
-            for (Map.Entry<Integer, Object> field : scenario.fieldValues.entrySet()) {
-                if (!first) sb.append(", ");
-                ExportableValue fieldId = identifierMapping.get(field.getKey());
+            for (int i = 0; i < scenario.fieldSlots.length; i++) {
+                if (i > 0) sb.append(", ");
+                ExportableValue fieldId = identifierMapping.get(scenario.fieldSlots[i]);
                 if (fieldId instanceof JavaFieldIdentifier fieldIdentifier) {
                     // Setting the field value (field name is not important here)
-                    sb.append(formatValueForCode(field.getValue()));
+                    sb.append(formatValueForCode(scenario.fieldValues[i]));
                 }
-                first = false;
             }
             sb.append(");\n");
         }
 
         sb.append("\n        // Act\n");
+        appendActAndAssert(sb, generateMethodCall(scenario, instanceName, isVoidMethod), isVoidMethod);
 
+        sb.append("    }\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Appends the call of the tested method and the checks of its result.
+     */
+    private void appendActAndAssert(StringBuilder sb, String methodCall, boolean isVoidMethod) {
         /// We gemerate a try-catch block around the method call (execution of the tested method) and checks (asserts) performed over the result
         // This is mainly for the methods that declare a checked exception possibly thrown during their execution
         sb.append("\n        try {\n");
 
         // Generate method call
-        String methodCall = generateMethodCall(scenario, instanceName, isVoidMethod);
         sb.append("            ").append(methodCall).append("\n");
 
         sb.append("\n            // Assert\n");
@@ -444,10 +594,6 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
         sb.append("\n            // Here we check and enforce this property, effectively\n");
         sb.append("\n            fail(\"Exception: \" + ex.getMessage());\n");
         sb.append("\n        }\n");
-
-        sb.append("    }\n");
-
-        return sb.toString();
     }
 
     private String buildMatchingInstanceCreationStatement(String targetClass, Path sourceCodeDirectory, List<String> fieldTypes) {
@@ -534,7 +680,7 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
         
         if (context.getNamingStrategy() == TestNamingStrategy.PARAMETER_BASED) {
             name.append("_");
-            for (Object value : scenario.argumentValues.values()) {
+            for (Object value : scenario.argumentValues) {
                 name.append(sanitizeValueForMethodName(value)).append("_");
             }
             if (name.toString().endsWith("_")) {
@@ -548,6 +694,21 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
     }
     
     private String generateMethodCall(TestScenario scenario, String instanceName, boolean isVoidMethod) {
+        // Add arguments in order
+        List<String> args = new ArrayList<>();
+        for (int i = 0; i < scenario.argumentSlots.length; i++) {
+            ExportableValue argId = identifierMapping.get(scenario.argumentSlots[i]);
+            if (argId instanceof JavaArgumentIdentifier) {
+                args.add(formatValueForCode(scenario.argumentValues[i]));
+            }
+        }
+        return generateMethodCall(args, instanceName, isVoidMethod);
+    }
+
+    /**
+     * @param args Java expressions of the arguments, in order.
+     */
+    private String generateMethodCall(List<String> args, String instanceName, boolean isVoidMethod) {
         String methodName = extractMethodNameFromSignature(context.getTargetMethod() != null ? context.getTargetMethod().getFullyQualifiedSignature() : "unknownMethod");
 
         StringBuilder call = new StringBuilder();
@@ -557,15 +718,6 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
         String targetName = isStaticMethod() ? getSimpleClassName() : instanceName;
         call.append(targetName).append(".").append(methodName).append("(");
 
-        // Add arguments in order
-        List<String> args = new ArrayList<>();
-        for (Map.Entry<Integer, Object> arg : scenario.argumentValues.entrySet()) {
-            ExportableValue argId = identifierMapping.get(arg.getKey());
-            if (argId instanceof JavaArgumentIdentifier) {
-                args.add(formatValueForCode(arg.getValue()));
-            }
-        }
-
         call.append(String.join(", ", args));
         call.append(");");
 
@@ -720,17 +872,6 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
     }
 
 
-    private Path writeTestFile(String testClassContent) throws IOException {
-        String sig = context.getTargetMethod() != null ? context.getTargetMethod().getFullyQualifiedSignature() : "UnknownClass.unknownMethod()";
-        String testClassName = extractClassNameFromMethod(sig) + "Test";
-        Path testFile = context.getOutputDirectory().resolve(testClassName + ".java");
-        
-        Files.createDirectories(testFile.getParent());
-        Files.write(testFile, testClassContent.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-        
-        return testFile;
-    }
-    
     private TestGenerationContext createDefaultContext() {
         return TestGenerationContext.builder()
                 .outputDirectory(Path.of("generated-tests"))
@@ -775,15 +916,65 @@ public class NaiveTraceBasedGenerator implements TestGenerator {
         return value.toString().replaceAll("[^a-zA-Z0-9]", "");
     }
     
+    /**
+     * Scenario values in slot order; the slot arrays are shared by all scenarios of a trace.
+     */
     private static class TestScenario {
-        final Map<Integer, Object> argumentValues;
-        final Map<Integer, Object> fieldValues;
+        final int[] argumentSlots;
+        final Object[] argumentValues;
+        final int[] fieldSlots;
+        final Object[] fieldValues;
         final int scenarioNumber;
         
-        TestScenario(Map<Integer, Object> argumentValues, Map<Integer, Object> fieldValues, int scenarioNumber) {
+        TestScenario(int[] argumentSlots, Object[] argumentValues, int[] fieldSlots, Object[] fieldValues,
+                     int scenarioNumber) {
+            this.argumentSlots = argumentSlots;
             this.argumentValues = argumentValues;
+            this.fieldSlots = fieldSlots;
             this.fieldValues = fieldValues;
             this.scenarioNumber = scenarioNumber;
         }
     }
+
+    /**
+     * Iterates over the Cartesian product of slot values, the last slot changing fastest,
+     * without materializing the product.
+     */
+    private static class CartesianIterator implements Iterator<Object[]> {
+        private final List<List<Object>> values;
+        private final int[] indices;
+        private int remaining;
+        private boolean exhausted;
+
+        CartesianIterator(List<Integer> slotIDs, Map<Integer, List<Object>> allValues, int maxCombinations) {
+            this.values = slotIDs.stream().map(allValues::get).toList();
+            this.indices = new int[values.size()];
+            this.remaining = maxCombinations;
+            this.exhausted = values.stream().anyMatch(List::isEmpty);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !exhausted && remaining > 0;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] combination = new Object[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                combination[i] = values.get(i).get(indices[i]);
+            }
+            remaining--;
+            int position = indices.length - 1;
+            while (position >= 0 && ++indices[position] == values.get(position).size()) {
+                indices[position] = 0;
+                position--;
+            }
+            exhausted = position < 0;
+            return combination;
+        }
+    }
 }
@@ -0,0 +1,264 @@
+package cz.cuni.mff.d3s.autodebugger.testgenerator.java.trace;
+
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.ObjectSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Set of the test scenarios generated so far, keyed by a 128-bit hash of their contents.
+ *
+ * <p>A scenario is hashed as its argument and field value tuples in slot order. Boxed
+ * primitives are hashed by type and bits, strings by their chars, and object snapshots by
+ * class name and fields. The field hashes of a snapshot are summed, so snapshots that are
+ * equal hash alike whatever order their fields were captured in. No strings are built
+ * while hashing. Snapshots nested deeper than {@link #MAX_DEPTH}, such as cyclic ones, are
+ * hashed by identity below that depth, which can only keep duplicates, never drop a scenario.
+ *
+ * <p>Only the two hash words of a scenario are stored, in one long array with linear
+ * probing; the chance that two distinct scenarios collide is negligible at 128 bits. The
+ * all-zero key marks a free slot and is tracked by a separate flag. It is not thread-safe.
+ */
+final class ScenarioKeySet {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_DEPTH = 64;
+
+    // Type tags keep equal bits of different types apart, as equals() does
+    private static final long TAG_NULL = 1;
+    private static final long TAG_INT = 2;
+    private static final long TAG_LONG = 3;
+    private static final long TAG_SHORT = 4;
+    private static final long TAG_BYTE = 5;
+    private static final long TAG_CHAR = 6;
+    private static final long TAG_BOOLEAN = 7;
+    private static final long TAG_FLOAT = 8;
+    private static final long TAG_DOUBLE = 9;
+    private static final long TAG_STRING = 10;
+    private static final long TAG_SNAPSHOT = 11;
+    private static final long TAG_OTHER = 12;
+
+    // Key i is stored in table[2 * i] and table[2 * i + 1]
+    private long[] table = new long[INITIAL_CAPACITY * 2];
+    private boolean containsZero;
+    private int size;
+    // Hasher per snapshot nesting level, reused between scenarios
+    private final List<Hasher> hashers = new ArrayList<>();
+
+    /**
+     * Adds the scenario with the given argument and field values.
+     *
+     * @param arguments Argument values in slot order.
+     * @param fields Field values in slot order.
+     * @return true if no scenario with the same values was added before.
+     */
+    boolean add(Object[] arguments, Object[] fields) {
+        Hasher hasher = hasher(0).reset();
+        hasher.putTuple(arguments);
+        hasher.putTuple(fields);
+        hasher.finish();
+        return insert(hasher.h1, hasher.h2);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private boolean insert(long h1, long h2) {
+        if (h1 == 0 && h2 == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length / 2 - 1;
+        // The key is already well mixed, any of its bits can pick the slot
+        int index = (int) h1 & mask;
+        while (table[2 * index] != 0 || table[2 * index + 1] != 0) {
+            if (table[2 * index] == h1 && table[2 * index + 1] == h2) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[2 * index] = h1;
+        table[2 * index + 1] = h2;
+        size++;
+        // Grow at 3/4 occupancy to keep probe sequences short
+        if (size * 4L > table.length / 2 * 3L) {
+            rehash(table.length);
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        table = new long[capacity * 2];
+        int mask = capacity - 1;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] == 0 && old[i + 1] == 0) {
+                continue;
+            }
+            int index = (int) old[i] & mask;
+            while (table[2 * index] != 0 || table[2 * index + 1] != 0) {
+                index = (index + 1) & mask;
+            }
+            table[2 * index] = old[i];
+            table[2 * index + 1] = old[i + 1];
+        }
+    }
+
+    private Hasher hasher(int depth) {
+        while (hashers.size() <= depth) {
+            hashers.add(new Hasher(hashers.size()));
+        }
+        return hashers.get(depth);
+    }
+
+    /**
+     * Streaming 128-bit hash in the style of MurmurHash3 x64, fed one long at a time. As a
+     * field consumer it hashes every field separately and sums the results.
+     */
+    private final class Hasher implements BiConsumer<String, Object> {
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private final int depth;
+        long h1;
+        long h2;
+        private long words;
+        // Sum of the field hashes of the snapshot being consumed
+        long fieldsSum1;
+        long fieldsSum2;
+
+        Hasher(int depth) {
+            this.depth = depth;
+        }
+
+        Hasher reset() {
+            h1 = 0x9E3779B97F4A7C15L;
+            h2 = 0xC2B2AE3D27D4EB4FL;
+            words = 0;
+            return this;
+        }
+
+        void putTuple(Object[] values) {
+            putLong(values.length);
+            for (Object value : values) {
+                putValue(value);
+            }
+        }
+
+        void putValue(Object value) {
+            if (value == null) {
+                putLong(TAG_NULL);
+            } else if (value instanceof Integer i) {
+                putLong(TAG_INT);
+                putLong(i);
+            } else if (value instanceof Long l) {
+                putLong(TAG_LONG);
+                putLong(l);
+            } else if (value instanceof String s) {
+                putString(TAG_STRING, s);
+            } else if (value instanceof ObjectSnapshot snapshot) {
+                putSnapshot(snapshot);
+            } else if (value instanceof Double d) {
+                putLong(TAG_DOUBLE);
+                putLong(Double.doubleToLongBits(d));
+            } else if (value instanceof Boolean b) {
+                putLong(TAG_BOOLEAN);
+                putLong(b ? 1 : 0);
+            } else if (value instanceof Character c) {
+                putLong(TAG_CHAR);
+                putLong(c);
+            } else if (value instanceof Float f) {
+                putLong(TAG_FLOAT);
+                putLong(Float.floatToIntBits(f));
+            } else if (value instanceof Short s) {
+                putLong(TAG_SHORT);
+                putLong(s);
+            } else if (value instanceof Byte b) {
+                putLong(TAG_BYTE);
+                putLong(b);
+            } else {
+                // Traces hold no other types; fall back to the class and the 32-bit hash code
+                putString(TAG_OTHER, value.getClass().getName());
+                putLong(value.hashCode());
+            }
+        }
+
+        private void putString(long tag, String s) {
+            putLong(tag);
+            int length = s.length();
+            putLong(length);
+            int i = 0;
+            for (; i + 4 <= length; i += 4) {
+                putLong((long) s.charAt(i) | (long) s.charAt(i + 1) << 16
+                        | (long) s.charAt(i + 2) << 32 | (long) s.charAt(i + 3) << 48);
+            }
+            if (i < length) {
+                long tail = 0;
+                for (int shift = 0; i < length; i++, shift += 16) {
+                    tail |= (long) s.charAt(i) << shift;
+                }
+                putLong(tail);
+            }
+        }
+
+        private void putSnapshot(ObjectSnapshot snapshot) {
+            putString(TAG_SNAPSHOT, snapshot.getClassName());
+            if (depth + 1 >= MAX_DEPTH) {
+                putLong(System.identityHashCode(snapshot));
+                return;
+            }
+            Hasher fields = hasher(depth + 1);
+            fields.fieldsSum1 = 0;
+            fields.fieldsSum2 = 0;
+            snapshot.forEachField(fields);
+            putLong(snapshot.getFieldCount());
+            putLong(fields.fieldsSum1);
+            putLong(fields.fieldsSum2);
+        }
+
+        @Override
+        public void accept(String name, Object value) {
+            reset();
+            putString(TAG_STRING, name);
+            putValue(value);
+            finish();
+            fieldsSum1 += h1;
+            fieldsSum2 += h2;
+        }
+
+        void putLong(long k) {
+            h1 ^= Long.rotateLeft(k * C1, 31) * C2;
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= Long.rotateLeft(k * C2, 33) * C1;
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+            words++;
+        }
+
+        void finish() {
+            h1 ^= words;
+            h2 ^= words;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
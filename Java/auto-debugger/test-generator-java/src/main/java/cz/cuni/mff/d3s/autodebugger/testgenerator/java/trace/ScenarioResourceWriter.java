@@ -0,0 +1,274 @@
+package cz.cuni.mff.d3s.autodebugger.testgenerator.java.trace;
+
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.ObjectSnapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the input values of test scenarios into a compact binary resource read by a
+ * data-driven generated test.
+ *
+ * <p>The resource starts with a magic number and the number of values per scenario. Every
+ * scenario is a non-zero byte followed by its values; a zero byte ends the resource. A
+ * value is a type tag followed by its big-endian bits, strings as a length and UTF-8
+ * bytes, and object snapshots as the class name and the captured fields, skipping the
+ * {@code $} metadata fields. {@link #decoderSource(String)} returns the matching reader
+ * for the generated test, which creates objects with the public constructor whose
+ * parameter types take the captured fields, like the constructor calls of the
+ * code-generating mode.
+ */
+final class ScenarioResourceWriter implements Closeable {
+    static final String FILE_EXTENSION = ".scenarios";
+
+    private static final int MAGIC = 0x41445331; // "ADS1"
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataOutputStream out;
+    private final int valuesPerScenario;
+    private int scenarioCount;
+
+    /**
+     * @param file File to write the scenarios to, replaced if it exists.
+     * @param valuesPerScenario Number of values of every scenario.
+     */
+    ScenarioResourceWriter(Path file, int valuesPerScenario) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+        this.valuesPerScenario = valuesPerScenario;
+        out.writeInt(MAGIC);
+        out.writeInt(valuesPerScenario);
+    }
+
+    /**
+     * Appends a scenario given by its argument values followed by its field values.
+     *
+     * @throws IllegalArgumentException if the scenario does not have the declared number of values.
+     */
+    void write(Object[] arguments, Object[] fields) throws IOException {
+        if (arguments.length + fields.length != valuesPerScenario) {
+            throw new IllegalArgumentException("Expected " + valuesPerScenario + " values per scenario, got "
+                    + (arguments.length + fields.length));
+        }
+        out.writeByte(1);
+        for (Object value : arguments) {
+            writeValue(value);
+        }
+        for (Object value : fields) {
+            writeValue(value);
+        }
+        scenarioCount++;
+    }
+
+    int getScenarioCount() {
+        return scenarioCount;
+    }
+
+    /**
+     * Ends the resource and flushes it to disk.
+     */
+    void complete() throws IOException {
+        out.writeByte(0);
+        out.flush();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.writeByte('N');
+        } else if (value instanceof Integer i) {
+            out.writeByte('I');
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            out.writeByte('J');
+            out.writeLong(l);
+        } else if (value instanceof String s) {
+            out.writeByte('T');
+            writeString(s);
+        } else if (value instanceof ObjectSnapshot snapshot) {
+            writeSnapshot(snapshot);
+        } else if (value instanceof Double d) {
+            out.writeByte('D');
+            out.writeDouble(d);
+        } else if (value instanceof Boolean b) {
+            out.writeByte('Z');
+            out.writeBoolean(b);
+        } else if (value instanceof Character c) {
+            out.writeByte('C');
+            out.writeChar(c);
+        } else if (value instanceof Float f) {
+            out.writeByte('F');
+            out.writeFloat(f);
+        } else if (value instanceof Short s) {
+            out.writeByte('S');
+            out.writeShort(s);
+        } else if (value instanceof Byte b) {
+            out.writeByte('B');
+            out.writeByte(b);
+        } else {
+            throw new IllegalArgumentException("Unsupported scenario value type: " + value.getClass().getName());
+        }
+    }
+
+    private void writeSnapshot(ObjectSnapshot snapshot) throws IOException {
+        // Skip internal/metadata fields, as the generated constructor calls do
+        List<Object> fields = new ArrayList<>();
+        snapshot.forEachField((name, value) -> {
+            if (!name.startsWith("$")) {
+                fields.add(value);
+            }
+        });
+        out.writeByte('O');
+        writeString(snapshot.getClassName());
+        out.writeInt(fields.size());
+        for (Object field : fields) {
+            writeValue(field);
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Returns the members of a generated test class that read its scenario resource: a
+     * {@code scenarios()} method for {@code @MethodSource} and its helpers. The resource is
+     * looked up on the class path next to the test class. Only uses Java 11 and JUnit APIs.
+     *
+     * @param testClassName Simple name of the generated test class.
+     */
+    static String decoderSource(String testClassName) {
+        return """
+                    private static final String SCENARIOS = "%1$s%2$s";
+
+                    static Stream<Arguments> scenarios() throws IOException {
+                        InputStream resource = %1$s.class.getResourceAsStream(SCENARIOS);
+                        if (resource == null) {
+                            throw new IOException("Scenario resource " + SCENARIOS + " is not on the class path next to %1$s");
+                        }
+                        DataInputStream in = new DataInputStream(new BufferedInputStream(resource));
+                        if (in.readInt() != 0x%3$08X) {
+                            in.close();
+                            throw new IOException("Not a scenario resource: " + SCENARIOS);
+                        }
+                        int width = in.readInt();
+                        return Stream.generate(() -> readScenario(in, width))
+                                .takeWhile(Objects::nonNull)
+                                .onClose(() -> {
+                                    try {
+                                        in.close();
+                                    } catch (IOException e) {
+                                        throw new UncheckedIOException(e);
+                                    }
+                                });
+                    }
+
+                    private static Arguments readScenario(DataInputStream in, int width) {
+                        try {
+                            if (in.readByte() == 0) {
+                                return null;
+                            }
+                            Object[] values = new Object[width];
+                            for (int i = 0; i < width; i++) {
+                                values[i] = readValue(in);
+                            }
+                            return Arguments.of(values);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+
+                    private static Object readValue(DataInputStream in) throws IOException {
+                        int tag = in.readUnsignedByte();
+                        switch (tag) {
+                            case 'N': return null;
+                            case 'I': return in.readInt();
+                            case 'J': return in.readLong();
+                            case 'T': return readString(in);
+                            case 'O': return readObject(in);
+                            case 'D': return in.readDouble();
+                            case 'Z': return in.readBoolean();
+                            case 'C': return in.readChar();
+                            case 'F': return in.readFloat();
+                            case 'S': return in.readShort();
+                            case 'B': return in.readByte();
+                            default: throw new IOException("Unknown value tag " + tag + " in " + SCENARIOS);
+                        }
+                    }
+
+                    private static String readString(DataInputStream in) throws IOException {
+                        byte[] bytes = new byte[in.readInt()];
+                        in.readFully(bytes);
+                        return new String(bytes, StandardCharsets.UTF_8);
+                    }
+
+                    private static Object readObject(DataInputStream in) throws IOException {
+                        String className = readString(in);
+                        Object[] fields = new Object[in.readInt()];
+                        for (int i = 0; i < fields.length; i++) {
+                            fields[i] = readValue(in);
+                        }
+                        try {
+                            Class<?> type = Class.forName(className, true, %1$s.class.getClassLoader());
+                            // Use the constructor taking the captured fields, as the generated constructor calls do
+                            for (Constructor<?> constructor : type.getConstructors()) {
+                                if (accepts(constructor.getParameterTypes(), fields)) {
+                                    return constructor.newInstance(fields);
+                                }
+                            }
+                        } catch (ReflectiveOperationException e) {
+                            throw new IOException("Cannot create " + className + " from " + SCENARIOS, e);
+                        }
+                        throw new IOException("No public constructor of " + className + " takes its "
+                                + fields.length + " captured fields");
+                    }
+
+                    private static boolean accepts(Class<?>[] parameterTypes, Object[] values) {
+                        if (parameterTypes.length != values.length) {
+                            return false;
+                        }
+                        for (int i = 0; i < values.length; i++) {
+                            if (values[i] == null) {
+                                if (parameterTypes[i].isPrimitive()) {
+                                    return false;
+                                }
+                            } else if (!MethodType.methodType(parameterTypes[i]).wrap().returnType().isInstance(values[i])) {
+                                // Primitive parameters take the boxed values read for them
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                """.formatted(testClassName, FILE_EXTENSION, MAGIC);
+    }
+
+    /**
+     * Imports needed by {@link #decoderSource(String)}.
+     */
+    static List<String> decoderImports() {
+        return List.of(
+                "java.io.BufferedInputStream",
+                "java.io.DataInputStream",
+                "java.io.IOException",
+                "java.io.InputStream",
+                "java.io.UncheckedIOException",
+                "java.lang.invoke.MethodType",
+                "java.lang.reflect.Constructor",
+                "java.nio.charset.StandardCharsets",
+                "java.util.Objects",
+                "java.util.stream.Stream",
+                "org.junit.jupiter.params.provider.Arguments");
+    }
+}
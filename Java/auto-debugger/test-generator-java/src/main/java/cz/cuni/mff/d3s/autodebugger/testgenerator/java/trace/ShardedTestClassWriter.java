@@ -0,0 +1,149 @@
+package cz.cuni.mff.d3s.autodebugger.testgenerator.java.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes generated test methods into as many test classes as it takes to keep every class
+ * within the method and source size limits.
+ *
+ * <p>A class is closed before the method that would take it over either limit, and the
+ * next one is started. The size limit is checked on the generated source, which grows with
+ * the bytecode and constant pool of the compiled class. A suite that fits into one class is
+ * written as before, under the given class name. A larger one is written as classes named
+ * {@code <name>1} to {@code <name>N}, all extending an abstract {@code <name>Base} with the
+ * fixture they share, so they can be compiled and run independently of each other once the
+ * base class is compiled.
+ */
+final class ShardedTestClassWriter implements Closeable {
+    private static final String FOOTER = "}\n";
+
+    /**
+     * Provides the parts of the generated classes that do not depend on the test methods.
+     */
+    interface ClassTemplate {
+        /**
+         * @param className Name of the test class.
+         * @param baseClassName Name of the base class to extend, or null if the suite fits into one class.
+         * @return Source of the test class up to its first test method.
+         */
+        String classHeader(String className, String baseClassName);
+
+        /**
+         * @param baseClassName Name of the base class.
+         * @return Complete source of the abstract base class with the shared fixture.
+         */
+        String baseClass(String baseClassName);
+    }
+
+    private final Path directory;
+    private final String testClassName;
+    private final ClassTemplate template;
+    private final int maxMethodsPerClass;
+    private final long maxClassSourceChars;
+
+    private final List<Path> shardFiles = new ArrayList<>();
+    private StreamingTestClassWriter current;
+    private int methodsInCurrent;
+    private int methodCount;
+
+    /**
+     * @param directory Directory to write the test classes to.
+     * @param testClassName Name of the test class, used as the prefix of the shard names.
+     * @param template Source of the class headers and of the base class.
+     * @param maxMethodsPerClass Maximum number of test methods in one class.
+     * @param maxClassSourceChars Maximum size of the methods of one class in chars; a single
+     *                            larger method still gets a class of its own.
+     * @throws IllegalArgumentException if a limit is not positive.
+     */
+    ShardedTestClassWriter(Path directory, String testClassName, ClassTemplate template,
+                           int maxMethodsPerClass, long maxClassSourceChars) {
+        if (maxMethodsPerClass < 1) {
+            throw new IllegalArgumentException("Maximum tests per class must be positive, was " + maxMethodsPerClass);
+        }
+        if (maxClassSourceChars < 1) {
+            throw new IllegalArgumentException("Maximum class source size must be positive, was " + maxClassSourceChars);
+        }
+        this.directory = directory;
+        this.testClassName = testClassName;
+        this.template = template;
+        this.maxMethodsPerClass = maxMethodsPerClass;
+        this.maxClassSourceChars = maxClassSourceChars;
+    }
+
+    /**
+     * Appends a test method, followed by an empty line, starting a new class first if the
+     * current one has no room for it.
+     */
+    void appendMethod(CharSequence method) throws IOException {
+        long size = method.length() + 1L;
+        if (current != null && (methodsInCurrent >= maxMethodsPerClass
+                || current.length() + size > maxClassSourceChars)) {
+            completeShard();
+        }
+        if (current == null) {
+            current = new StreamingTestClassWriter(directory);
+            methodsInCurrent = 0;
+        }
+        current.append(method);
+        current.append("\n");
+        methodsInCurrent++;
+        methodCount++;
+    }
+
+    /**
+     * @return Number of test methods appended so far.
+     */
+    int getMethodCount() {
+        return methodCount;
+    }
+
+    /**
+     * Writes the remaining test class, and the base class if the methods did not fit into one.
+     *
+     * @return The base class file, if any, followed by the test class files in order.
+     */
+    List<Path> complete() throws IOException {
+        if (shardFiles.isEmpty()) {
+            if (current == null) {
+                current = new StreamingTestClassWriter(directory);
+            }
+            Path testFile = directory.resolve(testClassName + ".java");
+            current.complete(testFile, template.classHeader(testClassName, null), FOOTER);
+            close();
+            return List.of(testFile);
+        }
+        if (current != null) {
+            completeShard();
+        }
+        String baseClassName = testClassName + "Base";
+        Path baseFile = directory.resolve(baseClassName + ".java");
+        Files.writeString(baseFile, template.baseClass(baseClassName), StandardCharsets.UTF_8);
+
+        List<Path> files = new ArrayList<>(shardFiles.size() + 1);
+        files.add(baseFile);
+        files.addAll(shardFiles);
+        return files;
+    }
+
+    private void completeShard() throws IOException {
+        String shardName = testClassName + (shardFiles.size() + 1);
+        Path shardFile = directory.resolve(shardName + ".java");
+        current.complete(shardFile, template.classHeader(shardName, testClassName + "Base"), FOOTER);
+        close();
+        shardFiles.add(shardFile);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package cz.cuni.mff.d3s.autodebugger.testgenerator.java.trace;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a generated test class to disk while its test methods are being generated.
+ *
+ * <p>The methods are appended to a temporary body file in the output directory through a
+ * buffered writer, so only the method being generated is held in memory.
+ * {@link #complete(Path, CharSequence, CharSequence)} then writes the class header, which
+ * may depend on what the methods used (such as imports or the class name), transfers the
+ * body into the test file channel to channel and appends the footer. The body file is
+ * deleted on {@link #close()}; a writer closed without being completed leaves no test file behind.
+ */
+final class StreamingTestClassWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel bodyChannel;
+    private final Writer body;
+    private long length;
+
+    /**
+     * @param directory Directory the test class will be written to.
+     * @throws IOException if the directory or the body file cannot be created.
+     */
+    StreamingTestClassWriter(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path bodyFile = Files.createTempFile(directory, "generated-test", ".body");
+        this.bodyChannel = FileChannel.open(bodyFile, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        this.body = new BufferedWriter(Channels.newWriter(bodyChannel, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Appends generated code to the class body.
+     */
+    void append(CharSequence code) throws IOException {
+        body.append(code);
+        length += code.length();
+    }
+
+    /**
+     * @return Number of chars appended to the body so far.
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Writes the test file: the header, the body appended so far and the footer.
+     *
+     * @param testFile File to write the test class to, replaced if it exists.
+     * @return The test file.
+     */
+    Path complete(Path testFile, CharSequence header, CharSequence footer) throws IOException {
+        body.flush();
+        try (FileChannel out = FileChannel.open(testFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, header);
+            long size = bodyChannel.size();
+            long position = 0;
+            while (position < size) {
+                position += bodyChannel.transferTo(position, size - position, out);
+            }
+            writeFully(out, footer);
+        }
+        return testFile;
+    }
+
+    private static void writeFully(FileChannel out, CharSequence text) throws IOException {
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(text.toString());
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
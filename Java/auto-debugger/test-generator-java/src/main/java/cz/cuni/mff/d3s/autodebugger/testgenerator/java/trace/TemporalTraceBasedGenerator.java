@@ -2,6 +2,7 @@ package cz.cuni.mff.d3s.autodebugger.testgenerator.java.trace;
 
 import cz.cuni.mff.d3s.autodebugger.model.common.RunConfiguration;
 import cz.cuni.mff.d3s.autodebugger.model.common.identifiers.ExportableValue;
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.StateSnapshotCursor;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.TemporalTrace;
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.Trace;
 import cz.cuni.mff.d3s.autodebugger.model.java.JavaRunConfiguration;
@@ -16,12 +17,11 @@ import cz.cuni.mff.d3s.autodebugger.testgenerator.java.JavaTestGenerationContext
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Enhanced trace-based test generator that leverages the temporal aspects
@@ -62,22 +62,16 @@ public class TemporalTraceBasedGenerator implements TestGenerator {
 
             validateTemporalTrace(trace);
 
-            // Analyze the trace to identify test scenarios
-            List<TestScenario> scenarios = analyzeTraceForScenarios(trace);
+            // Analyze the trace to identify test scenarios, pulled lazily while the test class is written
+            Iterator<TestScenario> scenarios = analyzeTraceForScenarios(trace);
 
-            if (scenarios.isEmpty()) {
+            if (!scenarios.hasNext()) {
                 log.warn("No test scenarios found in trace");
                 return List.of();
             }
 
-            // Generate test class content
-            String testClassContent = generateTestClass(scenarios, trace);
-
-            // Write test file
-            Path testFile = writeTestFile(testClassContent);
-
-            log.info("Generated {} test scenarios in file: {}", scenarios.size(), testFile);
-            return List.of(testFile);
+            // Generate and write the test classes
+            return writeTestClasses(scenarios, trace);
 
         } catch (Exception e) {
             log.error("Failed to generate enhanced trace-based tests", e);
@@ -167,16 +161,15 @@ public class TemporalTraceBasedGenerator implements TestGenerator {
 
     /**
      * Analyzes the trace to identify distinct test scenarios based on
-     * method invocation points and state changes.
+     * method invocation points and state changes. The state of a scenario
+     * is reconstructed only when the scenario is pulled from the iterator.
      */
-    private List<TestScenario> analyzeTraceForScenarios(TemporalTrace trace) {
-        List<TestScenario> scenarios = new ArrayList<>();
-        
+    private Iterator<TestScenario> analyzeTraceForScenarios(TemporalTrace trace) {
         // Get the event range to understand the execution timeline
         Optional<int[]> eventRange = trace.getEventIndexRange();
         if (eventRange.isEmpty()) {
             log.warn("Trace contains no events");
-            return scenarios;
+            return Collections.emptyIterator();
         }
         
         int[] range = eventRange.get();
@@ -185,24 +178,30 @@ public class TemporalTraceBasedGenerator implements TestGenerator {
         // Identify potential method invocation points
         List<Integer> invocationPoints = identifyMethodInvocationPoints(trace, range);
         
-        // For each invocation point, create a test scenario
-        for (int i = 0; i < invocationPoints.size() && scenarios.size() < context.getMaxTestCount(); i++) {
-            Integer invocationEvent = invocationPoints.get(i);
-            
-            // Get the state snapshot just before the method invocation
-            Map<ExportableValue, Object> stateSnapshot = trace.getStateSnapshotAt(invocationEvent - 1);
-            
-            if (!stateSnapshot.isEmpty()) {
-                TestScenario scenario = createScenarioFromSnapshot(stateSnapshot, invocationEvent, i + 1);
-                scenarios.add(scenario);
-                log.debug("Created scenario {} at event {} with {} variables", 
-                         i + 1, invocationEvent, stateSnapshot.size());
-            }
-        }
+        // For each invocation point, create a test scenario; the points are sorted, so one
+        // cursor sweeps the trace once instead of looking up every variable per point
+        StateSnapshotCursor cursor = trace.stateCursor();
+        Iterator<TestScenario> scenarios = IntStream.range(0, invocationPoints.size())
+                .mapToObj(i -> {
+                    Integer invocationEvent = invocationPoints.get(i);
+
+                    // Get the state snapshot just before the method invocation
+                    Map<ExportableValue, Object> stateSnapshot = cursor.advanceTo(invocationEvent - 1);
+
+                    if (stateSnapshot.isEmpty()) {
+                        return null;
+                    }
+                    log.debug("Created scenario {} at event {} with {} variables",
+                             i + 1, invocationEvent, stateSnapshot.size());
+                    return createScenarioFromSnapshot(stateSnapshot, invocationEvent, i + 1);
+                })
+                .filter(Objects::nonNull)
+                .limit(context.getMaxTestCount())
+                .iterator();
         
         // If no specific invocation points found, create scenarios from state changes
-        if (scenarios.isEmpty()) {
-            scenarios.addAll(createScenariosFromStateChanges(trace, range));
+        if (!scenarios.hasNext()) {
+            return createScenariosFromStateChanges(trace, range);
         }
         
         return scenarios;
@@ -268,33 +267,68 @@ public class TemporalTraceBasedGenerator implements TestGenerator {
     /**
      * Creates scenarios based on significant state changes in the trace.
      */
-    private List<TestScenario> createScenariosFromStateChanges(TemporalTrace trace, int[] eventRange) {
-        List<TestScenario> scenarios = new ArrayList<>();
-        
+    private Iterator<TestScenario> createScenariosFromStateChanges(TemporalTrace trace, int[] eventRange) {
         // Sample the trace at different points to capture state evolution
         // Use configurable maxStateChangeSamples instead of hardcoded 5
         int maxSamples = context.getMaxStateChangeSamples();
         int sampleCount = Math.min(context.getMaxTestCount(), maxSamples);
         int interval = Math.max(1, (eventRange[1] - eventRange[0]) / sampleCount);
         
-        for (int i = 0; i < sampleCount; i++) {
-            int sampleEvent = eventRange[0] + (i * interval);
-            Map<ExportableValue, Object> snapshot = trace.getStateSnapshotAt(sampleEvent);
-            
-            if (!snapshot.isEmpty()) {
-                TestScenario scenario = createScenarioFromSnapshot(snapshot, sampleEvent, i + 1);
-                scenarios.add(scenario);
+        log.info("Creating scenarios from {} state change samples", sampleCount);
+        StateSnapshotCursor cursor = trace.stateCursor();
+        return IntStream.range(0, sampleCount)
+                .mapToObj(i -> {
+                    int sampleEvent = eventRange[0] + (i * interval);
+                    Map<ExportableValue, Object> snapshot = cursor.advanceTo(sampleEvent);
+                    return snapshot.isEmpty() ? null : createScenarioFromSnapshot(snapshot, sampleEvent, i + 1);
+                })
+                .filter(Objects::nonNull)
+                .iterator();
+    }
+    
+    /**
+     * Generates the test classes and writes them to the output directory, one test method per
+     * scenario as the scenarios are pulled. The methods are split over several classes with a
+     * shared base class when they exceed the per-class limits of the context.
+     *
+     * @return The base class file, if any, followed by the test class files.
+     */
+    private List<Path> writeTestClasses(Iterator<TestScenario> scenarios, TemporalTrace trace) throws IOException {
+        String sig = context.getTargetMethod() != null ? context.getTargetMethod().getFullyQualifiedSignature() : "UnknownClass.unknownMethod()";
+        String testClassName = extractClassNameFromMethod(sig) + "EnhancedTest";
+
+        String targetClass = context.getTargetMethod() != null ? context.getTargetMethod().getFullyQualifiedClassName() : "UnknownClass";
+        String instanceName = targetClass.substring(targetClass.lastIndexOf('.') + 1).toLowerCase();
+
+        ShardedTestClassWriter.ClassTemplate template = new ShardedTestClassWriter.ClassTemplate() {
+            @Override
+            public String classHeader(String className, String baseClassName) {
+                return generateClassHeader(trace, sig, className, baseClassName, targetClass, instanceName);
             }
+
+            @Override
+            public String baseClass(String baseClassName) {
+                return generateBaseClass(sig, baseClassName, targetClass, instanceName);
+            }
+        };
+        try (ShardedTestClassWriter writer = new ShardedTestClassWriter(context.getOutputDirectory(), testClassName,
+                template, context.getMaxTestsPerClass(), context.getMaxTestClassSourceChars())) {
+            // Generate test methods for each scenario
+            while (scenarios.hasNext()) {
+                writer.appendMethod(generateTestMethod(scenarios.next(), instanceName));
+            }
+            List<Path> testFiles = writer.complete();
+            log.info("Generated {} test scenarios in files: {}", writer.getMethodCount(), testFiles);
+            return testFiles;
         }
-        
-        log.info("Created {} scenarios from state changes", scenarios.size());
-        return scenarios;
     }
-    
+
     /**
-     * Generates the complete test class content.
+     * @param baseClassName Base class holding the instance under test and its set-up, or null
+     *                      if the class holds them itself.
      */
-    private String generateTestClass(List<TestScenario> scenarios, TemporalTrace trace) {
+    private String generateClassHeader(TemporalTrace trace, String sig, String testClassName, String baseClassName,
+                                       String targetClass, String instanceName) {
         StringBuilder sb = new StringBuilder();
         
         // Package declaration
@@ -310,41 +344,65 @@ public class TemporalTraceBasedGenerator implements TestGenerator {
         sb.append("import static org.junit.jupiter.api.Assertions.*;\n\n");
         
         // Class declaration with documentation
-        String sig = context.getTargetMethod() != null ? context.getTargetMethod().getFullyQualifiedSignature() : "UnknownClass.unknownMethod()";
-        String testClassName = extractClassNameFromMethod(sig) + "EnhancedTest";
         sb.append("/**\n");
         sb.append(" * Enhanced trace-based test class for ").append(sig).append("\n");
         sb.append(" * Generated on: ").append(LocalDateTime.now()).append("\n");
         sb.append(" * Generation strategy: Enhanced Trace-Based\n");
         sb.append(" * Trace summary: ").append(trace.getSummary().replace("\n", "\n * ")).append("\n");
         sb.append(" */\n");
-        sb.append("public class ").append(testClassName).append(" {\n\n");
+        sb.append("public class ").append(testClassName);
+        if (baseClassName != null) {
+            sb.append(" extends ").append(baseClassName).append(" {\n\n");
+            return sb.toString();
+        }
+        sb.append(" {\n\n");
 
         // Instance variable for the class under test (skip for static methods)
-        String targetClass = context.getTargetMethod() != null ? context.getTargetMethod().getFullyQualifiedClassName() : "UnknownClass";
-        String instanceName = targetClass.substring(targetClass.lastIndexOf('.') + 1).toLowerCase();
-
         if (!isStaticMethod()) {
             sb.append("    private ").append(targetClass).append(" ").append(instanceName).append(";\n\n");
-
-            // Setup method
-            sb.append("    @BeforeEach\n");
-            sb.append("    void setUp() {\n");
-            sb.append("        // TODO: Initialize ").append(instanceName).append(" with appropriate constructor\n");
-            sb.append("        // ").append(instanceName).append(" = new ").append(targetClass).append("();\n");
-            sb.append("    }\n\n");
-        }
-        
-        // Generate test methods for each scenario
-        for (TestScenario scenario : scenarios) {
-            sb.append(generateTestMethod(scenario, instanceName));
+            appendSetUp(sb, targetClass, instanceName);
             sb.append("\n");
         }
         
+        return sb.toString();
+    }
+
+    /**
+     * Generates the abstract base class of split test classes, holding the instance under test
+     * and its set-up.
+     */
+    private String generateBaseClass(String sig, String baseClassName, String targetClass, String instanceName) {
+        StringBuilder sb = new StringBuilder();
+
+        String pkg = context.getTargetMethod() != null ? context.getTargetMethod().getPackageName() : "";
+        if (pkg != null && !pkg.isEmpty()) {
+            sb.append("package ").append(pkg).append(";\n\n");
+        }
+
+        sb.append("import org.junit.jupiter.api.BeforeEach;\n\n");
+        sb.append("/**\n");
+        sb.append(" * Shared fixture of the enhanced trace-based test classes for ").append(sig).append("\n");
+        sb.append(" * Generated on: ").append(LocalDateTime.now()).append("\n");
+        sb.append(" * Generation strategy: Enhanced Trace-Based\n");
+        sb.append(" */\n");
+        sb.append("public abstract class ").append(baseClassName).append(" {\n");
+
+        if (!isStaticMethod()) {
+            sb.append("\n    protected ").append(targetClass).append(" ").append(instanceName).append(";\n\n");
+            appendSetUp(sb, targetClass, instanceName);
+        }
         sb.append("}\n");
-        
+
         return sb.toString();
     }
+
+    private void appendSetUp(StringBuilder sb, String targetClass, String instanceName) {
+        sb.append("    @BeforeEach\n");
+        sb.append("    void setUp() {\n");
+        sb.append("        // TODO: Initialize ").append(instanceName).append(" with appropriate constructor\n");
+        sb.append("        // ").append(instanceName).append(" = new ").append(targetClass).append("();\n");
+        sb.append("    }\n");
+    }
     
     /**
      * Generates a single test method for a scenario.
@@ -468,17 +526,6 @@ public class TemporalTraceBasedGenerator implements TestGenerator {
         return value != null ? value.toString() : "null";
     }
     
-    private Path writeTestFile(String testClassContent) throws IOException {
-        String methodSignatureForClass = context.getTargetMethod() != null ? context.getTargetMethod().getFullyQualifiedSignature() : "UnknownClass.unknownMethod()";
-        String testClassName = extractClassNameFromMethod(methodSignatureForClass) + "EnhancedTest";
-        Path testFile = context.getOutputDirectory().resolve(testClassName + ".java");
-        
-        Files.createDirectories(testFile.getParent());
-        Files.write(testFile, testClassContent.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-        
-        return testFile;
-    }
-    
     private String extractClassNameFromMethod(String methodSignature) {
         if (methodSignature.contains(".")) {
             return methodSignature.substring(0, methodSignature.lastIndexOf('.'));
@@ -0,0 +1,140 @@
+package cz.cuni.mff.d3s.autodebugger.testgenerator.java.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoveringArrayGeneratorTest {
+
+    @Test
+    void givenFourSlotsWithThreeValues_whenGeneratingPairwise_thenCoversEveryPairWithFewerRows() {
+        List<Integer> slotIDs = List.of(0, 1, 2, 3);
+        Map<Integer, List<Object>> values = valuesOf(slotIDs, 3, 3, 3, 3);
+
+        List<Map<Integer, Object>> combinations = generate(new CoveringArrayGenerator(2), slotIDs, values, Integer.MAX_VALUE);
+
+        assertCovers(combinations, slotIDs, values, 2);
+        assertTrue(combinations.size() < 81, "Should use fewer rows than the Cartesian product");
+        assertTrue(combinations.size() >= 9, "Cannot cover 9 pairs of two slots in fewer rows");
+    }
+
+    @Test
+    void givenUnevenSlots_whenGeneratingThreeWise_thenCoversEveryTriple() {
+        List<Integer> slotIDs = List.of(4, 7, 1, 9, 2, 5);
+        Map<Integer, List<Object>> values = valuesOf(slotIDs, 2, 4, 3, 1, 5, 2);
+
+        List<Map<Integer, Object>> combinations = generate(new CoveringArrayGenerator(3), slotIDs, values, Integer.MAX_VALUE);
+
+        assertCovers(combinations, slotIDs, values, 3);
+        assertTrue(combinations.size() < 2 * 4 * 3 * 5 * 2);
+    }
+
+    @Test
+    void givenStrengthAtLeastSlotCount_whenGenerating_thenReturnsCartesianProduct() {
+        List<Integer> slotIDs = List.of(0, 1);
+        Map<Integer, List<Object>> values = valuesOf(slotIDs, 3, 2);
+
+        List<Map<Integer, Object>> combinations = generate(new CoveringArrayGenerator(3), slotIDs, values, Integer.MAX_VALUE);
+
+        assertEquals(6, combinations.size());
+        assertEquals(6, new HashSet<>(combinations).size());
+    }
+
+    @Test
+    void givenCombinationLimit_whenGenerating_thenStopsAtLimit() {
+        List<Integer> slotIDs = List.of(0, 1, 2);
+        Map<Integer, List<Object>> values = valuesOf(slotIDs, 4, 4, 4);
+
+        assertEquals(5, generate(new CoveringArrayGenerator(2), slotIDs, values, 5).size());
+        assertTrue(generate(new CoveringArrayGenerator(2), List.of(0, 1), valuesOf(List.of(0, 1), 0, 3), 5).isEmpty());
+    }
+
+    @Test
+    void givenLargeStrengthFourRequest_whenGeneratingWithLimit_thenBuildsOnlyLimitedRows() {
+        List<Integer> slotIDs = List.of(0, 1, 2, 3, 4, 5);
+        Map<Integer, List<Object>> values = valuesOf(slotIDs, 50, 50, 50, 50, 50, 50);
+
+        List<Map<Integer, Object>> combinations = generate(new CoveringArrayGenerator(4), slotIDs, values, 1000);
+
+        assertEquals(1000, combinations.size());
+        assertEquals(1000, new HashSet<>(combinations).size());
+    }
+
+    @Test
+    void givenTooManyCombinationsToTrack_whenGenerating_thenThrows() {
+        List<Integer> slotIDs = List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        Map<Integer, List<Object>> values = valuesOf(slotIDs, 100, 100, 100, 100, 100, 100, 100, 100, 100, 100);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new CoveringArrayGenerator(4).generate(slotIDs, values, 10));
+    }
+
+    @Test
+    void givenStrengthBelowOne_whenCreatingGenerator_thenThrows() {
+        assertThrows(IllegalArgumentException.class, () -> new CoveringArrayGenerator(0));
+    }
+
+    private static List<Map<Integer, Object>> generate(CoveringArrayGenerator generator, List<Integer> slotIDs,
+                                                       Map<Integer, List<Object>> values, int maxCombinations) {
+        List<Map<Integer, Object>> combinations = new ArrayList<>();
+        generator.generate(slotIDs, values, maxCombinations).forEachRemaining(combination -> {
+            Map<Integer, Object> bySlot = new HashMap<>();
+            for (int i = 0; i < slotIDs.size(); i++) {
+                bySlot.put(slotIDs.get(i), combination[i]);
+            }
+            combinations.add(bySlot);
+        });
+        return combinations;
+    }
+
+    private static Map<Integer, List<Object>> valuesOf(List<Integer> slotIDs, int... counts) {
+        Map<Integer, List<Object>> values = new HashMap<>();
+        for (int i = 0; i < slotIDs.size(); i++) {
+            List<Object> slotValues = new ArrayList<>();
+            for (int v = 0; v < counts[i]; v++) {
+                slotValues.add("s" + slotIDs.get(i) + "v" + v);
+            }
+            values.put(slotIDs.get(i), slotValues);
+        }
+        return values;
+    }
+
+    /**
+     * Checks that every combination of values of every t slots appears in some row.
+     */
+    private static void assertCovers(List<Map<Integer, Object>> combinations, List<Integer> slotIDs,
+                                     Map<Integer, List<Object>> values, int t) {
+        for (Map<Integer, Object> combination : combinations) {
+            assertEquals(new HashSet<>(slotIDs), combination.keySet(), "Every row should assign every slot");
+        }
+        forEachSubset(slotIDs, t, 0, new ArrayList<>(), subset -> {
+            Set<List<Object>> seen = new HashSet<>();
+            for (Map<Integer, Object> combination : combinations) {
+                seen.add(subset.stream().map(combination::get).toList());
+            }
+            int expected = subset.stream().mapToInt(slot -> values.get(slot).size()).reduce(1, (a, b) -> a * b);
+            assertEquals(expected, seen.size(), "Missing value combinations of slots " + subset);
+        });
+    }
+
+    private static void forEachSubset(List<Integer> slotIDs, int size, int from, List<Integer> current,
+                                      Consumer<List<Integer>> action) {
+        if (current.size() == size) {
+            action.accept(List.copyOf(current));
+            return;
+        }
+        for (int i = from; i < slotIDs.size(); i++) {
+            current.add(slotIDs.get(i));
+            forEachSubset(slotIDs, size, i + 1, current, action);
+            current.remove(current.size() - 1);
+        }
+    }
+}
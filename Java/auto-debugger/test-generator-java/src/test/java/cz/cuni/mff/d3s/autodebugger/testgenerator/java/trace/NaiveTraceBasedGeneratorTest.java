@@ -10,6 +10,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.DataInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
@@ -507,4 +508,65 @@ class NaiveTraceBasedGeneratorTest {
         assertTrue(exception.getMessage().contains("Cannot generate tests from empty trace"),
                   "Exception should indicate empty trace issue");
     }
+
+    /**
+     * Test data-driven generation: scenario inputs go to a resource read by one parameterized test
+     */
+    @Test
+    void givenParameterizedTestsEnabled_whenGeneratingTests_thenWritesSingleParameterizedTestAndResource() throws Exception {
+        JavaArgumentIdentifier arg1 = new JavaArgumentIdentifier(
+            ArgumentIdentifierParameters.builder()
+                .argumentSlot(0)
+                .variableType("int")
+                .build()
+        );
+        JavaArgumentIdentifier arg2 = new JavaArgumentIdentifier(
+            ArgumentIdentifierParameters.builder()
+                .argumentSlot(1)
+                .variableType("java.lang.String")
+                .build()
+        );
+
+        identifierMapping.put(0, arg1);
+        identifierMapping.put(1, arg2);
+        generator = new NaiveTraceBasedGenerator(identifierMapping);
+
+        Trace trace = new Trace();
+        for (int i = 0; i < 50; i++) {
+            trace.addIntValue(0, i);
+        }
+        trace.addStringValue(1, "a");
+        trace.addStringValue(1, "b");
+
+        MethodIdentifier methodIdentifier = new MethodIdentifier("add", "int", List.of("int", "java.lang.String")) {
+            @Override public String getClassName() { return "Calculator"; }
+            @Override public String getPackageName() { return "com.example"; }
+            @Override public String getFullyQualifiedClassName() { return "Calculator"; }
+            @Override public String getFullyQualifiedSignature() { return "Calculator.add(int, java.lang.String)"; }
+        };
+        TestGenerationContext context = TestGenerationContext.builder()
+                .targetMethod(methodIdentifier)
+                .outputDirectory(tempDir)
+                .generateParameterizedTests(true)
+                .build();
+
+        List<Path> generatedFiles = generator.generateTests(trace, tempDir, context);
+
+        assertEquals(1, generatedFiles.size(), "Should return only the test source file");
+        String content = Files.readString(generatedFiles.getFirst());
+        assertEquals(1, content.lines().filter(line -> line.trim().equals("@ParameterizedTest")).count());
+        assertTrue(content.contains("@MethodSource(\"scenarios\")"));
+        assertTrue(content.contains("void testAdd(int arg0, java.lang.String arg1)"));
+        assertTrue(content.contains("var result = calculator.add(arg0, arg1);"));
+        assertFalse(content.contains("@Test"), "Should not generate a test method per scenario");
+        assertFalse(content.contains(tempDir.toAbsolutePath().toString()),
+                "Should not compile the output directory into the test");
+
+        Path resource = tempDir.resolve("CalculatorTest.scenarios");
+        assertTrue(Files.exists(resource), "Scenario inputs should be written next to the test");
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(resource))) {
+            in.readInt();
+            assertEquals(2, in.readInt(), "Every scenario should hold two values");
+        }
+    }
 }
@@ -0,0 +1,85 @@
+package cz.cuni.mff.d3s.autodebugger.testgenerator.java.trace;
+
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.ObjectSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScenarioKeySetTest {
+
+    @Test
+    void givenEqualValueTuples_whenAdding_thenOnlyFirstIsNew() {
+        ScenarioKeySet keys = new ScenarioKeySet();
+
+        assertTrue(keys.add(new Object[]{1, "a"}, new Object[]{2.5}));
+        assertFalse(keys.add(new Object[]{Integer.valueOf(1), new String("a")}, new Object[]{Double.valueOf(2.5)}));
+        assertEquals(1, keys.size());
+    }
+
+    @Test
+    void givenTuplesDifferingInTypeOrSplit_whenAdding_thenAllAreNew() {
+        ScenarioKeySet keys = new ScenarioKeySet();
+
+        assertTrue(keys.add(new Object[]{1}, new Object[]{2}));
+        assertTrue(keys.add(new Object[]{1L}, new Object[]{2}));
+        assertTrue(keys.add(new Object[]{1, 2}, new Object[0]));
+        assertTrue(keys.add(new Object[]{2}, new Object[]{1}));
+        assertTrue(keys.add(new Object[]{"ab"}, new Object[]{"c"}));
+        assertTrue(keys.add(new Object[]{"a"}, new Object[]{"bc"}));
+        assertTrue(keys.add(new Object[]{null}, new Object[]{2}));
+        assertFalse(keys.add(new Object[]{1}, new Object[]{2}));
+        assertEquals(7, keys.size());
+    }
+
+    @Test
+    void givenEqualSnapshotsWithFieldsInDifferentOrder_whenAdding_thenTreatedAsDuplicate() {
+        ObjectSnapshot first = point(1, 2);
+        ObjectSnapshot reordered = new ObjectSnapshot("com.example.Point");
+        reordered.putField("y", 2);
+        reordered.putField("x", 1);
+        ObjectSnapshot line = new ObjectSnapshot("com.example.Line");
+        line.putField("from", first);
+        line.putField("to", point(3, 4));
+        ObjectSnapshot sameLine = new ObjectSnapshot("com.example.Line");
+        sameLine.putField("to", point(3, 4));
+        sameLine.putField("from", reordered);
+        ScenarioKeySet keys = new ScenarioKeySet();
+
+        assertTrue(keys.add(new Object[]{first}, new Object[0]));
+        assertFalse(keys.add(new Object[]{reordered}, new Object[0]));
+        assertFalse(keys.add(new Object[]{first.freeze()}, new Object[0]));
+        assertTrue(keys.add(new Object[]{point(1, 3)}, new Object[0]));
+        assertTrue(keys.add(new Object[]{line}, new Object[0]));
+        assertFalse(keys.add(new Object[]{sameLine.freeze()}, new Object[0]));
+    }
+
+    @Test
+    void givenManyDistinctTuples_whenAdding_thenAllKeptAcrossGrowth() {
+        ScenarioKeySet keys = new ScenarioKeySet();
+
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(keys.add(new Object[]{i}, new Object[]{"v" + (i % 7)}));
+        }
+        for (int i = 0; i < 100_000; i += 997) {
+            assertFalse(keys.add(new Object[]{i}, new Object[]{"v" + (i % 7)}));
+        }
+        assertEquals(100_000, keys.size());
+    }
+
+    @Test
+    void givenCyclicSnapshot_whenAdding_thenHashedWithoutOverflow() {
+        ObjectSnapshot node = new ObjectSnapshot("com.example.Node");
+        node.putField("next", node);
+        ScenarioKeySet keys = new ScenarioKeySet();
+
+        assertTrue(keys.add(new Object[]{node}, new Object[0]));
+        assertFalse(keys.add(new Object[]{node}, new Object[0]));
+    }
+
+    private static ObjectSnapshot point(int x, int y) {
+        ObjectSnapshot snapshot = new ObjectSnapshot("com.example.Point");
+        snapshot.putField("x", x);
+        snapshot.putField("y", y);
+        return snapshot;
+    }
+}
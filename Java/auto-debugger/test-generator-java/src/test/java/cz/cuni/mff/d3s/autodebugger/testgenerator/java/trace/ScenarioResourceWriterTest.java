@@ -0,0 +1,106 @@
+package cz.cuni.mff.d3s.autodebugger.testgenerator.java.trace;
+
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.ObjectSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScenarioResourceWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void givenScenarios_whenWriting_thenWritesTaggedValuesInOrderAndEndMarker() throws Exception {
+        Path file = tempDir.resolve("CalculatorTest.scenarios");
+
+        try (ScenarioResourceWriter writer = new ScenarioResourceWriter(file, 3)) {
+            writer.write(new Object[]{42, "Čau"}, new Object[]{7L});
+            writer.write(new Object[]{null, ""}, new Object[]{-1L});
+            writer.complete();
+            assertEquals(2, writer.getScenarioCount());
+        }
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            assertEquals(0x41445331, in.readInt());
+            assertEquals(3, in.readInt());
+
+            assertEquals(1, in.readByte());
+            assertEquals('I', in.readByte());
+            assertEquals(42, in.readInt());
+            assertEquals('T', in.readByte());
+            assertEquals("Čau", readString(in));
+            assertEquals('J', in.readByte());
+            assertEquals(7L, in.readLong());
+
+            assertEquals(1, in.readByte());
+            assertEquals('N', in.readByte());
+            assertEquals('T', in.readByte());
+            assertEquals("", readString(in));
+            assertEquals('J', in.readByte());
+            assertEquals(-1L, in.readLong());
+
+            assertEquals(0, in.readByte());
+            assertEquals(-1, in.read(), "Nothing should follow the end marker");
+        }
+    }
+
+    @Test
+    void givenObjectSnapshot_whenWriting_thenWritesClassNameAndFieldsWithoutMetadata() throws Exception {
+        Path file = tempDir.resolve("PointTest.scenarios");
+        ObjectSnapshot point = new ObjectSnapshot("com.example.Point");
+        point.putField("x", 1);
+        point.putField("$ref", "ignored");
+        point.putField("y", 2.5);
+
+        try (ScenarioResourceWriter writer = new ScenarioResourceWriter(file, 1)) {
+            writer.write(new Object[]{point}, new Object[0]);
+            writer.complete();
+        }
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            in.readInt();
+            in.readInt();
+            assertEquals(1, in.readByte());
+            assertEquals('O', in.readByte());
+            assertEquals("com.example.Point", readString(in));
+            assertEquals(2, in.readInt());
+            assertEquals('I', in.readByte());
+            assertEquals(1, in.readInt());
+            assertEquals('D', in.readByte());
+            assertEquals(2.5, in.readDouble());
+            assertEquals(0, in.readByte());
+        }
+    }
+
+    @Test
+    void givenWrongNumberOfValues_whenWriting_thenThrows() throws Exception {
+        try (ScenarioResourceWriter writer = new ScenarioResourceWriter(tempDir.resolve("T.scenarios"), 2)) {
+            assertThrows(IllegalArgumentException.class, () -> writer.write(new Object[]{1}, new Object[0]));
+        }
+    }
+
+    @Test
+    void givenTestClassName_whenGeneratingDecoder_thenReadsResourceOfThatClass() {
+        String source = ScenarioResourceWriter.decoderSource("CalculatorTest");
+
+        assertTrue(source.contains("private static final String SCENARIOS = \"CalculatorTest.scenarios\";"));
+        assertTrue(source.contains("CalculatorTest.class.getResourceAsStream(SCENARIOS)"));
+        assertFalse(source.contains("Files."), "Should only read the resource from the class path");
+        assertTrue(source.contains("accepts(constructor.getParameterTypes(), fields)"));
+        assertTrue(source.contains("in.readInt() != 0x41445331"));
+        assertTrue(source.contains("static Stream<Arguments> scenarios()"));
+    }
+
+    private static String readString(DataInputStream in) throws Exception {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,106 @@
+package cz.cuni.mff.d3s.autodebugger.testgenerator.java.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedTestClassWriterTest {
+
+    private static final ShardedTestClassWriter.ClassTemplate TEMPLATE = new ShardedTestClassWriter.ClassTemplate() {
+        @Override
+        public String classHeader(String className, String baseClassName) {
+            return "public class " + className + (baseClassName != null ? " extends " + baseClassName : "") + " {\n";
+        }
+
+        @Override
+        public String baseClass(String baseClassName) {
+            return "public abstract class " + baseClassName + " {\n}\n";
+        }
+    };
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void givenMethodsWithinLimits_whenCompleting_thenWritesSingleClassUnderOriginalName() throws Exception {
+        List<Path> files;
+        try (ShardedTestClassWriter writer = new ShardedTestClassWriter(tempDir, "CalculatorTest", TEMPLATE, 10, 1000)) {
+            writer.appendMethod(method(1));
+            writer.appendMethod(method(2));
+            files = writer.complete();
+        }
+
+        assertEquals(List.of(tempDir.resolve("CalculatorTest.java")), files);
+        assertEquals("public class CalculatorTest {\n" + method(1) + "\n" + method(2) + "\n}\n", Files.readString(files.get(0)));
+        assertEquals(1, listFiles().size(), "Body files should be deleted");
+    }
+
+    @Test
+    void givenMoreMethodsThanPerClassLimit_whenCompleting_thenSplitsIntoClassesExtendingBase() throws Exception {
+        List<Path> files;
+        try (ShardedTestClassWriter writer = new ShardedTestClassWriter(tempDir, "CalculatorTest", TEMPLATE, 2, 1000)) {
+            for (int i = 1; i <= 5; i++) {
+                writer.appendMethod(method(i));
+            }
+            files = writer.complete();
+            assertEquals(5, writer.getMethodCount());
+        }
+
+        assertEquals(List.of(tempDir.resolve("CalculatorTestBase.java"), tempDir.resolve("CalculatorTest1.java"),
+                tempDir.resolve("CalculatorTest2.java"), tempDir.resolve("CalculatorTest3.java")), files);
+        assertEquals("public abstract class CalculatorTestBase {\n}\n", Files.readString(files.get(0)));
+        assertEquals("public class CalculatorTest2 extends CalculatorTestBase {\n" + method(3) + "\n" + method(4) + "\n}\n",
+                Files.readString(files.get(2)));
+        assertEquals("public class CalculatorTest3 extends CalculatorTestBase {\n" + method(5) + "\n}\n",
+                Files.readString(files.get(3)));
+        assertEquals(4, listFiles().size(), "Body files should be deleted");
+    }
+
+    @Test
+    void givenMethodsOverSizeLimit_whenCompleting_thenStartsNewClassBeforeExceedingIt() throws Exception {
+        int methodSize = method(1).length() + 1;
+        List<Path> files;
+        try (ShardedTestClassWriter writer = new ShardedTestClassWriter(tempDir, "CalculatorTest", TEMPLATE,
+                100, 3L * methodSize - 1)) {
+            for (int i = 1; i <= 4; i++) {
+                writer.appendMethod(method(i));
+            }
+            files = writer.complete();
+        }
+
+        assertEquals(3, files.size(), "Two methods fit into a class, the third would exceed the limit");
+        assertTrue(Files.readString(files.get(1)).contains("test2()"));
+        assertTrue(Files.readString(files.get(2)).startsWith("public class CalculatorTest2 extends CalculatorTestBase {\n" + method(3)));
+    }
+
+    @Test
+    void givenNoMethods_whenCompleting_thenWritesEmptyClass() throws Exception {
+        List<Path> files;
+        try (ShardedTestClassWriter writer = new ShardedTestClassWriter(tempDir, "CalculatorTest", TEMPLATE, 1, 1)) {
+            files = writer.complete();
+        }
+
+        assertEquals("public class CalculatorTest {\n}\n", Files.readString(files.get(0)));
+    }
+
+    @Test
+    void givenNonPositiveLimit_whenCreatingWriter_thenThrows() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedTestClassWriter(tempDir, "T", TEMPLATE, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedTestClassWriter(tempDir, "T", TEMPLATE, 1, 0));
+    }
+
+    private static String method(int number) {
+        return "    @Test\n    void test" + number + "() {\n    }\n";
+    }
+
+    private List<Path> listFiles() throws Exception {
+        try (var files = Files.list(tempDir)) {
+            return files.toList();
+        }
+    }
+}
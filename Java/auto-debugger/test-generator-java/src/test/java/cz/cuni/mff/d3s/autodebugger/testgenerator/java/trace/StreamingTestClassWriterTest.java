@@ -0,0 +1,64 @@
+package cz.cuni.mff.d3s.autodebugger.testgenerator.java.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingTestClassWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void givenAppendedMethods_whenCompleting_thenWritesHeaderBodyAndFooterInOrder() throws Exception {
+        Path testFile = tempDir.resolve("generated").resolve("CalculatorTest.java");
+
+        try (StreamingTestClassWriter writer = new StreamingTestClassWriter(testFile.getParent())) {
+            for (int i = 1; i <= 1000; i++) {
+                writer.append("    @Test\n    void test" + i + "() {\n    }\n\n");
+            }
+            writer.complete(testFile, "import com.example.Point;\n\npublic class CalculatorTest {\n\n", "}\n");
+        }
+
+        String content = Files.readString(testFile);
+        assertTrue(content.startsWith("import com.example.Point;\n\npublic class CalculatorTest {\n\n    @Test\n    void test1() {"));
+        assertTrue(content.endsWith("    void test1000() {\n    }\n\n}\n"));
+        assertEquals(1000, content.lines().filter(line -> line.trim().startsWith("@Test")).count());
+        assertEquals(List.of(testFile), listFiles(testFile.getParent()), "Body file should be deleted");
+    }
+
+    @Test
+    void givenWriterClosedWithoutCompleting_whenClosing_thenLeavesNoFiles() throws Exception {
+        Path testFile = tempDir.resolve("CalculatorTest.java");
+
+        try (StreamingTestClassWriter writer = new StreamingTestClassWriter(testFile.getParent())) {
+            writer.append("    void partial() {\n");
+        }
+
+        assertFalse(Files.exists(testFile));
+        assertTrue(listFiles(tempDir).isEmpty());
+    }
+
+    @Test
+    void givenNonAsciiCode_whenCompleting_thenWritesUtf8() throws Exception {
+        Path testFile = tempDir.resolve("UnicodeTest.java");
+
+        try (StreamingTestClassWriter writer = new StreamingTestClassWriter(testFile.getParent())) {
+            writer.append("        var result = greeter.greet(\"Čau světe\");\n");
+            writer.complete(testFile, "// Příliš\n", "}\n");
+        }
+
+        assertEquals("// Příliš\n        var result = greeter.greet(\"Čau světe\");\n}\n", Files.readString(testFile));
+    }
+
+    private static List<Path> listFiles(Path directory) throws Exception {
+        try (var files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
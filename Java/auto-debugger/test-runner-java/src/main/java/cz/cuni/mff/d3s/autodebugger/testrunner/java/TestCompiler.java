@@ -5,17 +5,22 @@ import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jdt.core.compiler.batch.BatchCompiler;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Compiles Java test files using the Eclipse JDT compiler.
  * Handles classpath setup and compilation of generated test sources.
+ * Resources generated next to a test, named like its class with another extension, are
+ * copied next to the compiled class so the test finds them on its class path.
  */
 @Slf4j
 public class TestCompiler {
@@ -25,7 +30,7 @@ public class TestCompiler {
      * 
      * @param testFile Path to the Java source file to compile
      * @param configuration Test runner configuration containing classpath and other settings
-     * @return Path to the compiled .class file
+     * @return Path to the compiled .class file, with the resources of the test copied next to it
      */
     public Path compileTest(Path testFile, TestRunnerConfiguration configuration) {
         log.info("Compiling test file: {}", testFile);
@@ -63,6 +68,7 @@ public class TestCompiler {
             if (!Files.exists(compiledClass)) {
                 throw new RuntimeException("Compiled class file not found: " + compiledClass);
             }
+            copyResources(testFile, compiledClass.getParent());
             
             log.info("Successfully compiled test to: {}", compiledClass);
             return compiledClass;
@@ -98,6 +104,23 @@ public class TestCompiler {
         return outputDir;
     }
     
+    /**
+     * Copies the files next to the test file that share its class name but are not Java
+     * sources, such as the scenario inputs of a data-driven test, into the given directory.
+     */
+    private void copyResources(Path testFile, Path targetDir) throws IOException {
+        String prefix = getClassNameFromFile(testFile) + ".";
+        try (Stream<Path> siblings = Files.list(testFile.toAbsolutePath().getParent())) {
+            for (Path resource : siblings.toList()) {
+                String fileName = resource.getFileName().toString();
+                if (fileName.startsWith(prefix) && !fileName.endsWith(".java") && Files.isRegularFile(resource)) {
+                    Files.copy(resource, targetDir.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+                    log.debug("Copied test resource {} to {}", resource, targetDir);
+                }
+            }
+        }
+    }
+
     private List<String> buildCompilerArguments(Path testFile, Path outputDir, TestRunnerConfiguration configuration) {
         List<String> args = new ArrayList<>();
         
@@ -109,7 +132,7 @@ public class TestCompiler {
         args.add(outputDir.toString());
         
         // Classpath
-        String classpath = buildClasspath(configuration);
+        String classpath = buildClasspath(outputDir, configuration);
         if (!classpath.isEmpty()) {
             args.add("-cp");
             args.add(classpath);
@@ -132,9 +155,12 @@ public class TestCompiler {
         return args;
     }
     
-    private String buildClasspath(TestRunnerConfiguration configuration) {
+    private String buildClasspath(Path outputDir, TestRunnerConfiguration configuration) {
         List<String> classpathEntries = new ArrayList<>();
 
+        // Add classes compiled before, such as the shared base class of split generated tests
+        classpathEntries.add(outputDir.toAbsolutePath().toString());
+
         // Add configuration classpath entries (convert to absolute paths)
         for (Path entry : configuration.getClasspathEntries()) {
             if (Files.exists(entry)) {
@@ -107,6 +107,57 @@ class TestCompilerTest {
                   "All compiled class files should exist");
     }
 
+    @Test
+    void givenTestClassExtendingBaseInSeparateFile_whenCompileTests_thenResolvesCompiledBase() throws Exception {
+        Path base = writeTestFile("CalculatorTestBase.java", """
+            package com.example.tests;
+
+            public abstract class CalculatorTestBase {
+                protected StringBuilder instance;
+            }
+            """);
+
+        Path shard = writeTestFile("CalculatorTest1.java", """
+            package com.example.tests;
+
+            import org.junit.jupiter.api.Test;
+            import static org.junit.jupiter.api.Assertions.*;
+
+            public class CalculatorTest1 extends CalculatorTestBase {
+                @Test void test1() { instance = new StringBuilder("a"); assertEquals(1, instance.length()); }
+            }
+            """);
+
+        List<Path> compiledClasses = compiler.compileTests(List.of(base, shard), configuration);
+
+        assertEquals(2, compiledClasses.size());
+        assertTrue(compiledClasses.stream().allMatch(Files::exists),
+                  "Base and test class files should exist");
+    }
+
+    @Test
+    void givenResourceNextToTestFile_whenCompileTest_thenCopiesItNextToCompiledClass() throws Exception {
+        Path testFile = writeTestFile("DataDrivenTest.java", """
+            package com.example.tests;
+
+            import org.junit.jupiter.api.Test;
+            import static org.junit.jupiter.api.Assertions.*;
+
+            public class DataDrivenTest {
+                @Test void test() { assertNotNull(DataDrivenTest.class.getResource("DataDrivenTest.scenarios")); }
+            }
+            """);
+        writeTestFile("DataDrivenTest.scenarios", "inputs");
+        writeTestFile("OtherTest.scenarios", "other inputs");
+
+        Path compiledClass = compiler.compileTest(testFile, configuration);
+
+        Path resource = compiledClass.getParent().resolve("DataDrivenTest.scenarios");
+        assertEquals("inputs", Files.readString(resource), "Resource should be copied next to the class");
+        assertFalse(Files.exists(compiledClass.getParent().resolve("OtherTest.scenarios")),
+                  "Resources of other tests should not be copied");
+    }
+
     // ==================== Error Handling Tests ====================
 
     @Test
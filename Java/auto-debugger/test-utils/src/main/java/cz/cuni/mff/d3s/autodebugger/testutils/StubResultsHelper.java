@@ -1,6 +1,7 @@
 package cz.cuni.mff.d3s.autodebugger.testutils;
 
 import cz.cuni.mff.d3s.autodebugger.model.common.trace.Trace;
+import cz.cuni.mff.d3s.autodebugger.model.common.trace.TraceFileWriter;
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.ArgumentIdentifierParameters;
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.JavaArgumentIdentifier;
 import cz.cuni.mff.d3s.autodebugger.model.java.identifiers.JavaValueIdentifier;
@@ -60,19 +61,16 @@ public final class StubResultsHelper {
   }
 
   /**
-   * Serializes a Trace object to a file using Java serialization.
+   * Writes a Trace object to a file in the .adtrace format.
    * This matches the format used by the real Collector in DiSL instrumentation.
    *
    * @param traceFilePath Path where the trace file should be created
-   * @param trace The Trace object to serialize
-   * @throws Exception if serialization fails
+   * @param trace The Trace object to write
+   * @throws Exception if writing fails
    */
   public static void writeSerializedTrace(Path traceFilePath, Trace trace) throws Exception {
     Files.createDirectories(traceFilePath.getParent());
-    try (FileOutputStream fileOutput = new FileOutputStream(traceFilePath.toFile());
-         ObjectOutputStream objectStream = new ObjectOutputStream(fileOutput)) {
-      objectStream.writeObject(trace);
-    }
+    TraceFileWriter.write(traceFilePath, trace);
   }
 
   /**